@@ -7,9 +7,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.polidea.rxandroidble.RxBleClient;
+import com.polidea.rxandroidble.RxBleConnectionPool;
 import com.polidea.rxandroidble.RxBleDevice;
 import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.RxBlePresenceTracker;
+import com.polidea.rxandroidble.RxBleScanFilter;
 import com.polidea.rxandroidble.RxBleScanResult;
+import com.polidea.rxandroidble.RxBleScanSettings;
+import com.polidea.rxandroidble.internal.connection.ConnectionPool;
+import com.polidea.rxandroidble.internal.scan.CompiledScanFilter;
+import com.polidea.rxandroidble.internal.scan.PresenceIndex;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -18,9 +26,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import rx.Observable;
+import rx.functions.Action1;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subjects.ReplaySubject;
 
 /**
@@ -81,7 +92,7 @@ public class RxBleClientMock extends RxBleClient {
         private String deviceName;
         private String deviceMacAddress;
         private byte[] scanRecord;
-        private RxBleDeviceServices rxBleDeviceServices;
+        private List<BluetoothGattService> bluetoothGattServices;
         private Map<UUID, Observable<byte[]>> characteristicNotificationSources;
 
         /**
@@ -92,7 +103,7 @@ public class RxBleClientMock extends RxBleClient {
          * are optional.
          */
         public DeviceBuilder() {
-            this.rxBleDeviceServices = new RxBleDeviceServices(new ArrayList<BluetoothGattService>());
+            this.bluetoothGattServices = new ArrayList<>();
             this.characteristicNotificationSources = new HashMap<>();
         }
 
@@ -107,7 +118,7 @@ public class RxBleClientMock extends RxBleClient {
             for (BluetoothGattCharacteristic characteristic : characteristics) {
                 bluetoothGattService.addCharacteristic(characteristic);
             }
-            rxBleDeviceServices.getBluetoothGattServices().add(bluetoothGattService);
+            bluetoothGattServices.add(bluetoothGattService);
             return this;
         }
 
@@ -123,10 +134,10 @@ public class RxBleClientMock extends RxBleClient {
                     deviceMacAddress,
                     scanRecord,
                     rssi,
-                    rxBleDeviceServices,
+                    new RxBleDeviceServices(bluetoothGattServices),
                     characteristicNotificationSources);
 
-            for (BluetoothGattService service : rxBleDeviceServices.getBluetoothGattServices()) {
+            for (BluetoothGattService service : bluetoothGattServices) {
                 rxBleDeviceMock.addAdvertisedUUID(service.getUuid());
             }
             return rxBleDeviceMock;
@@ -285,6 +296,89 @@ public class RxBleClientMock extends RxBleClient {
         return createScanOperation(filterServiceUUIDs);
     }
 
+    @Override
+    public Observable<RxBleScanResult> scanBleDevices(@NonNull RxBleScanSettings scanSettings, @Nullable UUID... filterServiceUUIDs) {
+        return createScanOperation(filterServiceUUIDs);
+    }
+
+    @Override
+    public Observable<RxBleScanResult> scanBleDevices(@NonNull RxBleScanSettings scanSettings, @NonNull RxBleScanFilter scanFilter) {
+        final Set<UUID> filterServiceUUIDs = scanFilter.getServiceUuids();
+        final CompiledScanFilter compiledScanFilter = new CompiledScanFilter(scanFilter);
+        return createScanOperation(filterServiceUUIDs.toArray(new UUID[filterServiceUUIDs.size()]))
+                .filter(new Func1<RxBleScanResult, Boolean>() {
+                    @Override
+                    public Boolean call(RxBleScanResult scanResult) {
+                        return compiledScanFilter.matches(
+                                MacAddressUtil.toLong(scanResult.getBleDevice().getMacAddress()),
+                                scanResult.getScanRecord()
+                        );
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<RxBleScanResult>> scanBleDevicesBatched(@NonNull RxBleScanSettings scanSettings,
+                                                                   @Nullable UUID... filterServiceUUIDs) {
+        return createScanOperation(filterServiceUUIDs)
+                .buffer(scanSettings.getReportDelayMillis(), TimeUnit.MILLISECONDS)
+                .filter(new Func1<List<RxBleScanResult>, Boolean>() {
+                    @Override
+                    public Boolean call(List<RxBleScanResult> batch) {
+                        return !batch.isEmpty();
+                    }
+                });
+    }
+
+    @Override
+    public Observable<Long> observeDeferredScanStarts() {
+        return Observable.never();
+    }
+
+    @Override
+    public RxBleConnectionPool createConnectionPool(int maxConnections, long idleTimeoutMillis) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must not be negative");
+        }
+        return new ConnectionPool(maxConnections, idleTimeoutMillis, Schedulers.computation());
+    }
+
+    @Override
+    public RxBlePresenceTracker createPresenceTracker(@NonNull RxBleScanSettings scanSettings, long lostTimeoutMillis,
+                                                      @Nullable final UUID... filterServiceUUIDs) {
+        return new PresenceIndex(
+                lostTimeoutMillis,
+                Schedulers.computation(),
+                new Func1<String, RxBleDevice>() {
+                    @Override
+                    public RxBleDevice call(String macAddress) {
+                        return getBleDevice(macAddress);
+                    }
+                },
+                new PresenceIndex.AdvertisementSource() {
+                    @Override
+                    public Observable<RxBlePresenceTracker.PresenceChange> observeAdvertisements(final PresenceIndex presenceIndex) {
+                        return createScanOperation(filterServiceUUIDs)
+                                .doOnNext(new Action1<RxBleScanResult>() {
+                                    @Override
+                                    public void call(RxBleScanResult scanResult) {
+                                        presenceIndex.onAdvertisement(
+                                                scanResult.getBleDevice().getMacAddress(),
+                                                scanResult.getRssi(),
+                                                scanResult.getScanRecord()
+                                        );
+                                    }
+                                })
+                                .ignoreElements()
+                                .cast(RxBlePresenceTracker.PresenceChange.class);
+                    }
+                }
+        );
+    }
+
     private RxBleScanResult convertToPublicScanResult(RxBleDevice bleDevice, Integer rssi, byte[] scanRecord) {
         return new RxBleScanResult(bleDevice, rssi, scanRecord);
     }
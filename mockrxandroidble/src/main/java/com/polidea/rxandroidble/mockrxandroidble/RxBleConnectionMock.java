@@ -5,13 +5,21 @@ import android.bluetooth.BluetoothGattDescriptor;
 import android.support.annotation.NonNull;
 
 import com.polidea.rxandroidble.NotificationSetupMode;
+import com.polidea.rxandroidble.RxBleBatchResult;
 import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.RxBleWriteProgress;
 import com.polidea.rxandroidble.exceptions.BleConflictingNotificationAlreadySetException;
 import com.polidea.rxandroidble.internal.connection.ImmediateSerializedBatchAckStrategy;
 import com.polidea.rxandroidble.internal.util.ObservableUtil;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -20,7 +28,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import rx.Observable;
 import rx.functions.Action0;
+import rx.functions.Action2;
 import rx.functions.Actions;
+import rx.functions.Func0;
 import rx.functions.Func1;
 
 import static android.bluetooth.BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE;
@@ -244,14 +254,92 @@ public class RxBleConnectionMock implements RxBleConnection {
 
             private int maxBatchSize = 20; // default
 
-            private byte[] bytes;
+            private Observable<byte[]> bytesObservable;
+
+            private byte[] writtenBytes;
 
             private WriteOperationAckStrategy writeOperationAckStrategy = // default
                     new ImmediateSerializedBatchAckStrategy();
 
             @Override
             public LongWriteOperationBuilder setBytes(byte[] bytes) {
-                this.bytes = bytes;
+                this.bytesObservable = Observable.just(bytes);
+                this.writtenBytes = bytes;
+                return this;
+            }
+
+            @Override
+            public LongWriteOperationBuilder setBytes(ByteBuffer byteBuffer) {
+                return setChunks(Observable.just(byteBuffer));
+            }
+
+            @Override
+            public LongWriteOperationBuilder setBytes(final InputStream inputStream) {
+                this.bytesObservable = Observable.fromCallable(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                        final byte[] buffer = new byte[1024];
+                        int count = inputStream.read(buffer);
+                        while (count != -1) {
+                            outputStream.write(buffer, 0, count);
+                            count = inputStream.read(buffer);
+                        }
+                        return outputStream.toByteArray();
+                    }
+                });
+                this.writtenBytes = new byte[0];
+                return this;
+            }
+
+            @Override
+            public LongWriteOperationBuilder setBytes(final FileChannel fileChannel) {
+                this.bytesObservable = Observable.fromCallable(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        final ByteBuffer byteBuffer = ByteBuffer.allocate((int) (fileChannel.size() - fileChannel.position()));
+                        int count = 0;
+                        while (byteBuffer.hasRemaining() && count != -1) {
+                            count = fileChannel.read(byteBuffer);
+                        }
+                        return byteBuffer.array();
+                    }
+                });
+                this.writtenBytes = new byte[0];
+                return this;
+            }
+
+            @Override
+            public LongWriteOperationBuilder setBytes(Observable<ByteBuffer> chunkObservable) {
+                return setChunks(chunkObservable);
+            }
+
+            private LongWriteOperationBuilder setChunks(Observable<ByteBuffer> chunkObservable) {
+                this.bytesObservable = chunkObservable
+                        .collect(
+                                new Func0<ByteArrayOutputStream>() {
+                                    @Override
+                                    public ByteArrayOutputStream call() {
+                                        return new ByteArrayOutputStream();
+                                    }
+                                },
+                                new Action2<ByteArrayOutputStream, ByteBuffer>() {
+                                    @Override
+                                    public void call(ByteArrayOutputStream outputStream, ByteBuffer byteBuffer) {
+                                        final ByteBuffer duplicate = byteBuffer.duplicate();
+                                        while (duplicate.hasRemaining()) {
+                                            outputStream.write(duplicate.get());
+                                        }
+                                    }
+                                }
+                        )
+                        .map(new Func1<ByteArrayOutputStream, byte[]>() {
+                            @Override
+                            public byte[] call(ByteArrayOutputStream outputStream) {
+                                return outputStream.toByteArray();
+                            }
+                        });
+                this.writtenBytes = new byte[0];
                 return this;
             }
 
@@ -294,10 +382,19 @@ public class RxBleConnectionMock implements RxBleConnection {
                     throw new IllegalArgumentException("setCharacteristicUuid() or setCharacteristic() needs to be called before build()");
                 }
 
-                if (bytes == null) {
+                if (bytesObservable == null) {
                     throw new IllegalArgumentException("setBytes() needs to be called before build()");
                 }
 
+                return bytesObservable.flatMap(new Func1<byte[], Observable<byte[]>>() {
+                    @Override
+                    public Observable<byte[]> call(byte[] bytes) {
+                        return writeBatches(bytes);
+                    }
+                });
+            }
+
+            private Observable<byte[]> writeBatches(byte[] bytes) {
                 final boolean excess = bytes.length % maxBatchSize > 0;
                 final AtomicInteger numberOfBatches = new AtomicInteger(bytes.length / maxBatchSize + (excess ? 1 : 0));
                 return Observable
@@ -321,7 +418,159 @@ public class RxBleConnectionMock implements RxBleConnection {
                             }
                         })
                         .toCompletable()
-                        .andThen(Observable.just(bytes));
+                        .andThen(Observable.just(writtenBytes));
+            }
+        };
+    }
+
+    @Override
+    public StreamingWriteOperationBuilder createNewStreamingWriteBuilder() {
+        return new StreamingWriteOperationBuilder() {
+
+            private Observable<BluetoothGattCharacteristic> bluetoothGattCharacteristicObservable;
+
+            private int maxBatchSize = 20; // default
+
+            private byte[] bytes;
+
+            @Override
+            public StreamingWriteOperationBuilder setBytes(@NonNull byte[] bytes) {
+                this.bytes = bytes;
+                return this;
+            }
+
+            @Override
+            public StreamingWriteOperationBuilder setCharacteristicUuid(@NonNull UUID uuid) {
+                bluetoothGattCharacteristicObservable = getCharacteristic(uuid);
+                return this;
+            }
+
+            @Override
+            public StreamingWriteOperationBuilder setCharacteristic(@NonNull BluetoothGattCharacteristic bluetoothGattCharacteristic) {
+                bluetoothGattCharacteristicObservable = Observable.just(bluetoothGattCharacteristic);
+                return this;
+            }
+
+            @Override
+            public StreamingWriteOperationBuilder setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+                return this;
+            }
+
+            @Override
+            public StreamingWriteOperationBuilder setMaxPendingWrites(int maxPendingWrites) {
+                return this;
+            }
+
+            @Override
+            public Observable<RxBleWriteProgress> build() {
+
+                if (bluetoothGattCharacteristicObservable == null) {
+                    throw new IllegalArgumentException("setCharacteristicUuid() or setCharacteristic() needs to be called before build()");
+                }
+
+                if (bytes == null) {
+                    throw new IllegalArgumentException("setBytes() needs to be called before build()");
+                }
+
+                final byte[] bytesToWrite = bytes;
+                final int batchSize = maxBatchSize;
+                final boolean excess = bytesToWrite.length % batchSize > 0;
+                final int numberOfBatches = Math.max(1, bytesToWrite.length / batchSize + (excess ? 1 : 0));
+                return bluetoothGattCharacteristicObservable
+                        .flatMap(new Func1<BluetoothGattCharacteristic, Observable<Integer>>() {
+                            @Override
+                            public Observable<Integer> call(BluetoothGattCharacteristic characteristic) {
+                                characteristic.setValue(bytesToWrite);
+                                return Observable.range(1, numberOfBatches);
+                            }
+                        })
+                        .map(new Func1<Integer, RxBleWriteProgress>() {
+                            @Override
+                            public RxBleWriteProgress call(Integer writtenBatches) {
+                                final long bytesWritten = Math.min((long) writtenBatches * batchSize, bytesToWrite.length);
+                                return new RxBleWriteProgress(bytesWritten, bytesToWrite.length, 0);
+                            }
+                        });
+            }
+        };
+    }
+
+    @Override
+    public BatchOperationBuilder createNewBatchBuilder() {
+        return new BatchOperationBuilder() {
+
+            private final List<Observable<byte[]>> operations = new ArrayList<>();
+
+            @Override
+            public BatchOperationBuilder addCharacteristicRead(@NonNull BluetoothGattCharacteristic characteristic) {
+                operations.add(readCharacteristic(characteristic));
+                return this;
+            }
+
+            @Override
+            public BatchOperationBuilder addCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic,
+                                                                @NonNull byte[] data) {
+                operations.add(writeCharacteristic(characteristic, data));
+                return this;
+            }
+
+            @Override
+            public BatchOperationBuilder addDescriptorRead(@NonNull BluetoothGattDescriptor descriptor) {
+                operations.add(readDescriptor(descriptor));
+                return this;
+            }
+
+            @Override
+            public BatchOperationBuilder addDescriptorWrite(@NonNull BluetoothGattDescriptor descriptor, @NonNull byte[] data) {
+                operations.add(writeDescriptor(descriptor, data));
+                return this;
+            }
+
+            @Override
+            public Observable<RxBleBatchResult> build() {
+
+                if (operations.isEmpty()) {
+                    throw new IllegalArgumentException("at least one operation needs to be added before build()");
+                }
+
+                final int operationsCount = operations.size();
+                return Observable.concat(Observable.from(new ArrayList<Observable<byte[]>>(operations)))
+                        .toList()
+                        .map(new Func1<List<byte[]>, RxBleBatchResult>() {
+                            @Override
+                            public RxBleBatchResult call(List<byte[]> values) {
+                                return new RxBleBatchResult(values, new long[operationsCount], 0);
+                            }
+                        });
+            }
+        };
+    }
+
+    @Override
+    public ReliableWriteOperationBuilder createNewReliableWriteBuilder() {
+        return new ReliableWriteOperationBuilder() {
+
+            private final BatchOperationBuilder batchOperationBuilder = createNewBatchBuilder();
+
+            private int writesCount;
+
+            @Override
+            public ReliableWriteOperationBuilder addCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic,
+                                                                        @NonNull byte[] data) {
+                batchOperationBuilder.addCharacteristicWrite(characteristic, data);
+                writesCount++;
+                return this;
+            }
+
+            @Override
+            public Observable<RxBleBatchResult> build() {
+
+                if (writesCount == 0) {
+                    throw new IllegalArgumentException("at least one write needs to be added before build()");
+                }
+
+                return batchOperationBuilder.build();
             }
         };
     }
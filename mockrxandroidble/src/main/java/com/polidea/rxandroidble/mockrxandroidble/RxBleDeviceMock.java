@@ -6,7 +6,9 @@ import android.content.Context;
 import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.RxBleDevice;
 import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.RxBleReconnectionPolicy;
 import com.polidea.rxandroidble.exceptions.BleAlreadyConnectedException;
+import com.polidea.rxandroidble.internal.connection.ReconnectingConnection;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +20,7 @@ import rx.Observable;
 import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Func0;
+import rx.schedulers.Schedulers;
 import rx.subjects.BehaviorSubject;
 
 import static com.polidea.rxandroidble.RxBleConnection.RxBleConnectionState.CONNECTED;
@@ -103,6 +106,19 @@ public class RxBleDeviceMock implements RxBleDevice {
         return observeConnectionStateChanges().toBlocking().first();
     }
 
+    @Override
+    public Observable<RxBleConnection> establishReconnectingConnection(Context context, RxBleReconnectionPolicy policy) {
+        return ReconnectingConnection.establish(macAddress, establishConnection(context, false), policy, Schedulers.computation());
+    }
+
+    /**
+     * The mocked client has no service discovery cache, the returned Observable completes without emission.
+     */
+    @Override
+    public Observable<RxBleDeviceServices> getCachedServices() {
+        return Observable.empty();
+    }
+
     @Override
     public String getMacAddress() {
         return macAddress;
@@ -0,0 +1,70 @@
+package com.polidea.rxandroidble;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a result of a batch of GATT operations created with {@link RxBleConnection#createNewBatchBuilder()}.
+ */
+public class RxBleBatchResult {
+
+    private final List<byte[]> values;
+    private final long[] operationDurationsNanos;
+    private final long durationNanos;
+
+    public RxBleBatchResult(List<byte[]> values, long[] operationDurationsNanos, long durationNanos) {
+        this.values = Collections.unmodifiableList(values);
+        this.operationDurationsNanos = operationDurationsNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the number of operations in the batch.
+     *
+     * @return the number of operations
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns the value read or written by the operation at the given position of the batch.
+     *
+     * @param index the position of the operation in the order it was added to the batch
+     * @return the read or written value
+     */
+    public byte[] getValue(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Returns the values read or written by the operations in the order they were added to the batch.
+     *
+     * @return the list of values
+     */
+    public List<byte[]> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns how long the operation at the given position of the batch took, from starting it to receiving its callback.
+     *
+     * @param index    the position of the operation in the order it was added to the batch
+     * @param timeUnit the unit of the returned duration
+     * @return the duration of the operation
+     */
+    public long getOperationDuration(int index, TimeUnit timeUnit) {
+        return timeUnit.convert(operationDurationsNanos[index], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how long the whole batch took, from starting the first operation to receiving the callback of the last one.
+     *
+     * @param timeUnit the unit of the returned duration
+     * @return the duration of the batch
+     */
+    public long getDuration(TimeUnit timeUnit) {
+        return timeUnit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -6,6 +6,7 @@ import android.support.annotation.Nullable;
 
 import com.polidea.rxandroidble.internal.RxBleLog;
 
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -20,7 +21,19 @@ public abstract class RxBleClient {
      * @return BLE client instance.
      */
     public static RxBleClient create(@NonNull Context context) {
-        return RxBleClientImpl.getInstance(context);
+        return create(context, new RxBleClientConfig.Builder().build());
+    }
+
+    /**
+     * Returns instance of RxBleClient using application context and the passed configuration. It is required by the client to maintain
+     * single instance of RxBleClient.
+     *
+     * @param context Any Android context
+     * @param config  Configuration of the client
+     * @return BLE client instance.
+     */
+    public static RxBleClient create(@NonNull Context context, @NonNull RxBleClientConfig config) {
+        return RxBleClientImpl.getInstance(context, config);
     }
 
     /**
@@ -56,4 +69,85 @@ public abstract class RxBleClient {
      * @throws com.polidea.rxandroidble.exceptions.BleScanException emits in case of error starting the scan
      */
     public abstract Observable<RxBleScanResult> scanBleDevices(@Nullable UUID... filterServiceUUIDs);
+
+    /**
+     * Returns an infinite observable emitting BLE scan results of a scan with the passed settings.
+     * On Android 5.0 and newer the scan is started with {@link android.bluetooth.le.BluetoothLeScanner} and the filtering is offloaded
+     * to the Bluetooth controller where possible. On older Android versions the settings are ignored and the scan behaves exactly like
+     * {@link #scanBleDevices(UUID...)}.
+     * <p>
+     * Scan is started on subscribe and stopped on unsubscribe. You can safely subscribe multiple observers to this observable.
+     *
+     * @param scanSettings       Settings of the scan.
+     * @param filterServiceUUIDs Filtering settings. Scan results are only filtered by exported services.
+     * @throws com.polidea.rxandroidble.exceptions.BleScanException emits in case of error starting the scan
+     */
+    public abstract Observable<RxBleScanResult> scanBleDevices(@NonNull RxBleScanSettings scanSettings,
+                                                               @Nullable UUID... filterServiceUUIDs);
+
+    /**
+     * Returns an infinite observable emitting BLE scan results that match the filter. The service UUIDs of the filter are handled
+     * like in {@link #scanBleDevices(RxBleScanSettings, UUID...)}. The other criteria are compiled once and evaluated on the raw
+     * advertisement before a {@link RxBleScanResult} is created, so advertisements that do not match cost no allocation.
+     * <p>
+     * Scan is started on subscribe and stopped on unsubscribe. You can safely subscribe multiple observers to this observable.
+     *
+     * @param scanSettings Settings of the scan.
+     * @param scanFilter   Filter of the scan results.
+     * @throws com.polidea.rxandroidble.exceptions.BleScanException emits in case of error starting the scan
+     */
+    public abstract Observable<RxBleScanResult> scanBleDevices(@NonNull RxBleScanSettings scanSettings,
+                                                               @NonNull RxBleScanFilter scanFilter);
+
+    /**
+     * Returns an infinite observable emitting BLE scan results in batches every {@link RxBleScanSettings#getReportDelayMillis()}.
+     * If the Bluetooth controller supports offloaded batching and all concurrent scans use a report delay, the results are collected
+     * by the controller. Otherwise they are collected by the library without passing every result through the observable chain.
+     * Empty batches are not emitted. Combined with {@link RxBleScanSettings.Builder#setDutyCycle(long, long)} it is meant for
+     * always-on discovery with the least possible number of wakeups.
+     *
+     * @param scanSettings       Settings of the scan with a positive report delay.
+     * @param filterServiceUUIDs Filtering settings. Scan results are only filtered by exported services.
+     * @throws com.polidea.rxandroidble.exceptions.BleScanException emits in case of error starting the scan
+     * @throws IllegalArgumentException                             emits if the report delay of the settings is not positive
+     */
+    public abstract Observable<List<RxBleScanResult>> scanBleDevicesBatched(@NonNull RxBleScanSettings scanSettings,
+                                                                            @Nullable UUID... filterServiceUUIDs);
+
+    /**
+     * Returns an infinite observable emitting the delay in milliseconds every time the start of a scan is deferred.
+     * Android 7.0 and newer stops delivering scan results to applications that start more than 5 scans within 30 seconds.
+     * The library holds the scan open through short gaps between subscriptions and defers starts that would exceed the limit
+     * - subscribers of {@link #scanBleDevices(RxBleScanSettings, UUID...)} receive no results until the deferred scan is started.
+     *
+     * @return observable of deferrals of scan starts
+     */
+    public abstract Observable<Long> observeDeferredScanStarts();
+
+    /**
+     * Creates an index of devices in range maintained by a scan with the passed settings while
+     * {@link RxBlePresenceTracker#observeChanges()} is subscribed. The scan is shared with other scans of the client. Every device
+     * is tracked with its last seen time, RSSI and advertisement hash without allocating for repeated advertisements so the tracker
+     * scales to thousands of advertising devices.
+     *
+     * @param scanSettings       Settings of the scan.
+     * @param lostTimeoutMillis  Time without an advertisement after which a device is considered lost.
+     * @param filterServiceUUIDs Filtering settings. Scan results are only filtered by exported services.
+     * @return the presence tracker
+     * @throws IllegalArgumentException if the timeout is not positive
+     */
+    public abstract RxBlePresenceTracker createPresenceTracker(@NonNull RxBleScanSettings scanSettings, long lostTimeoutMillis,
+                                                               @Nullable UUID... filterServiceUUIDs);
+
+    /**
+     * Creates a pool of connections that limits the number of simultaneously connected devices. Requests exceeding the limit wait
+     * in a queue ordered by priority and an idle connection of the pool may be closed in favour of a request with the same or higher
+     * priority. Connections established directly with {@link RxBleDevice#establishConnection(Context, boolean)} are not counted.
+     *
+     * @param maxConnections    Maximum number of simultaneously open connections.
+     * @param idleTimeoutMillis Time an unused connection is kept open for reuse, 0 to disconnect it immediately.
+     * @return the connection pool
+     * @throws IllegalArgumentException if the maximum number of connections is not positive or the timeout is negative
+     */
+    public abstract RxBleConnectionPool createConnectionPool(int maxConnections, long idleTimeoutMillis);
 }
@@ -0,0 +1,91 @@
+package com.polidea.rxandroidble;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Configuration of the {@link RxBleClient}. Use {@link Builder} to create an instance.
+ */
+public class RxBleClientConfig {
+
+    public enum RadioMode {
+        /**
+         * All operations (connecting, scanning and operations of every connection) are executed one after another.
+         */
+        SERIAL,
+        /**
+         * Every connection has its own serial lane of operations so operations of different connections may be executed at the same
+         * time. Only operations global to the adapter (connecting and scanning) are serialized.
+         */
+        PER_CONNECTION
+    }
+
+    private final RadioMode radioMode;
+    private final String serviceDiscoveryCacheVersion;
+    private final boolean serviceDiscoveryCacheRevalidated;
+
+    private RxBleClientConfig(RadioMode radioMode, String serviceDiscoveryCacheVersion, boolean serviceDiscoveryCacheRevalidated) {
+        this.radioMode = radioMode;
+        this.serviceDiscoveryCacheVersion = serviceDiscoveryCacheVersion;
+        this.serviceDiscoveryCacheRevalidated = serviceDiscoveryCacheRevalidated;
+    }
+
+    @NonNull
+    public RadioMode getRadioMode() {
+        return radioMode;
+    }
+
+    /**
+     * @return the version key of the service discovery cache or null if the cache is disabled
+     */
+    @Nullable
+    public String getServiceDiscoveryCacheVersion() {
+        return serviceDiscoveryCacheVersion;
+    }
+
+    public boolean isServiceDiscoveryCacheRevalidated() {
+        return serviceDiscoveryCacheRevalidated;
+    }
+
+    public static class Builder {
+
+        private RadioMode radioMode = RadioMode.SERIAL;
+        private String serviceDiscoveryCacheVersion;
+        private boolean serviceDiscoveryCacheRevalidated;
+
+        /**
+         * Setter for the way the operations are scheduled on the Bluetooth Radio. Default is {@link RadioMode#SERIAL}.
+         *
+         * @param radioMode the radio mode
+         * @return the Builder
+         */
+        public Builder setRadioMode(@NonNull RadioMode radioMode) {
+            this.radioMode = radioMode;
+            return this;
+        }
+
+        /**
+         * Enables the disk backed cache of service discovery results. Results of service discoveries are stored per device and
+         * are available through {@link RxBleDevice#getCachedServices()} without connecting. An entry is invalidated when the device
+         * indicates a change of its services. Default is disabled.
+         * <p>
+         * Android accepts only the attributes discovered on the current connection for GATT operations, so the cache does not
+         * replace the service discovery of a connection.
+         *
+         * @param versionKey  the version of the cached entries, entries stored with a different key are discarded - i.e. the
+         *                    firmware version of the devices
+         * @param revalidated true if the services should be discovered in the background on every connection to keep the entry
+         *                    up to date, false if the entry is updated only by service discoveries requested by the application
+         * @return the Builder
+         */
+        public Builder setServiceDiscoveryCache(@NonNull String versionKey, boolean revalidated) {
+            this.serviceDiscoveryCacheVersion = versionKey;
+            this.serviceDiscoveryCacheRevalidated = revalidated;
+            return this;
+        }
+
+        public RxBleClientConfig build() {
+            return new RxBleClientConfig(radioMode, serviceDiscoveryCacheVersion, serviceDiscoveryCacheRevalidated);
+        }
+    }
+}
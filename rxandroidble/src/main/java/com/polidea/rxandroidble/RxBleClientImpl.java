@@ -4,6 +4,7 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
 import android.location.LocationManager;
+import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -12,8 +13,17 @@ import com.polidea.rxandroidble.exceptions.BleScanException;
 import com.polidea.rxandroidble.internal.RxBleDeviceProvider;
 import com.polidea.rxandroidble.internal.RxBleInternalScanResult;
 import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache;
+import com.polidea.rxandroidble.internal.connection.ConnectionPool;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScan;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScanApi21;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScanBase;
 import com.polidea.rxandroidble.internal.radio.RxBleRadioImpl;
+import com.polidea.rxandroidble.internal.radio.RxBleRadioMultiLaneImpl;
+import com.polidea.rxandroidble.internal.scan.CompiledScanFilter;
+import com.polidea.rxandroidble.internal.scan.PresenceIndex;
+import com.polidea.rxandroidble.internal.scan.ScanConfiguration;
+import com.polidea.rxandroidble.internal.scan.ScanMultiplexer;
 import com.polidea.rxandroidble.internal.util.BleConnectionCompat;
 import com.polidea.rxandroidble.internal.util.CheckerLocationPermission;
 import com.polidea.rxandroidble.internal.util.CheckerLocationProvider;
@@ -23,9 +33,9 @@ import com.polidea.rxandroidble.internal.util.ProviderDeviceSdk;
 import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper;
 import com.polidea.rxandroidble.internal.util.UUIDUtil;
 
-import java.util.HashMap;
+import java.io.File;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -33,7 +43,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import rx.Observable;
 import rx.Scheduler;
-import rx.functions.Action0;
+import rx.Subscriber;
+import rx.android.schedulers.AndroidSchedulers;
 import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
@@ -42,29 +53,66 @@ class RxBleClientImpl extends RxBleClient {
     private final RxBleRadio rxBleRadio;
     private final UUIDUtil uuidUtil;
     private final RxBleDeviceProvider rxBleDeviceProvider;
-    private final Map<Set<UUID>, Observable<RxBleScanResult>> queuedScanOperations = new HashMap<>();
+    private static final RxBleScanSettings DEFAULT_SCAN_SETTINGS = new RxBleScanSettings.Builder().build();
+    private static final String SERVICE_DISCOVERY_CACHE_DIRECTORY = "rxandroidble_services";
+    private final ScanMultiplexer scanMultiplexer;
     private final RxBleAdapterWrapper rxBleAdapterWrapper;
     private final Observable<BleAdapterState> rxBleAdapterStateObservable;
     private final LocationServicesStatus locationServicesStatus;
+    private final ProviderDeviceSdk providerDeviceSdk;
 
     RxBleClientImpl(RxBleAdapterWrapper rxBleAdapterWrapper,
                     RxBleRadio rxBleRadio,
                     Observable<BleAdapterState> adapterStateObservable,
                     UUIDUtil uuidUtil,
                     LocationServicesStatus locationServicesStatus,
-                    RxBleDeviceProvider rxBleDeviceProvider) {
+                    RxBleDeviceProvider rxBleDeviceProvider,
+                    ProviderDeviceSdk providerDeviceSdk) {
         this.uuidUtil = uuidUtil;
+        this.providerDeviceSdk = providerDeviceSdk;
         this.rxBleRadio = rxBleRadio;
         this.rxBleAdapterWrapper = rxBleAdapterWrapper;
         this.rxBleAdapterStateObservable = adapterStateObservable;
         this.locationServicesStatus = locationServicesStatus;
         this.rxBleDeviceProvider = rxBleDeviceProvider;
+        this.scanMultiplexer = new ScanMultiplexer(
+                rxBleRadio,
+                new ScanMultiplexer.ScanOperationFactory() {
+                    @Override
+                    public RxBleRadioOperationScanBase createScanOperation(@NonNull ScanConfiguration scanConfiguration) {
+                        return RxBleClientImpl.this.createScanOperation(scanConfiguration);
+                    }
+
+                    @Override
+                    public boolean isConfigurable() {
+                        return RxBleClientImpl.this.providerDeviceSdk.provide() >= Build.VERSION_CODES.LOLLIPOP;
+                    }
+                },
+                new Func1<RxBleInternalScanResult, RxBleScanResult>() {
+                    @Override
+                    public RxBleScanResult call(RxBleInternalScanResult scanResult) {
+                        return RxBleClientImpl.this.convertToPublicScanResult(scanResult);
+                    }
+                },
+                Schedulers.computation(),
+                providerDeviceSdk.provide() >= Build.VERSION_CODES.N
+        );
     }
 
-    public static RxBleClientImpl getInstance(@NonNull Context context) {
+    public static RxBleClientImpl getInstance(@NonNull Context context, @NonNull RxBleClientConfig config) {
         final Context applicationContext = context.getApplicationContext();
         final RxBleAdapterWrapper rxBleAdapterWrapper = new RxBleAdapterWrapper(BluetoothAdapter.getDefaultAdapter());
-        final RxBleRadioImpl rxBleRadio = new RxBleRadioImpl();
+        final RxBleRadio rxBleRadio;
+        final RxBleRadio.ConnectionRadioProvider connectionRadioProvider;
+        if (config.getRadioMode() == RxBleClientConfig.RadioMode.PER_CONNECTION) {
+            final RxBleRadioMultiLaneImpl multiLaneRadio = new RxBleRadioMultiLaneImpl(AndroidSchedulers.mainThread());
+            rxBleRadio = multiLaneRadio;
+            connectionRadioProvider = multiLaneRadio;
+        } else {
+            final RxBleRadioImpl serialRadio = new RxBleRadioImpl(AndroidSchedulers.mainThread());
+            rxBleRadio = serialRadio;
+            connectionRadioProvider = serialRadio;
+        }
         final RxBleAdapterStateObservable adapterStateObservable = new RxBleAdapterStateObservable(applicationContext);
         final BleConnectionCompat bleConnectionCompat = new BleConnectionCompat(context);
         final ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -74,6 +122,14 @@ class RxBleClientImpl extends RxBleClient {
         final CheckerLocationProvider checkerLocationProvider = new CheckerLocationProvider(locationManager);
         final ProviderApplicationTargetSdk providerApplicationTargetSdk = new ProviderApplicationTargetSdk(applicationContext);
         final ProviderDeviceSdk providerDeviceSdk = new ProviderDeviceSdk();
+        final String serviceDiscoveryCacheVersion = config.getServiceDiscoveryCacheVersion();
+        final ServiceDiscoveryCache serviceDiscoveryCache = serviceDiscoveryCacheVersion == null
+                ? null
+                : new ServiceDiscoveryCache(
+                        new File(applicationContext.getCacheDir(), SERVICE_DISCOVERY_CACHE_DIRECTORY),
+                        serviceDiscoveryCacheVersion,
+                        config.isServiceDiscoveryCacheRevalidated()
+                );
         return new RxBleClientImpl(
                 rxBleAdapterWrapper,
                 rxBleRadio,
@@ -88,10 +144,13 @@ class RxBleClientImpl extends RxBleClient {
                 new RxBleDeviceProvider(
                         rxBleAdapterWrapper,
                         rxBleRadio,
+                        connectionRadioProvider,
                         bleConnectionCompat,
                         adapterStateObservable,
-                        gattCallbacksProcessingScheduler
-                )
+                        gattCallbacksProcessingScheduler,
+                        serviceDiscoveryCache
+                ),
+                providerDeviceSdk
         ) {
             @Override
             protected void finalize() throws Throwable {
@@ -119,36 +178,154 @@ class RxBleClientImpl extends RxBleClient {
 
     @Override
     public Observable<RxBleScanResult> scanBleDevices(@Nullable UUID... filterServiceUUIDs) {
+        return scanBleDevices(DEFAULT_SCAN_SETTINGS, filterServiceUUIDs);
+    }
 
+    @Override
+    public Observable<RxBleScanResult> scanBleDevices(@NonNull RxBleScanSettings scanSettings, @Nullable UUID... filterServiceUUIDs) {
+        final BleScanException scanPreconditionException = checkScanPreconditions();
+        if (scanPreconditionException != null) {
+            return Observable.error(scanPreconditionException);
+        }
+        return initializeScan(scanSettings, filterServiceUUIDs);
+    }
+
+    @Override
+    public Observable<RxBleScanResult> scanBleDevices(@NonNull final RxBleScanSettings scanSettings,
+                                                      @NonNull RxBleScanFilter scanFilter) {
+        final BleScanException scanPreconditionException = checkScanPreconditions();
+        if (scanPreconditionException != null) {
+            return Observable.error(scanPreconditionException);
+        }
+        final Set<UUID> filteredUUIDs = scanFilter.getServiceUuids();
+        final CompiledScanFilter compiledScanFilter = new CompiledScanFilter(scanFilter);
+
+        return Observable.create(new Observable.OnSubscribe<RxBleScanResult>() {
+            @Override
+            public void call(Subscriber<? super RxBleScanResult> subscriber) {
+                scanMultiplexer.addSubscriber(subscriber, filteredUUIDs, compiledScanFilter, scanSettings);
+            }
+        }).mergeWith(this.<RxBleScanResult>bluetoothAdapterOffExceptionObservable());
+    }
+
+    @Override
+    public Observable<List<RxBleScanResult>> scanBleDevicesBatched(@NonNull RxBleScanSettings scanSettings,
+                                                                   @Nullable UUID... filterServiceUUIDs) {
+        if (scanSettings.getReportDelayMillis() <= 0) {
+            return Observable.error(new IllegalArgumentException("Batched scan requires scan settings with a positive report delay"));
+        }
+        final BleScanException scanPreconditionException = checkScanPreconditions();
+        if (scanPreconditionException != null) {
+            return Observable.error(scanPreconditionException);
+        }
+        return initializeBatchedScan(scanSettings, filterServiceUUIDs);
+    }
+
+    @Nullable
+    private BleScanException checkScanPreconditions() {
         if (!rxBleAdapterWrapper.hasBluetoothAdapter()) {
-            return Observable.error(new BleScanException(BleScanException.BLUETOOTH_NOT_AVAILABLE));
+            return new BleScanException(BleScanException.BLUETOOTH_NOT_AVAILABLE);
         } else if (!rxBleAdapterWrapper.isBluetoothEnabled()) {
-            return Observable.error(new BleScanException(BleScanException.BLUETOOTH_DISABLED));
+            return new BleScanException(BleScanException.BLUETOOTH_DISABLED);
         } else if (!locationServicesStatus.isLocationPermissionOk()) {
-            return Observable.error(new BleScanException(BleScanException.LOCATION_PERMISSION_MISSING));
+            return new BleScanException(BleScanException.LOCATION_PERMISSION_MISSING);
         } else if (!locationServicesStatus.isLocationProviderOk()) {
-            return Observable.error(new BleScanException(BleScanException.LOCATION_SERVICES_DISABLED));
+            return new BleScanException(BleScanException.LOCATION_SERVICES_DISABLED);
         } else {
-            return initializeScan(filterServiceUUIDs);
+            return null;
+        }
+    }
+
+    @Override
+    public Observable<Long> observeDeferredScanStarts() {
+        return scanMultiplexer.observeDeferredScanStarts();
+    }
+
+    @Override
+    public RxBleConnectionPool createConnectionPool(int maxConnections, long idleTimeoutMillis) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be positive");
         }
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must not be negative");
+        }
+        return new ConnectionPool(maxConnections, idleTimeoutMillis, Schedulers.computation());
     }
 
-    private Observable<RxBleScanResult> initializeScan(@Nullable UUID[] filterServiceUUIDs) {
+    @Override
+    public RxBlePresenceTracker createPresenceTracker(@NonNull final RxBleScanSettings scanSettings, long lostTimeoutMillis,
+                                                      @Nullable UUID... filterServiceUUIDs) {
+        if (lostTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("lostTimeoutMillis must be positive");
+        }
         final Set<UUID> filteredUUIDs = uuidUtil.toDistinctSet(filterServiceUUIDs);
+        return new PresenceIndex(
+                lostTimeoutMillis,
+                Schedulers.computation(),
+                new Func1<String, RxBleDevice>() {
+                    @Override
+                    public RxBleDevice call(String macAddress) {
+                        return getBleDevice(macAddress);
+                    }
+                },
+                new PresenceIndex.AdvertisementSource() {
+                    @Override
+                    public Observable<RxBlePresenceTracker.PresenceChange> observeAdvertisements(PresenceIndex presenceIndex) {
+                        final BleScanException scanPreconditionException = checkScanPreconditions();
+                        if (scanPreconditionException != null) {
+                            return Observable.error(scanPreconditionException);
+                        }
+                        return initializePresenceScan(presenceIndex, scanSettings, filteredUUIDs);
+                    }
+                }
+        );
+    }
 
-        synchronized (queuedScanOperations) {
-            Observable<RxBleScanResult> matchingQueuedScan = queuedScanOperations.get(filteredUUIDs);
+    private Observable<RxBleScanResult> initializeScan(final RxBleScanSettings scanSettings, @Nullable UUID[] filterServiceUUIDs) {
+        final Set<UUID> filteredUUIDs = uuidUtil.toDistinctSet(filterServiceUUIDs);
 
-            if (matchingQueuedScan == null) {
-                matchingQueuedScan = createScanOperation(filterServiceUUIDs);
-                queuedScanOperations.put(filteredUUIDs, matchingQueuedScan);
+        return Observable.create(new Observable.OnSubscribe<RxBleScanResult>() {
+            @Override
+            public void call(Subscriber<? super RxBleScanResult> subscriber) {
+                scanMultiplexer.addSubscriber(subscriber, filteredUUIDs, scanSettings);
             }
+        }).mergeWith(this.<RxBleScanResult>bluetoothAdapterOffExceptionObservable());
+    }
 
-            return matchingQueuedScan;
-        }
+    private Observable<List<RxBleScanResult>> initializeBatchedScan(final RxBleScanSettings scanSettings,
+                                                                    @Nullable UUID[] filterServiceUUIDs) {
+        final Set<UUID> filteredUUIDs = uuidUtil.toDistinctSet(filterServiceUUIDs);
+
+        return Observable.create(new Observable.OnSubscribe<List<RxBleScanResult>>() {
+            @Override
+            public void call(Subscriber<? super List<RxBleScanResult>> subscriber) {
+                scanMultiplexer.addBatchSubscriber(subscriber, filteredUUIDs, scanSettings);
+            }
+        }).mergeWith(this.<List<RxBleScanResult>>bluetoothAdapterOffExceptionObservable());
     }
 
-    private Observable<RxBleInternalScanResult> bluetoothAdapterOffExceptionObservable() {
+    private Observable<RxBlePresenceTracker.PresenceChange> initializePresenceScan(final PresenceIndex presenceIndex,
+                                                                                   final RxBleScanSettings scanSettings,
+                                                                                   final Set<UUID> filteredUUIDs) {
+        final ScanMultiplexer.AdvertisementListener advertisementListener = new ScanMultiplexer.AdvertisementListener() {
+            @Override
+            public void onAdvertisement(RxBleInternalScanResult internalScanResult) {
+                presenceIndex.onAdvertisement(
+                        internalScanResult.getBluetoothDevice().getAddress(),
+                        internalScanResult.getRssi(),
+                        internalScanResult.getScanRecord()
+                );
+            }
+        };
+        return Observable.create(new Observable.OnSubscribe<RxBlePresenceTracker.PresenceChange>() {
+            @Override
+            public void call(Subscriber<? super RxBlePresenceTracker.PresenceChange> subscriber) {
+                scanMultiplexer.addListener(subscriber, advertisementListener, filteredUUIDs, scanSettings);
+            }
+        }).mergeWith(this.<RxBlePresenceTracker.PresenceChange>bluetoothAdapterOffExceptionObservable());
+    }
+
+    private <T> Observable<T> bluetoothAdapterOffExceptionObservable() {
         return rxBleAdapterStateObservable
                 .filter(new Func1<BleAdapterState, Boolean>() {
                     @Override
@@ -157,9 +334,9 @@ class RxBleClientImpl extends RxBleClient {
                     }
                 })
                 .first()
-                .flatMap(new Func1<BleAdapterState, Observable<? extends RxBleInternalScanResult>>() {
+                .flatMap(new Func1<BleAdapterState, Observable<? extends T>>() {
                     @Override
-                    public Observable<? extends RxBleInternalScanResult> call(BleAdapterState status) {
+                    public Observable<? extends T> call(BleAdapterState status) {
                         return Observable.error(new BleScanException(BleScanException.BLUETOOTH_DISABLED));
                     }
                 });
@@ -167,31 +344,23 @@ class RxBleClientImpl extends RxBleClient {
 
     private RxBleScanResult convertToPublicScanResult(RxBleInternalScanResult scanResult) {
         final BluetoothDevice bluetoothDevice = scanResult.getBluetoothDevice();
-        final RxBleDevice bleDevice = getBleDevice(bluetoothDevice.getAddress());
+        final RxBleDevice bleDevice = rxBleDeviceProvider.getBleDevice(bluetoothDevice);
         return new RxBleScanResult(bleDevice, scanResult.getRssi(), scanResult.getScanRecord());
     }
 
-    private Observable<RxBleScanResult> createScanOperation(@Nullable final UUID[] filterServiceUUIDs) {
-        final Set<UUID> filteredUUIDs = uuidUtil.toDistinctSet(filterServiceUUIDs);
-        final RxBleRadioOperationScan scanOperation = new RxBleRadioOperationScan(filterServiceUUIDs, rxBleAdapterWrapper, uuidUtil);
-        return rxBleRadio.queue(scanOperation)
-                .doOnUnsubscribe(new Action0() {
-                    @Override
-                    public void call() {
-
-                        synchronized (queuedScanOperations) {
-                            scanOperation.stop();
-                            queuedScanOperations.remove(filteredUUIDs);
-                        }
-                    }
-                })
-                .mergeWith(bluetoothAdapterOffExceptionObservable())
-                .map(new Func1<RxBleInternalScanResult, RxBleScanResult>() {
-                    @Override
-                    public RxBleScanResult call(RxBleInternalScanResult scanResult) {
-                        return RxBleClientImpl.this.convertToPublicScanResult(scanResult);
-                    }
-                })
-                .share();
+    private RxBleRadioOperationScanBase createScanOperation(ScanConfiguration scanConfiguration) {
+        final int deviceSdk = providerDeviceSdk.provide();
+        if (deviceSdk >= Build.VERSION_CODES.LOLLIPOP) {
+            final Set<UUID> anyOfServiceUuids = scanConfiguration.getAnyOfServiceUuids();
+            return new RxBleRadioOperationScanApi21(
+                    anyOfServiceUuids.toArray(new UUID[anyOfServiceUuids.size()]),
+                    scanConfiguration.getScanSettings(),
+                    rxBleAdapterWrapper,
+                    deviceSdk
+            );
+        } else {
+            // advertisements are filtered by the scan multiplexer
+            return new RxBleRadioOperationScan(rxBleAdapterWrapper);
+        }
     }
 }
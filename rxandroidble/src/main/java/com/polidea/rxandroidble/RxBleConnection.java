@@ -14,6 +14,9 @@ import com.polidea.rxandroidble.exceptions.BleGattCannotStartException;
 import com.polidea.rxandroidble.exceptions.BleGattException;
 import com.polidea.rxandroidble.exceptions.BleGattOperationType;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -55,13 +58,61 @@ public interface RxBleConnection {
 
         /**
          * Setter for a byte array to write
-         * This function MUST be called prior to {@link #build()}
+         * This function or one of the other setBytes() variants MUST be called prior to {@link #build()}
          *
          * @param bytes the bytes to write
          * @return the LongWriteOperationBuilder
          */
         LongWriteOperationBuilder setBytes(byte[] bytes);
 
+        /**
+         * Setter for a {@link ByteBuffer} to write. Bytes between the buffer's position and limit are written batch by batch without
+         * copying the whole payload to the heap, so the buffer may be direct or a memory-mapped file. The position of the passed buffer
+         * is not modified. When this setter is used the {@link Observable} returned by {@link #build()} emits an empty byte array.
+         * This function or one of the other setBytes() variants MUST be called prior to {@link #build()}
+         *
+         * @param byteBuffer the buffer to write
+         * @return the LongWriteOperationBuilder
+         */
+        LongWriteOperationBuilder setBytes(ByteBuffer byteBuffer);
+
+        /**
+         * Setter for an {@link InputStream} to write. The stream is read lazily, batch by batch, as the write advances so the payload is
+         * never held in memory as a whole. Reading happens on {@link rx.schedulers.Schedulers#io()} so a blocking stream does not stall
+         * the main thread. A stream that blocks for long still delays the write and may time it out. The stream is not closed after
+         * the write.
+         * When this setter is used the {@link Observable} returned by {@link #build()} emits an empty byte array.
+         * This function or one of the other setBytes() variants MUST be called prior to {@link #build()}
+         *
+         * @param inputStream the stream to write
+         * @return the LongWriteOperationBuilder
+         */
+        LongWriteOperationBuilder setBytes(InputStream inputStream);
+
+        /**
+         * Setter for a {@link FileChannel} to write. The channel is read lazily from its current position up to its size, batch by batch,
+         * as the write advances. Reading happens on {@link rx.schedulers.Schedulers#io()}. The channel is not closed after the write.
+         * When this setter is used the {@link Observable} returned by {@link #build()} emits an empty byte array.
+         * This function or one of the other setBytes() variants MUST be called prior to {@link #build()}
+         *
+         * @param fileChannel the channel to write
+         * @return the LongWriteOperationBuilder
+         */
+        LongWriteOperationBuilder setBytes(FileChannel fileChannel);
+
+        /**
+         * Setter for an {@link Observable} of chunks to write. The Observable is subscribed when the write starts and chunks are requested
+         * one at a time as the write advances - chunks of any size are split or joined into batches. The write continues when the next
+         * chunk is emitted and no thread is blocked waiting for it, so the Observable may emit on any thread. An error emitted by
+         * the Observable fails the write.
+         * When this setter is used the {@link Observable} returned by {@link #build()} emits an empty byte array.
+         * This function or one of the other setBytes() variants MUST be called prior to {@link #build()}
+         *
+         * @param chunkObservable the Observable emitting chunks to write
+         * @return the LongWriteOperationBuilder
+         */
+        LongWriteOperationBuilder setBytes(Observable<ByteBuffer> chunkObservable);
+
         /**
          * Setter for a {@link UUID} of the {@link BluetoothGattCharacteristic} to write to
          * This function or {@link #setCharacteristic(BluetoothGattCharacteristic)} MUST be called prior to {@link #build()}
@@ -113,7 +164,7 @@ public interface RxBleConnection {
         /**
          * Build function for the long write
          *
-         * @return the Observable which will queue the long write on subscription.
+         * @return the Observable which will queue the long write on subscription. Unsubscribing cancels the write.
          */
         Observable<byte[]> build();
     }
@@ -122,6 +173,149 @@ public interface RxBleConnection {
 
     }
 
+    /**
+     * The interface of a {@link com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicStreamingWrite} builder.
+     */
+    interface StreamingWriteOperationBuilder {
+
+        /**
+         * Setter for a byte array to write
+         * This function MUST be called prior to {@link #build()}
+         *
+         * @param bytes the bytes to write
+         * @return the StreamingWriteOperationBuilder
+         */
+        StreamingWriteOperationBuilder setBytes(@NonNull byte[] bytes);
+
+        /**
+         * Setter for a {@link UUID} of the {@link BluetoothGattCharacteristic} to write to
+         * This function or {@link #setCharacteristic(BluetoothGattCharacteristic)} MUST be called prior to {@link #build()}
+         *
+         * @param uuid the UUID
+         * @return the StreamingWriteOperationBuilder
+         */
+        StreamingWriteOperationBuilder setCharacteristicUuid(@NonNull UUID uuid);
+
+        /**
+         * Setter for a {@link BluetoothGattCharacteristic} to write to
+         * This function or {@link #setCharacteristicUuid(UUID)} MUST be called prior to {@link #build()}
+         *
+         * @param bluetoothGattCharacteristic the BluetoothGattCharacteristic
+         * @return the StreamingWriteOperationBuilder
+         */
+        StreamingWriteOperationBuilder setCharacteristic(@NonNull BluetoothGattCharacteristic bluetoothGattCharacteristic);
+
+        /**
+         * Setter for a maximum size of a byte array that may be write at once
+         * If this is not specified - the default value of the connection's MTU is used
+         *
+         * @param maxBatchSize the maximum size of a byte array to write at once
+         * @return the StreamingWriteOperationBuilder
+         */
+        StreamingWriteOperationBuilder setMaxBatchSize(int maxBatchSize);
+
+        /**
+         * Setter for a maximum number of batches that may be written without receiving
+         * {@link android.bluetooth.BluetoothGattCallback#onCharacteristicWrite} for them.
+         * If this is not specified - one batch may be pending at a time.
+         *
+         * Android stack refuses to start a write while the previous one was not yet handled - such refusals are not treated as errors
+         * but as a signal to wait for the next callback.
+         *
+         * @param maxPendingWrites the maximum number of not acknowledged batches
+         * @return the StreamingWriteOperationBuilder
+         */
+        StreamingWriteOperationBuilder setMaxPendingWrites(int maxPendingWrites);
+
+        /**
+         * Build function for the streaming write
+         *
+         * @return the Observable which will queue the streaming write on subscription and emit {@link RxBleWriteProgress} each time
+         * a batch is acknowledged. Completes after all bytes were written.
+         * @throws com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException if no batch was acknowledged for 30 seconds
+         * @throws BleGattCannotStartException if Android stack kept refusing to start a write while no write was pending
+         * @throws BleGattException if a write failed
+         */
+        Observable<RxBleWriteProgress> build();
+    }
+
+    /**
+     * The interface of a {@link com.polidea.rxandroidble.internal.operations.RxBleRadioOperationBatch} builder.
+     */
+    interface BatchOperationBuilder {
+
+        /**
+         * Adds a read of the given {@link BluetoothGattCharacteristic} to the batch
+         *
+         * @param characteristic the characteristic to read
+         * @return the BatchOperationBuilder
+         */
+        BatchOperationBuilder addCharacteristicRead(@NonNull BluetoothGattCharacteristic characteristic);
+
+        /**
+         * Adds a write of the given bytes to the given {@link BluetoothGattCharacteristic} to the batch
+         *
+         * @param characteristic the characteristic to write
+         * @param data           the bytes to write
+         * @return the BatchOperationBuilder
+         */
+        BatchOperationBuilder addCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic, @NonNull byte[] data);
+
+        /**
+         * Adds a read of the given {@link BluetoothGattDescriptor} to the batch
+         *
+         * @param descriptor the descriptor to read
+         * @return the BatchOperationBuilder
+         */
+        BatchOperationBuilder addDescriptorRead(@NonNull BluetoothGattDescriptor descriptor);
+
+        /**
+         * Adds a write of the given bytes to the given {@link BluetoothGattDescriptor} to the batch
+         *
+         * @param descriptor the descriptor to write
+         * @param data       the bytes to write
+         * @return the BatchOperationBuilder
+         */
+        BatchOperationBuilder addDescriptorWrite(@NonNull BluetoothGattDescriptor descriptor, @NonNull byte[] data);
+
+        /**
+         * Build function for the batch. At least one operation MUST be added prior to calling this function.
+         *
+         * @return the Observable which will queue the batch on subscription and emit a single {@link RxBleBatchResult}.
+         * @throws BleGattCannotStartException if any of the operations couldn't be started for internal reason. Following operations
+         *                                     of the batch are not executed.
+         * @throws BleGattException            if any of the operations failed. Following operations of the batch are not executed.
+         */
+        Observable<RxBleBatchResult> build();
+    }
+
+    /**
+     * The interface of a {@link com.polidea.rxandroidble.internal.operations.RxBleRadioOperationReliableWrite} builder.
+     */
+    interface ReliableWriteOperationBuilder {
+
+        /**
+         * Adds a write of the given bytes to the given {@link BluetoothGattCharacteristic} to the reliable write transaction
+         *
+         * @param characteristic the characteristic to write
+         * @param data           the bytes to write
+         * @return the ReliableWriteOperationBuilder
+         */
+        ReliableWriteOperationBuilder addCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic, @NonNull byte[] data);
+
+        /**
+         * Build function for the reliable write. At least one write MUST be added prior to calling this function.
+         *
+         * @return the Observable which will queue the reliable write on subscription and emit a single {@link RxBleBatchResult}
+         * with the written values once the whole transaction has been executed.
+         * @throws BleGattCannotStartException if the transaction or any of its writes couldn't be started for internal reason.
+         *                                     The transaction is aborted.
+         * @throws BleGattException            if any of the writes or the execution of the transaction failed.
+         *                                     The transaction is aborted.
+         */
+        Observable<RxBleBatchResult> build();
+    }
+
     /**
      * Performs GATT service discovery and emits discovered results. After service discovery you can walk through
      * {@link android.bluetooth.BluetoothGattService}s and {@link BluetoothGattCharacteristic}s.
@@ -348,6 +542,35 @@ public interface RxBleConnection {
      */
     LongWriteOperationBuilder createNewLongWriteBuilder();
 
+    /**
+     * Returns a StreamingWriteOperationBuilder used for creating write operations divided into multiple writes without response.
+     * Next batches are written as soon as the Android stack accepts them, without waiting for a separate acknowledgement of each batch.
+     * This is useful for high throughput transfers like firmware updates to characteristics that support
+     * {@link BluetoothGattCharacteristic#WRITE_TYPE_NO_RESPONSE}.
+     *
+     * @return the StreamingWriteOperationBuilder
+     */
+    StreamingWriteOperationBuilder createNewStreamingWriteBuilder();
+
+    /**
+     * Returns a BatchOperationBuilder used for creating a batch of characteristic and descriptor reads and writes that are executed
+     * one after another as a single operation. Other operations of the client are not executed in between and the operations
+     * of the batch do not pay the cost of being scheduled separately. This is useful when a number of characteristics has to be polled
+     * at once.
+     *
+     * @return the BatchOperationBuilder
+     */
+    BatchOperationBuilder createNewBatchBuilder();
+
+    /**
+     * Returns a ReliableWriteOperationBuilder used for writing a number of characteristics in a single reliable write (prepared write)
+     * transaction. The peripheral applies either all of the values or none of them, which is useful for atomic configuration
+     * of multiple attributes.
+     *
+     * @return the ReliableWriteOperationBuilder
+     */
+    ReliableWriteOperationBuilder createNewReliableWriteBuilder();
+
     /**
      * Performs GATT read operation on a descriptor from a characteristic with a given UUID from a service with a given UUID.
      *
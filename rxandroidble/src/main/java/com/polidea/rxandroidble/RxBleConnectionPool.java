@@ -0,0 +1,71 @@
+package com.polidea.rxandroidble;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import rx.Observable;
+
+/**
+ * Pool of connections limiting the number of simultaneous links. Android devices support a limited number of connected Bluetooth LE
+ * devices (usually 4 to 7) - beyond that connecting fails with GATT status 133 or established links degrade.
+ * <p>
+ * A connection that is no longer subscribed is kept open as idle until the idle timeout passed to
+ * {@link RxBleClient#createConnectionPool(int, long)} elapses, so it can be reused by the next request for the same device. When
+ * all links are in use a request waits in a queue ordered by priority. The least recently used idle connection is closed to make
+ * room for a request of the same or higher priority than the priority of the last request that used the connection.
+ * <p>
+ * Only connections established through the pool are counted - use a single pool for all connections of the application.
+ */
+public interface RxBleConnectionPool {
+
+    /**
+     * Establishes a connection with the device or shares the connection of the pool if the device is already connected.
+     * The connection is released when the returned Observable is unsubscribed and disconnected when it is no longer used by any
+     * subscriber and the idle timeout elapses or it is evicted for another request.
+     *
+     * @param bleDevice   the device to connect to
+     * @param context     Android's context
+     * @param autoConnect the autoConnect flag of {@link RxBleDevice#establishConnection(Context, boolean)}, ignored if the connection
+     *                    of the pool is shared
+     * @param priority    the priority of the request, requests with higher values are served first and can evict idle connections
+     *                    last used by requests with lower values
+     * @return Observable emitting the connection, errors of the connection are propagated to all subscribers that share it
+     */
+    Observable<RxBleConnection> establishConnection(@NonNull RxBleDevice bleDevice, @NonNull Context context, boolean autoConnect,
+                                                    int priority);
+
+    /**
+     * @return the maximum number of simultaneously open connections
+     */
+    int getMaxConnections();
+
+    /**
+     * @return the number of open connections including idle ones
+     */
+    int getActiveConnectionCount();
+
+    /**
+     * @return the number of open connections without subscribers
+     */
+    int getIdleConnectionCount();
+
+    /**
+     * @return the number of requests waiting for a free connection
+     */
+    int getPendingRequestCount();
+
+    /**
+     * @return the number of idle connections closed to make room for other requests
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the average time between a request and the start of its connection or sharing of an existing connection
+     */
+    long getAverageWaitTimeMillis();
+
+    /**
+     * @return the longest time between a request and the start of its connection or sharing of an existing connection
+     */
+    long getMaxWaitTimeMillis();
+}
@@ -53,6 +53,42 @@ public interface RxBleDevice {
      */
     Observable<RxBleConnection> establishConnection(Context context, boolean autoConnect);
 
+    /**
+     * Establishes a connection that survives the loss of the link. Whenever the link is lost the device is reconnected with
+     * a jittered exponential backoff configured by the policy while the emitted {@link RxBleConnection} stays valid:
+     * <ul>
+     * <li>operations requested while the device is reconnecting are executed on the next link,</li>
+     * <li>subscribed notifications and indications are set up again on every link and their {@code Observable<byte[]>} continues
+     * after a gap instead of erroring,</li>
+     * <li>attributes discovered on a previous link may be passed to the operations - they are resolved by their UUIDs on the current
+     * link.</li>
+     * </ul>
+     * Operations in progress when the link is lost fail with the error of the link and the MTU has to be requested again after
+     * a reconnection. The operation builders of the connection throw {@link BleDisconnectedException} while the device is
+     * reconnecting. Progress of the reconnection is visible through {@link #observeConnectionStateChanges()}.
+     *
+     * @param context Android's context.
+     * @param policy  The backoff of the reconnection attempts.
+     * @return Observable emitting the connection once the first link is established. The links are disconnected when it is
+     * unsubscribed.
+     * @throws BleGattException         emitted if the link failed with an error that is not caused by a loss of the link
+     * @throws BleDisconnectedException emitted if the maximum number of reconnection attempts of the policy was exceeded
+     */
+    Observable<RxBleConnection> establishReconnectingConnection(Context context, RxBleReconnectionPolicy policy);
+
+    /**
+     * Returns the services of the device stored by the service discovery cache without connecting to it. The cache is enabled with
+     * {@link RxBleClientConfig.Builder#setServiceDiscoveryCache(String, boolean)} and filled by service discoveries of previous
+     * connections.
+     * <p>
+     * The attributes of the cached services describe the structure of the device only - they cannot be used for operations of
+     * a {@link RxBleConnection} which have to use the services discovered on the connection. The first lookup of a device reads
+     * the cache from the disk so it is advised to subscribe off the main thread.
+     *
+     * @return Observable emitting the cached services and completing or completing without emission if there are no cached services
+     */
+    Observable<RxBleDeviceServices> getCachedServices();
+
     /**
      * Name of the device. Name is optional and it's up to the device vendor if will be provided.
      *
@@ -4,25 +4,52 @@ import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.polidea.rxandroidble.exceptions.BleCharacteristicNotFoundException;
 import com.polidea.rxandroidble.exceptions.BleServiceNotFoundException;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import rx.Observable;
-import rx.functions.Func1;
 
 /**
  * Service discovery result containing list of services and characteristics withing the services.
+ * <p>
+ * Lookups are synchronous and indexed - the services and characteristics are indexed by their UUIDs once on creation, so a lookup
+ * (i.e. before every write to a characteristic referenced by its UUID) costs a hash map lookup. Descriptors are looked up in their
+ * characteristic. The Observable variants are built on top of the synchronous ones.
  */
 public class RxBleDeviceServices {
 
     private final List<BluetoothGattService> bluetoothGattServices;
+    private final Map<UUID, BluetoothGattService> servicesByUuid;
+    private final Map<UUID, BluetoothGattCharacteristic> characteristicsByUuid;
+    private final Map<UUID, Map<UUID, BluetoothGattCharacteristic>> characteristicsByServiceUuid;
 
     public RxBleDeviceServices(List<BluetoothGattService> bluetoothGattServices) {
         this.bluetoothGattServices = bluetoothGattServices;
+        final Map<UUID, BluetoothGattService> services = new HashMap<>();
+        final Map<UUID, BluetoothGattCharacteristic> characteristics = new HashMap<>();
+        final Map<UUID, Map<UUID, BluetoothGattCharacteristic>> characteristicsByService = new HashMap<>();
+        for (BluetoothGattService bluetoothGattService : bluetoothGattServices) {
+            final Map<UUID, BluetoothGattCharacteristic> serviceCharacteristics = new HashMap<>();
+            for (BluetoothGattCharacteristic characteristic : bluetoothGattService.getCharacteristics()) {
+                // the first attribute with an UUID wins, the same as in BluetoothGatt#getService(UUID)
+                putIfAbsent(serviceCharacteristics, characteristic.getUuid(), characteristic);
+                putIfAbsent(characteristics, characteristic.getUuid(), characteristic);
+            }
+            if (putIfAbsent(services, bluetoothGattService.getUuid(), bluetoothGattService)) {
+                characteristicsByService.put(bluetoothGattService.getUuid(), Collections.unmodifiableMap(serviceCharacteristics));
+            }
+        }
+        servicesByUuid = Collections.unmodifiableMap(services);
+        characteristicsByUuid = Collections.unmodifiableMap(characteristics);
+        characteristicsByServiceUuid = Collections.unmodifiableMap(characteristicsByService);
     }
 
     /**
@@ -32,6 +59,71 @@ public class RxBleDeviceServices {
         return bluetoothGattServices;
     }
 
+    /**
+     * Finds the first {@link BluetoothGattService} with matching service UUID.
+     *
+     * @param serviceUuid Service UUID to be found
+     * @return the service or null if it hasn't been found
+     */
+    @Nullable
+    public BluetoothGattService findService(@NonNull UUID serviceUuid) {
+        return servicesByUuid.get(serviceUuid);
+    }
+
+    /**
+     * Finds the first {@link BluetoothGattCharacteristic} with matching characteristic UUID across all services.
+     *
+     * @param characteristicUuid Characteristic UUID to be found
+     * @return the characteristic or null if it hasn't been found
+     */
+    @Nullable
+    public BluetoothGattCharacteristic findCharacteristic(@NonNull UUID characteristicUuid) {
+        return characteristicsByUuid.get(characteristicUuid);
+    }
+
+    /**
+     * Finds the {@link BluetoothGattCharacteristic} with matching characteristic UUID in the first service with matching service UUID.
+     *
+     * @param serviceUuid        Service UUID to search in
+     * @param characteristicUuid Characteristic UUID to be found
+     * @return the characteristic or null if the service or the characteristic hasn't been found
+     */
+    @Nullable
+    public BluetoothGattCharacteristic findCharacteristic(@NonNull UUID serviceUuid, @NonNull UUID characteristicUuid) {
+        final Map<UUID, BluetoothGattCharacteristic> serviceCharacteristics = characteristicsByServiceUuid.get(serviceUuid);
+        return serviceCharacteristics != null ? serviceCharacteristics.get(characteristicUuid) : null;
+    }
+
+    /**
+     * Finds the {@link BluetoothGattDescriptor} with matching descriptor UUID of the first characteristic with matching
+     * characteristic UUID.
+     *
+     * @param characteristicUuid Characteristic UUID to search in
+     * @param descriptorUuid     Descriptor UUID to be found
+     * @return the descriptor or null if the characteristic or the descriptor hasn't been found
+     */
+    @Nullable
+    public BluetoothGattDescriptor findDescriptor(@NonNull UUID characteristicUuid, @NonNull UUID descriptorUuid) {
+        final BluetoothGattCharacteristic characteristic = findCharacteristic(characteristicUuid);
+        return characteristic != null ? characteristic.getDescriptor(descriptorUuid) : null;
+    }
+
+    /**
+     * Finds the {@link BluetoothGattDescriptor} with matching descriptor UUID of the characteristic with matching characteristic UUID
+     * in the first service with matching service UUID.
+     *
+     * @param serviceUuid        Service UUID to search in
+     * @param characteristicUuid Characteristic UUID to search in
+     * @param descriptorUuid     Descriptor UUID to be found
+     * @return the descriptor or null if the service, the characteristic or the descriptor hasn't been found
+     */
+    @Nullable
+    public BluetoothGattDescriptor findDescriptor(@NonNull UUID serviceUuid, @NonNull UUID characteristicUuid,
+                                                  @NonNull UUID descriptorUuid) {
+        final BluetoothGattCharacteristic characteristic = findCharacteristic(serviceUuid, characteristicUuid);
+        return characteristic != null ? characteristic.getDescriptor(descriptorUuid) : null;
+    }
+
     /**
      * Creates an observable emitting {@link BluetoothGattService} with matching service UUID.
      * The observable completes after first emission.
@@ -41,14 +133,10 @@ public class RxBleDeviceServices {
      * @throws BleServiceNotFoundException if service with given UUID hasn't been found.
      */
     public Observable<BluetoothGattService> getService(@NonNull final UUID serviceUuid) {
-        return Observable.from(bluetoothGattServices)
-                .takeFirst(new Func1<BluetoothGattService, Boolean>() {
-                    @Override
-                    public Boolean call(BluetoothGattService bluetoothGattService) {
-                        return bluetoothGattService.getUuid().equals(serviceUuid);
-                    }
-                })
-                .switchIfEmpty(Observable.<BluetoothGattService>error(new BleServiceNotFoundException(serviceUuid)));
+        final BluetoothGattService service = findService(serviceUuid);
+        return service != null
+                ? Observable.just(service)
+                : Observable.<BluetoothGattService>error(new BleServiceNotFoundException(serviceUuid));
     }
 
     /**
@@ -63,10 +151,7 @@ public class RxBleDeviceServices {
      * @throws BleCharacteristicNotFoundException if characteristic with given UUID hasn't been found.
      */
     public Observable<BluetoothGattCharacteristic> getCharacteristic(@NonNull UUID characteristicUuid) {
-        return Observable.from(bluetoothGattServices)
-                .compose(extractCharacteristic(characteristicUuid))
-                .take(1)
-                .switchIfEmpty(Observable.<BluetoothGattCharacteristic>error(new BleCharacteristicNotFoundException(characteristicUuid)));
+        return justOrCharacteristicNotFound(findCharacteristic(characteristicUuid), characteristicUuid);
     }
 
     /**
@@ -80,64 +165,51 @@ public class RxBleDeviceServices {
      * @see RxBleDeviceServices#getCharacteristic(UUID)
      */
     public Observable<BluetoothGattCharacteristic> getCharacteristic(@NonNull UUID serviceUuid, @NonNull UUID characteristicUuid) {
-        return getService(serviceUuid)
-                .compose(extractCharacteristic(characteristicUuid))
-                .take(1)
-                .switchIfEmpty(Observable.<BluetoothGattCharacteristic>error(new BleCharacteristicNotFoundException(characteristicUuid)));
-    }
-
-    private Observable.Transformer<BluetoothGattService, BluetoothGattCharacteristic> extractCharacteristic(final UUID characteristicUuid) {
-        return new Observable.Transformer<BluetoothGattService, BluetoothGattCharacteristic>() {
-            @Override
-            public Observable<BluetoothGattCharacteristic> call(Observable<BluetoothGattService> source) {
-                return source.map(new Func1<BluetoothGattService, BluetoothGattCharacteristic>() {
-                    @Override
-                    public BluetoothGattCharacteristic call(BluetoothGattService bluetoothGattService) {
-                        return bluetoothGattService.getCharacteristic(characteristicUuid);
-                    }
-                })
-                        .takeFirst(new Func1<BluetoothGattCharacteristic, Boolean>() {
-                            @Override
-                            public Boolean call(BluetoothGattCharacteristic bluetoothGattCharacteristic) {
-                                return bluetoothGattCharacteristic != null;
-                            }
-                        }); // Services may be empty;
-            }
-        };
+        if (findService(serviceUuid) == null) {
+            return Observable.error(new BleServiceNotFoundException(serviceUuid));
+        }
+        return justOrCharacteristicNotFound(findCharacteristic(serviceUuid, characteristicUuid), characteristicUuid);
     }
 
     // TODO: [PU] 15.03.2016 Consider moving getDescriptor to the characteristic
     public Observable<BluetoothGattDescriptor> getDescriptor(final UUID characteristicUuid, final UUID descriptorUuid) {
-        return getCharacteristic(characteristicUuid)
-                .map(new Func1<BluetoothGattCharacteristic, BluetoothGattDescriptor>() {
-                    @Override
-                    public BluetoothGattDescriptor call(BluetoothGattCharacteristic bluetoothGattCharacteristic) {
-                        return bluetoothGattCharacteristic.getDescriptor(descriptorUuid);
-                    }
-                })
-                .filter(new Func1<Object, Boolean>() {
-                    @Override
-                    public Boolean call(Object bluetoothGattDescriptor) {
-                        return bluetoothGattDescriptor != null;
-                    }
-                });
+        final BluetoothGattCharacteristic characteristic = findCharacteristic(characteristicUuid);
+        if (characteristic == null) {
+            return Observable.error(new BleCharacteristicNotFoundException(characteristicUuid));
+        }
+        return justOrEmpty(characteristic.getDescriptor(descriptorUuid));
     }
 
     public Observable<BluetoothGattDescriptor> getDescriptor(
             final UUID serviceUuid, final UUID characteristicUuid, final UUID descriptorUuid
     ) {
-        return getService(serviceUuid)
-                .map(new Func1<BluetoothGattService, BluetoothGattCharacteristic>() {
-                    @Override
-                    public BluetoothGattCharacteristic call(BluetoothGattService bluetoothGattService) {
-                        return bluetoothGattService.getCharacteristic(characteristicUuid);
-                    }
-                })
-                .map(new Func1<BluetoothGattCharacteristic, BluetoothGattDescriptor>() {
-                    @Override
-                    public BluetoothGattDescriptor call(BluetoothGattCharacteristic bluetoothGattCharacteristic) {
-                        return bluetoothGattCharacteristic.getDescriptor(descriptorUuid);
-                    }
-                });
+        if (findService(serviceUuid) == null) {
+            return Observable.error(new BleServiceNotFoundException(serviceUuid));
+        }
+        final BluetoothGattCharacteristic characteristic = findCharacteristic(serviceUuid, characteristicUuid);
+        if (characteristic == null) {
+            return Observable.error(new BleCharacteristicNotFoundException(characteristicUuid));
+        }
+        return justOrEmpty(characteristic.getDescriptor(descriptorUuid));
+    }
+
+    private static <V> boolean putIfAbsent(Map<UUID, V> map, UUID uuid, V value) {
+        if (map.containsKey(uuid)) {
+            return false;
+        }
+        map.put(uuid, value);
+        return true;
+    }
+
+    private static Observable<BluetoothGattCharacteristic> justOrCharacteristicNotFound(
+            @Nullable BluetoothGattCharacteristic characteristic, UUID characteristicUuid
+    ) {
+        return characteristic != null
+                ? Observable.just(characteristic)
+                : Observable.<BluetoothGattCharacteristic>error(new BleCharacteristicNotFoundException(characteristicUuid));
+    }
+
+    private static Observable<BluetoothGattDescriptor> justOrEmpty(@Nullable BluetoothGattDescriptor descriptor) {
+        return descriptor != null ? Observable.just(descriptor) : Observable.<BluetoothGattDescriptor>empty();
     }
 }
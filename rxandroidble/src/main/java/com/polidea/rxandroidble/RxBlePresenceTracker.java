@@ -0,0 +1,146 @@
+package com.polidea.rxandroidble;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import rx.Observable;
+
+/**
+ * Index of devices currently in range built from a Bluetooth LE scan. A device is added when its first advertisement is received
+ * and lost when no advertisement was received within the timeout passed to
+ * {@link RxBleClient#createPresenceTracker(RxBleScanSettings, long, java.util.UUID...)}. The index is maintained only while
+ * {@link #observeChanges()} is subscribed.
+ */
+public interface RxBlePresenceTracker {
+
+    /**
+     * Snapshot of the presence of a single device.
+     */
+    class DevicePresence {
+
+        private final RxBleDevice bleDevice;
+        private final long lastSeenMillis;
+        private final int rssi;
+        private final int advertisementHash;
+
+        public DevicePresence(RxBleDevice bleDevice, long lastSeenMillis, int rssi, int advertisementHash) {
+            this.bleDevice = bleDevice;
+            this.lastSeenMillis = lastSeenMillis;
+            this.rssi = rssi;
+            this.advertisementHash = advertisementHash;
+        }
+
+        public RxBleDevice getBleDevice() {
+            return bleDevice;
+        }
+
+        /**
+         * @return the time the last advertisement was received in milliseconds since epoch
+         */
+        public long getLastSeenMillis() {
+            return lastSeenMillis;
+        }
+
+        /**
+         * @return the RSSI of the last advertisement
+         */
+        public int getRssi() {
+            return rssi;
+        }
+
+        /**
+         * @return the hash of the last advertisement data - equal hashes of the same device mean an unchanged advertisement
+         */
+        public int getAdvertisementHash() {
+            return advertisementHash;
+        }
+
+        @Override
+        public String toString() {
+            return "DevicePresence{"
+                    + "bleDevice=" + bleDevice
+                    + ", lastSeenMillis=" + lastSeenMillis
+                    + ", rssi=" + rssi
+                    + ", advertisementHash=" + advertisementHash
+                    + '}';
+        }
+    }
+
+    /**
+     * Change of the set of devices in range.
+     */
+    class PresenceChange {
+
+        public enum Type {
+            /**
+             * The first advertisement of a device was received.
+             */
+            ADDED,
+            /**
+             * A device in range changed its advertisement data. Changes of the RSSI alone are not reported.
+             */
+            UPDATED,
+            /**
+             * No advertisement of a device was received within the timeout.
+             */
+            LOST
+        }
+
+        private final Type type;
+        private final DevicePresence devicePresence;
+
+        public PresenceChange(Type type, DevicePresence devicePresence) {
+            this.type = type;
+            this.devicePresence = devicePresence;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the presence of the device at the time of the change
+         */
+        public DevicePresence getDevicePresence() {
+            return devicePresence;
+        }
+
+        @Override
+        public String toString() {
+            return "PresenceChange{"
+                    + "type=" + type
+                    + ", devicePresence=" + devicePresence
+                    + '}';
+        }
+    }
+
+    /**
+     * Returns an infinite observable emitting changes of the devices in range. The scan runs and the index is maintained while
+     * the observable is subscribed - it is shared between all subscribers. When the last subscriber unsubscribes the index is
+     * cleared without emitting {@link PresenceChange.Type#LOST} changes.
+     *
+     * @return the observable of changes
+     * @throws com.polidea.rxandroidble.exceptions.BleScanException emits in case of error starting the scan
+     */
+    Observable<PresenceChange> observeChanges();
+
+    /**
+     * @return snapshot of all devices in range
+     */
+    @NonNull
+    List<DevicePresence> getPresentDevices();
+
+    /**
+     * @param macAddress the MAC address of the device
+     * @return snapshot of the presence of the device or null if the device is not in range
+     */
+    @Nullable
+    DevicePresence getDevicePresence(@NonNull String macAddress);
+
+    /**
+     * @return the number of devices in range
+     */
+    int getPresentDeviceCount();
+}
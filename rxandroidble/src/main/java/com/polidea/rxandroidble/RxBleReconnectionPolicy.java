@@ -0,0 +1,87 @@
+package com.polidea.rxandroidble;
+
+/**
+ * Settings of a connection established with {@link RxBleDevice#establishReconnectingConnection(android.content.Context,
+ * RxBleReconnectionPolicy)}. After the link is lost the device is reconnected with an exponential backoff - the n-th consecutive
+ * attempt is delayed by a random time between half and the whole of {@code min(maxDelay, initialDelay * 2^(n-1))} so that
+ * connections of many devices lost at once are not reestablished at the same moment.
+ */
+public class RxBleReconnectionPolicy {
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+
+    private RxBleReconnectionPolicy(long initialDelayMillis, long maxDelayMillis, int maxAttempts) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @return the number of consecutive reconnection attempts after which the error is propagated, 0 if the attempts are not limited
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "RxBleReconnectionPolicy{"
+                + "initialDelayMillis=" + initialDelayMillis
+                + ", maxDelayMillis=" + maxDelayMillis
+                + ", maxAttempts=" + maxAttempts
+                + '}';
+    }
+
+    public static class Builder {
+
+        private long initialDelayMillis = 1000;
+        private long maxDelayMillis = 60000;
+        private int maxAttempts = 0;
+
+        /**
+         * Setter for the backoff of the reconnection attempts. Default is 1 second doubled up to 1 minute.
+         *
+         * @param initialDelayMillis the delay of the first attempt in milliseconds
+         * @param maxDelayMillis     the maximum delay of an attempt in milliseconds, not less than the initial delay
+         * @return the Builder
+         */
+        public Builder setBackoff(long initialDelayMillis, long maxDelayMillis) {
+            if (initialDelayMillis <= 0 || maxDelayMillis < initialDelayMillis) {
+                throw new IllegalArgumentException("initialDelayMillis must be positive and not greater than maxDelayMillis");
+            }
+            this.initialDelayMillis = initialDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * Setter for the number of consecutive reconnection attempts after which the error of the last attempt is propagated.
+         * The count is reset whenever a link is established. Default is 0 - the device is reconnected until the connection
+         * is unsubscribed.
+         *
+         * @param maxAttempts the number of attempts, 0 for no limit
+         * @return the Builder
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 0) {
+                throw new IllegalArgumentException("maxAttempts must not be negative");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public RxBleReconnectionPolicy build() {
+            return new RxBleReconnectionPolicy(initialDelayMillis, maxDelayMillis, maxAttempts);
+        }
+    }
+}
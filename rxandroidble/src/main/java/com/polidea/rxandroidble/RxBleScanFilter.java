@@ -0,0 +1,248 @@
+package com.polidea.rxandroidble;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Declarative filter of a Bluetooth LE scan started with {@link RxBleClient#scanBleDevices(RxBleScanSettings, RxBleScanFilter)}.
+ * An advertisement passes if it matches every configured criterion - for criteria with several entries it is enough to match one
+ * of them. The filter is compiled once and evaluated on the raw advertisement before a {@link RxBleScanResult} is created for it.
+ * Use {@link Builder} to create an instance.
+ */
+public class RxBleScanFilter {
+
+    /**
+     * Expected prefix of manufacturer specific data or service data. A byte of the data matches if it is equal to the byte of
+     * the prefix on the bits set in the mask.
+     */
+    public static class DataFilter {
+
+        private final int companyId;
+        private final UUID serviceUuid;
+        private final byte[] prefix;
+        private final byte[] mask;
+
+        DataFilter(int companyId, UUID serviceUuid, byte[] prefix, byte[] mask) {
+            this.companyId = companyId;
+            this.serviceUuid = serviceUuid;
+            this.prefix = prefix;
+            this.mask = mask;
+        }
+
+        /**
+         * @return the company ID of manufacturer specific data or -1 for service data
+         */
+        public int getCompanyId() {
+            return companyId;
+        }
+
+        /**
+         * @return the service UUID of service data or null for manufacturer specific data
+         */
+        @Nullable
+        public UUID getServiceUuid() {
+            return serviceUuid;
+        }
+
+        @NonNull
+        public byte[] getPrefix() {
+            return prefix;
+        }
+
+        @NonNull
+        public byte[] getMask() {
+            return mask;
+        }
+
+        @Override
+        public String toString() {
+            return "DataFilter{"
+                    + "companyId=" + companyId
+                    + ", serviceUuid=" + serviceUuid
+                    + ", prefix=" + Arrays.toString(prefix)
+                    + ", mask=" + Arrays.toString(mask)
+                    + '}';
+        }
+    }
+
+    private final Set<UUID> serviceUuids;
+    private final Set<String> macAddresses;
+    private final List<String> namePrefixes;
+    private final List<DataFilter> manufacturerDataFilters;
+    private final List<DataFilter> serviceDataFilters;
+
+    private RxBleScanFilter(Set<UUID> serviceUuids, Set<String> macAddresses, List<String> namePrefixes,
+                            List<DataFilter> manufacturerDataFilters, List<DataFilter> serviceDataFilters) {
+        this.serviceUuids = serviceUuids;
+        this.macAddresses = macAddresses;
+        this.namePrefixes = namePrefixes;
+        this.manufacturerDataFilters = manufacturerDataFilters;
+        this.serviceDataFilters = serviceDataFilters;
+    }
+
+    /**
+     * @return service UUIDs that all have to be advertised, empty if not filtered by service UUIDs
+     */
+    @NonNull
+    public Set<UUID> getServiceUuids() {
+        return serviceUuids;
+    }
+
+    /**
+     * @return upper case MAC addresses of which one has to match, empty if not filtered by MAC address
+     */
+    @NonNull
+    public Set<String> getMacAddresses() {
+        return macAddresses;
+    }
+
+    /**
+     * @return prefixes of which one has to start the advertised local name, empty if not filtered by name
+     */
+    @NonNull
+    public List<String> getNamePrefixes() {
+        return namePrefixes;
+    }
+
+    /**
+     * @return manufacturer specific data filters of which one has to match, empty if not filtered by manufacturer data
+     */
+    @NonNull
+    public List<DataFilter> getManufacturerDataFilters() {
+        return manufacturerDataFilters;
+    }
+
+    /**
+     * @return service data filters of which one has to match, empty if not filtered by service data
+     */
+    @NonNull
+    public List<DataFilter> getServiceDataFilters() {
+        return serviceDataFilters;
+    }
+
+    @Override
+    public String toString() {
+        return "RxBleScanFilter{"
+                + "serviceUuids=" + serviceUuids
+                + ", macAddresses=" + macAddresses.size()
+                + ", namePrefixes=" + namePrefixes
+                + ", manufacturerDataFilters=" + manufacturerDataFilters
+                + ", serviceDataFilters=" + serviceDataFilters
+                + '}';
+    }
+
+    public static class Builder {
+
+        private static final int MAX_COMPANY_ID = 0xFFFF;
+
+        private final Set<UUID> serviceUuids = new LinkedHashSet<>();
+        private final Set<String> macAddresses = new LinkedHashSet<>();
+        private final List<String> namePrefixes = new ArrayList<>();
+        private final List<DataFilter> manufacturerDataFilters = new ArrayList<>();
+        private final List<DataFilter> serviceDataFilters = new ArrayList<>();
+
+        /**
+         * Adds service UUIDs that all have to be advertised. The service UUIDs are filtered by the Bluetooth controller where
+         * possible.
+         *
+         * @param serviceUuids the service UUIDs
+         * @return the Builder
+         */
+        public Builder addServiceUuids(@NonNull UUID... serviceUuids) {
+            Collections.addAll(this.serviceUuids, serviceUuids);
+            return this;
+        }
+
+        /**
+         * Adds MAC addresses to the allowlist. Only advertisements of devices from the allowlist pass if it is not empty.
+         *
+         * @param macAddresses MAC addresses in the "AA:BB:CC:DD:EE:FF" format
+         * @return the Builder
+         * @throws IllegalArgumentException if any of the addresses is malformed
+         */
+        public Builder addMacAddresses(@NonNull Iterable<String> macAddresses) {
+            for (String macAddress : macAddresses) {
+                if (MacAddressUtil.toLong(macAddress) == -1) {
+                    throw new IllegalArgumentException("Malformed MAC address: " + macAddress);
+                }
+                this.macAddresses.add(macAddress.toUpperCase(Locale.US));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a prefix of the advertised shortened or complete local name. The comparison is case sensitive.
+         *
+         * @param namePrefix the prefix, an empty prefix matches every advertisement with a name
+         * @return the Builder
+         */
+        public Builder addNamePrefix(@NonNull String namePrefix) {
+            namePrefixes.add(namePrefix);
+            return this;
+        }
+
+        /**
+         * Adds a filter of manufacturer specific data. The data following the company ID has to start with the prefix.
+         *
+         * @param companyId the company ID assigned by the Bluetooth SIG
+         * @param prefix    the expected prefix of the data, may be empty
+         * @param mask      the bits of the prefix that have to match or null if all have to match
+         * @return the Builder
+         * @throws IllegalArgumentException if the company ID is not a 16 bit value or the mask is shorter than the prefix
+         */
+        public Builder addManufacturerData(int companyId, @NonNull byte[] prefix, @Nullable byte[] mask) {
+            if (companyId < 0 || companyId > MAX_COMPANY_ID) {
+                throw new IllegalArgumentException("companyId must be a 16 bit value");
+            }
+            manufacturerDataFilters.add(new DataFilter(companyId, null, prefix.clone(), checkedMask(prefix, mask)));
+            return this;
+        }
+
+        /**
+         * Adds a filter of service data. The data following the service UUID has to start with the prefix.
+         *
+         * @param serviceUuid the service UUID of the data
+         * @param prefix      the expected prefix of the data, may be empty
+         * @param mask        the bits of the prefix that have to match or null if all have to match
+         * @return the Builder
+         * @throws IllegalArgumentException if the mask is shorter than the prefix
+         */
+        public Builder addServiceData(@NonNull UUID serviceUuid, @NonNull byte[] prefix, @Nullable byte[] mask) {
+            serviceDataFilters.add(new DataFilter(-1, serviceUuid, prefix.clone(), checkedMask(prefix, mask)));
+            return this;
+        }
+
+        private static byte[] checkedMask(byte[] prefix, @Nullable byte[] mask) {
+            if (mask == null) {
+                final byte[] fullMask = new byte[prefix.length];
+                Arrays.fill(fullMask, (byte) 0xFF);
+                return fullMask;
+            }
+            if (mask.length < prefix.length) {
+                throw new IllegalArgumentException("mask must not be shorter than prefix");
+            }
+            return Arrays.copyOf(mask, prefix.length);
+        }
+
+        public RxBleScanFilter build() {
+            return new RxBleScanFilter(
+                    Collections.unmodifiableSet(new LinkedHashSet<>(serviceUuids)),
+                    Collections.unmodifiableSet(new LinkedHashSet<>(macAddresses)),
+                    Collections.unmodifiableList(new ArrayList<>(namePrefixes)),
+                    Collections.unmodifiableList(new ArrayList<>(manufacturerDataFilters)),
+                    Collections.unmodifiableList(new ArrayList<>(serviceDataFilters))
+            );
+        }
+    }
+}
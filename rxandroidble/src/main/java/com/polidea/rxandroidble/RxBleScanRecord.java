@@ -0,0 +1,342 @@
+package com.polidea.rxandroidble;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.internal.util.UUIDUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.NO_AD_STRUCTURE;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataLength;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataStart;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adType;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.firstAdStructure;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.nextAdStructure;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readLittleEndian;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidLsb;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidMsb;
+
+/**
+ * Parsed content of a Bluetooth LE advertisement. Manufacturer specific data and service data are not copied out of the raw
+ * scan record - they are exposed as {@link Data} views of the original array.
+ *
+ * @see RxBleScanResult#getParsedScanRecord()
+ */
+public class RxBleScanRecord {
+
+    /**
+     * Value returned by {@link #getAdvertiseFlags()} if the advertisement does not contain flags.
+     */
+    public static final int NO_ADVERTISE_FLAGS = -1;
+
+    /**
+     * Value returned by {@link #getTxPowerLevel()} if the advertisement does not contain the TX power level.
+     */
+    public static final int NO_TX_POWER_LEVEL = Integer.MIN_VALUE;
+
+    private static final int AD_TYPE_FLAGS = 0x01;
+    private static final int AD_TYPE_LOCAL_NAME_SHORT = 0x08;
+    private static final int AD_TYPE_LOCAL_NAME_COMPLETE = 0x09;
+    private static final int AD_TYPE_TX_POWER_LEVEL = 0x0A;
+    private static final int AD_TYPE_SERVICE_DATA_16_BIT = 0x16;
+    private static final int AD_TYPE_SERVICE_DATA_32_BIT = 0x20;
+    private static final int AD_TYPE_SERVICE_DATA_128_BIT = 0x21;
+    private static final int AD_TYPE_MANUFACTURER_SPECIFIC_DATA = 0xFF;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] bytes;
+    private final int advertiseFlags;
+    private final int txPowerLevel;
+    private final String deviceName;
+    private final List<UUID> serviceUuids;
+    private final int[] manufacturerIds;
+    private final Data[] manufacturerSpecificData;
+    private final UUID[] serviceDataUuids;
+    private final Data[] serviceData;
+
+    private RxBleScanRecord(byte[] bytes, int advertiseFlags, int txPowerLevel, String deviceName, List<UUID> serviceUuids,
+                            int[] manufacturerIds, Data[] manufacturerSpecificData, UUID[] serviceDataUuids, Data[] serviceData) {
+        this.bytes = bytes;
+        this.advertiseFlags = advertiseFlags;
+        this.txPowerLevel = txPowerLevel;
+        this.deviceName = deviceName;
+        this.serviceUuids = serviceUuids;
+        this.manufacturerIds = manufacturerIds;
+        this.manufacturerSpecificData = manufacturerSpecificData;
+        this.serviceDataUuids = serviceDataUuids;
+        this.serviceData = serviceData;
+    }
+
+    /**
+     * Parses the raw advertisement. Malformed trailing AD structures are ignored.
+     *
+     * @param scanRecord the raw advertisement data
+     * @return the parsed advertisement
+     */
+    @NonNull
+    public static RxBleScanRecord parse(@NonNull byte[] scanRecord) {
+        int advertiseFlags = NO_ADVERTISE_FLAGS;
+        int txPowerLevel = NO_TX_POWER_LEVEL;
+        String deviceName = null;
+        final List<UUID> serviceUuids = new UUIDUtil().extractUUIDs(scanRecord);
+        int manufacturerCount = 0;
+        int[] manufacturerIds = new int[0];
+        Data[] manufacturerSpecificData = new Data[0];
+        int serviceDataCount = 0;
+        UUID[] serviceDataUuids = new UUID[0];
+        Data[] serviceData = new Data[0];
+
+        for (int offset = firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanRecord, offset)) {
+            final int dataStart = adDataStart(offset);
+            final int dataLength = adDataLength(scanRecord, offset);
+            switch (adType(scanRecord, offset)) {
+                case AD_TYPE_FLAGS:
+                    if (dataLength > 0) {
+                        advertiseFlags = scanRecord[dataStart] & 0xFF;
+                    }
+                    break;
+
+                case AD_TYPE_LOCAL_NAME_SHORT:
+                case AD_TYPE_LOCAL_NAME_COMPLETE:
+                    deviceName = new String(scanRecord, dataStart, dataLength, UTF_8);
+                    break;
+
+                case AD_TYPE_TX_POWER_LEVEL:
+                    if (dataLength > 0) {
+                        txPowerLevel = scanRecord[dataStart];
+                    }
+                    break;
+
+                case AD_TYPE_SERVICE_DATA_16_BIT:
+                case AD_TYPE_SERVICE_DATA_32_BIT:
+                case AD_TYPE_SERVICE_DATA_128_BIT:
+                    final int uuidLength = serviceDataUuidLength(adType(scanRecord, offset));
+                    if (dataLength < uuidLength) {
+                        break;
+                    }
+                    if (serviceDataCount == serviceData.length) {
+                        serviceDataUuids = grow(serviceDataUuids);
+                        serviceData = grow(serviceData);
+                    }
+                    serviceDataUuids[serviceDataCount] = new UUID(
+                            readUuidMsb(scanRecord, dataStart, uuidLength),
+                            readUuidLsb(scanRecord, dataStart, uuidLength)
+                    );
+                    serviceData[serviceDataCount] = new Data(scanRecord, dataStart + uuidLength, dataLength - uuidLength);
+                    serviceDataCount++;
+                    break;
+
+                case AD_TYPE_MANUFACTURER_SPECIFIC_DATA:
+                    if (dataLength < 2) {
+                        break;
+                    }
+                    if (manufacturerCount == manufacturerSpecificData.length) {
+                        manufacturerIds = grow(manufacturerIds);
+                        manufacturerSpecificData = grow(manufacturerSpecificData);
+                    }
+                    manufacturerIds[manufacturerCount] = (int) readLittleEndian(scanRecord, dataStart, 2);
+                    manufacturerSpecificData[manufacturerCount] = new Data(scanRecord, dataStart + 2, dataLength - 2);
+                    manufacturerCount++;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return new RxBleScanRecord(
+                scanRecord,
+                advertiseFlags,
+                txPowerLevel,
+                deviceName,
+                Collections.unmodifiableList(serviceUuids),
+                trim(manufacturerIds, manufacturerCount),
+                trim(manufacturerSpecificData, manufacturerCount),
+                trim(serviceDataUuids, serviceDataCount),
+                trim(serviceData, serviceDataCount)
+        );
+    }
+
+    /**
+     * Returns the raw advertisement data this record was parsed from.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the advertising flags or {@link #NO_ADVERTISE_FLAGS} if not present.
+     */
+    public int getAdvertiseFlags() {
+        return advertiseFlags;
+    }
+
+    /**
+     * Returns the transmission power level in dBm or {@link #NO_TX_POWER_LEVEL} if not present.
+     */
+    public int getTxPowerLevel() {
+        return txPowerLevel;
+    }
+
+    /**
+     * Returns the shortened or complete local name of the device or null if not present.
+     */
+    @Nullable
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    /**
+     * Returns the advertised 16, 32 and 128 bit service UUIDs.
+     */
+    @NonNull
+    public List<UUID> getServiceUuids() {
+        return serviceUuids;
+    }
+
+    /**
+     * Returns the company identifiers of all manufacturer specific data structures in the order of the advertisement.
+     */
+    @NonNull
+    public int[] getManufacturerIds() {
+        return manufacturerIds.clone();
+    }
+
+    /**
+     * Returns the manufacturer specific data (without the company identifier) for the given company identifier.
+     *
+     * @param manufacturerId the company identifier assigned by the Bluetooth SIG
+     * @return the view of the data or null if not present
+     */
+    @Nullable
+    public Data getManufacturerSpecificData(int manufacturerId) {
+        for (int i = 0; i < manufacturerIds.length; i++) {
+            if (manufacturerIds[i] == manufacturerId) {
+                return manufacturerSpecificData[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the UUIDs of all service data structures in the order of the advertisement.
+     */
+    @NonNull
+    public List<UUID> getServiceDataUuids() {
+        final List<UUID> uuids = new ArrayList<>(serviceDataUuids.length);
+        Collections.addAll(uuids, serviceDataUuids);
+        return uuids;
+    }
+
+    /**
+     * Returns the service data (without the service UUID) for the given service UUID.
+     *
+     * @param serviceUuid the UUID of the service - 16 and 32 bit UUIDs are expanded with the Bluetooth Base UUID
+     * @return the view of the data or null if not present
+     */
+    @Nullable
+    public Data getServiceData(@NonNull UUID serviceUuid) {
+        for (int i = 0; i < serviceDataUuids.length; i++) {
+            if (serviceDataUuids[i].equals(serviceUuid)) {
+                return serviceData[i];
+            }
+        }
+        return null;
+    }
+
+    private static int serviceDataUuidLength(int adType) {
+        switch (adType) {
+            case AD_TYPE_SERVICE_DATA_16_BIT:
+                return 2;
+            case AD_TYPE_SERVICE_DATA_32_BIT:
+                return 4;
+            default:
+                return 16;
+        }
+    }
+
+    private static int[] grow(int[] array) {
+        return Arrays.copyOf(array, array.length + 1);
+    }
+
+    private static <T> T[] grow(T[] array) {
+        return Arrays.copyOf(array, array.length + 1);
+    }
+
+    private static int[] trim(int[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static <T> T[] trim(T[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * A read only view of a part of the raw advertisement data. The data is not copied until {@link #toByteArray()} is called.
+     */
+    public static final class Data {
+
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        Data(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Returns the whole raw advertisement the view is a part of. It must not be modified.
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the position of the first byte of the view in {@link #getBytes()}.
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the byte at the given position of the view.
+         *
+         * @param index the position relative to the start of the view
+         */
+        public byte get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index=" + index + " length=" + length);
+            }
+            return bytes[offset + index];
+        }
+
+        /**
+         * Returns a read only {@link ByteBuffer} wrapping the view without copying.
+         */
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(bytes, offset, length).slice().asReadOnlyBuffer();
+        }
+
+        /**
+         * Returns a copy of the data.
+         */
+        public byte[] toByteArray() {
+            final byte[] copy = new byte[length];
+            System.arraycopy(bytes, offset, copy, 0, length);
+            return copy;
+        }
+    }
+}
@@ -8,6 +8,7 @@ public class RxBleScanResult {
     private final RxBleDevice bleDevice;
     private final int rssi;
     private final byte[] scanRecord;
+    private volatile RxBleScanRecord parsedScanRecord;
 
     public RxBleScanResult(RxBleDevice bleDevice, int rssi, byte[] scanRecords) {
         this.bleDevice = bleDevice;
@@ -40,4 +41,20 @@ public class RxBleScanResult {
     public byte[] getScanRecord() {
         return scanRecord;
     }
+
+    /**
+     * The parsed scan record of Bluetooth LE advertisement. The advertisement is parsed on the first call and the result is reused by
+     * subsequent calls so any number of consumers may inspect it at the cost of a single parse.
+     *
+     * @return the parsed advertisement
+     */
+    public RxBleScanRecord getParsedScanRecord() {
+        RxBleScanRecord parsed = parsedScanRecord;
+        if (parsed == null) {
+            // RxBleScanRecord is immutable - in the worst case a few threads parse the same advertisement concurrently
+            parsed = RxBleScanRecord.parse(scanRecord);
+            parsedScanRecord = parsed;
+        }
+        return parsed;
+    }
 }
@@ -0,0 +1,333 @@
+package com.polidea.rxandroidble;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Settings of a Bluetooth LE scan started with {@link RxBleClient#scanBleDevices(RxBleScanSettings, java.util.UUID...)}. The settings
+ * are applied by the {@link android.bluetooth.le.BluetoothLeScanner} available from Android 5.0 (API 21). On older Android versions
+ * only the duty cycle is applied and every advertisement is reported as soon as it is received. Use {@link Builder} to create
+ * an instance.
+ */
+public class RxBleScanSettings {
+
+    public enum ScanMode {
+        /**
+         * Scans in a low power mode. Results are delivered with a delay. The default mode of the Android scanner.
+         */
+        LOW_POWER,
+        /**
+         * Scans in a mode that balances the power consumption and the latency of results.
+         */
+        BALANCED,
+        /**
+         * Scans with the highest duty cycle. Equivalent of the scan on Android versions older than 5.0.
+         */
+        LOW_LATENCY,
+        /**
+         * Does not start a scan on its own - only receives results of scans started by other applications.
+         */
+        OPPORTUNISTIC
+    }
+
+    public enum CallbackType {
+        /**
+         * Reports every advertisement that matches the filter.
+         */
+        ALL_MATCHES,
+        /**
+         * Reports only the first advertisement of a device that matches the filter. Requires Android 6.0 (API 23) and a filter with
+         * at least one service UUID. Falls back to {@link #ALL_MATCHES} otherwise.
+         */
+        FIRST_MATCH,
+        /**
+         * Reports the last advertisement of a device that stopped advertising. Requires Android 6.0 (API 23) and a filter with
+         * at least one service UUID. Falls back to {@link #ALL_MATCHES} otherwise.
+         */
+        MATCH_LOST
+    }
+
+    public enum MatchMode {
+        /**
+         * Reports devices even with a weak signal and few advertisements received. Applied from Android 6.0 (API 23).
+         */
+        AGGRESSIVE,
+        /**
+         * Reports devices only after a sufficient number of advertisements with a strong enough signal were received. Applied from
+         * Android 6.0 (API 23).
+         */
+        STICKY
+    }
+
+    private final ScanMode scanMode;
+    private final CallbackType callbackType;
+    private final MatchMode matchMode;
+    private final long reportDelayMillis;
+    private final long scanWindowMillis;
+    private final long scanIntervalMillis;
+    private final boolean isDeduplicated;
+    private final long deduplicationHeartbeatMillis;
+    private final int rssiChangeThreshold;
+    private final float rssiSmoothingFactor;
+
+    private RxBleScanSettings(ScanMode scanMode, CallbackType callbackType, MatchMode matchMode, long reportDelayMillis,
+                              long scanWindowMillis, long scanIntervalMillis, boolean isDeduplicated, long deduplicationHeartbeatMillis,
+                              int rssiChangeThreshold, float rssiSmoothingFactor) {
+        this.scanMode = scanMode;
+        this.callbackType = callbackType;
+        this.matchMode = matchMode;
+        this.reportDelayMillis = reportDelayMillis;
+        this.scanWindowMillis = scanWindowMillis;
+        this.scanIntervalMillis = scanIntervalMillis;
+        this.isDeduplicated = isDeduplicated;
+        this.deduplicationHeartbeatMillis = deduplicationHeartbeatMillis;
+        this.rssiChangeThreshold = rssiChangeThreshold;
+        this.rssiSmoothingFactor = rssiSmoothingFactor;
+    }
+
+    @NonNull
+    public ScanMode getScanMode() {
+        return scanMode;
+    }
+
+    @NonNull
+    public CallbackType getCallbackType() {
+        return callbackType;
+    }
+
+    @NonNull
+    public MatchMode getMatchMode() {
+        return matchMode;
+    }
+
+    public long getReportDelayMillis() {
+        return reportDelayMillis;
+    }
+
+    /**
+     * @return true if the scan is periodically paused
+     * @see Builder#setDutyCycle(long, long)
+     */
+    public boolean isDutyCycled() {
+        return scanIntervalMillis > 0;
+    }
+
+    /**
+     * @return the time the scan is running in every interval or 0 if the scan is not duty cycled
+     */
+    public long getScanWindowMillis() {
+        return scanWindowMillis;
+    }
+
+    /**
+     * @return the time between consecutive starts of the scan or 0 if the scan is not duty cycled
+     */
+    public long getScanIntervalMillis() {
+        return scanIntervalMillis;
+    }
+
+    /**
+     * @return true if repeated advertisements of a device are suppressed
+     * @see Builder#setDeduplication(long, int, float)
+     */
+    public boolean isDeduplicated() {
+        return isDeduplicated;
+    }
+
+    /**
+     * @return the time after which an unchanged advertisement is emitted again or 0 if it is never repeated
+     */
+    public long getDeduplicationHeartbeatMillis() {
+        return deduplicationHeartbeatMillis;
+    }
+
+    /**
+     * @return the change of the smoothed RSSI that causes an emission or 0 if RSSI changes alone are not emitted
+     */
+    public int getRssiChangeThreshold() {
+        return rssiChangeThreshold;
+    }
+
+    /**
+     * @return the weight of the latest RSSI in the smoothed RSSI, 1 if the RSSI is not smoothed
+     */
+    public float getRssiSmoothingFactor() {
+        return rssiSmoothingFactor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RxBleScanSettings)) {
+            return false;
+        }
+        final RxBleScanSettings that = (RxBleScanSettings) o;
+        return reportDelayMillis == that.reportDelayMillis
+                && scanMode == that.scanMode
+                && callbackType == that.callbackType
+                && matchMode == that.matchMode
+                && scanWindowMillis == that.scanWindowMillis
+                && scanIntervalMillis == that.scanIntervalMillis
+                && isDeduplicated == that.isDeduplicated
+                && deduplicationHeartbeatMillis == that.deduplicationHeartbeatMillis
+                && rssiChangeThreshold == that.rssiChangeThreshold
+                && Float.compare(rssiSmoothingFactor, that.rssiSmoothingFactor) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = scanMode.hashCode();
+        result = 31 * result + callbackType.hashCode();
+        result = 31 * result + matchMode.hashCode();
+        result = 31 * result + (int) (reportDelayMillis ^ (reportDelayMillis >>> 32));
+        result = 31 * result + (int) (scanWindowMillis ^ (scanWindowMillis >>> 32));
+        result = 31 * result + (int) (scanIntervalMillis ^ (scanIntervalMillis >>> 32));
+        result = 31 * result + (isDeduplicated ? 1 : 0);
+        result = 31 * result + (int) (deduplicationHeartbeatMillis ^ (deduplicationHeartbeatMillis >>> 32));
+        result = 31 * result + rssiChangeThreshold;
+        result = 31 * result + Float.floatToIntBits(rssiSmoothingFactor);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RxBleScanSettings{"
+                + "scanMode=" + scanMode
+                + ", callbackType=" + callbackType
+                + ", matchMode=" + matchMode
+                + ", reportDelayMillis=" + reportDelayMillis
+                + ", scanWindowMillis=" + scanWindowMillis
+                + ", scanIntervalMillis=" + scanIntervalMillis
+                + ", isDeduplicated=" + isDeduplicated
+                + ", deduplicationHeartbeatMillis=" + deduplicationHeartbeatMillis
+                + ", rssiChangeThreshold=" + rssiChangeThreshold
+                + ", rssiSmoothingFactor=" + rssiSmoothingFactor
+                + '}';
+    }
+
+    public static class Builder {
+
+        private ScanMode scanMode = ScanMode.LOW_LATENCY;
+        private CallbackType callbackType = CallbackType.ALL_MATCHES;
+        private MatchMode matchMode = MatchMode.AGGRESSIVE;
+        private long reportDelayMillis = 0;
+        private long scanWindowMillis = 0;
+        private long scanIntervalMillis = 0;
+        private boolean isDeduplicated = false;
+        private long deduplicationHeartbeatMillis = 0;
+        private int rssiChangeThreshold = 0;
+        private float rssiSmoothingFactor = 1f;
+
+        /**
+         * Setter for the scan mode. Default is {@link ScanMode#LOW_LATENCY} which matches the scan on Android versions older than 5.0.
+         *
+         * @param scanMode the scan mode
+         * @return the Builder
+         */
+        public Builder setScanMode(@NonNull ScanMode scanMode) {
+            this.scanMode = scanMode;
+            return this;
+        }
+
+        /**
+         * Setter for the callback type. Default is {@link CallbackType#ALL_MATCHES}.
+         *
+         * @param callbackType the callback type
+         * @return the Builder
+         */
+        public Builder setCallbackType(@NonNull CallbackType callbackType) {
+            this.callbackType = callbackType;
+            return this;
+        }
+
+        /**
+         * Setter for the match mode. Default is {@link MatchMode#AGGRESSIVE}.
+         *
+         * @param matchMode the match mode
+         * @return the Builder
+         */
+        public Builder setMatchMode(@NonNull MatchMode matchMode) {
+            this.matchMode = matchMode;
+            return this;
+        }
+
+        /**
+         * Setter for the report delay. If greater than 0 and supported by the Bluetooth controller, results are collected by
+         * the controller and delivered together after the delay which reduces the number of times the application processor is woken
+         * up. It is also the cadence of batches emitted by {@link RxBleClient#scanBleDevicesBatched(RxBleScanSettings, java.util.UUID...)}.
+         * Default is 0 - results are reported immediately.
+         *
+         * @param reportDelayMillis the delay in milliseconds
+         * @return the Builder
+         */
+        public Builder setReportDelayMillis(long reportDelayMillis) {
+            if (reportDelayMillis < 0) {
+                throw new IllegalArgumentException("reportDelayMillis must not be negative");
+            }
+            this.reportDelayMillis = reportDelayMillis;
+            return this;
+        }
+
+        /**
+         * Setter for the duty cycle of the scan. The library runs the scan for the scan window and pauses it until the next interval
+         * which reduces the power consumption of long running scans at the cost of missing advertisements during the pauses.
+         * Android 7.0 and newer allows only 5 scan starts within 30 seconds so shorter intervals are extended to 6 seconds there.
+         * Default is a continuous scan.
+         *
+         * @param scanWindowMillis   the time the scan is running in every interval in milliseconds
+         * @param scanIntervalMillis the time between consecutive starts of the scan in milliseconds, greater than the window
+         * @return the Builder
+         */
+        public Builder setDutyCycle(long scanWindowMillis, long scanIntervalMillis) {
+            if (scanWindowMillis <= 0 || scanIntervalMillis <= scanWindowMillis) {
+                throw new IllegalArgumentException("scanWindowMillis must be positive and less than scanIntervalMillis");
+            }
+            this.scanWindowMillis = scanWindowMillis;
+            this.scanIntervalMillis = scanIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Makes the scan continuous. Reverts {@link #setDutyCycle(long, long)}.
+         *
+         * @return the Builder
+         */
+        public Builder setContinuous() {
+            this.scanWindowMillis = 0;
+            this.scanIntervalMillis = 0;
+            return this;
+        }
+
+        /**
+         * Enables the deduplication of advertisements. An advertisement of a device is emitted only if it is the first one received,
+         * its payload differs from the last emitted one, the smoothed RSSI changed by at least the threshold since the last emission
+         * or the heartbeat elapsed since the last emission. Emitted results carry the smoothed RSSI - an exponentially weighted moving
+         * average where every new reading has the given weight. Suppressed advertisements are dropped before an {@link RxBleDevice}
+         * is looked up for them. Default is no deduplication.
+         *
+         * @param heartbeatMillis      the time after which an unchanged advertisement is emitted again, 0 to never repeat it
+         * @param rssiChangeThreshold  the change of the smoothed RSSI in dBm that causes an emission, 0 to ignore RSSI changes
+         * @param rssiSmoothingFactor  the weight of the latest RSSI reading in (0, 1], 1 disables the smoothing
+         * @return the Builder
+         */
+        public Builder setDeduplication(long heartbeatMillis, int rssiChangeThreshold, float rssiSmoothingFactor) {
+            if (heartbeatMillis < 0 || rssiChangeThreshold < 0) {
+                throw new IllegalArgumentException("heartbeatMillis and rssiChangeThreshold must not be negative");
+            }
+            if (!(rssiSmoothingFactor > 0f && rssiSmoothingFactor <= 1f)) {
+                throw new IllegalArgumentException("rssiSmoothingFactor must be greater than 0 and at most 1");
+            }
+            this.isDeduplicated = true;
+            this.deduplicationHeartbeatMillis = heartbeatMillis;
+            this.rssiChangeThreshold = rssiChangeThreshold;
+            this.rssiSmoothingFactor = rssiSmoothingFactor;
+            return this;
+        }
+
+        public RxBleScanSettings build() {
+            return new RxBleScanSettings(scanMode, callbackType, matchMode, reportDelayMillis, scanWindowMillis, scanIntervalMillis,
+                    isDeduplicated, deduplicationHeartbeatMillis, rssiChangeThreshold, rssiSmoothingFactor);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.polidea.rxandroidble;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a progress of a streaming write created with {@link RxBleConnection#createNewStreamingWriteBuilder()}.
+ */
+public class RxBleWriteProgress {
+
+    private final long bytesWritten;
+    private final long totalBytes;
+    private final long elapsedNanos;
+
+    public RxBleWriteProgress(long bytesWritten, long totalBytes, long elapsedNanos) {
+        this.bytesWritten = bytesWritten;
+        this.totalBytes = totalBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of bytes which writes were acknowledged by the Android stack so far.
+     *
+     * @return the number of written bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of bytes to write in total.
+     *
+     * @return the total number of bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the time elapsed since the write has started.
+     *
+     * @param timeUnit the unit of the returned time
+     * @return the elapsed time
+     */
+    public long getElapsedTime(TimeUnit timeUnit) {
+        return timeUnit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the average throughput of the write since it has started.
+     *
+     * @return the number of bytes written per second
+     */
+    public long getBytesPerSecond() {
+        return elapsedNanos > 0 ? bytesWritten * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns whether all bytes were written.
+     *
+     * @return true if the write has finished
+     */
+    public boolean isCompleted() {
+        return bytesWritten == totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RxBleWriteProgress{"
+                + "bytesWritten=" + bytesWritten
+                + ", totalBytes=" + totalBytes
+                + ", bytesPerSecond=" + getBytesPerSecond()
+                + '}';
+    }
+}
@@ -0,0 +1,21 @@
+package com.polidea.rxandroidble.exceptions;
+
+import java.util.UUID;
+
+public class BleDescriptorNotFoundException extends BleException {
+
+    private final UUID descriptorUUID;
+
+    public BleDescriptorNotFoundException(UUID descriptorUUID) {
+        this.descriptorUUID = descriptorUUID;
+    }
+
+    public UUID getDescriptorUUID() {
+        return descriptorUUID;
+    }
+
+    @Override
+    public String toString() {
+        return "BleDescriptorNotFoundException{descriptorUUID=" + descriptorUUID + '}';
+    }
+}
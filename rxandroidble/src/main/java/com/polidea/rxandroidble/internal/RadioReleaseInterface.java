@@ -0,0 +1,9 @@
+package com.polidea.rxandroidble.internal;
+
+/**
+ * Interface used by {@link RxBleRadioOperation} to notify the {@link RxBleRadio} that the next operation may be started.
+ */
+public interface RadioReleaseInterface {
+
+    void release();
+}
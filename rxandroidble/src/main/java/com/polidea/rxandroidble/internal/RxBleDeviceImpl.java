@@ -2,10 +2,15 @@ package com.polidea.rxandroidble.internal;
 
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
+import android.support.annotation.Nullable;
 
 import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.RxBleDevice;
+import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.RxBleReconnectionPolicy;
 import com.polidea.rxandroidble.exceptions.BleAlreadyConnectedException;
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache;
+import com.polidea.rxandroidble.internal.connection.ReconnectingConnection;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -13,6 +18,7 @@ import rx.Observable;
 import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Func0;
+import rx.schedulers.Schedulers;
 import rx.subjects.BehaviorSubject;
 
 import static com.polidea.rxandroidble.RxBleConnection.RxBleConnectionState.CONNECTED;
@@ -23,12 +29,20 @@ class RxBleDeviceImpl implements RxBleDevice {
 
     private final BluetoothDevice bluetoothDevice;
     private final RxBleConnection.Connector connector;
+    @Nullable
+    private final ServiceDiscoveryCache serviceDiscoveryCache;
     private final BehaviorSubject<RxBleConnection.RxBleConnectionState> connectionStateSubject = BehaviorSubject.create(DISCONNECTED);
     private AtomicBoolean isConnected = new AtomicBoolean(false);
 
     public RxBleDeviceImpl(BluetoothDevice bluetoothDevice, RxBleConnection.Connector connector) {
+        this(bluetoothDevice, connector, null);
+    }
+
+    public RxBleDeviceImpl(BluetoothDevice bluetoothDevice, RxBleConnection.Connector connector,
+                           @Nullable ServiceDiscoveryCache serviceDiscoveryCache) {
         this.bluetoothDevice = bluetoothDevice;
         this.connector = connector;
+        this.serviceDiscoveryCache = serviceDiscoveryCache;
     }
 
     @Override
@@ -75,6 +89,24 @@ class RxBleDeviceImpl implements RxBleDevice {
         });
     }
 
+    @Override
+    public Observable<RxBleConnection> establishReconnectingConnection(Context context, RxBleReconnectionPolicy policy) {
+        return ReconnectingConnection.establish(getMacAddress(), establishConnection(context, false), policy, Schedulers.computation());
+    }
+
+    @Override
+    public Observable<RxBleDeviceServices> getCachedServices() {
+        return Observable.defer(new Func0<Observable<RxBleDeviceServices>>() {
+            @Override
+            public Observable<RxBleDeviceServices> call() {
+                final RxBleDeviceServices cachedServices = serviceDiscoveryCache != null
+                        ? serviceDiscoveryCache.get(bluetoothDevice.getAddress())
+                        : null;
+                return cachedServices != null ? Observable.just(cachedServices) : Observable.<RxBleDeviceServices>empty();
+            }
+        });
+    }
+
     @Override
     public String getName() {
         return bluetoothDevice.getName();
@@ -1,71 +1,117 @@
 package com.polidea.rxandroidble.internal;
 
 import android.bluetooth.BluetoothDevice;
+import android.support.annotation.Nullable;
 
 import com.polidea.rxandroidble.RxBleAdapterStateObservable;
 import com.polidea.rxandroidble.RxBleDevice;
-import com.polidea.rxandroidble.internal.cache.RxBleDeviceCache;
+import com.polidea.rxandroidble.internal.cache.DeviceRegistry;
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache;
 import com.polidea.rxandroidble.internal.connection.RxBleConnectionConnectorImpl;
 import com.polidea.rxandroidble.internal.connection.RxBleConnectionConnectorOperationsProvider;
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback;
 import com.polidea.rxandroidble.internal.util.BleConnectionCompat;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
 import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper;
 
-import java.util.Map;
 import rx.Observable;
 import rx.Scheduler;
+import rx.functions.Func0;
 
 public class RxBleDeviceProvider {
 
-    private final Map<String, RxBleDevice> availableDevices = new RxBleDeviceCache();
+    private final DeviceRegistry deviceRegistry = new DeviceRegistry();
     private final RxBleAdapterWrapper rxBleAdapterWrapper;
     private final RxBleRadio rxBleRadio;
+    private final RxBleRadio.ConnectionRadioProvider connectionRadioProvider;
     private final BleConnectionCompat bleConnectionCompat;
     private final Observable<RxBleAdapterStateObservable.BleAdapterState> adapterStateObservable;
     private final Scheduler gattCallbacksProcessingScheduler;
+    @Nullable
+    private final ServiceDiscoveryCache serviceDiscoveryCache;
 
-    public RxBleDeviceProvider(RxBleAdapterWrapper rxBleAdapterWrapper, RxBleRadio rxBleRadio, BleConnectionCompat bleConnectionCompat,
+    public RxBleDeviceProvider(RxBleAdapterWrapper rxBleAdapterWrapper, RxBleRadio rxBleRadio,
+                               RxBleRadio.ConnectionRadioProvider connectionRadioProvider, BleConnectionCompat bleConnectionCompat,
                                Observable<RxBleAdapterStateObservable.BleAdapterState> adapterStateObservable,
                                Scheduler gattCallbacksProcessingScheduler) {
+        this(rxBleAdapterWrapper, rxBleRadio, connectionRadioProvider, bleConnectionCompat, adapterStateObservable,
+                gattCallbacksProcessingScheduler, null);
+    }
+
+    public RxBleDeviceProvider(RxBleAdapterWrapper rxBleAdapterWrapper, RxBleRadio rxBleRadio,
+                               RxBleRadio.ConnectionRadioProvider connectionRadioProvider, BleConnectionCompat bleConnectionCompat,
+                               Observable<RxBleAdapterStateObservable.BleAdapterState> adapterStateObservable,
+                               Scheduler gattCallbacksProcessingScheduler, @Nullable ServiceDiscoveryCache serviceDiscoveryCache) {
         this.rxBleAdapterWrapper = rxBleAdapterWrapper;
         this.rxBleRadio = rxBleRadio;
+        this.connectionRadioProvider = connectionRadioProvider;
         this.bleConnectionCompat = bleConnectionCompat;
         this.adapterStateObservable = adapterStateObservable;
         this.gattCallbacksProcessingScheduler = gattCallbacksProcessingScheduler;
+        this.serviceDiscoveryCache = serviceDiscoveryCache;
     }
 
-    public RxBleDevice getBleDevice(String macAddress) {
-        final RxBleDevice rxBleDevice = availableDevices.get(macAddress);
+    public RxBleDevice getBleDevice(final String macAddress) {
+        final long macAddressKey = MacAddressUtil.toLong(macAddress);
+        if (macAddressKey == -1) {
+            throw new IllegalArgumentException("Malformed MAC address: " + macAddress);
+        }
+        final RxBleDevice rxBleDevice = deviceRegistry.get(macAddressKey);
 
         if (rxBleDevice != null) {
             return rxBleDevice;
         }
 
-        synchronized (availableDevices) {
-            final RxBleDevice secondCheckRxBleDevice = availableDevices.get(macAddress);
-
-            if (secondCheckRxBleDevice != null) {
-                return secondCheckRxBleDevice;
+        return deviceRegistry.getOrCreate(macAddressKey, new Func0<RxBleDevice>() {
+            @Override
+            public RxBleDevice call() {
+                return createBleDevice(rxBleAdapterWrapper.getRemoteDevice(macAddress));
             }
+        });
+    }
+
+    /**
+     * Returns the device for a {@link BluetoothDevice} received in a scan callback. A device that is already known is returned
+     * without locking and without hashing the address string, a new one wraps the given {@link BluetoothDevice} instead of
+     * retrieving it from the adapter.
+     */
+    public RxBleDevice getBleDevice(final BluetoothDevice bluetoothDevice) {
+        final long macAddressKey = MacAddressUtil.toLong(bluetoothDevice.getAddress());
+        if (macAddressKey == -1) {
+            throw new IllegalArgumentException("Malformed MAC address: " + bluetoothDevice.getAddress());
+        }
+        final RxBleDevice rxBleDevice = deviceRegistry.get(macAddressKey);
 
-            final BluetoothDevice bluetoothDevice = rxBleAdapterWrapper.getRemoteDevice(macAddress);
-            final RxBleDeviceImpl newRxBleDevice = new RxBleDeviceImpl(
-                    bluetoothDevice,
-                    new RxBleConnectionConnectorImpl(bluetoothDevice,
-                            new RxBleGattCallback.Provider() {
-                                @Override
-                                public RxBleGattCallback provide() {
-                                    return new RxBleGattCallback(gattCallbacksProcessingScheduler);
-                                }
-                            },
-                            new RxBleConnectionConnectorOperationsProvider(),
-                            rxBleRadio,
-                            bleConnectionCompat,
-                            rxBleAdapterWrapper,
-                            adapterStateObservable)
-            );
-            availableDevices.put(macAddress, newRxBleDevice);
-            return newRxBleDevice;
+        if (rxBleDevice != null) {
+            return rxBleDevice;
         }
+
+        return deviceRegistry.getOrCreate(macAddressKey, new Func0<RxBleDevice>() {
+            @Override
+            public RxBleDevice call() {
+                return createBleDevice(bluetoothDevice);
+            }
+        });
+    }
+
+    private RxBleDevice createBleDevice(BluetoothDevice bluetoothDevice) {
+        return new RxBleDeviceImpl(
+                bluetoothDevice,
+                new RxBleConnectionConnectorImpl(bluetoothDevice,
+                        new RxBleGattCallback.Provider() {
+                            @Override
+                            public RxBleGattCallback provide() {
+                                return new RxBleGattCallback(gattCallbacksProcessingScheduler);
+                            }
+                        },
+                        new RxBleConnectionConnectorOperationsProvider(),
+                        rxBleRadio,
+                        connectionRadioProvider,
+                        bleConnectionCompat,
+                        rxBleAdapterWrapper,
+                        adapterStateObservable,
+                        serviceDiscoveryCache),
+                serviceDiscoveryCache
+        );
     }
 }
@@ -5,4 +5,14 @@ import rx.Observable;
 public interface RxBleRadio {
 
     <T> Observable<T> queue(RxBleRadioOperation<T> rxBleRadioOperation);
+
+    interface ConnectionRadioProvider {
+
+        /**
+         * Provides the radio on which all operations of a single connection (GATT operations and the disconnect) will be queued.
+         *
+         * @return the radio for a new connection
+         */
+        RxBleRadio provideConnectionRadio();
+    }
 }
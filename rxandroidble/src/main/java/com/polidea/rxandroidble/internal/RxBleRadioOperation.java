@@ -4,7 +4,6 @@ import android.os.DeadObjectException;
 import android.support.annotation.NonNull;
 
 import com.polidea.rxandroidble.exceptions.BleException;
-import java.util.concurrent.Semaphore;
 
 import rx.Observable;
 import rx.Subscriber;
@@ -25,7 +24,12 @@ public abstract class RxBleRadioOperation<T> implements Runnable, Comparable<RxB
      */
     private ReplaySubject<T> replaySubject = ReplaySubject.create();
 
-    private Semaphore radioBlockingSemaphore;
+    private RadioReleaseInterface radioReleaseInterface;
+
+    /**
+     * Handle of this operation in the queue of the Bluetooth Radio that allows removing it without searching the queue.
+     */
+    private Object radioQueueHandle;
 
     /**
      * A function that returns this operation as an Observable.
@@ -111,12 +115,12 @@ public abstract class RxBleRadioOperation<T> implements Runnable, Comparable<RxB
     }
 
     /**
-     * The setter for the semaphore which needs to be released for the Bluetooth Radio to continue the work
+     * The setter for the interface which needs to be released for the Bluetooth Radio to continue the work
      *
-     * @param radioBlockingSemaphore the semaphore
+     * @param radioReleaseInterface the interface
      */
-    public void setRadioBlockingSemaphore(Semaphore radioBlockingSemaphore) {
-        this.radioBlockingSemaphore = radioBlockingSemaphore;
+    public void setRadioReleaseInterface(RadioReleaseInterface radioReleaseInterface) {
+        this.radioReleaseInterface = radioReleaseInterface;
     }
 
     /**
@@ -124,7 +128,34 @@ public abstract class RxBleRadioOperation<T> implements Runnable, Comparable<RxB
      * This must be called at appropriate time of the happy-flow
      */
     protected final void releaseRadio() {
-        radioBlockingSemaphore.release();
+        radioReleaseInterface.release();
+    }
+
+    /**
+     * The getter for the handle of this operation in the queue of the Bluetooth Radio
+     *
+     * @return the handle or null if the operation is not queued
+     */
+    public Object getRadioQueueHandle() {
+        return radioQueueHandle;
+    }
+
+    /**
+     * The setter for the handle of this operation in the queue of the Bluetooth Radio
+     *
+     * @param radioQueueHandle the handle
+     */
+    public void setRadioQueueHandle(Object radioQueueHandle) {
+        this.radioQueueHandle = radioQueueHandle;
+    }
+
+    /**
+     * The getter for the priority with which this operation should be executed
+     *
+     * @return the priority of this operation
+     */
+    public final Priority getPriority() {
+        return definedPriority();
     }
 
     /**
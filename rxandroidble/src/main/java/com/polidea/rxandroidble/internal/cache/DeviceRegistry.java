@@ -0,0 +1,277 @@
+package com.polidea.rxandroidble.internal.cache;
+
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleDevice;
+import com.polidea.rxandroidble.internal.util.LongIntHashMap;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import rx.functions.Func0;
+
+import static com.polidea.rxandroidble.internal.util.LongIntHashMap.USED_SLOT;
+import static com.polidea.rxandroidble.internal.util.LongIntHashMap.hash;
+
+/**
+ * Weakly referenced devices keyed by the 48 bit MAC address. It is read for every received advertisement so reads take no lock and
+ * do not hash strings - the address is looked up in open addressing tables of primitive keys, encoded and hashed like the keys of
+ * {@link LongIntHashMap}. The tables are atomic arrays rather than a {@link LongIntHashMap} so they can be read without the lock.
+ * The keys are split into {@value #STRIPE_COUNT} stripes, each with its own table and lock, so creating a device blocks only
+ * the lookups that miss in the same stripe.
+ * <p>
+ * A writer publishes the device reference before the key of a new slot, so a reader that sees the key sees the reference too.
+ * Tables are replaced and not modified when they grow - a reader still probing the old table may miss a device created meanwhile
+ * and falls back to {@link #getOrCreate(long, Func0)} which checks again under the lock.
+ * <p>
+ * The references are registered in a {@link ReferenceQueue} which is drained by {@link #getOrCreate(long, Func0)} - the slots of
+ * garbage collected devices are marked as removed so lookups of their addresses stop at them, and are reclaimed when the table
+ * is rebuilt. The queue is not drained by {@link #get(long)} so the lookups stay lock free.
+ */
+public class DeviceRegistry {
+
+    private static final int STRIPE_COUNT = 16;
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * Marks the slots of garbage collected devices. It differs from every key so the probing continues past it.
+     */
+    private static final long REMOVED_SLOT = 1L << 49;
+
+    private static class Table {
+
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<DeviceWeakReference> references;
+        int size;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            references = new AtomicReferenceArray<>(capacity);
+        }
+
+        int findSlot(long key, int hash) {
+            final int mask = keys.length() - 1;
+            int slot = hash & mask;
+            long slotKey;
+            while ((slotKey = keys.get(slot)) != 0 && slotKey != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    private static class Stripe {
+
+        volatile Table table = new Table(MIN_CAPACITY);
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    private final ReferenceQueue<RxBleDevice> referenceQueue = new ReferenceQueue<>();
+
+    private final DeviceWeakReference.Provider deviceReferenceProvider;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public DeviceRegistry() {
+        this(new DeviceWeakReference.Provider() {
+            @Override
+            public DeviceWeakReference provide(long key, RxBleDevice device, @Nullable ReferenceQueue<? super RxBleDevice> referenceQueue) {
+                return new DeviceWeakReference(key, device, referenceQueue);
+            }
+        });
+    }
+
+    DeviceRegistry(DeviceWeakReference.Provider provider) {
+        deviceReferenceProvider = provider;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Lock free lookup of a device.
+     *
+     * @param macAddress the address as returned by {@link com.polidea.rxandroidble.internal.util.MacAddressUtil#toLong(String)}
+     * @return the device or null if there is none or it was garbage collected
+     */
+    @Nullable
+    public RxBleDevice get(long macAddress) {
+        final long key = macAddress | USED_SLOT;
+        final int hash = hash(key);
+        final Table table = stripes[stripeIndex(hash)].table;
+        final int slot = table.findSlot(key, hash);
+        // the slot may be empty when found and then taken by a concurrently created device with a different address
+        final DeviceWeakReference reference = table.keys.get(slot) == key ? table.references.get(slot) : null;
+        // the reference is null if the slot was marked as removed after it was found
+        final RxBleDevice device = reference != null ? reference.get() : null;
+        if (device != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return device;
+    }
+
+    /**
+     * Returns the device or creates it with the factory while holding the lock of the stripe, so a device is created only once
+     * for concurrent callers.
+     *
+     * @param macAddress    the address as returned by {@link com.polidea.rxandroidble.internal.util.MacAddressUtil#toLong(String)}
+     * @param deviceFactory the factory of the device called if there is no device with the address
+     * @return the device
+     */
+    public RxBleDevice getOrCreate(long macAddress, Func0<RxBleDevice> deviceFactory) {
+        final long key = macAddress | USED_SLOT;
+        final int hash = hash(key);
+        final Stripe stripe = stripes[stripeIndex(hash)];
+        removeCollectedDevices();
+
+        synchronized (stripe) {
+            Table table = stripe.table;
+            int slot = table.findSlot(key, hash);
+            if (table.keys.get(slot) != 0) {
+                final RxBleDevice device = table.references.get(slot).get();
+                if (device != null) {
+                    return device;
+                }
+                // the key stays in place - only the garbage collected reference, not yet taken from the queue, is replaced
+                evictionCount.incrementAndGet();
+                final RxBleDevice newDevice = deviceFactory.call();
+                table.references.set(slot, deviceReferenceProvider.provide(key, newDevice, referenceQueue));
+                return newDevice;
+            }
+
+            if (table.size + 1 > table.keys.length() / 2) {
+                table = rehash(table);
+                stripe.table = table;
+                slot = table.findSlot(key, hash);
+            }
+            final RxBleDevice newDevice = deviceFactory.call();
+            table.references.set(slot, deviceReferenceProvider.provide(key, newDevice, referenceQueue));
+            table.keys.set(slot, key);
+            table.size++;
+            return newDevice;
+        }
+    }
+
+    /**
+     * Lock free snapshot of the devices that were not garbage collected. It is not affected by later modifications of the registry
+     * and may miss a device created while it is taken.
+     *
+     * @return the devices
+     */
+    public List<RxBleDevice> snapshot() {
+        final List<RxBleDevice> devices = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            final Table table = stripe.table;
+            for (int slot = 0; slot < table.keys.length(); slot++) {
+                final long key = table.keys.get(slot);
+                if (key == 0 || key == REMOVED_SLOT) {
+                    continue;
+                }
+                // the reference is null if the slot was marked as removed after its key was read
+                final DeviceWeakReference reference = table.references.get(slot);
+                final RxBleDevice device = reference != null ? reference.get() : null;
+                if (device != null) {
+                    devices.add(device);
+                }
+            }
+        }
+        return Collections.unmodifiableList(devices);
+    }
+
+    /**
+     * @return the number of {@link #get(long)} calls that returned a device
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of {@link #get(long)} calls that returned null
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of entries removed or replaced because their device was garbage collected
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void removeCollectedDevices() {
+        Reference<? extends RxBleDevice> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            removeCollectedDevice((DeviceWeakReference) reference);
+        }
+    }
+
+    private void removeCollectedDevice(DeviceWeakReference reference) {
+        final long key = reference.getKey();
+        final int hash = hash(key);
+        final Stripe stripe = stripes[stripeIndex(hash)];
+
+        synchronized (stripe) {
+            final Table table = stripe.table;
+            final int slot = table.findSlot(key, hash);
+            // the slot may already hold a newer device or the entry was dropped when the table was rebuilt
+            if (table.keys.get(slot) == key && table.references.get(slot) == reference) {
+                table.keys.set(slot, REMOVED_SLOT);
+                table.references.set(slot, null);
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Copies the entries of live devices to a new table, growing it only if dropping the removed and garbage collected devices
+     * did not free enough space.
+     */
+    private Table rehash(Table table) {
+        int liveDevices = 0;
+        for (int slot = 0; slot < table.keys.length(); slot++) {
+            if (isLive(table, slot)) {
+                liveDevices++;
+            }
+        }
+        final int capacity = table.keys.length();
+        final Table newTable = new Table(liveDevices + 1 > capacity / 4 ? capacity * 2 : capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            final long key = table.keys.get(slot);
+            if (key == 0 || key == REMOVED_SLOT) {
+                continue;
+            }
+            final DeviceWeakReference reference = table.references.get(slot);
+            if (reference.get() == null) {
+                // the reference is dropped before it is taken from the queue
+                evictionCount.incrementAndGet();
+                continue;
+            }
+            final int newSlot = newTable.findSlot(key, hash(key));
+            newTable.references.set(newSlot, reference);
+            newTable.keys.set(newSlot, key);
+            newTable.size++;
+        }
+        return newTable;
+    }
+
+    private static boolean isLive(Table table, int slot) {
+        final long key = table.keys.get(slot);
+        return key != 0 && key != REMOVED_SLOT && table.references.get(slot).get() != null;
+    }
+
+    private static int stripeIndex(int hash) {
+        // the low bits select the slot within the stripe
+        return hash >>> 28;
+    }
+}
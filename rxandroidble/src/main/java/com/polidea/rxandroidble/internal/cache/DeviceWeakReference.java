@@ -1,5 +1,7 @@
 package com.polidea.rxandroidble.internal.cache;
 
+import android.support.annotation.Nullable;
+
 import com.polidea.rxandroidble.RxBleDevice;
 
 import java.lang.ref.ReferenceQueue;
@@ -9,21 +11,21 @@ class DeviceWeakReference extends WeakReference<RxBleDevice> {
 
     public interface Provider {
 
-        DeviceWeakReference provide(RxBleDevice rxBleDevice);
+        DeviceWeakReference provide(long key, RxBleDevice rxBleDevice, @Nullable ReferenceQueue<? super RxBleDevice> referenceQueue);
     }
 
-    public DeviceWeakReference(RxBleDevice device) {
-        super(device);
-    }
+    private final long key;
 
-    @SuppressWarnings("unused")
-    public DeviceWeakReference(RxBleDevice r, ReferenceQueue<? super RxBleDevice> q) {
+    /**
+     * @param key the key under which the reference is stored, so it can be removed when it is taken from the queue
+     */
+    public DeviceWeakReference(long key, RxBleDevice r, @Nullable ReferenceQueue<? super RxBleDevice> q) {
         super(r, q);
+        this.key = key;
     }
 
-    public boolean contains(Object object) {
-        final RxBleDevice thisDevice = get();
-        return thisDevice != null && thisDevice == object;
+    public long getKey() {
+        return key;
     }
 
     @Override
@@ -0,0 +1,238 @@
+package com.polidea.rxandroidble.internal.cache;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.BASE_UUID_LSB;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.BASE_UUID_MSB;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.shortUuidToMsb;
+
+/**
+ * Disk backed cache of service discovery results keyed by the MAC address of the device. Every device has its own file with the
+ * service / characteristic / descriptor tree in a compact binary format - UUIDs derived from the Bluetooth Base UUID take 4 bytes
+ * instead of 16. Entries are read from the disk once and then served from memory.
+ * <p>
+ * An entry is valid only for the version key it was stored with - changing the key (i.e. on a firmware update of the devices)
+ * invalidates all entries. The attributes of a cached tree are not bound to a connection, so they describe the structure
+ * of the device but cannot be used for GATT operations.
+ */
+public class ServiceDiscoveryCache {
+
+    private static final int MAGIC = 0x52784753;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".gatt";
+    private static final int SHORT_UUID_LENGTH = 4;
+    private static final int FULL_UUID_LENGTH = 16;
+
+    private final File directory;
+    private final String versionKey;
+    private final boolean revalidatedOnConnection;
+    private final ConcurrentHashMap<String, RxBleDeviceServices> memoryCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory               the directory of the cache files, created if needed
+     * @param versionKey              the version of the cached entries
+     * @param revalidatedOnConnection true if services should be discovered in the background on every connection to update the entry
+     */
+    public ServiceDiscoveryCache(@NonNull File directory, @NonNull String versionKey, boolean revalidatedOnConnection) {
+        this.directory = directory;
+        this.versionKey = versionKey;
+        this.revalidatedOnConnection = revalidatedOnConnection;
+    }
+
+    public boolean isRevalidatedOnConnection() {
+        return revalidatedOnConnection;
+    }
+
+    /**
+     * Returns the cached services of the device. The first lookup of a device reads its file so it should not be called on the main
+     * thread.
+     *
+     * @param macAddress the MAC address of the device
+     * @return the services or null if there is no valid entry
+     */
+    @Nullable
+    public RxBleDeviceServices get(@NonNull String macAddress) {
+        final String key = keyOf(macAddress);
+        final RxBleDeviceServices cachedServices = memoryCache.get(key);
+        if (cachedServices != null) {
+            return cachedServices;
+        }
+
+        final File file = new File(directory, key + FILE_EXTENSION);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            final RxBleDeviceServices services = readServices(file);
+            if (services == null) {
+                deleteFile(file);
+                return null;
+            }
+            final RxBleDeviceServices previousServices = memoryCache.putIfAbsent(key, services);
+            return previousServices != null ? previousServices : services;
+        } catch (IOException e) {
+            RxBleLog.w(e, "Could not read cached services of %s", macAddress);
+            deleteFile(file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the services of the device. The file is replaced atomically so a concurrent lookup never reads a partially written entry.
+     *
+     * @param macAddress the MAC address of the device
+     * @param services   the discovered services
+     */
+    public void put(@NonNull String macAddress, @NonNull RxBleDeviceServices services) {
+        final String key = keyOf(macAddress);
+        memoryCache.put(key, services);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            RxBleLog.w("Could not create the service discovery cache directory %s", directory);
+            return;
+        }
+        final File file = new File(directory, key + FILE_EXTENSION);
+        final File temporaryFile = new File(directory, key + FILE_EXTENSION + ".tmp");
+        try {
+            writeServices(temporaryFile, services.getBluetoothGattServices());
+            if (!temporaryFile.renameTo(file)) {
+                throw new IOException("Could not rename " + temporaryFile);
+            }
+        } catch (IOException e) {
+            RxBleLog.w(e, "Could not write cached services of %s", macAddress);
+            deleteFile(temporaryFile);
+        }
+    }
+
+    /**
+     * Removes the entry of the device, i.e. after the device indicated that its services have changed.
+     *
+     * @param macAddress the MAC address of the device
+     */
+    public void invalidate(@NonNull String macAddress) {
+        final String key = keyOf(macAddress);
+        memoryCache.remove(key);
+        deleteFile(new File(directory, key + FILE_EXTENSION));
+    }
+
+    private static String keyOf(String macAddress) {
+        final long macAddressKey = MacAddressUtil.toLong(macAddress);
+        if (macAddressKey == -1) {
+            throw new IllegalArgumentException("Malformed MAC address: " + macAddress);
+        }
+        return Long.toHexString(macAddressKey);
+    }
+
+    private void writeServices(File file, List<BluetoothGattService> services) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeUTF(versionKey);
+            output.writeShort(services.size());
+            for (BluetoothGattService service : services) {
+                writeUuid(output, service.getUuid());
+                output.writeByte(service.getType());
+                final List<BluetoothGattCharacteristic> characteristics = service.getCharacteristics();
+                output.writeShort(characteristics.size());
+                for (BluetoothGattCharacteristic characteristic : characteristics) {
+                    writeUuid(output, characteristic.getUuid());
+                    output.writeByte(characteristic.getProperties());
+                    output.writeShort(characteristic.getPermissions());
+                    final List<BluetoothGattDescriptor> descriptors = characteristic.getDescriptors();
+                    output.writeByte(descriptors.size());
+                    for (BluetoothGattDescriptor descriptor : descriptors) {
+                        writeUuid(output, descriptor.getUuid());
+                        output.writeShort(descriptor.getPermissions());
+                    }
+                }
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * @return the services or null if the file was written in another format or with another version key
+     */
+    @Nullable
+    private RxBleDeviceServices readServices(File file) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (input.readInt() != MAGIC || input.readUnsignedByte() != FORMAT_VERSION || !versionKey.equals(input.readUTF())) {
+                return null;
+            }
+            final int serviceCount = input.readUnsignedShort();
+            final List<BluetoothGattService> services = new ArrayList<>(serviceCount);
+            for (int i = 0; i < serviceCount; i++) {
+                final BluetoothGattService service = new BluetoothGattService(readUuid(input), input.readUnsignedByte());
+                final int characteristicCount = input.readUnsignedShort();
+                for (int j = 0; j < characteristicCount; j++) {
+                    final BluetoothGattCharacteristic characteristic = new BluetoothGattCharacteristic(
+                            readUuid(input), input.readUnsignedByte(), input.readUnsignedShort()
+                    );
+                    final int descriptorCount = input.readUnsignedByte();
+                    for (int k = 0; k < descriptorCount; k++) {
+                        characteristic.addDescriptor(new BluetoothGattDescriptor(readUuid(input), input.readUnsignedShort()));
+                    }
+                    service.addCharacteristic(characteristic);
+                }
+                services.add(service);
+            }
+            return new RxBleDeviceServices(services);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void writeUuid(DataOutputStream output, UUID uuid) throws IOException {
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        if (lsb == BASE_UUID_LSB && (msb & 0xFFFFFFFFL) == BASE_UUID_MSB) {
+            output.writeByte(SHORT_UUID_LENGTH);
+            output.writeInt((int) (msb >>> 32));
+        } else {
+            output.writeByte(FULL_UUID_LENGTH);
+            output.writeLong(msb);
+            output.writeLong(lsb);
+        }
+    }
+
+    private static UUID readUuid(DataInputStream input) throws IOException {
+        final int length = input.readUnsignedByte();
+        if (length == SHORT_UUID_LENGTH) {
+            return new UUID(shortUuidToMsb(input.readInt() & 0xFFFFFFFFL), BASE_UUID_LSB);
+        } else if (length == FULL_UUID_LENGTH) {
+            return new UUID(input.readLong(), input.readLong());
+        } else {
+            throw new IOException("Unexpected UUID length " + length);
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            RxBleLog.w("Could not delete %s", file);
+        }
+    }
+}
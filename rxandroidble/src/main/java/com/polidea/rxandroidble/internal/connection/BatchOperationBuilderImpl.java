@@ -0,0 +1,138 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.support.annotation.NonNull;
+import com.polidea.rxandroidble.RxBleBatchResult;
+import com.polidea.rxandroidble.RxBleConnection;
+import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationBatch;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicRead;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicWrite;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationDescriptorRead;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationDescriptorWrite;
+import com.polidea.rxandroidble.internal.util.ByteAssociation;
+import java.util.ArrayList;
+import java.util.List;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+final class BatchOperationBuilderImpl implements RxBleConnection.BatchOperationBuilder {
+
+    @NonNull
+    private final BluetoothGatt bluetoothGatt;
+
+    @NonNull
+    private final RxBleGattCallback rxBleGattCallback;
+
+    @NonNull
+    private final RxBleRadio rxBleRadio;
+
+    @NonNull
+    private final Scheduler timeoutScheduler;
+
+    private final List<Func0<RxBleRadioOperationBatch.Item>> itemFactories = new ArrayList<>();
+
+    BatchOperationBuilderImpl(
+            @NonNull BluetoothGatt bluetoothGatt,
+            @NonNull RxBleGattCallback rxBleGattCallback,
+            @NonNull RxBleRadio rxBleRadio,
+            @NonNull Scheduler timeoutScheduler
+    ) {
+        this.bluetoothGatt = bluetoothGatt;
+        this.rxBleGattCallback = rxBleGattCallback;
+        this.rxBleRadio = rxBleRadio;
+        this.timeoutScheduler = timeoutScheduler;
+    }
+
+    @Override
+    public RxBleConnection.BatchOperationBuilder addCharacteristicRead(@NonNull final BluetoothGattCharacteristic characteristic) {
+        itemFactories.add(new Func0<RxBleRadioOperationBatch.Item>() {
+            @Override
+            public RxBleRadioOperationBatch.Item call() {
+                final RxBleRadioOperationCharacteristicRead operation =
+                        new RxBleRadioOperationCharacteristicRead(rxBleGattCallback, bluetoothGatt, characteristic, timeoutScheduler);
+                return new RxBleRadioOperationBatch.Item(operation, operation.asObservable());
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.BatchOperationBuilder addCharacteristicWrite(@NonNull final BluetoothGattCharacteristic characteristic,
+                                                                        @NonNull final byte[] data) {
+        itemFactories.add(new Func0<RxBleRadioOperationBatch.Item>() {
+            @Override
+            public RxBleRadioOperationBatch.Item call() {
+                final RxBleRadioOperationCharacteristicWrite operation = new RxBleRadioOperationCharacteristicWrite(
+                        rxBleGattCallback, bluetoothGatt, characteristic, data, timeoutScheduler
+                );
+                return new RxBleRadioOperationBatch.Item(operation, operation.asObservable());
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.BatchOperationBuilder addDescriptorRead(@NonNull final BluetoothGattDescriptor descriptor) {
+        itemFactories.add(new Func0<RxBleRadioOperationBatch.Item>() {
+            @Override
+            public RxBleRadioOperationBatch.Item call() {
+                final RxBleRadioOperationDescriptorRead operation =
+                        new RxBleRadioOperationDescriptorRead(rxBleGattCallback, bluetoothGatt, descriptor, timeoutScheduler);
+                return new RxBleRadioOperationBatch.Item(
+                        operation,
+                        operation.asObservable().map(new Func1<ByteAssociation<BluetoothGattDescriptor>, byte[]>() {
+                            @Override
+                            public byte[] call(ByteAssociation<BluetoothGattDescriptor> bluetoothGattDescriptorPair) {
+                                return bluetoothGattDescriptorPair.second;
+                            }
+                        })
+                );
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.BatchOperationBuilder addDescriptorWrite(@NonNull final BluetoothGattDescriptor descriptor,
+                                                                    @NonNull final byte[] data) {
+        itemFactories.add(new Func0<RxBleRadioOperationBatch.Item>() {
+            @Override
+            public RxBleRadioOperationBatch.Item call() {
+                final RxBleRadioOperationDescriptorWrite operation = new RxBleRadioOperationDescriptorWrite(
+                        rxBleGattCallback,
+                        bluetoothGatt,
+                        BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT,
+                        descriptor,
+                        data,
+                        timeoutScheduler
+                );
+                return new RxBleRadioOperationBatch.Item(operation, operation.asObservable());
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Observable<RxBleBatchResult> build() {
+        if (itemFactories.isEmpty()) {
+            throw new IllegalArgumentException("at least one operation needs to be added before build()");
+        }
+
+        final List<Func0<RxBleRadioOperationBatch.Item>> batchItemFactories = new ArrayList<>(itemFactories);
+        return Observable.defer(new Func0<Observable<RxBleBatchResult>>() {
+            @Override
+            public Observable<RxBleBatchResult> call() {
+                final List<RxBleRadioOperationBatch.Item> items = new ArrayList<>(batchItemFactories.size());
+                for (Func0<RxBleRadioOperationBatch.Item> itemFactory : batchItemFactories) {
+                    items.add(itemFactory.call());
+                }
+                return rxBleRadio.queue(new RxBleRadioOperationBatch(bluetoothGatt, items));
+            }
+        });
+    }
+}
@@ -0,0 +1,189 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import java.util.UUID;
+
+/**
+ * Routes characteristic change notifications to listeners registered for a characteristic identified by its UUID and instance id.
+ * Keys are kept as primitives in an open addressing table so dispatching a notification does not allocate any objects. Listeners
+ * are registered rarely and notifications are dispatched often - the table is copied on every registration change and read without
+ * locking on dispatch.
+ */
+class CharacteristicChangedDispatchTable {
+
+    interface Listener {
+
+        void onCharacteristicChanged(byte[] value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    /**
+     * Registers a listener for notifications of the characteristic. The same listener instance should be registered only once.
+     */
+    synchronized void register(UUID uuid, int instanceId, Listener listener) {
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        final Table current = table;
+        final int slot = current.find(msb, lsb, instanceId);
+        final Table updated;
+        if (slot >= 0) {
+            updated = current.copy(current.capacity());
+            updated.listeners[slot] = append(current.listeners[slot], listener);
+        } else {
+            final int entries = current.entries + 1;
+            updated = current.copy(capacityFor(entries));
+            updated.put(msb, lsb, instanceId, new Listener[]{listener});
+        }
+        table = updated;
+    }
+
+    synchronized void unregister(UUID uuid, int instanceId, Listener listener) {
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        final Table current = table;
+        final int slot = current.find(msb, lsb, instanceId);
+        if (slot < 0) {
+            return;
+        }
+        final Listener[] remaining = remove(current.listeners[slot], listener);
+        if (remaining == current.listeners[slot]) {
+            return;
+        }
+        final Table updated;
+        if (remaining.length > 0) {
+            updated = current.copy(current.capacity());
+            updated.listeners[slot] = remaining;
+        } else {
+            // removing from an open addressing table would break probe sequences - the table is rebuilt without the entry instead
+            updated = current.copyWithout(slot, capacityFor(current.entries - 1));
+        }
+        table = updated;
+    }
+
+    /**
+     * Passes the value to all listeners registered for the characteristic.
+     *
+     * @return true if at least one listener was notified
+     */
+    boolean dispatch(long uuidMsb, long uuidLsb, int instanceId, byte[] value) {
+        final Table current = table;
+        final int slot = current.find(uuidMsb, uuidLsb, instanceId);
+        if (slot < 0) {
+            return false;
+        }
+        final Listener[] listeners = current.listeners[slot];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onCharacteristicChanged(value);
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return table.entries == 0;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        // load factor is kept at most 0.5 so probe sequences stay short
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static Listener[] append(Listener[] listeners, Listener listener) {
+        final Listener[] appended = new Listener[listeners.length + 1];
+        System.arraycopy(listeners, 0, appended, 0, listeners.length);
+        appended[listeners.length] = listener;
+        return appended;
+    }
+
+    private static Listener[] remove(Listener[] listeners, Listener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                final Listener[] removed = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, listeners.length - i - 1);
+                return removed;
+            }
+        }
+        return listeners;
+    }
+
+    private static int hash(long msb, long lsb, int instanceId) {
+        long hash = msb ^ (lsb * 31) ^ ((long) instanceId * 0x9E3779B97F4A7C15L);
+        hash ^= hash >>> 32;
+        final int intHash = (int) hash;
+        return intHash ^ (intHash >>> 16);
+    }
+
+    private static final class Table {
+
+        final long[] msbs;
+        final long[] lsbs;
+        final int[] instanceIds;
+        final Listener[][] listeners;
+        final int mask;
+        int entries;
+
+        Table(int capacity) {
+            msbs = new long[capacity];
+            lsbs = new long[capacity];
+            instanceIds = new int[capacity];
+            listeners = new Listener[capacity][];
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return listeners.length;
+        }
+
+        int find(long msb, long lsb, int instanceId) {
+            int slot = hash(msb, lsb, instanceId) & mask;
+            while (listeners[slot] != null) {
+                if (msbs[slot] == msb && lsbs[slot] == lsb && instanceIds[slot] == instanceId) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long msb, long lsb, int instanceId, Listener[] slotListeners) {
+            int slot = hash(msb, lsb, instanceId) & mask;
+            while (listeners[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            instanceIds[slot] = instanceId;
+            listeners[slot] = slotListeners;
+            entries++;
+        }
+
+        Table copy(int capacity) {
+            if (capacity != capacity()) {
+                return copyWithout(-1, capacity);
+            }
+            final Table copy = new Table(capacity);
+            System.arraycopy(msbs, 0, copy.msbs, 0, capacity);
+            System.arraycopy(lsbs, 0, copy.lsbs, 0, capacity);
+            System.arraycopy(instanceIds, 0, copy.instanceIds, 0, capacity);
+            System.arraycopy(listeners, 0, copy.listeners, 0, capacity);
+            copy.entries = entries;
+            return copy;
+        }
+
+        Table copyWithout(int skippedSlot, int capacity) {
+            final Table copy = new Table(capacity);
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] != null && i != skippedSlot) {
+                    copy.put(msbs[i], lsbs[i], instanceIds[i], listeners[i]);
+                }
+            }
+            return copy;
+        }
+    }
+}
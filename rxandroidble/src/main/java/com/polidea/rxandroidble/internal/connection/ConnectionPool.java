@@ -0,0 +1,386 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleConnection;
+import com.polidea.rxandroidble.RxBleConnectionPool;
+import com.polidea.rxandroidble.RxBleDevice;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subjects.BehaviorSubject;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * {@link RxBleConnectionPool} keeping the open links in a map keyed by the MAC address and the waiting requests in a priority queue.
+ * The state is guarded by the pool monitor while links are established, shared and closed outside of it, so the callbacks
+ * of the connections never run under the lock.
+ */
+public class ConnectionPool implements RxBleConnectionPool {
+
+    private static final Comparator<PendingRequest> REQUEST_ORDER = new Comparator<PendingRequest>() {
+        @Override
+        public int compare(PendingRequest first, PendingRequest second) {
+            if (first.priority != second.priority) {
+                return first.priority > second.priority ? -1 : 1;
+            }
+            return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+        }
+    };
+
+    private final int maxConnections;
+    private final long idleTimeoutMillis;
+    private final Scheduler scheduler;
+    private final Map<String, PooledConnection> connections = new HashMap<>();
+    private final PriorityQueue<PendingRequest> pendingRequests = new PriorityQueue<>(11, REQUEST_ORDER);
+
+    private long requestSequence;
+    private long evictionCount;
+    private long grantedRequestCount;
+    private long totalWaitTimeMillis;
+    private long maxWaitTimeMillis;
+
+    /**
+     * @param maxConnections    the maximum number of simultaneously open links
+     * @param idleTimeoutMillis the time an unused link is kept open, 0 to close it immediately
+     * @param scheduler         the scheduler of the idle timeouts and the clock of the wait time metrics
+     */
+    public ConnectionPool(int maxConnections, long idleTimeoutMillis, Scheduler scheduler) {
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Observable<RxBleConnection> establishConnection(@NonNull final RxBleDevice bleDevice, @NonNull final Context context,
+                                                           final boolean autoConnect, final int priority) {
+        return Observable.create(new Observable.OnSubscribe<RxBleConnection>() {
+            @Override
+            public void call(Subscriber<? super RxBleConnection> subscriber) {
+                final PendingRequest request = new PendingRequest(bleDevice, context, autoConnect, priority, subscriber);
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        release(request);
+                    }
+                }));
+                submit(request);
+            }
+        });
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public synchronized int getActiveConnectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public synchronized int getIdleConnectionCount() {
+        int idleConnectionCount = 0;
+        for (PooledConnection pooledConnection : connections.values()) {
+            if (pooledConnection.users.isEmpty()) {
+                idleConnectionCount++;
+            }
+        }
+        return idleConnectionCount;
+    }
+
+    @Override
+    public synchronized int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized long getAverageWaitTimeMillis() {
+        return grantedRequestCount == 0 ? 0 : totalWaitTimeMillis / grantedRequestCount;
+    }
+
+    @Override
+    public synchronized long getMaxWaitTimeMillis() {
+        return maxWaitTimeMillis;
+    }
+
+    private void submit(PendingRequest request) {
+        final List<PendingRequest> grantedRequests = new ArrayList<>();
+        final List<PooledConnection> closedConnections = new ArrayList<>();
+        synchronized (this) {
+            if (request.released) {
+                return;
+            }
+            request.sequence = requestSequence++;
+            request.requestTimeMillis = scheduler.now();
+            pendingRequests.add(request);
+            dispatch(grantedRequests, closedConnections);
+        }
+        execute(grantedRequests, closedConnections);
+    }
+
+    private void release(PendingRequest request) {
+        final List<PendingRequest> grantedRequests = new ArrayList<>();
+        final List<PooledConnection> closedConnections = new ArrayList<>();
+        synchronized (this) {
+            if (request.released) {
+                return;
+            }
+            request.released = true;
+            final PooledConnection pooledConnection = request.pooledConnection;
+            if (pooledConnection == null) {
+                pendingRequests.remove(request);
+                return;
+            }
+            pooledConnection.users.remove(request);
+            if (pooledConnection.closed) {
+                return;
+            }
+            pooledConnection.priority = computePriority(pooledConnection, request.priority);
+            if (!pooledConnection.users.isEmpty()) {
+                return;
+            }
+            pooledConnection.lastUsedMillis = scheduler.now();
+            if (idleTimeoutMillis == 0) {
+                close(pooledConnection);
+                closedConnections.add(pooledConnection);
+            }
+            // a waiting request may take over the slot of the connection that became idle
+            dispatch(grantedRequests, closedConnections);
+            if (!pooledConnection.closed) {
+                scheduleIdleTimeout(pooledConnection);
+            }
+        }
+        execute(grantedRequests, closedConnections);
+    }
+
+    private void onIdleTimeout(PooledConnection pooledConnection, Scheduler.Worker idleTimer) {
+        final List<PendingRequest> grantedRequests = new ArrayList<>();
+        final List<PooledConnection> closedConnections = new ArrayList<>();
+        synchronized (this) {
+            if (pooledConnection.idleTimer != idleTimer || pooledConnection.closed) {
+                return;
+            }
+            close(pooledConnection);
+            closedConnections.add(pooledConnection);
+            dispatch(grantedRequests, closedConnections);
+        }
+        execute(grantedRequests, closedConnections);
+    }
+
+    private synchronized void onLinkTerminated(PooledConnection pooledConnection) {
+        if (!pooledConnection.closed) {
+            close(pooledConnection);
+        }
+    }
+
+    private void dispatchPendingRequests() {
+        final List<PendingRequest> grantedRequests = new ArrayList<>();
+        final List<PooledConnection> closedConnections = new ArrayList<>();
+        synchronized (this) {
+            dispatch(grantedRequests, closedConnections);
+        }
+        execute(grantedRequests, closedConnections);
+    }
+
+    /**
+     * Grants the waiting requests that can be served. Requests for devices that are already connected never wait, the others are
+     * served in priority order until no slot is free and no idle connection may be evicted.
+     */
+    private void dispatch(List<PendingRequest> grantedRequests, List<PooledConnection> closedConnections) {
+        attachRequestsOfConnectedDevices(grantedRequests);
+        while (!pendingRequests.isEmpty()) {
+            final PendingRequest request = pendingRequests.peek();
+            if (connections.size() >= maxConnections) {
+                final PooledConnection evictedConnection = findEvictionCandidate(request.priority);
+                if (evictedConnection == null) {
+                    return;
+                }
+                close(evictedConnection);
+                closedConnections.add(evictedConnection);
+                evictionCount++;
+            }
+            pendingRequests.poll();
+            final PooledConnection pooledConnection = new PooledConnection(request.macAddress);
+            connections.put(request.macAddress, pooledConnection);
+            request.opensLink = true;
+            attach(request, pooledConnection, grantedRequests);
+            attachRequestsOfConnectedDevices(grantedRequests);
+        }
+    }
+
+    private void attachRequestsOfConnectedDevices(List<PendingRequest> grantedRequests) {
+        for (Iterator<PendingRequest> iterator = pendingRequests.iterator(); iterator.hasNext(); ) {
+            final PendingRequest request = iterator.next();
+            final PooledConnection pooledConnection = connections.get(request.macAddress);
+            if (pooledConnection != null) {
+                iterator.remove();
+                attach(request, pooledConnection, grantedRequests);
+            }
+        }
+    }
+
+    private void attach(PendingRequest request, PooledConnection pooledConnection, List<PendingRequest> grantedRequests) {
+        final long now = scheduler.now();
+        pooledConnection.users.add(request);
+        pooledConnection.priority = Math.max(pooledConnection.priority, request.priority);
+        pooledConnection.lastUsedMillis = now;
+        cancelIdleTimeout(pooledConnection);
+        request.pooledConnection = pooledConnection;
+
+        final long waitTimeMillis = Math.max(0, now - request.requestTimeMillis);
+        grantedRequestCount++;
+        totalWaitTimeMillis += waitTimeMillis;
+        maxWaitTimeMillis = Math.max(maxWaitTimeMillis, waitTimeMillis);
+        grantedRequests.add(request);
+    }
+
+    /**
+     * @return the highest priority of the current users of the connection or the priority of its last user if it became idle
+     */
+    private static int computePriority(PooledConnection pooledConnection, int lastUserPriority) {
+        if (pooledConnection.users.isEmpty()) {
+            return lastUserPriority;
+        }
+        int priority = Integer.MIN_VALUE;
+        for (PendingRequest user : pooledConnection.users) {
+            priority = Math.max(priority, user.priority);
+        }
+        return priority;
+    }
+
+    /**
+     * @return the least recently used idle connection whose last user had no higher priority or null if there is none
+     */
+    @Nullable
+    private PooledConnection findEvictionCandidate(int priority) {
+        PooledConnection candidate = null;
+        for (PooledConnection pooledConnection : connections.values()) {
+            if (pooledConnection.users.isEmpty() && pooledConnection.priority <= priority
+                    && (candidate == null || pooledConnection.lastUsedMillis < candidate.lastUsedMillis)) {
+                candidate = pooledConnection;
+            }
+        }
+        return candidate;
+    }
+
+    private void close(PooledConnection pooledConnection) {
+        if (connections.get(pooledConnection.macAddress) == pooledConnection) {
+            connections.remove(pooledConnection.macAddress);
+        }
+        pooledConnection.closed = true;
+        cancelIdleTimeout(pooledConnection);
+    }
+
+    private void scheduleIdleTimeout(final PooledConnection pooledConnection) {
+        final Scheduler.Worker idleTimer = scheduler.createWorker();
+        pooledConnection.idleTimer = idleTimer;
+        idleTimer.schedule(new Action0() {
+            @Override
+            public void call() {
+                onIdleTimeout(pooledConnection, idleTimer);
+            }
+        }, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancelIdleTimeout(PooledConnection pooledConnection) {
+        if (pooledConnection.idleTimer != null) {
+            pooledConnection.idleTimer.unsubscribe();
+            pooledConnection.idleTimer = null;
+        }
+    }
+
+    private void execute(List<PendingRequest> grantedRequests, List<PooledConnection> closedConnections) {
+        for (PooledConnection closedConnection : closedConnections) {
+            closedConnection.linkSubscriber.unsubscribe();
+        }
+        for (PendingRequest request : grantedRequests) {
+            final PooledConnection pooledConnection = request.pooledConnection;
+            if (request.opensLink && !pooledConnection.linkSubscriber.isUnsubscribed()) {
+                request.device.establishConnection(request.context, request.autoConnect).subscribe(pooledConnection.linkSubscriber);
+            }
+            pooledConnection.connectionSubject.unsafeSubscribe(request.subscriber);
+        }
+    }
+
+    private class PooledConnection {
+
+        final String macAddress;
+        final BehaviorSubject<RxBleConnection> connectionSubject = BehaviorSubject.create();
+        final Subscriber<RxBleConnection> linkSubscriber = new Subscriber<RxBleConnection>() {
+            @Override
+            public void onNext(RxBleConnection rxBleConnection) {
+                connectionSubject.onNext(rxBleConnection);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                onLinkTerminated(PooledConnection.this);
+                connectionSubject.onError(throwable);
+                dispatchPendingRequests();
+            }
+
+            @Override
+            public void onCompleted() {
+                onLinkTerminated(PooledConnection.this);
+                connectionSubject.onCompleted();
+                dispatchPendingRequests();
+            }
+        };
+        final List<PendingRequest> users = new ArrayList<>();
+        int priority = Integer.MIN_VALUE;
+        long lastUsedMillis;
+        boolean closed;
+        @Nullable
+        Scheduler.Worker idleTimer;
+
+        PooledConnection(String macAddress) {
+            this.macAddress = macAddress;
+        }
+    }
+
+    private static class PendingRequest {
+
+        final RxBleDevice device;
+        final String macAddress;
+        final Context context;
+        final boolean autoConnect;
+        final int priority;
+        final Subscriber<? super RxBleConnection> subscriber;
+        long sequence;
+        long requestTimeMillis;
+        boolean released;
+        boolean opensLink;
+        @Nullable
+        PooledConnection pooledConnection;
+
+        PendingRequest(RxBleDevice device, Context context, boolean autoConnect, int priority,
+                       Subscriber<? super RxBleConnection> subscriber) {
+            this.device = device;
+            this.macAddress = device.getMacAddress();
+            this.context = context;
+            this.autoConnect = autoConnect;
+            this.priority = priority;
+            this.subscriber = subscriber;
+        }
+    }
+}
@@ -6,10 +6,19 @@ import android.support.annotation.NonNull;
 import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.internal.RxBleRadio;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicLongWrite;
+import com.polidea.rxandroidble.internal.util.ByteBufferLongWriteSource;
+import com.polidea.rxandroidble.internal.util.FileChannelLongWriteSource;
+import com.polidea.rxandroidble.internal.util.InputStreamLongWriteSource;
+import com.polidea.rxandroidble.internal.util.LongWriteSource;
+import com.polidea.rxandroidble.internal.util.ObservableLongWriteSource;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import rx.Observable;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
@@ -28,7 +37,7 @@ final class LongWriteOperationBuilderImpl implements RxBleConnection.LongWriteOp
     @NonNull
     private RxBleConnection.WriteOperationAckStrategy writeOperationAckStrategy = new ImmediateSerializedBatchAckStrategy();
 
-    private byte[] bytes;
+    private Func0<LongWriteSource> longWriteSourceFactory;
 
     private Observable<BluetoothGattCharacteristic> writtenCharacteristicObservable;
 
@@ -53,8 +62,57 @@ final class LongWriteOperationBuilderImpl implements RxBleConnection.LongWriteOp
     }
 
     @Override
-    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull byte[] bytes) {
-        this.bytes = bytes;
+    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull final byte[] bytes) {
+        this.longWriteSourceFactory = new Func0<LongWriteSource>() {
+            @Override
+            public LongWriteSource call() {
+                return new ByteBufferLongWriteSource(bytes);
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull final ByteBuffer byteBuffer) {
+        this.longWriteSourceFactory = new Func0<LongWriteSource>() {
+            @Override
+            public LongWriteSource call() {
+                return new ByteBufferLongWriteSource(byteBuffer);
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull final InputStream inputStream) {
+        this.longWriteSourceFactory = new Func0<LongWriteSource>() {
+            @Override
+            public LongWriteSource call() {
+                return new InputStreamLongWriteSource(inputStream, Schedulers.io());
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull final FileChannel fileChannel) {
+        this.longWriteSourceFactory = new Func0<LongWriteSource>() {
+            @Override
+            public LongWriteSource call() {
+                return new FileChannelLongWriteSource(fileChannel, Schedulers.io());
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.LongWriteOperationBuilder setBytes(@NonNull final Observable<ByteBuffer> chunkObservable) {
+        this.longWriteSourceFactory = new Func0<LongWriteSource>() {
+            @Override
+            public LongWriteSource call() {
+                return new ObservableLongWriteSource(chunkObservable);
+            }
+        };
         return this;
     }
 
@@ -95,7 +153,7 @@ final class LongWriteOperationBuilderImpl implements RxBleConnection.LongWriteOp
             throw new IllegalArgumentException("setCharacteristicUuid() or setCharacteristic() needs to be called before build()");
         }
 
-        if (bytes == null) {
+        if (longWriteSourceFactory == null) {
             throw new IllegalArgumentException("setBytes() needs to be called before build()");
         }
 
@@ -108,7 +166,7 @@ final class LongWriteOperationBuilderImpl implements RxBleConnection.LongWriteOp
                         bluetoothGattCharacteristic,
                         maxBatchSizeCallable,
                         writeOperationAckStrategy,
-                        bytes,
+                        longWriteSourceFactory.call(),
                         AndroidSchedulers.mainThread(),
                         Schedulers.computation()
                 ));
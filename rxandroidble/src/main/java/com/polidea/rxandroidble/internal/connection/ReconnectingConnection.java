@@ -0,0 +1,545 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+
+import com.polidea.rxandroidble.NotificationSetupMode;
+import com.polidea.rxandroidble.RxBleConnection;
+import com.polidea.rxandroidble.RxBleDeviceServices;
+import com.polidea.rxandroidble.RxBleReconnectionPolicy;
+import com.polidea.rxandroidble.exceptions.BleDescriptorNotFoundException;
+import com.polidea.rxandroidble.exceptions.BleDisconnectedException;
+import com.polidea.rxandroidble.exceptions.BleGattException;
+import com.polidea.rxandroidble.exceptions.BleGattOperationType;
+import com.polidea.rxandroidble.internal.RxBleLog;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.Subject;
+
+/**
+ * {@link RxBleConnection} that outlives the links of a device. The device is reconnected with a jittered exponential backoff
+ * whenever the link is lost and every call is executed on the link that is established at the moment:
+ * <ul>
+ * <li>operations requested while the device is reconnecting wait for the next link, operations in progress when the link is lost
+ * fail with the error of the link,</li>
+ * <li>notifications and indications stay set up - every one that is subscribed is set up again on each new link and the emitted
+ * {@code Observable<byte[]>} continues with a gap instead of an error,</li>
+ * <li>attributes passed to the operations are resolved by their UUIDs among the services of the current link, so attributes
+ * discovered on a previous link may be used. The services are discovered once per link and shared by all restored setups.</li>
+ * </ul>
+ * The operation builders are created on the current link and fail with {@link BleDisconnectedException} while the device is
+ * reconnecting.
+ */
+public class ReconnectingConnection implements RxBleConnection {
+
+    private static final int MAX_BACKOFF_EXPONENT = 30;
+
+    private final String macAddress;
+    private final Subject<RxBleConnection, RxBleConnection> linkSubject = BehaviorSubject.<RxBleConnection>create().toSerialized();
+    private final AtomicBoolean isTerminated = new AtomicBoolean(false);
+    /**
+     * Emits the current link to every subscriber and then each link established later.
+     */
+    private final Observable<RxBleConnection> liveLinks = linkSubject.filter(new Func1<RxBleConnection, Boolean>() {
+        @Override
+        public Boolean call(RxBleConnection link) {
+            // the subject replays the last link also after it was lost
+            return link == currentLink;
+        }
+    });
+    @Nullable
+    private volatile RxBleConnection currentLink;
+    private int reconnectionAttempt;
+
+    ReconnectingConnection(String macAddress) {
+        this.macAddress = macAddress;
+    }
+
+    /**
+     * Establishes links with the passed observable until it is unsubscribed.
+     *
+     * @param macAddress     the MAC address of the device
+     * @param linkObservable the observable establishing a single link with the device
+     * @param policy         the backoff of the reconnection attempts
+     * @param scheduler      the scheduler of the delays between the attempts
+     * @return observable emitting the reconnecting connection once the first link is established, erroring if an error of a link
+     * is not caused by the loss of the link or the reconnection attempts were exhausted
+     */
+    public static Observable<RxBleConnection> establish(String macAddress, Observable<RxBleConnection> linkObservable,
+                                                        RxBleReconnectionPolicy policy, Scheduler scheduler) {
+        return establish(macAddress, linkObservable, policy, scheduler, new Random());
+    }
+
+    static Observable<RxBleConnection> establish(final String macAddress, final Observable<RxBleConnection> linkObservable,
+                                                 final RxBleReconnectionPolicy policy, final Scheduler scheduler, final Random random) {
+        return Observable.defer(new Func0<Observable<RxBleConnection>>() {
+            @Override
+            public Observable<RxBleConnection> call() {
+                final ReconnectingConnection connection = new ReconnectingConnection(macAddress);
+                return linkObservable
+                        .doOnNext(new Action1<RxBleConnection>() {
+                            @Override
+                            public void call(RxBleConnection link) {
+                                connection.onLinkEstablished(link);
+                            }
+                        })
+                        .retryWhen(new Func1<Observable<? extends Throwable>, Observable<?>>() {
+                            @Override
+                            public Observable<?> call(Observable<? extends Throwable> errors) {
+                                return errors.flatMap(new Func1<Throwable, Observable<Long>>() {
+                                    @Override
+                                    public Observable<Long> call(Throwable throwable) {
+                                        return connection.scheduleReconnection(throwable, policy, scheduler, random);
+                                    }
+                                });
+                            }
+                        })
+                        .doOnError(new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                connection.terminate(throwable);
+                            }
+                        })
+                        .doOnUnsubscribe(new Action0() {
+                            @Override
+                            public void call() {
+                                connection.terminate(new BleDisconnectedException(macAddress));
+                            }
+                        })
+                        .map(new Func1<RxBleConnection, RxBleConnection>() {
+                            @Override
+                            public RxBleConnection call(RxBleConnection link) {
+                                return connection;
+                            }
+                        })
+                        .distinctUntilChanged();
+            }
+        });
+    }
+
+    /**
+     * @return the delay of the n-th consecutive reconnection attempt, between half and the whole of the exponential backoff
+     */
+    static long computeDelayMillis(RxBleReconnectionPolicy policy, int attempt, Random random) {
+        final int exponent = Math.min(attempt - 1, MAX_BACKOFF_EXPONENT);
+        // compared before shifting - the shifted initial delay could overflow
+        final long delayMillis = policy.getInitialDelayMillis() > policy.getMaxDelayMillis() >>> exponent
+                ? policy.getMaxDelayMillis()
+                : policy.getInitialDelayMillis() << exponent;
+        final long halfDelayMillis = delayMillis / 2;
+        return halfDelayMillis + (long) (random.nextDouble() * (delayMillis - halfDelayMillis));
+    }
+
+    /**
+     * @return true if the error means that the link was lost or could not be established - the device may be reconnected
+     */
+    static boolean isLinkLoss(Throwable throwable) {
+        return throwable instanceof BleDisconnectedException
+                || (throwable instanceof BleGattException
+                && ((BleGattException) throwable).getBleGattOperationType() == BleGattOperationType.CONNECTION_STATE);
+    }
+
+    private void onLinkEstablished(RxBleConnection link) {
+        reconnectionAttempt = 0;
+        currentLink = link;
+        linkSubject.onNext(link);
+    }
+
+    private Observable<Long> scheduleReconnection(Throwable throwable, RxBleReconnectionPolicy policy, Scheduler scheduler,
+                                                  Random random) {
+        currentLink = null;
+        final int attempt = ++reconnectionAttempt;
+        if (!isLinkLoss(throwable) || (policy.getMaxAttempts() > 0 && attempt > policy.getMaxAttempts())) {
+            return Observable.error(throwable);
+        }
+        final long delayMillis = computeDelayMillis(policy, attempt, random);
+        RxBleLog.d(throwable, "Reconnecting to %s in %d ms, attempt %d", macAddress, delayMillis, attempt);
+        return Observable.timer(delayMillis, TimeUnit.MILLISECONDS, scheduler);
+    }
+
+    private void terminate(Throwable throwable) {
+        if (isTerminated.compareAndSet(false, true)) {
+            currentLink = null;
+            linkSubject.onError(throwable);
+        }
+    }
+
+    private Observable<RxBleConnection> awaitLink() {
+        return liveLinks.first();
+    }
+
+    private RxBleConnection requireCurrentLink() {
+        final RxBleConnection link = currentLink;
+        if (link == null) {
+            throw new BleDisconnectedException(macAddress);
+        }
+        return link;
+    }
+
+    /**
+     * Sets up the notification on every link for as long as the returned observable is subscribed. The returned observable emits
+     * a single {@code Observable<byte[]>} that carries the notifications of all links.
+     */
+    private Observable<Observable<byte[]>> setupRestorableNotification(final Func1<RxBleConnection, Observable<Observable<byte[]>>> setup) {
+        final Observable<Observable<byte[]>> linkNotifications = liveLinks
+                .switchMap(new Func1<RxBleConnection, Observable<Observable<byte[]>>>() {
+                    @Override
+                    public Observable<Observable<byte[]>> call(RxBleConnection link) {
+                        return setup.call(link).onErrorResumeNext(ReconnectingConnection.<Observable<byte[]>>ignoreLinkLoss());
+                    }
+                })
+                .replay(1)
+                .refCount();
+        final Observable<byte[]> notifications = linkNotifications
+                .switchMap(new Func1<Observable<byte[]>, Observable<byte[]>>() {
+                    @Override
+                    public Observable<byte[]> call(Observable<byte[]> linkNotification) {
+                        return linkNotification.onErrorResumeNext(ReconnectingConnection.<byte[]>ignoreLinkLoss());
+                    }
+                });
+        return linkNotifications
+                .map(new Func1<Observable<byte[]>, Observable<byte[]>>() {
+                    @Override
+                    public Observable<byte[]> call(Observable<byte[]> linkNotification) {
+                        return notifications;
+                    }
+                })
+                .distinctUntilChanged();
+    }
+
+    private static <T> Func1<Throwable, Observable<T>> ignoreLinkLoss() {
+        return new Func1<Throwable, Observable<T>>() {
+            @Override
+            public Observable<T> call(Throwable throwable) {
+                // the next link is awaited by the caller
+                return isLinkLoss(throwable) ? Observable.<T>empty() : Observable.<T>error(throwable);
+            }
+        };
+    }
+
+    /**
+     * @return the characteristic of the link with the same service and characteristic UUIDs as the passed one
+     */
+    private static Observable<BluetoothGattCharacteristic> resolveCharacteristic(RxBleConnection link,
+                                                                                 final BluetoothGattCharacteristic characteristic) {
+        return link.discoverServices()
+                .flatMap(new Func1<RxBleDeviceServices, Observable<BluetoothGattCharacteristic>>() {
+                    @Override
+                    public Observable<BluetoothGattCharacteristic> call(RxBleDeviceServices services) {
+                        final BluetoothGattService service = characteristic.getService();
+                        return service != null
+                                ? services.getCharacteristic(service.getUuid(), characteristic.getUuid())
+                                : services.getCharacteristic(characteristic.getUuid());
+                    }
+                });
+    }
+
+    /**
+     * @return the descriptor of the link with the same UUIDs as the passed one or {@link BleDescriptorNotFoundException} if the
+     * characteristic of the link has no such descriptor
+     */
+    private static Observable<BluetoothGattDescriptor> resolveDescriptor(RxBleConnection link, final BluetoothGattDescriptor descriptor) {
+        final BluetoothGattCharacteristic characteristic = descriptor.getCharacteristic();
+        if (characteristic == null) {
+            return Observable.just(descriptor);
+        }
+        return resolveCharacteristic(link, characteristic)
+                .flatMap(new Func1<BluetoothGattCharacteristic, Observable<BluetoothGattDescriptor>>() {
+                    @Override
+                    public Observable<BluetoothGattDescriptor> call(BluetoothGattCharacteristic resolvedCharacteristic) {
+                        final BluetoothGattDescriptor resolvedDescriptor = resolvedCharacteristic.getDescriptor(descriptor.getUuid());
+                        return resolvedDescriptor != null
+                                ? Observable.just(resolvedDescriptor)
+                                : Observable.<BluetoothGattDescriptor>error(new BleDescriptorNotFoundException(descriptor.getUuid()));
+                    }
+                });
+    }
+
+    @Override
+    public Observable<RxBleDeviceServices> discoverServices() {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<RxBleDeviceServices>>() {
+            @Override
+            public Observable<RxBleDeviceServices> call(RxBleConnection link) {
+                return link.discoverServices();
+            }
+        });
+    }
+
+    @Override
+    public Observable<RxBleDeviceServices> discoverServices(final long timeout, final TimeUnit timeUnit) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<RxBleDeviceServices>>() {
+            @Override
+            public Observable<RxBleDeviceServices> call(RxBleConnection link) {
+                return link.discoverServices(timeout, timeUnit);
+            }
+        });
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupNotification(@NonNull UUID characteristicUuid) {
+        return setupNotification(characteristicUuid, NotificationSetupMode.DEFAULT);
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupNotification(@NonNull BluetoothGattCharacteristic characteristic) {
+        return setupNotification(characteristic, NotificationSetupMode.DEFAULT);
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupNotification(@NonNull final UUID characteristicUuid,
+                                                            final NotificationSetupMode setupMode) {
+        return setupRestorableNotification(new Func1<RxBleConnection, Observable<Observable<byte[]>>>() {
+            @Override
+            public Observable<Observable<byte[]>> call(RxBleConnection link) {
+                return link.setupNotification(characteristicUuid, setupMode);
+            }
+        });
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupNotification(@NonNull final BluetoothGattCharacteristic characteristic,
+                                                            final NotificationSetupMode setupMode) {
+        return setupRestorableNotification(new Func1<RxBleConnection, Observable<Observable<byte[]>>>() {
+            @Override
+            public Observable<Observable<byte[]>> call(final RxBleConnection link) {
+                return resolveCharacteristic(link, characteristic)
+                        .flatMap(new Func1<BluetoothGattCharacteristic, Observable<Observable<byte[]>>>() {
+                            @Override
+                            public Observable<Observable<byte[]>> call(BluetoothGattCharacteristic resolvedCharacteristic) {
+                                return link.setupNotification(resolvedCharacteristic, setupMode);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupIndication(@NonNull UUID characteristicUuid) {
+        return setupIndication(characteristicUuid, NotificationSetupMode.DEFAULT);
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupIndication(@NonNull BluetoothGattCharacteristic characteristic) {
+        return setupIndication(characteristic, NotificationSetupMode.DEFAULT);
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupIndication(@NonNull final UUID characteristicUuid,
+                                                          @NonNull final NotificationSetupMode setupMode) {
+        return setupRestorableNotification(new Func1<RxBleConnection, Observable<Observable<byte[]>>>() {
+            @Override
+            public Observable<Observable<byte[]>> call(RxBleConnection link) {
+                return link.setupIndication(characteristicUuid, setupMode);
+            }
+        });
+    }
+
+    @Override
+    public Observable<Observable<byte[]>> setupIndication(@NonNull final BluetoothGattCharacteristic characteristic,
+                                                          @NonNull final NotificationSetupMode setupMode) {
+        return setupRestorableNotification(new Func1<RxBleConnection, Observable<Observable<byte[]>>>() {
+            @Override
+            public Observable<Observable<byte[]>> call(final RxBleConnection link) {
+                return resolveCharacteristic(link, characteristic)
+                        .flatMap(new Func1<BluetoothGattCharacteristic, Observable<Observable<byte[]>>>() {
+                            @Override
+                            public Observable<Observable<byte[]>> call(BluetoothGattCharacteristic resolvedCharacteristic) {
+                                return link.setupIndication(resolvedCharacteristic, setupMode);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public Observable<BluetoothGattCharacteristic> getCharacteristic(@NonNull final UUID characteristicUuid) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<BluetoothGattCharacteristic>>() {
+            @Override
+            public Observable<BluetoothGattCharacteristic> call(RxBleConnection link) {
+                return link.getCharacteristic(characteristicUuid);
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> readCharacteristic(@NonNull final UUID characteristicUuid) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(RxBleConnection link) {
+                return link.readCharacteristic(characteristicUuid);
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> readCharacteristic(@NonNull final BluetoothGattCharacteristic characteristic) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(final RxBleConnection link) {
+                return resolveCharacteristic(link, characteristic)
+                        .flatMap(new Func1<BluetoothGattCharacteristic, Observable<byte[]>>() {
+                            @Override
+                            public Observable<byte[]> call(BluetoothGattCharacteristic resolvedCharacteristic) {
+                                return link.readCharacteristic(resolvedCharacteristic);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> writeCharacteristic(@NonNull final UUID characteristicUuid, @NonNull final byte[] data) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(RxBleConnection link) {
+                return link.writeCharacteristic(characteristicUuid, data);
+            }
+        });
+    }
+
+    /**
+     * The characteristic is written as passed - its value is set on the characteristic itself so it cannot be resolved on
+     * the current link.
+     */
+    @Deprecated
+    @Override
+    public Observable<BluetoothGattCharacteristic> writeCharacteristic(@NonNull final BluetoothGattCharacteristic
+                                                                                   bluetoothGattCharacteristic) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<BluetoothGattCharacteristic>>() {
+            @Override
+            public Observable<BluetoothGattCharacteristic> call(RxBleConnection link) {
+                return link.writeCharacteristic(bluetoothGattCharacteristic);
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> writeCharacteristic(@NonNull final BluetoothGattCharacteristic bluetoothGattCharacteristic,
+                                                  @NonNull final byte[] data) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(final RxBleConnection link) {
+                return resolveCharacteristic(link, bluetoothGattCharacteristic)
+                        .flatMap(new Func1<BluetoothGattCharacteristic, Observable<byte[]>>() {
+                            @Override
+                            public Observable<byte[]> call(BluetoothGattCharacteristic resolvedCharacteristic) {
+                                return link.writeCharacteristic(resolvedCharacteristic, data);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public LongWriteOperationBuilder createNewLongWriteBuilder() {
+        return requireCurrentLink().createNewLongWriteBuilder();
+    }
+
+    @Override
+    public StreamingWriteOperationBuilder createNewStreamingWriteBuilder() {
+        return requireCurrentLink().createNewStreamingWriteBuilder();
+    }
+
+    @Override
+    public BatchOperationBuilder createNewBatchBuilder() {
+        return requireCurrentLink().createNewBatchBuilder();
+    }
+
+    @Override
+    public ReliableWriteOperationBuilder createNewReliableWriteBuilder() {
+        return requireCurrentLink().createNewReliableWriteBuilder();
+    }
+
+    @Override
+    public Observable<byte[]> readDescriptor(final UUID serviceUuid, final UUID characteristicUuid, final UUID descriptorUuid) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(RxBleConnection link) {
+                return link.readDescriptor(serviceUuid, characteristicUuid, descriptorUuid);
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> readDescriptor(final BluetoothGattDescriptor descriptor) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(final RxBleConnection link) {
+                return resolveDescriptor(link, descriptor)
+                        .flatMap(new Func1<BluetoothGattDescriptor, Observable<byte[]>>() {
+                            @Override
+                            public Observable<byte[]> call(BluetoothGattDescriptor resolvedDescriptor) {
+                                return link.readDescriptor(resolvedDescriptor);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> writeDescriptor(final UUID serviceUuid, final UUID characteristicUuid, final UUID descriptorUuid,
+                                              final byte[] data) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(RxBleConnection link) {
+                return link.writeDescriptor(serviceUuid, characteristicUuid, descriptorUuid, data);
+            }
+        });
+    }
+
+    @Override
+    public Observable<byte[]> writeDescriptor(final BluetoothGattDescriptor descriptor, final byte[] data) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call(final RxBleConnection link) {
+                return resolveDescriptor(link, descriptor)
+                        .flatMap(new Func1<BluetoothGattDescriptor, Observable<byte[]>>() {
+                            @Override
+                            public Observable<byte[]> call(BluetoothGattDescriptor resolvedDescriptor) {
+                                return link.writeDescriptor(resolvedDescriptor, data);
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    public Observable<Integer> readRssi() {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<Integer>>() {
+            @Override
+            public Observable<Integer> call(RxBleConnection link) {
+                return link.readRssi();
+            }
+        });
+    }
+
+    /**
+     * The MTU is negotiated on the current link only - it has to be requested again after the device was reconnected.
+     */
+    @Override
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    public Observable<Integer> requestMtu(final int mtu) {
+        return awaitLink().flatMap(new Func1<RxBleConnection, Observable<Integer>>() {
+            @Override
+            public Observable<Integer> call(RxBleConnection link) {
+                return link.requestMtu(mtu);
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.support.annotation.NonNull;
+import com.polidea.rxandroidble.RxBleBatchResult;
+import com.polidea.rxandroidble.RxBleConnection;
+import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationReliableWrite;
+import java.util.ArrayList;
+import java.util.List;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func0;
+
+final class ReliableWriteOperationBuilderImpl implements RxBleConnection.ReliableWriteOperationBuilder {
+
+    @NonNull
+    private final BluetoothGatt bluetoothGatt;
+
+    @NonNull
+    private final RxBleGattCallback rxBleGattCallback;
+
+    @NonNull
+    private final RxBleRadio rxBleRadio;
+
+    @NonNull
+    private final Scheduler timeoutScheduler;
+
+    private final List<RxBleRadioOperationReliableWrite.Item> items = new ArrayList<>();
+
+    ReliableWriteOperationBuilderImpl(
+            @NonNull BluetoothGatt bluetoothGatt,
+            @NonNull RxBleGattCallback rxBleGattCallback,
+            @NonNull RxBleRadio rxBleRadio,
+            @NonNull Scheduler timeoutScheduler
+    ) {
+        this.bluetoothGatt = bluetoothGatt;
+        this.rxBleGattCallback = rxBleGattCallback;
+        this.rxBleRadio = rxBleRadio;
+        this.timeoutScheduler = timeoutScheduler;
+    }
+
+    @Override
+    public RxBleConnection.ReliableWriteOperationBuilder addCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic,
+                                                                                @NonNull byte[] data) {
+        items.add(new RxBleRadioOperationReliableWrite.Item(characteristic, data));
+        return this;
+    }
+
+    @Override
+    public Observable<RxBleBatchResult> build() {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("at least one write needs to be added before build()");
+        }
+
+        final List<RxBleRadioOperationReliableWrite.Item> transactionItems = new ArrayList<>(items);
+        return Observable.defer(new Func0<Observable<RxBleBatchResult>>() {
+            @Override
+            public Observable<RxBleBatchResult> call() {
+                return rxBleRadio.queue(
+                        new RxBleRadioOperationReliableWrite(rxBleGattCallback, bluetoothGatt, transactionItems, timeoutScheduler)
+                );
+            }
+        });
+    }
+}
@@ -6,10 +6,12 @@ import static com.polidea.rxandroidble.internal.util.ObservableUtil.justOnNext;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothGatt;
 import android.content.Context;
+import android.support.annotation.Nullable;
 import com.polidea.rxandroidble.RxBleAdapterStateObservable.BleAdapterState;
 import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.exceptions.BleDisconnectedException;
 import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationDisconnect;
 import com.polidea.rxandroidble.internal.util.BleConnectionCompat;
 import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper;
@@ -26,21 +28,35 @@ public class RxBleConnectionConnectorImpl implements RxBleConnection.Connector {
     private final RxBleGattCallback.Provider gattCallbackProvider;
     private final RxBleConnectionConnectorOperationsProvider operationsProvider;
     private final RxBleRadio rxBleRadio;
+    private final RxBleRadio.ConnectionRadioProvider connectionRadioProvider;
     private final BleConnectionCompat connectionCompat;
     private final RxBleAdapterWrapper rxBleAdapterWrapper;
     private final Observable<BleAdapterState> adapterStateObservable;
+    @Nullable
+    private final ServiceDiscoveryCache serviceDiscoveryCache;
 
     public RxBleConnectionConnectorImpl(BluetoothDevice bluetoothDevice, RxBleGattCallback.Provider gattCallbackProvider,
                                         RxBleConnectionConnectorOperationsProvider operationsProvider, RxBleRadio rxBleRadio,
-                                        BleConnectionCompat connectionCompat, RxBleAdapterWrapper rxBleAdapterWrapper,
-                                        Observable<BleAdapterState> adapterStateObservable) {
+                                        RxBleRadio.ConnectionRadioProvider connectionRadioProvider, BleConnectionCompat connectionCompat,
+                                        RxBleAdapterWrapper rxBleAdapterWrapper, Observable<BleAdapterState> adapterStateObservable) {
+        this(bluetoothDevice, gattCallbackProvider, operationsProvider, rxBleRadio, connectionRadioProvider, connectionCompat,
+                rxBleAdapterWrapper, adapterStateObservable, null);
+    }
+
+    public RxBleConnectionConnectorImpl(BluetoothDevice bluetoothDevice, RxBleGattCallback.Provider gattCallbackProvider,
+                                        RxBleConnectionConnectorOperationsProvider operationsProvider, RxBleRadio rxBleRadio,
+                                        RxBleRadio.ConnectionRadioProvider connectionRadioProvider, BleConnectionCompat connectionCompat,
+                                        RxBleAdapterWrapper rxBleAdapterWrapper, Observable<BleAdapterState> adapterStateObservable,
+                                        @Nullable ServiceDiscoveryCache serviceDiscoveryCache) {
         this.bluetoothDevice = bluetoothDevice; // TODO: pass in prepareConnection?
         this.gattCallbackProvider = gattCallbackProvider;
         this.operationsProvider = operationsProvider;
         this.rxBleRadio = rxBleRadio;
+        this.connectionRadioProvider = connectionRadioProvider;
         this.connectionCompat = connectionCompat;
         this.rxBleAdapterWrapper = rxBleAdapterWrapper;
         this.adapterStateObservable = adapterStateObservable;
+        this.serviceDiscoveryCache = serviceDiscoveryCache;
     }
 
     @Override
@@ -55,6 +71,7 @@ public class RxBleConnectionConnectorImpl implements RxBleConnection.Connector {
                 final RxBleGattCallback gattCallback = gattCallbackProvider.provide();
                 final RxBleOperations operationsPair =
                         operationsProvider.provide(context, bluetoothDevice, autoConnect, connectionCompat, gattCallback);
+                final RxBleRadio connectionRadio = connectionRadioProvider.provideConnectionRadio();
 
 
                 return Observable.merge(
@@ -77,26 +94,31 @@ public class RxBleConnectionConnectorImpl implements RxBleConnection.Connector {
                         .flatMap(new Func1<BluetoothGatt, Observable<RxBleConnection>>() {
                             @Override
                             public Observable<RxBleConnection> call(BluetoothGatt bluetoothGatt) {
-                                return RxBleConnectionConnectorImpl.this.emitConnectionWithoutCompleting(gattCallback, bluetoothGatt);
+                                return RxBleConnectionConnectorImpl.this.emitConnectionWithoutCompleting(
+                                        connectionRadio, gattCallback, bluetoothGatt
+                                );
                             }
                         })
                         .mergeWith(gattCallback.<RxBleConnection>observeDisconnect())
                         .doOnUnsubscribe(new Action0() {
                             @Override
                             public void call() {
-                                RxBleConnectionConnectorImpl.this.enqueueDisconnectOperation(operationsPair.disconnect);
+                                RxBleConnectionConnectorImpl.this.enqueueDisconnectOperation(connectionRadio, operationsPair.disconnect);
                             }
                         });
             }
         });
     }
 
-    private Observable<RxBleConnection> emitConnectionWithoutCompleting(RxBleGattCallback gattCallback, BluetoothGatt bluetoothGatt) {
-        return justOnNext(new RxBleConnectionImpl(rxBleRadio, gattCallback, bluetoothGatt)).cast(RxBleConnection.class);
+    private Observable<RxBleConnection> emitConnectionWithoutCompleting(RxBleRadio connectionRadio, RxBleGattCallback gattCallback,
+                                                                        BluetoothGatt bluetoothGatt) {
+        final RxBleConnectionImpl connection = new RxBleConnectionImpl(connectionRadio, gattCallback, bluetoothGatt, serviceDiscoveryCache);
+        return justOnNext(connection).cast(RxBleConnection.class)
+                .mergeWith(connection.maintainServiceDiscoveryCache().cast(RxBleConnection.class));
     }
 
-    private Subscription enqueueDisconnectOperation(RxBleRadioOperationDisconnect operationDisconnect) {
-        return rxBleRadio
+    private Subscription enqueueDisconnectOperation(RxBleRadio connectionRadio, RxBleRadioOperationDisconnect operationDisconnect) {
+        return connectionRadio
                 .queue(operationDisconnect)
                 .subscribe(
                         Actions.empty(),
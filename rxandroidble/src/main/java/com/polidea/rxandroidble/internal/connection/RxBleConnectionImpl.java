@@ -6,6 +6,7 @@ import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 
 import com.polidea.rxandroidble.NotificationSetupMode;
@@ -13,7 +14,9 @@ import com.polidea.rxandroidble.RxBleConnection;
 import com.polidea.rxandroidble.RxBleDeviceServices;
 import com.polidea.rxandroidble.exceptions.BleCannotSetCharacteristicNotificationException;
 import com.polidea.rxandroidble.exceptions.BleConflictingNotificationAlreadySetException;
+import com.polidea.rxandroidble.internal.RxBleLog;
 import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicRead;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicWrite;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationDescriptorRead;
@@ -23,7 +26,6 @@ import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationReadRssi;
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationServicesDiscover;
 import com.polidea.rxandroidble.internal.util.ByteAssociation;
 import com.polidea.rxandroidble.internal.util.CharacteristicNotificationId;
-import com.polidea.rxandroidble.internal.util.CharacteristicChangedEvent;
 import com.polidea.rxandroidble.internal.util.ObservableUtil;
 
 import java.util.HashMap;
@@ -41,6 +43,7 @@ import rx.functions.Actions;
 import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
 
 import static android.bluetooth.BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE;
 import static android.bluetooth.BluetoothGattDescriptor.ENABLE_INDICATION_VALUE;
@@ -52,6 +55,8 @@ public class RxBleConnectionImpl implements RxBleConnection {
 
     static final UUID CLIENT_CHARACTERISTIC_CONFIG_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
 
+    static final UUID SERVICE_CHANGED_UUID = UUID.fromString("00002a05-0000-1000-8000-00805f9b34fb");
+
     private final RxBleRadio rxBleRadio;
 
     private final RxBleGattCallback gattCallback;
@@ -60,18 +65,46 @@ public class RxBleConnectionImpl implements RxBleConnection {
 
     private final AtomicReference<Observable<RxBleDeviceServices>> discoveredServicesCache = new AtomicReference<>();
 
+    @Nullable
+    private final ServiceDiscoveryCache serviceDiscoveryCache;
+
+    /**
+     * Set when the device indicated a change of its services - the services known to {@link BluetoothGatt} are stale then.
+     */
+    private boolean servicesChanged;
+
     private final HashMap<CharacteristicNotificationId, Observable<Observable<byte[]>>> notificationObservableMap = new HashMap<>();
 
     private final HashMap<CharacteristicNotificationId, Observable<Observable<byte[]>>> indicationObservableMap = new HashMap<>();
 
+    /**
+     * Services discovered during the connection - the indication of service changes can be set up once they are known.
+     */
+    private final BehaviorSubject<RxBleDeviceServices> discoveredServicesSubject = BehaviorSubject.create();
+
     private final Scheduler timeoutScheduler = Schedulers.computation();
 
+    private final Scheduler ioScheduler;
+
+
     private Integer mtu = 20; // Default value at the beginning
 
     public RxBleConnectionImpl(RxBleRadio rxBleRadio, RxBleGattCallback gattCallback, BluetoothGatt bluetoothGatt) {
+        this(rxBleRadio, gattCallback, bluetoothGatt, null);
+    }
+
+    public RxBleConnectionImpl(RxBleRadio rxBleRadio, RxBleGattCallback gattCallback, BluetoothGatt bluetoothGatt,
+                               @Nullable ServiceDiscoveryCache serviceDiscoveryCache) {
+        this(rxBleRadio, gattCallback, bluetoothGatt, serviceDiscoveryCache, Schedulers.io());
+    }
+
+    RxBleConnectionImpl(RxBleRadio rxBleRadio, RxBleGattCallback gattCallback, BluetoothGatt bluetoothGatt,
+                        @Nullable ServiceDiscoveryCache serviceDiscoveryCache, Scheduler ioScheduler) {
         this.rxBleRadio = rxBleRadio;
         this.gattCallback = gattCallback;
         this.bluetoothGatt = bluetoothGatt;
+        this.serviceDiscoveryCache = serviceDiscoveryCache;
+        this.ioScheduler = ioScheduler;
     }
 
     @Override
@@ -90,6 +123,33 @@ public class RxBleConnectionImpl implements RxBleConnection {
         );
     }
 
+    @Override
+    public StreamingWriteOperationBuilder createNewStreamingWriteBuilder() {
+        return new StreamingWriteOperationBuilderImpl(
+                bluetoothGatt,
+                gattCallback,
+                rxBleRadio,
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return RxBleConnectionImpl.this.mtu;
+                    }
+                },
+                this,
+                timeoutScheduler
+        );
+    }
+
+    @Override
+    public BatchOperationBuilder createNewBatchBuilder() {
+        return new BatchOperationBuilderImpl(bluetoothGatt, gattCallback, rxBleRadio, timeoutScheduler);
+    }
+
+    @Override
+    public ReliableWriteOperationBuilder createNewReliableWriteBuilder() {
+        return new ReliableWriteOperationBuilderImpl(bluetoothGatt, gattCallback, rxBleRadio, timeoutScheduler);
+    }
+
     @Override
     @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     public Observable<Integer> requestMtu(int mtu) {
@@ -137,10 +197,11 @@ public class RxBleConnectionImpl implements RxBleConnection {
             }
 
             final List<BluetoothGattService> services = bluetoothGatt.getServices();
-            final Observable<RxBleDeviceServices> newObservable;
-            if (services.size() > 0) { // checking if bluetoothGatt has already discovered services (internal cache?)
+            Observable<RxBleDeviceServices> newObservable;
+            if (services.size() > 0 && !servicesChanged) { // checking if bluetoothGatt has already discovered services (internal cache?)
                 newObservable = just(new RxBleDeviceServices(services));
             } else { // performing actual discovery
+                servicesChanged = false;
                 newObservable = rxBleRadio
                         .queue(new RxBleRadioOperationServicesDiscover(
                                 gattCallback,
@@ -148,15 +209,100 @@ public class RxBleConnectionImpl implements RxBleConnection {
                                 timeout,
                                 timeUnit,
                                 timeoutScheduler
-                        ))
-                        .cacheWithInitialCapacity(1);
+                        ));
+            }
+            if (serviceDiscoveryCache != null) {
+                newObservable = newObservable.doOnNext(new Action1<RxBleDeviceServices>() {
+                    @Override
+                    public void call(final RxBleDeviceServices rxBleDeviceServices) {
+                        discoveredServicesSubject.onNext(rxBleDeviceServices);
+                        // the entry is written to the disk so it must not block the thread delivering the services
+                        final Scheduler.Worker worker = ioScheduler.createWorker();
+                        worker.schedule(new Action0() {
+                            @Override
+                            public void call() {
+                                try {
+                                    serviceDiscoveryCache.put(bluetoothGatt.getDevice().getAddress(), rxBleDeviceServices);
+                                } finally {
+                                    worker.unsubscribe();
+                                }
+                            }
+                        });
+                    }
+                });
             }
+            newObservable = newObservable.cacheWithInitialCapacity(1);
 
             discoveredServicesCache.set(newObservable);
             return newObservable;
         }
     }
 
+    /**
+     * Keeps the entry of the device in the service discovery cache up to date while subscribed. Once the services are discovered
+     * the indication of the Service Changed characteristic is set up and the entry is invalidated whenever the device indicates
+     * a change of its services. If the cache is revalidated on connection, the services are discovered in the background right away
+     * and after every change. Errors are not propagated so they do not affect the connection.
+     *
+     * @return Observable that never emits
+     */
+    Observable<Void> maintainServiceDiscoveryCache() {
+        if (serviceDiscoveryCache == null) {
+            return Observable.empty();
+        }
+        final String macAddress = bluetoothGatt.getDevice().getAddress();
+        final Observable<Void> revalidation = serviceDiscoveryCache.isRevalidatedOnConnection()
+                ? Observable.defer(new Func0<Observable<Void>>() {
+                    @Override
+                    public Observable<Void> call() {
+                        return discoverServices().ignoreElements().cast(Void.class).onErrorResumeNext(Observable.<Void>empty());
+                    }
+                })
+                : Observable.<Void>empty();
+        final Observable<Void> serviceChanges = discoveredServicesSubject
+                .first()
+                .flatMap(new Func1<RxBleDeviceServices, Observable<BluetoothGattCharacteristic>>() {
+                    @Override
+                    public Observable<BluetoothGattCharacteristic> call(RxBleDeviceServices rxBleDeviceServices) {
+                        return rxBleDeviceServices.getCharacteristic(SERVICE_CHANGED_UUID);
+                    }
+                })
+                .flatMap(new Func1<BluetoothGattCharacteristic, Observable<Observable<byte[]>>>() {
+                    @Override
+                    public Observable<Observable<byte[]>> call(BluetoothGattCharacteristic characteristic) {
+                        // the stack does not enable the indication for the application so it is set up like any other
+                        return setupIndication(characteristic);
+                    }
+                })
+                .flatMap(new Func1<Observable<byte[]>, Observable<byte[]>>() {
+                    @Override
+                    public Observable<byte[]> call(Observable<byte[]> serviceChangedObservable) {
+                        return serviceChangedObservable;
+                    }
+                })
+                .flatMap(new Func1<byte[], Observable<Void>>() {
+                    @Override
+                    public Observable<Void> call(byte[] changedHandlesRange) {
+                        RxBleLog.d("Services of %s changed", macAddress);
+                        synchronized (discoveredServicesCache) {
+                            discoveredServicesCache.set(null);
+                            servicesChanged = true;
+                        }
+                        serviceDiscoveryCache.invalidate(macAddress);
+                        return revalidation;
+                    }
+                })
+                .onErrorResumeNext(new Func1<Throwable, Observable<Void>>() {
+                    @Override
+                    public Observable<Void> call(Throwable throwable) {
+                        RxBleLog.w(throwable, "Could not observe service changes of %s", macAddress);
+                        return Observable.empty();
+                    }
+                });
+        // service changes are observed first so the services discovered by the revalidation are not missed
+        return Observable.merge(serviceChanges, revalidation);
+    }
+
     @Override
     public Observable<BluetoothGattCharacteristic> getCharacteristic(@NonNull final UUID characteristicUuid) {
         return discoverServices()
@@ -269,7 +415,7 @@ public class RxBleConnectionImpl implements RxBleConnection {
                             .map(new Func1<Boolean, Observable<byte[]>>() {
                                 @Override
                                 public Observable<byte[]> call(Boolean notificationDescriptorData) {
-                                    return observeOnCharacteristicChangeCallbacks(id);
+                                    return observeOnCharacteristicChangeCallbacks(characteristic);
                                 }
                             })
                             .replay(1)
@@ -341,21 +487,13 @@ public class RxBleConnectionImpl implements RxBleConnection {
                 );
     }
 
+    /**
+     * All subscribers of a characteristic share a single route in the callback dispatch table and a single scheduler hop so the cost
+     * of an incoming notification does not depend on the number of subscribers nor on the number of other set up notifications.
+     */
     @NonNull
-    private Observable<byte[]> observeOnCharacteristicChangeCallbacks(final CharacteristicNotificationId characteristicId) {
-        return gattCallback.getOnCharacteristicChanged()
-                .filter(new Func1<CharacteristicChangedEvent, Boolean>() {
-                    @Override
-                    public Boolean call(CharacteristicChangedEvent notificationIdWithData) {
-                        return notificationIdWithData.equals(characteristicId);
-                    }
-                })
-                .map(new Func1<CharacteristicChangedEvent, byte[]>() {
-                    @Override
-                    public byte[] call(CharacteristicChangedEvent notificationIdWithData) {
-                        return notificationIdWithData.data;
-                    }
-                });
+    private Observable<byte[]> observeOnCharacteristicChangeCallbacks(final BluetoothGattCharacteristic characteristic) {
+        return gattCallback.getOnCharacteristicChanged(characteristic.getUuid(), characteristic.getInstanceId()).share();
     }
 
     @NonNull
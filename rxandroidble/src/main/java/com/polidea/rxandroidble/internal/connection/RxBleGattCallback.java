@@ -19,6 +19,7 @@ import java.util.UUID;
 import rx.Observable;
 import rx.Scheduler;
 import rx.functions.Action0;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.subjects.BehaviorSubject;
 import rx.subjects.PublishSubject;
@@ -39,12 +40,15 @@ public class RxBleGattCallback {
     private final PublishSubject<RxBleDeviceServices> servicesDiscoveredPublishSubject = PublishSubject.create();
     private final PublishSubject<ByteAssociation<UUID>> readCharacteristicPublishSubject = PublishSubject.create();
     private final PublishSubject<ByteAssociation<UUID>> writeCharacteristicPublishSubject = PublishSubject.create();
+    private final PublishSubject<UUID> writtenCharacteristicUuidPublishSubject = PublishSubject.create();
     private final SerializedSubject<CharacteristicChangedEvent, CharacteristicChangedEvent>
             changedCharacteristicPublishSubject = PublishSubject.<CharacteristicChangedEvent>create().toSerialized();
+    private final CharacteristicChangedDispatchTable characteristicChangedDispatchTable = new CharacteristicChangedDispatchTable();
     private final PublishSubject<ByteAssociation<BluetoothGattDescriptor>> readDescriptorPublishSubject = PublishSubject.create();
     private final PublishSubject<ByteAssociation<BluetoothGattDescriptor>> writeDescriptorPublishSubject = PublishSubject.create();
     private final PublishSubject<Integer> readRssiPublishSubject = PublishSubject.create();
     private final PublishSubject<Integer> changedMtuPublishSubject = PublishSubject.create();
+    private final PublishSubject<Integer> reliableWriteCompletedPublishSubject = PublishSubject.create();
     private final Observable disconnectedErrorObservable = gattAndConnectionStatePublishSubject
             .filter(new Func1<Pair<BluetoothGatt, RxBleConnectionState>, Boolean>() {
                 @Override
@@ -117,28 +121,33 @@ public class RxBleGattCallback {
             bluetoothGattBehaviorSubject.onNext(gatt);
 
             if (!propagateStatusErrorIfGattErrorOccurred(gatt, characteristic, status, BleGattOperationType.CHARACTERISTIC_WRITE)) {
-                writeCharacteristicPublishSubject.onNext(new ByteAssociation<>(characteristic.getUuid(), characteristic.getValue()));
+                writtenCharacteristicUuidPublishSubject.onNext(characteristic.getUuid());
+                // long writes observe only the UUID - the echo does not need to be allocated for each of their batches
+                if (writeCharacteristicPublishSubject.hasObservers()) {
+                    writeCharacteristicPublishSubject.onNext(new ByteAssociation<>(characteristic.getUuid(), characteristic.getValue()));
+                }
             }
         }
 
         @Override
         public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
-            RxBleLog.d("onCharacteristicChanged characteristic=%s", characteristic.getUuid());
+            final UUID uuid = characteristic.getUuid();
+            if (RxBleLog.isAtLeast(RxBleLog.DEBUG)) {
+                RxBleLog.d("onCharacteristicChanged characteristic=%s", uuid);
+            }
             super.onCharacteristicChanged(gatt, characteristic);
             bluetoothGattBehaviorSubject.onNext(gatt);
 
             /**
-             * It is important to call changedCharacteristicPublishSubject as soon as possible because a quick changing
-             * characteristic could lead to out-of-order execution since onCharacteristicChanged may be called on arbitrary
-             * threads.
+             * It is important to dispatch the value as soon as possible because a quick changing characteristic could lead
+             * to out-of-order execution since onCharacteristicChanged may be called on arbitrary threads.
              */
-            changedCharacteristicPublishSubject.onNext(
-                    new CharacteristicChangedEvent(
-                            characteristic.getUuid(),
-                            characteristic.getInstanceId(),
-                            characteristic.getValue()
-                    )
-            );
+            final int instanceId = characteristic.getInstanceId();
+            final byte[] value = characteristic.getValue();
+            characteristicChangedDispatchTable.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), instanceId, value);
+            if (changedCharacteristicPublishSubject.hasObservers()) {
+                changedCharacteristicPublishSubject.onNext(new CharacteristicChangedEvent(uuid, instanceId, value));
+            }
         }
 
         @Override
@@ -170,7 +179,7 @@ public class RxBleGattCallback {
             bluetoothGattBehaviorSubject.onNext(gatt);
 
             if (!propagateStatusErrorIfGattErrorOccurred(gatt, status, BleGattOperationType.RELIABLE_WRITE_COMPLETED)) {
-                return; // TODO Implement reliable write
+                reliableWriteCompletedPublishSubject.onNext(status);
             }
         }
 
@@ -312,10 +321,55 @@ public class RxBleGattCallback {
         return withHandlingStatusErrorAndDisconnection(writeCharacteristicPublishSubject).observeOn(callbackScheduler);
     }
 
+    /**
+     * Emits only the UUIDs of the written characteristics - unlike {@link #getOnCharacteristicWrite()} no echo of the written value
+     * is allocated, so it is meant for operations writing many batches that only need to know when a write has finished.
+     */
+    public Observable<UUID> getOnCharacteristicWriteUuid() {
+        return withHandlingStatusErrorAndDisconnection(writtenCharacteristicUuidPublishSubject).observeOn(callbackScheduler);
+    }
+
     public Observable<CharacteristicChangedEvent> getOnCharacteristicChanged() {
         return withHandlingStatusErrorAndDisconnection(changedCharacteristicPublishSubject).observeOn(callbackScheduler);
     }
 
+    /**
+     * Returns values of notifications / indications of a single characteristic. Values are routed through a dispatch table keyed by
+     * the characteristic UUID and instance id so - unlike {@link #getOnCharacteristicChanged()} - no intermediate event is allocated
+     * and no filtering of notifications of other characteristics is needed.
+     *
+     * @param characteristicUuid the UUID of the characteristic
+     * @param instanceId         the instance id of the characteristic
+     * @return Observable emitting values of the characteristic that were changed after the subscription
+     */
+    public Observable<byte[]> getOnCharacteristicChanged(final UUID characteristicUuid, final int instanceId) {
+        return Observable.defer(new Func0<Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call() {
+                final SerializedSubject<byte[], byte[]> valueSubject = PublishSubject.<byte[]>create().toSerialized();
+                final CharacteristicChangedDispatchTable.Listener listener = new CharacteristicChangedDispatchTable.Listener() {
+                    @Override
+                    public void onCharacteristicChanged(byte[] value) {
+                        valueSubject.onNext(value);
+                    }
+                };
+                return withHandlingStatusErrorAndDisconnection(valueSubject.asObservable())
+                        .doOnSubscribe(new Action0() {
+                            @Override
+                            public void call() {
+                                characteristicChangedDispatchTable.register(characteristicUuid, instanceId, listener);
+                            }
+                        })
+                        .doOnUnsubscribe(new Action0() {
+                            @Override
+                            public void call() {
+                                characteristicChangedDispatchTable.unregister(characteristicUuid, instanceId, listener);
+                            }
+                        });
+            }
+        }).observeOn(callbackScheduler);
+    }
+
     public Observable<ByteAssociation<BluetoothGattDescriptor>> getOnDescriptorRead() {
         return withHandlingStatusErrorAndDisconnection(readDescriptorPublishSubject).observeOn(callbackScheduler);
     }
@@ -324,6 +378,14 @@ public class RxBleGattCallback {
         return withHandlingStatusErrorAndDisconnection(writeDescriptorPublishSubject).observeOn(callbackScheduler);
     }
 
+    /**
+     * @return Observable that emits the status (always {@link BluetoothGatt#GATT_SUCCESS}) when a reliable write has been executed.
+     * Errors are emitted as {@link BleGattException} with {@link BleGattOperationType#RELIABLE_WRITE_COMPLETED} type.
+     */
+    public Observable<Integer> getOnReliableWriteCompleted() {
+        return withHandlingStatusErrorAndDisconnection(reliableWriteCompletedPublishSubject).observeOn(callbackScheduler);
+    }
+
     public Observable<Integer> getOnRssiRead() {
         return withHandlingStatusErrorAndDisconnection(readRssiPublishSubject).observeOn(callbackScheduler);
     }
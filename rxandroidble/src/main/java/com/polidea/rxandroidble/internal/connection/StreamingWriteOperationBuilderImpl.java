@@ -0,0 +1,126 @@
+package com.polidea.rxandroidble.internal.connection;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.support.annotation.NonNull;
+import com.polidea.rxandroidble.RxBleConnection;
+import com.polidea.rxandroidble.RxBleWriteProgress;
+import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicStreamingWrite;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func1;
+
+final class StreamingWriteOperationBuilderImpl implements RxBleConnection.StreamingWriteOperationBuilder {
+
+    @NonNull
+    private final BluetoothGatt bluetoothGatt;
+
+    @NonNull
+    private final RxBleGattCallback rxBleGattCallback;
+
+    @NonNull
+    private final RxBleRadio rxBleRadio;
+
+    private byte[] bytes;
+
+    private int maxPendingWrites = 1;
+
+    private Observable<BluetoothGattCharacteristic> writtenCharacteristicObservable;
+
+    @NonNull
+    private Callable<Integer> maxBatchSizeCallable;
+
+    @NonNull
+    private final RxBleConnection rxBleConnection;
+
+    @NonNull
+    private final Scheduler timeoutScheduler;
+
+    StreamingWriteOperationBuilderImpl(
+            @NonNull BluetoothGatt bluetoothGatt,
+            @NonNull RxBleGattCallback rxBleGattCallback,
+            @NonNull RxBleRadio rxBleRadio,
+            @NonNull Callable<Integer> defaultMaxBatchSizeCallable,
+            @NonNull RxBleConnection rxBleConnection,
+            @NonNull Scheduler timeoutScheduler
+    ) {
+        this.bluetoothGatt = bluetoothGatt;
+        this.rxBleGattCallback = rxBleGattCallback;
+        this.rxBleRadio = rxBleRadio;
+        this.maxBatchSizeCallable = defaultMaxBatchSizeCallable;
+        this.rxBleConnection = rxBleConnection;
+        this.timeoutScheduler = timeoutScheduler;
+    }
+
+    @Override
+    public RxBleConnection.StreamingWriteOperationBuilder setBytes(@NonNull byte[] bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.StreamingWriteOperationBuilder setCharacteristicUuid(@NonNull UUID uuid) {
+        this.writtenCharacteristicObservable = rxBleConnection.getCharacteristic(uuid);
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.StreamingWriteOperationBuilder setCharacteristic(
+            @NonNull BluetoothGattCharacteristic bluetoothGattCharacteristic) {
+        this.writtenCharacteristicObservable = Observable.just(bluetoothGattCharacteristic);
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.StreamingWriteOperationBuilder setMaxBatchSize(final int maxBatchSize) {
+        this.maxBatchSizeCallable = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return maxBatchSize;
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public RxBleConnection.StreamingWriteOperationBuilder setMaxPendingWrites(int maxPendingWrites) {
+        this.maxPendingWrites = maxPendingWrites;
+        return this;
+    }
+
+    @Override
+    public Observable<RxBleWriteProgress> build() {
+        if (writtenCharacteristicObservable == null) {
+            throw new IllegalArgumentException("setCharacteristicUuid() or setCharacteristic() needs to be called before build()");
+        }
+
+        if (bytes == null) {
+            throw new IllegalArgumentException("setBytes() needs to be called before build()");
+        }
+
+        if (maxPendingWrites <= 0) {
+            throw new IllegalArgumentException("maxPendingWrites must be greater than zero (now: " + maxPendingWrites + ")");
+        }
+
+        final byte[] bytesToWrite = bytes;
+        final int pendingWrites = maxPendingWrites;
+        final Callable<Integer> batchSizeCallable = maxBatchSizeCallable;
+        return writtenCharacteristicObservable.flatMap(new Func1<BluetoothGattCharacteristic, Observable<RxBleWriteProgress>>() {
+            @Override
+            public Observable<RxBleWriteProgress> call(BluetoothGattCharacteristic bluetoothGattCharacteristic) {
+                return rxBleRadio.queue(new RxBleRadioOperationCharacteristicStreamingWrite(
+                        bluetoothGatt,
+                        rxBleGattCallback,
+                        bluetoothGattCharacteristic,
+                        batchSizeCallable,
+                        pendingWrites,
+                        bytesToWrite,
+                        timeoutScheduler
+                ));
+            }
+        });
+    }
+}
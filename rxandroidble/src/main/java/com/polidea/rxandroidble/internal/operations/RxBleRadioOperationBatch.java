@@ -0,0 +1,106 @@
+package com.polidea.rxandroidble.internal.operations;
+
+import android.bluetooth.BluetoothGatt;
+import android.os.DeadObjectException;
+
+import com.polidea.rxandroidble.RxBleBatchResult;
+import com.polidea.rxandroidble.exceptions.BleDisconnectedException;
+import com.polidea.rxandroidble.exceptions.BleException;
+import com.polidea.rxandroidble.internal.RadioReleaseInterface;
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Operation that executes a list of GATT operations one after another while holding the Bluetooth Radio. The next operation
+ * is started directly when the previous one completes (on the thread of the GATT callback) so the operations of the batch are neither
+ * interleaved with other operations nor scheduled separately.
+ */
+public class RxBleRadioOperationBatch extends RxBleRadioOperation<RxBleBatchResult> {
+
+    private static final RadioReleaseInterface NO_OP_RADIO_RELEASE_INTERFACE = new RadioReleaseInterface() {
+        @Override
+        public void release() {
+            // the batch holds the radio until all of its operations are finished
+        }
+    };
+
+    private final BluetoothGatt bluetoothGatt;
+
+    private final List<Item> items;
+
+    private final byte[][] values;
+
+    private final long[] operationDurationsNanos;
+
+    private long startNanos;
+
+    public RxBleRadioOperationBatch(BluetoothGatt bluetoothGatt, List<Item> items) {
+        this.bluetoothGatt = bluetoothGatt;
+        this.items = items;
+        this.values = new byte[items.size()][];
+        this.operationDurationsNanos = new long[items.size()];
+    }
+
+    @Override
+    protected void protectedRun() throws Throwable {
+        startNanos = System.nanoTime();
+        runItem(0);
+    }
+
+    private void runItem(final int index) {
+        if (index == items.size()) {
+            final long durationNanos = System.nanoTime() - startNanos;
+            releaseRadio();
+            onNext(new RxBleBatchResult(Arrays.asList(values), operationDurationsNanos, durationNanos));
+            onCompleted();
+            return;
+        }
+
+        final Item item = items.get(index);
+        final long itemStartNanos = System.nanoTime();
+        item.operation.setRadioReleaseInterface(NO_OP_RADIO_RELEASE_INTERFACE);
+        item.result.subscribe(new Subscriber<byte[]>() {
+            @Override
+            public void onCompleted() {
+                operationDurationsNanos[index] = System.nanoTime() - itemStartNanos;
+                runItem(index + 1);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                RxBleRadioOperationBatch.this.onError(e);
+            }
+
+            @Override
+            public void onNext(byte[] bytes) {
+                values[index] = bytes;
+            }
+        });
+        item.operation.run();
+    }
+
+    @Override
+    protected BleException provideException(DeadObjectException deadObjectException) {
+        return new BleDisconnectedException(deadObjectException, bluetoothGatt.getDevice().getAddress());
+    }
+
+    /**
+     * A single operation of the batch together with the Observable of its value.
+     */
+    public static class Item {
+
+        final RxBleRadioOperation<?> operation;
+
+        final Observable<byte[]> result;
+
+        public Item(RxBleRadioOperation<?> operation, Observable<byte[]> result) {
+            this.operation = operation;
+            this.result = result;
+        }
+    }
+}
@@ -15,9 +15,9 @@ import com.polidea.rxandroidble.exceptions.BleGattOperationType;
 import com.polidea.rxandroidble.internal.RxBleLog;
 import com.polidea.rxandroidble.internal.RxBleRadioOperation;
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback;
-import com.polidea.rxandroidble.internal.util.ByteAssociation;
+import com.polidea.rxandroidble.internal.util.LongWriteSource;
 
-import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -29,7 +29,9 @@ import rx.Subscription;
 import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Cancellable;
+import rx.functions.Func0;
 import rx.functions.Func1;
+import rx.subscriptions.SerialSubscription;
 
 public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperation<byte[]> {
 
@@ -45,13 +47,31 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
 
     private final RxBleConnection.WriteOperationAckStrategy writeOperationAckStrategy;
 
-    private final byte[] bytesToWrite;
+    private final LongWriteSource longWriteSource;
 
     private final Scheduler mainThreadScheduler;
 
     private final Scheduler timeoutScheduler;
 
-    private byte[] tempBatchArray;
+    private final byte[][] batchArrays = new byte[2][];
+
+    private int nextBatchArray;
+
+    private boolean firstBatchRead;
+
+    private volatile boolean sourceExhausted;
+
+    private final SerialSubscription writeSubscription = new SerialSubscription();
+
+    private final Object stateLock = new Object();
+
+    private boolean started;
+
+    private boolean finished;
+
+    private boolean batchInFlight;
+
+    private boolean radioReleasePending;
 
     public RxBleRadioOperationCharacteristicLongWrite(
             BluetoothGatt bluetoothGatt,
@@ -59,7 +79,7 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
             BluetoothGattCharacteristic bluetoothGattCharacteristic,
             Callable<Integer> batchSizeProvider,
             RxBleConnection.WriteOperationAckStrategy writeOperationAckStrategy,
-            byte[] bytesToWrite,
+            LongWriteSource longWriteSource,
             Scheduler mainThreadScheduler,
             Scheduler timeoutScheduler
     ) {
@@ -68,39 +88,85 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
         this.bluetoothGattCharacteristic = bluetoothGattCharacteristic;
         this.batchSizeProvider = batchSizeProvider;
         this.writeOperationAckStrategy = writeOperationAckStrategy;
-        this.bytesToWrite = bytesToWrite;
+        this.longWriteSource = longWriteSource;
         this.mainThreadScheduler = mainThreadScheduler;
         this.timeoutScheduler = timeoutScheduler;
     }
 
+    /**
+     * Unsubscribing from the returned Observable cancels the write - no further batches are written, the {@link LongWriteSource} is
+     * released and the radio is released if the write was already running. If a batch is being written at that moment the radio is
+     * released only once its write callback arrives or times out, so the next operation does not start while the GATT is busy.
+     */
+    @Override
+    public Observable<byte[]> asObservable() {
+        return super.asObservable().doOnUnsubscribe(new Action0() {
+            @Override
+            public void call() {
+                cancel();
+            }
+        });
+    }
+
     @Override
     protected void protectedRun() throws Throwable {
-        int batchSize = getBatchSize();
+        final boolean cancelledBeforeRun;
+        synchronized (stateLock) {
+            cancelledBeforeRun = finished;
+            started = true;
+        }
+        if (cancelledBeforeRun) {
+            releaseRadio();
+            return;
+        }
 
-        if (batchSize <= 0) {
-            throw new IllegalArgumentException("batchSizeProvider value must be greater than zero (now: " + batchSize + ")");
+        final int batchSize;
+        try {
+            batchSize = getBatchSize();
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSizeProvider value must be greater than zero (now: " + batchSize + ")");
+            }
+        } catch (RuntimeException e) {
+            markFinished();
+            longWriteSource.release();
+            throw e;
         }
-        final Observable<ByteAssociation<UUID>> timeoutObservable = Observable.error(
+        final Observable<UUID> timeoutObservable = Observable.error(
                 new BleGattCallbackTimeoutException(bluetoothGatt, BleGattOperationType.CHARACTERISTIC_LONG_WRITE)
         );
-        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytesToWrite);
-
-        writeBatchAndObserve(batchSize, byteBuffer)
-                .subscribeOn(mainThreadScheduler)
+        writeSubscription.set(readNextBatch(batchSize)
+                .observeOn(mainThreadScheduler)
+                .flatMap(new Func1<byte[], Observable<UUID>>() {
+                    @Override
+                    public Observable<UUID> call(byte[] bytesBatch) {
+                        return writeBatchAndObserve(bytesBatch);
+                    }
+                })
                 .takeFirst(writeResponseForMatchingCharacteristic())
+                .doOnNext(new Action1<UUID>() {
+                    @Override
+                    public void call(UUID writtenCharacteristicUuid) {
+                        onBatchWritten();
+                    }
+                })
                 .timeout(
                         SINGLE_BATCH_TIMEOUT,
                         TimeUnit.SECONDS,
                         timeoutObservable,
                         timeoutScheduler
                 )
-                .repeatWhen(bufferIsNotEmptyAndOperationHasBeenAcknowledged(byteBuffer))
+                .repeatWhen(bufferIsNotEmptyAndOperationHasBeenAcknowledged())
                 .toCompletable()
                 .subscribe(
                         new Action0() {
                             @Override
                             public void call() {
-                                onNext(bytesToWrite);
+                                if (!markFinished()) {
+                                    releaseRadioIfPending();
+                                    return;
+                                }
+                                longWriteSource.release();
+                                onNext(longWriteSource.getWrittenBytes());
                                 onCompleted();
                                 releaseRadio();
                             }
@@ -108,10 +174,73 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
                         new Action1<Throwable>() {
                             @Override
                             public void call(Throwable throwable) {
+                                if (!markFinished()) {
+                                    releaseRadioIfPending();
+                                    return;
+                                }
+                                longWriteSource.release();
                                 onError(throwable);
                             }
                         }
-                );
+                ));
+    }
+
+    private boolean markFinished() {
+        synchronized (stateLock) {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            return true;
+        }
+    }
+
+    private void cancel() {
+        final boolean wasRunning;
+        final boolean waitForBatchWritten;
+        synchronized (stateLock) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            wasRunning = started;
+            waitForBatchWritten = wasRunning && batchInFlight;
+            radioReleasePending = waitForBatchWritten;
+        }
+        longWriteSource.release();
+        if (waitForBatchWritten) {
+            // the flow keeps observing the write callback of the in-flight batch - see onBatchWritten()
+            return;
+        }
+        writeSubscription.unsubscribe();
+        if (wasRunning) {
+            releaseRadio();
+        }
+    }
+
+    private void onBatchWritten() {
+        synchronized (stateLock) {
+            batchInFlight = false;
+        }
+        if (releaseRadioIfPending()) {
+            writeSubscription.unsubscribe();
+        }
+    }
+
+    /**
+     * Releases the radio held by a write cancelled while a batch was in flight.
+     *
+     * @return true if the radio was released
+     */
+    private boolean releaseRadioIfPending() {
+        synchronized (stateLock) {
+            if (!radioReleasePending) {
+                return false;
+            }
+            radioReleasePending = false;
+        }
+        releaseRadio();
+        return true;
     }
 
     @Override
@@ -128,13 +257,59 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
         }
     }
 
+    /**
+     * Reads the next batch from the {@link LongWriteSource} without blocking the subscribing thread - sources backed by a stream,
+     * a file or a producer emit on their own threads. Completes without a batch once the source is exhausted, except for the first
+     * batch which is always written. {@link BluetoothGattCharacteristic#setValue(byte[])} keeps the passed reference until the next
+     * batch is set, so batches are read alternately into two arrays - the next batch is read only after the write callback of the
+     * previous one, which leaves the array of the previous batch untouched while the next one is being written. Only a shorter last
+     * batch is copied into a new array.
+     */
+    @NonNull
+    private Observable<byte[]> readNextBatch(final int batchSize) {
+        return Observable.defer(new Func0<Observable<byte[]>>() {
+            @Override
+            public Observable<byte[]> call() {
+                final byte[] batch = nextBatchArray(batchSize);
+                return longWriteSource.read(batch).concatMap(new Func1<Integer, Observable<byte[]>>() {
+                    @Override
+                    public Observable<byte[]> call(Integer readBytes) {
+                        final boolean firstBatch = !firstBatchRead;
+                        firstBatchRead = true;
+                        if (readBytes < batchSize) {
+                            sourceExhausted = true;
+                        }
+                        if (readBytes == 0 && !firstBatch) {
+                            return Observable.empty();
+                        }
+                        return Observable.just(readBytes < batchSize ? Arrays.copyOf(batch, readBytes) : batch);
+                    }
+                });
+            }
+        });
+    }
+
+    private byte[] nextBatchArray(int batchSize) {
+        final int index = nextBatchArray;
+        nextBatchArray = 1 - index;
+        byte[] batchArray = batchArrays[index];
+        if (batchArray == null || batchArray.length != batchSize) {
+            batchArray = new byte[batchSize];
+            batchArrays[index] = batchArray;
+        }
+        return batchArray;
+    }
+
+    /**
+     * Observes only the UUIDs of the written characteristics - the write callback does not echo the value of every batch.
+     */
     @NonNull
-    private Observable<ByteAssociation<UUID>> writeBatchAndObserve(final int batchSize, final ByteBuffer byteBuffer) {
-        final Observable<ByteAssociation<UUID>> onCharacteristicWrite = rxBleGattCallback.getOnCharacteristicWrite();
+    private Observable<UUID> writeBatchAndObserve(final byte[] bytesBatch) {
+        final Observable<UUID> onCharacteristicWrite = rxBleGattCallback.getOnCharacteristicWriteUuid();
         return Observable.fromEmitter(
-                new Action1<Emitter<ByteAssociation<UUID>>>() {
+                new Action1<Emitter<UUID>>() {
                     @Override
-                    public void call(Emitter<ByteAssociation<UUID>> emitter) {
+                    public void call(Emitter<UUID> emitter) {
                         final Subscription s = onCharacteristicWrite.subscribe(emitter);
                         emitter.setCancellation(new Cancellable() {
                             @Override
@@ -154,7 +329,6 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
                          */
 
                         try {
-                            final byte[] bytesBatch = getNextBatch(byteBuffer, batchSize);
                             writeData(bytesBatch);
                         } catch (Throwable throwable) {
                             emitter.onError(throwable);
@@ -164,17 +338,10 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
                 Emitter.BackpressureMode.BUFFER);
     }
 
-    private byte[] getNextBatch(ByteBuffer byteBuffer, int batchSize) {
-        final int remainingBytes = byteBuffer.remaining();
-        final int nextBatchSize = Math.min(remainingBytes, batchSize);
-        if (tempBatchArray == null || tempBatchArray.length != nextBatchSize) {
-            tempBatchArray = new byte[nextBatchSize];
-        }
-        byteBuffer.get(tempBatchArray);
-        return tempBatchArray;
-    }
-
     private void writeData(byte[] bytesBatch) {
+        synchronized (stateLock) {
+            batchInFlight = true;
+        }
         bluetoothGattCharacteristic.setValue(bytesBatch);
         final boolean success = bluetoothGatt.writeCharacteristic(bluetoothGattCharacteristic);
         if (!success) {
@@ -182,29 +349,33 @@ public class RxBleRadioOperationCharacteristicLongWrite extends RxBleRadioOperat
         }
     }
 
-    private Func1<ByteAssociation<UUID>, Boolean> writeResponseForMatchingCharacteristic() {
-        return new Func1<ByteAssociation<UUID>, Boolean>() {
+    private Func1<UUID, Boolean> writeResponseForMatchingCharacteristic() {
+        return new Func1<UUID, Boolean>() {
             @Override
-            public Boolean call(ByteAssociation<UUID> uuidByteAssociation) {
-                return uuidByteAssociation.first.equals(bluetoothGattCharacteristic.getUuid());
+            public Boolean call(UUID writtenCharacteristicUuid) {
+                return writtenCharacteristicUuid.equals(bluetoothGattCharacteristic.getUuid());
             }
         };
     }
 
-    private Func1<Observable<? extends Void>, Observable<?>> bufferIsNotEmptyAndOperationHasBeenAcknowledged(final ByteBuffer byteBuffer) {
+    private Func1<Observable<? extends Void>, Observable<?>> bufferIsNotEmptyAndOperationHasBeenAcknowledged() {
         return new Func1<Observable<? extends Void>, Observable<?>>() {
             @Override
             public Observable<?> call(Observable<? extends Void> emittingOnBatchWriteFinished) {
-                return writeOperationAckStrategy.call(emittingOnBatchWriteFinished.map(bufferIsNotEmpty(byteBuffer)))
-                        .takeWhile(bufferIsNotEmpty(byteBuffer));
+                return writeOperationAckStrategy.call(emittingOnBatchWriteFinished.map(bufferIsNotEmpty()))
+                        .takeWhile(bufferIsNotEmpty());
             }
 
+            /**
+             * A short read marks the end of the source so the decision does not touch the source itself - it is made on the thread
+             * delivering the GATT callbacks.
+             */
             @NonNull
-            private Func1<Object, Boolean> bufferIsNotEmpty(final ByteBuffer byteBuffer) {
+            private Func1<Object, Boolean> bufferIsNotEmpty() {
                 return new Func1<Object, Boolean>() {
                     @Override
                     public Boolean call(Object emittedFromActStrategy) {
-                        return byteBuffer.hasRemaining();
+                        return !sourceExhausted;
                     }
                 };
             }
@@ -0,0 +1,328 @@
+package com.polidea.rxandroidble.internal.operations;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.os.DeadObjectException;
+
+import com.polidea.rxandroidble.RxBleWriteProgress;
+import com.polidea.rxandroidble.exceptions.BleDisconnectedException;
+import com.polidea.rxandroidble.exceptions.BleException;
+import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException;
+import com.polidea.rxandroidble.exceptions.BleGattCannotStartException;
+import com.polidea.rxandroidble.exceptions.BleGattOperationType;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+import com.polidea.rxandroidble.internal.connection.RxBleGattCallback;
+import com.polidea.rxandroidble.internal.util.ByteAssociation;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Func1;
+
+/**
+ * Operation that writes bytes to a {@link BluetoothGattCharacteristic} in batches using
+ * {@link BluetoothGattCharacteristic#WRITE_TYPE_NO_RESPONSE}. Up to maxPendingWrites batches may be written before
+ * {@link android.bluetooth.BluetoothGattCallback#onCharacteristicWrite} is received for them. When Android stack refuses to start
+ * a write the batch is written again after the next callback. If there are no pending writes it is written again after a delay doubled
+ * with every consecutive refusal and the operation fails with {@link BleGattCannotStartException} when the stack keeps refusing.
+ * A single subscription for the callbacks is kept for the whole operation and the timeout is counted from the last callback.
+ * The GATT calls are made outside of the lock guarding the state so callbacks are never blocked by a write being started.
+ */
+public class RxBleRadioOperationCharacteristicStreamingWrite extends RxBleRadioOperation<RxBleWriteProgress> {
+
+    private static final int WRITE_ACKNOWLEDGEMENT_TIMEOUT = 30;
+
+    private static final int REFUSED_WRITE_INITIAL_RETRY_DELAY_MILLIS = 5;
+
+    private static final int MAX_REFUSED_WRITE_RETRIES = 8;
+
+    private final BluetoothGatt bluetoothGatt;
+
+    private final RxBleGattCallback rxBleGattCallback;
+
+    private final BluetoothGattCharacteristic bluetoothGattCharacteristic;
+
+    private final Callable<Integer> batchSizeProvider;
+
+    private final int maxPendingWrites;
+
+    private final byte[] bytesToWrite;
+
+    private final Scheduler timeoutScheduler;
+
+    private final Object lock = new Object();
+
+    private ByteBuffer byteBuffer;
+
+    private byte[] tempBatchArray;
+
+    private int batchSize;
+
+    /**
+     * Sizes of the written batches that were not yet acknowledged, kept as a ring buffer.
+     */
+    private int[] pendingBatchSizes;
+
+    private int pendingWritesHead;
+
+    private int pendingWritesCount;
+
+    private long bytesWritten;
+
+    private long startNanos;
+
+    private boolean isFinished;
+
+    /**
+     * Only a single thread writes the batches at a time. A callback arriving meanwhile marks that the writing thread should try
+     * again before it stops.
+     */
+    private boolean isWritingBatches;
+
+    private boolean shouldWriteAgain;
+
+    /**
+     * Consecutive refusals retried after a delay. Only accessed by the thread writing the batches.
+     */
+    private int refusedWriteRetries;
+
+    private int originalWriteType;
+
+    private Subscription writeCallbacksSubscription;
+
+    private Scheduler.Worker retryWorker;
+
+    public RxBleRadioOperationCharacteristicStreamingWrite(
+            BluetoothGatt bluetoothGatt,
+            RxBleGattCallback rxBleGattCallback,
+            BluetoothGattCharacteristic bluetoothGattCharacteristic,
+            Callable<Integer> batchSizeProvider,
+            int maxPendingWrites,
+            byte[] bytesToWrite,
+            Scheduler timeoutScheduler
+    ) {
+        this.bluetoothGatt = bluetoothGatt;
+        this.rxBleGattCallback = rxBleGattCallback;
+        this.bluetoothGattCharacteristic = bluetoothGattCharacteristic;
+        this.batchSizeProvider = batchSizeProvider;
+        this.maxPendingWrites = maxPendingWrites;
+        this.bytesToWrite = bytesToWrite;
+        this.timeoutScheduler = timeoutScheduler;
+    }
+
+    @Override
+    protected void protectedRun() throws Throwable {
+        batchSize = getBatchSize();
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSizeProvider value must be greater than zero (now: " + batchSize + ")");
+        }
+
+        if (maxPendingWrites <= 0) {
+            throw new IllegalArgumentException("maxPendingWrites must be greater than zero (now: " + maxPendingWrites + ")");
+        }
+
+        byteBuffer = ByteBuffer.wrap(bytesToWrite);
+        pendingBatchSizes = new int[maxPendingWrites];
+        retryWorker = timeoutScheduler.createWorker();
+        startNanos = System.nanoTime();
+        originalWriteType = bluetoothGattCharacteristic.getWriteType();
+        bluetoothGattCharacteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE);
+
+        if (bytesToWrite.length == 0) {
+            finish();
+            return;
+        }
+
+        /*
+         * The callbacks need to be observed before the first write as onCharacteristicWrite for a write without response may be called
+         * before BluetoothGatt.writeCharacteristic() returns.
+         */
+        writeCallbacksSubscription = rxBleGattCallback.getOnCharacteristicWrite()
+                .filter(new Func1<ByteAssociation<UUID>, Boolean>() {
+                    @Override
+                    public Boolean call(ByteAssociation<UUID> uuidByteAssociation) {
+                        return uuidByteAssociation.first.equals(bluetoothGattCharacteristic.getUuid());
+                    }
+                })
+                .timeout(
+                        WRITE_ACKNOWLEDGEMENT_TIMEOUT,
+                        TimeUnit.SECONDS,
+                        Observable.<ByteAssociation<UUID>>error(
+                                new BleGattCallbackTimeoutException(bluetoothGatt, BleGattOperationType.CHARACTERISTIC_LONG_WRITE)
+                        ),
+                        timeoutScheduler
+                )
+                .subscribe(new Subscriber<ByteAssociation<UUID>>() {
+                    @Override
+                    public void onCompleted() {
+                        // callbacks are not expected to complete
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        fail(e);
+                    }
+
+                    @Override
+                    public void onNext(ByteAssociation<UUID> uuidByteAssociation) {
+                        onBatchWritten();
+                    }
+                });
+        writeBatches();
+    }
+
+    @Override
+    protected BleException provideException(DeadObjectException deadObjectException) {
+        return new BleDisconnectedException(deadObjectException, bluetoothGatt.getDevice().getAddress());
+    }
+
+    private int getBatchSize() {
+        try {
+            return batchSizeProvider.call();
+        } catch (Exception e) {
+            RxBleLog.w(e, "Failed to get batch size.");
+            throw new RuntimeException("Failed to get batch size from the batchSizeProvider.", e);
+        }
+    }
+
+    private void writeBatches() {
+        synchronized (lock) {
+            if (isWritingBatches) {
+                shouldWriteAgain = true;
+                return;
+            }
+            isWritingBatches = true;
+        }
+        try {
+            while (writeNextBatch()) {
+                // the stack accepted a write or acknowledged one meanwhile so it is not stuck
+                refusedWriteRetries = 0;
+            }
+        } catch (Throwable throwable) {
+            fail(throwable instanceof DeadObjectException ? provideException((DeadObjectException) throwable) : throwable);
+        }
+    }
+
+    /**
+     * @return true if the writing should continue with the next batch, false if it has stopped until the next callback or retry
+     */
+    private boolean writeNextBatch() {
+        final int position;
+        synchronized (lock) {
+            shouldWriteAgain = false;
+            if (isFinished || pendingWritesCount == pendingBatchSizes.length || !byteBuffer.hasRemaining()) {
+                isWritingBatches = false;
+                return false;
+            }
+            position = byteBuffer.position();
+            final int nextBatchSize = Math.min(byteBuffer.remaining(), batchSize);
+            if (tempBatchArray == null || tempBatchArray.length != nextBatchSize) {
+                tempBatchArray = new byte[nextBatchSize];
+            }
+            byteBuffer.get(tempBatchArray);
+            // the write is counted as pending before it is started as the callback may come before writeCharacteristic() returns
+            pendingBatchSizes[(pendingWritesHead + pendingWritesCount) % pendingBatchSizes.length] = nextBatchSize;
+            pendingWritesCount++;
+        }
+
+        bluetoothGattCharacteristic.setValue(tempBatchArray);
+        if (bluetoothGatt.writeCharacteristic(bluetoothGattCharacteristic)) {
+            return true;
+        }
+
+        final boolean retryExhausted;
+        synchronized (lock) {
+            // the stack is busy - the refused batch is the last pending one so it is taken back
+            pendingWritesCount--;
+            byteBuffer.position(position);
+            if (shouldWriteAgain) {
+                // a write was acknowledged meanwhile so the stack may accept the batch now
+                return true;
+            }
+            isWritingBatches = false;
+            if (pendingWritesCount > 0 || isFinished) {
+                // the batch will be written again after the next callback
+                return false;
+            }
+            retryExhausted = refusedWriteRetries == MAX_REFUSED_WRITE_RETRIES;
+        }
+        if (retryExhausted) {
+            fail(new BleGattCannotStartException(bluetoothGatt, BleGattOperationType.CHARACTERISTIC_LONG_WRITE));
+        } else {
+            scheduleRefusedWriteRetry(REFUSED_WRITE_INITIAL_RETRY_DELAY_MILLIS << refusedWriteRetries++);
+        }
+        return false;
+    }
+
+    private void scheduleRefusedWriteRetry(long delayMillis) {
+        retryWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                writeBatches();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void onBatchWritten() {
+        final RxBleWriteProgress writeProgress;
+        synchronized (lock) {
+            if (isFinished || pendingWritesCount == 0) {
+                return;
+            }
+            bytesWritten += pendingBatchSizes[pendingWritesHead];
+            pendingWritesHead = (pendingWritesHead + 1) % pendingBatchSizes.length;
+            pendingWritesCount--;
+            writeProgress = new RxBleWriteProgress(bytesWritten, bytesToWrite.length, System.nanoTime() - startNanos);
+        }
+        onNext(writeProgress);
+
+        if (writeProgress.isCompleted()) {
+            finish();
+        } else {
+            writeBatches();
+        }
+    }
+
+    private void finish() {
+        if (!markFinished()) {
+            return;
+        }
+
+        if (bytesToWrite.length == 0) {
+            onNext(new RxBleWriteProgress(0, 0, System.nanoTime() - startNanos));
+        }
+        releaseRadio();
+        onCompleted();
+    }
+
+    private void fail(Throwable throwable) {
+        if (markFinished()) {
+            onError(throwable);
+        }
+    }
+
+    private boolean markFinished() {
+        synchronized (lock) {
+            if (isFinished) {
+                return false;
+            }
+            isFinished = true;
+        }
+
+        if (writeCallbacksSubscription != null) {
+            writeCallbacksSubscription.unsubscribe();
+        }
+        retryWorker.unsubscribe();
+        bluetoothGattCharacteristic.setWriteType(originalWriteType);
+        return true;
+    }
+}
@@ -0,0 +1,214 @@
+package com.polidea.rxandroidble.internal.operations;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.os.DeadObjectException;
+import android.support.annotation.NonNull;
+
+import com.polidea.rxandroidble.RxBleBatchResult;
+import com.polidea.rxandroidble.exceptions.BleDisconnectedException;
+import com.polidea.rxandroidble.exceptions.BleException;
+import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException;
+import com.polidea.rxandroidble.exceptions.BleGattCannotStartException;
+import com.polidea.rxandroidble.exceptions.BleGattOperationType;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+import com.polidea.rxandroidble.internal.connection.RxBleGattCallback;
+import com.polidea.rxandroidble.internal.util.ByteAssociation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import rx.Emitter;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Cancellable;
+import rx.functions.Func1;
+
+/**
+ * Operation that writes a number of characteristics in a single reliable write (prepared write queue) transaction. Every write is queued
+ * on the peripheral and the next one is started after it was acknowledged. After the last write the transaction is executed so
+ * the peripheral applies all values at once. If anything fails the transaction is aborted and none of the values is applied.
+ * <p>
+ * The value reported by {@link android.bluetooth.BluetoothGattCallback#onCharacteristicWrite} is the one set on the characteristic
+ * before the write, not the one echoed by the peripheral, so it cannot be used to verify the queued value.
+ */
+public class RxBleRadioOperationReliableWrite extends RxBleRadioOperation<RxBleBatchResult> {
+
+    private static final int SINGLE_WRITE_TIMEOUT = 30;
+
+    private final RxBleGattCallback rxBleGattCallback;
+
+    private final BluetoothGatt bluetoothGatt;
+
+    private final List<Item> items;
+
+    private final Scheduler timeoutScheduler;
+
+    private final byte[][] values;
+
+    private final long[] operationDurationsNanos;
+
+    public RxBleRadioOperationReliableWrite(RxBleGattCallback rxBleGattCallback, BluetoothGatt bluetoothGatt, List<Item> items,
+                                            Scheduler timeoutScheduler) {
+        this.rxBleGattCallback = rxBleGattCallback;
+        this.bluetoothGatt = bluetoothGatt;
+        this.items = items;
+        this.timeoutScheduler = timeoutScheduler;
+        this.values = new byte[items.size()][];
+        this.operationDurationsNanos = new long[items.size()];
+    }
+
+    @Override
+    protected void protectedRun() throws Throwable {
+        final long startNanos = System.nanoTime();
+        if (!bluetoothGatt.beginReliableWrite()) {
+            throw new BleGattCannotStartException(bluetoothGatt, BleGattOperationType.RELIABLE_WRITE_COMPLETED);
+        }
+
+        Observable.range(0, items.size())
+                .concatMap(new Func1<Integer, Observable<?>>() {
+                    @Override
+                    public Observable<?> call(Integer index) {
+                        return writeItem(index);
+                    }
+                })
+                .ignoreElements()
+                .concatWith(executeReliableWrite())
+                .subscribe(
+                        new Action1<Object>() {
+                            @Override
+                            public void call(Object ignored) {
+                                final long durationNanos = System.nanoTime() - startNanos;
+                                releaseRadio();
+                                onNext(new RxBleBatchResult(Arrays.asList(values), operationDurationsNanos, durationNanos));
+                                onCompleted();
+                            }
+                        },
+                        new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                abortReliableWrite();
+                                onError(throwable);
+                            }
+                        }
+                );
+    }
+
+    @Override
+    protected BleException provideException(DeadObjectException deadObjectException) {
+        return new BleDisconnectedException(deadObjectException, bluetoothGatt.getDevice().getAddress());
+    }
+
+    @NonNull
+    private Observable<byte[]> writeItem(final int index) {
+        final Item item = items.get(index);
+        return observeCallbackAndStart(rxBleGattCallback.getOnCharacteristicWrite(), new StartAction() {
+            @Override
+            public boolean start() {
+                final BluetoothGattCharacteristic characteristic = item.characteristic;
+                final int originalWriteType = characteristic.getWriteType();
+                // prepared writes are only possible with the write type that is acknowledged by the peripheral
+                characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
+                characteristic.setValue(item.data);
+                operationDurationsNanos[index] = System.nanoTime();
+                final boolean success = bluetoothGatt.writeCharacteristic(characteristic);
+                characteristic.setWriteType(originalWriteType);
+                return success;
+            }
+        }, BleGattOperationType.CHARACTERISTIC_WRITE)
+                .takeFirst(new Func1<ByteAssociation<UUID>, Boolean>() {
+                    @Override
+                    public Boolean call(ByteAssociation<UUID> uuidByteAssociation) {
+                        return uuidByteAssociation.first.equals(item.characteristic.getUuid());
+                    }
+                })
+                .timeout(SINGLE_WRITE_TIMEOUT, TimeUnit.SECONDS, Observable.<ByteAssociation<UUID>>error(
+                        new BleGattCallbackTimeoutException(bluetoothGatt, BleGattOperationType.CHARACTERISTIC_WRITE)
+                ), timeoutScheduler)
+                .map(new Func1<ByteAssociation<UUID>, byte[]>() {
+                    @Override
+                    public byte[] call(ByteAssociation<UUID> uuidByteAssociation) {
+                        operationDurationsNanos[index] = System.nanoTime() - operationDurationsNanos[index];
+                        values[index] = uuidByteAssociation.second;
+                        return uuidByteAssociation.second;
+                    }
+                });
+    }
+
+    @NonNull
+    private Observable<Integer> executeReliableWrite() {
+        return observeCallbackAndStart(rxBleGattCallback.getOnReliableWriteCompleted(), new StartAction() {
+            @Override
+            public boolean start() {
+                return bluetoothGatt.executeReliableWrite();
+            }
+        }, BleGattOperationType.RELIABLE_WRITE_COMPLETED)
+                .take(1)
+                .timeout(SINGLE_WRITE_TIMEOUT, TimeUnit.SECONDS, Observable.<Integer>error(
+                        new BleGattCallbackTimeoutException(bluetoothGatt, BleGattOperationType.RELIABLE_WRITE_COMPLETED)
+                ), timeoutScheduler);
+    }
+
+    /**
+     * Subscribes to the callback before starting the GATT call as the callback may be delivered before the call returns.
+     */
+    @NonNull
+    private <T> Observable<T> observeCallbackAndStart(final Observable<T> callback, final StartAction startAction,
+                                                      final BleGattOperationType operationType) {
+        return Observable.fromEmitter(new Action1<Emitter<T>>() {
+            @Override
+            public void call(Emitter<T> emitter) {
+                final Subscription subscription = callback.subscribe(emitter);
+                emitter.setCancellation(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        subscription.unsubscribe();
+                    }
+                });
+
+                try {
+                    if (!startAction.start()) {
+                        emitter.onError(new BleGattCannotStartException(bluetoothGatt, operationType));
+                    }
+                } catch (Throwable throwable) {
+                    emitter.onError(throwable);
+                }
+            }
+        }, Emitter.BackpressureMode.BUFFER);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void abortReliableWrite() {
+        try {
+            // abortReliableWrite() without arguments is available from API 19
+            bluetoothGatt.abortReliableWrite(bluetoothGatt.getDevice());
+        } catch (Throwable throwable) {
+            RxBleLog.w(throwable, "Failed to abort reliable write.");
+        }
+    }
+
+    private interface StartAction {
+
+        boolean start();
+    }
+
+    /**
+     * A single characteristic write of the reliable write transaction.
+     */
+    public static class Item {
+
+        final BluetoothGattCharacteristic characteristic;
+
+        final byte[] data;
+
+        public Item(BluetoothGattCharacteristic characteristic, byte[] data) {
+            this.characteristic = characteristic;
+            this.data = data;
+        }
+    }
+}
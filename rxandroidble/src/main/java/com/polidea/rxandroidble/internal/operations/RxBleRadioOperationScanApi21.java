@@ -0,0 +1,136 @@
+package com.polidea.rxandroidble.internal.operations;
+
+import android.annotation.TargetApi;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.os.Build;
+import android.os.ParcelUuid;
+import com.polidea.rxandroidble.RxBleScanSettings;
+import com.polidea.rxandroidble.exceptions.BleScanException;
+import com.polidea.rxandroidble.internal.RxBleInternalScanResult;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Scan operation using the {@link android.bluetooth.le.BluetoothLeScanner} available from Android 5.0. Every service UUID is passed
+ * to the controller as a separate {@link ScanFilter} so advertisements of other devices may be dropped before they wake up
+ * the application processor. The scanner reports advertisements matching any of the filters - requiring all of the UUIDs of
+ * a subscriber is left to the {@link com.polidea.rxandroidble.internal.scan.ScanMultiplexer}.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class RxBleRadioOperationScanApi21 extends RxBleRadioOperationScanBase {
+
+    private final List<ScanFilter> scanFilters;
+    private final ScanSettings scanSettings;
+    private final ScanCallback scanCallback;
+
+    public RxBleRadioOperationScanApi21(UUID[] anyOfServiceUUIDs, RxBleScanSettings rxBleScanSettings,
+                                        RxBleAdapterWrapper rxBleAdapterWrapper, int deviceSdk) {
+        super(rxBleAdapterWrapper);
+
+        final boolean isFilterDefined = anyOfServiceUUIDs != null && anyOfServiceUUIDs.length > 0;
+        this.scanFilters = isFilterDefined ? createScanFilters(anyOfServiceUUIDs) : null;
+        // the scan fails on controllers without offloaded batching if the report delay is set - results are batched by the library
+        final boolean isBatchingSupported = rxBleScanSettings.getReportDelayMillis() > 0
+                && rxBleAdapterWrapper.isOffloadedScanBatchingSupported();
+        this.scanSettings = createScanSettings(rxBleScanSettings, isFilterDefined, isBatchingSupported, deviceSdk);
+        this.scanCallback = new ScanCallback() {
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                onResult(result);
+            }
+
+            @Override
+            public void onBatchScanResults(List<ScanResult> results) {
+                for (int i = 0; i < results.size(); i++) {
+                    onResult(results.get(i));
+                }
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                RxBleLog.w("Scan failed with errorCode=%d", errorCode);
+                onError(new BleScanException(BleScanException.BLUETOOTH_CANNOT_START));
+            }
+
+            private void onResult(ScanResult result) {
+                final ScanRecord scanRecord = result.getScanRecord();
+                final byte[] scanRecordBytes = scanRecord != null ? scanRecord.getBytes() : new byte[0];
+                onNext(new RxBleInternalScanResult(result.getDevice(), result.getRssi(), scanRecordBytes));
+            }
+        };
+    }
+
+    @Override
+    boolean startScan(RxBleAdapterWrapper rxBleAdapterWrapper) {
+        return rxBleAdapterWrapper.startLeScan(scanFilters, scanSettings, scanCallback);
+    }
+
+    @Override
+    void stopScan(RxBleAdapterWrapper rxBleAdapterWrapper) {
+        rxBleAdapterWrapper.stopLeScan(scanCallback);
+    }
+
+    private static List<ScanFilter> createScanFilters(UUID[] anyOfServiceUUIDs) {
+        final List<ScanFilter> scanFilters = new ArrayList<>(anyOfServiceUUIDs.length);
+        for (UUID serviceUuid : anyOfServiceUUIDs) {
+            scanFilters.add(new ScanFilter.Builder().setServiceUuid(new ParcelUuid(serviceUuid)).build());
+        }
+        return scanFilters;
+    }
+
+    private static ScanSettings createScanSettings(RxBleScanSettings rxBleScanSettings, boolean isFilterDefined,
+                                                   boolean isBatchingSupported, int deviceSdk) {
+        final ScanSettings.Builder builder = new ScanSettings.Builder()
+                .setScanMode(mapScanMode(rxBleScanSettings.getScanMode(), deviceSdk))
+                .setReportDelay(isBatchingSupported ? rxBleScanSettings.getReportDelayMillis() : 0);
+        if (deviceSdk >= Build.VERSION_CODES.M) {
+            setCallbackTypeAndMatchMode(builder, rxBleScanSettings, isFilterDefined);
+        }
+        return builder.build();
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private static void setCallbackTypeAndMatchMode(ScanSettings.Builder builder, RxBleScanSettings rxBleScanSettings,
+                                                    boolean isFilterDefined) {
+        // the controller tracks found and lost devices only for hardware filtered scans
+        if (isFilterDefined) {
+            builder.setCallbackType(mapCallbackType(rxBleScanSettings.getCallbackType()));
+        }
+        builder.setMatchMode(rxBleScanSettings.getMatchMode() == RxBleScanSettings.MatchMode.STICKY
+                ? ScanSettings.MATCH_MODE_STICKY
+                : ScanSettings.MATCH_MODE_AGGRESSIVE);
+    }
+
+    private static int mapScanMode(RxBleScanSettings.ScanMode scanMode, int deviceSdk) {
+        switch (scanMode) {
+            case LOW_POWER:
+                return ScanSettings.SCAN_MODE_LOW_POWER;
+            case BALANCED:
+                return ScanSettings.SCAN_MODE_BALANCED;
+            case OPPORTUNISTIC:
+                // opportunistic mode is available from Android 6.0
+                return deviceSdk >= Build.VERSION_CODES.M ? ScanSettings.SCAN_MODE_OPPORTUNISTIC : ScanSettings.SCAN_MODE_LOW_POWER;
+            default:
+                return ScanSettings.SCAN_MODE_LOW_LATENCY;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private static int mapCallbackType(RxBleScanSettings.CallbackType callbackType) {
+        switch (callbackType) {
+            case FIRST_MATCH:
+                return ScanSettings.CALLBACK_TYPE_FIRST_MATCH;
+            case MATCH_LOST:
+                return ScanSettings.CALLBACK_TYPE_MATCH_LOST;
+            default:
+                return ScanSettings.CALLBACK_TYPE_ALL_MATCHES;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.polidea.rxandroidble.internal.operations;
+
+import android.os.DeadObjectException;
+import com.polidea.rxandroidble.exceptions.BleException;
+import com.polidea.rxandroidble.exceptions.BleScanException;
+import com.polidea.rxandroidble.internal.RxBleInternalScanResult;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper;
+
+/**
+ * Common lifecycle of scan operations. The radio is released as soon as the scan is started and the scan is running until
+ * {@link #stop()} is called - also if it is called before the scan was actually started.
+ */
+public abstract class RxBleRadioOperationScanBase extends RxBleRadioOperation<RxBleInternalScanResult> {
+
+    final RxBleAdapterWrapper rxBleAdapterWrapper;
+    private volatile boolean isStarted = false;
+    private volatile boolean isStopped = false;
+
+    RxBleRadioOperationScanBase(RxBleAdapterWrapper rxBleAdapterWrapper) {
+        this.rxBleAdapterWrapper = rxBleAdapterWrapper;
+    }
+
+    @Override
+    protected void protectedRun() {
+
+        try {
+            boolean startLeScanStatus = startScan(rxBleAdapterWrapper);
+
+            if (!startLeScanStatus) {
+                onError(new BleScanException(BleScanException.BLUETOOTH_CANNOT_START));
+            } else {
+                synchronized (this) { // synchronization added for stopping the scan
+                    isStarted = true;
+                    if (isStopped) {
+                        stop();
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            isStarted = true;
+            RxBleLog.e(throwable, "Error while starting the scan");
+            onError(new BleScanException(BleScanException.BLUETOOTH_CANNOT_START));
+        } finally {
+            releaseRadio();
+        }
+    }
+
+    // synchronized keyword added to be sure that operation will be stopped no matter which thread will call it
+    public synchronized void stop() {
+        isStopped = true;
+        if (isStarted) {
+            stopScan(rxBleAdapterWrapper);
+        }
+    }
+
+    /**
+     * @return true if the scan has been started
+     */
+    abstract boolean startScan(RxBleAdapterWrapper rxBleAdapterWrapper);
+
+    abstract void stopScan(RxBleAdapterWrapper rxBleAdapterWrapper);
+
+    @Override
+    protected BleException provideException(DeadObjectException deadObjectException) {
+        return new BleScanException(BleScanException.BLUETOOTH_DISABLED, deadObjectException);
+    }
+}
@@ -0,0 +1,131 @@
+package com.polidea.rxandroidble.internal.radio;
+
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+
+/**
+ * Queue of {@link RxBleRadioOperation}s ordered by {@link RxBleRadioOperation.Priority} and then by the order of adding.
+ * <p>
+ * Every priority has its own FIFO bucket kept as a doubly linked list. The list node is stored on the operation as its radio queue
+ * handle so adding, polling and removing an operation are all done in constant time.
+ * <p>
+ * This class is not thread safe. The radio is expected to make all calls while holding its own lock.
+ */
+class OperationPriorityFifoQueue {
+
+    private static final int BUCKET_HIGH = 0;
+    private static final int BUCKET_NORMAL = 1;
+    private static final int BUCKET_LOW = 2;
+    private static final int BUCKETS_COUNT = 3;
+
+    private final Node[] heads = new Node[BUCKETS_COUNT];
+    private final Node[] tails = new Node[BUCKETS_COUNT];
+    private int size;
+
+    /**
+     * @throws IllegalStateException if the operation is already queued - the queue handle of an operation can point to a single node
+     */
+    public void add(RxBleRadioOperation rxBleRadioOperation) {
+        if (rxBleRadioOperation.getRadioQueueHandle() != null) {
+            throw new IllegalStateException("The operation is already queued: " + rxBleRadioOperation);
+        }
+        final int bucket = bucketOf(rxBleRadioOperation.getPriority());
+        final Node node = new Node(this, rxBleRadioOperation, bucket);
+        final Node tail = tails[bucket];
+
+        if (tail == null) {
+            heads[bucket] = node;
+        } else {
+            tail.next = node;
+            node.previous = tail;
+        }
+        tails[bucket] = node;
+        size++;
+        rxBleRadioOperation.setRadioQueueHandle(node);
+    }
+
+    public RxBleRadioOperation poll() {
+        for (Node head : heads) {
+            if (head != null) {
+                unlink(head);
+                return head.operation;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean remove(RxBleRadioOperation rxBleRadioOperation) {
+        final Object radioQueueHandle = rxBleRadioOperation.getRadioQueueHandle();
+
+        if (!(radioQueueHandle instanceof Node)) {
+            return false;
+        }
+
+        final Node node = (Node) radioQueueHandle;
+
+        if (node.queue != this) {
+            return false;
+        }
+
+        unlink(node);
+        return true;
+    }
+
+    private void unlink(Node node) {
+        final Node previous = node.previous;
+        final Node next = node.next;
+
+        if (previous == null) {
+            heads[node.bucket] = next;
+        } else {
+            previous.next = next;
+        }
+
+        if (next == null) {
+            tails[node.bucket] = previous;
+        } else {
+            next.previous = previous;
+        }
+
+        node.queue = null;
+        node.previous = null;
+        node.next = null;
+        size--;
+
+        if (node.operation.getRadioQueueHandle() == node) {
+            node.operation.setRadioQueueHandle(null);
+        }
+    }
+
+    private static int bucketOf(RxBleRadioOperation.Priority priority) {
+        if (priority == RxBleRadioOperation.Priority.HIGH) {
+            return BUCKET_HIGH;
+        } else if (priority == RxBleRadioOperation.Priority.LOW) {
+            return BUCKET_LOW;
+        } else {
+            return BUCKET_NORMAL;
+        }
+    }
+
+    private static class Node {
+
+        final RxBleRadioOperation operation;
+        final int bucket;
+        OperationPriorityFifoQueue queue;
+        Node previous;
+        Node next;
+
+        Node(OperationPriorityFifoQueue queue, RxBleRadioOperation operation, int bucket) {
+            this.queue = queue;
+            this.operation = operation;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -1,61 +1,34 @@
 package com.polidea.rxandroidble.internal.radio;
 
+import com.polidea.rxandroidble.internal.RadioReleaseInterface;
 import com.polidea.rxandroidble.internal.RxBleLog;
 import com.polidea.rxandroidble.internal.RxBleRadio;
 import com.polidea.rxandroidble.internal.RxBleRadioOperation;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import rx.Observable;
-import rx.android.schedulers.AndroidSchedulers;
+import rx.Scheduler;
 import rx.functions.Action0;
-import rx.functions.Action1;
 
-public class RxBleRadioImpl implements RxBleRadio {
+public class RxBleRadioImpl implements RxBleRadio, RxBleRadio.ConnectionRadioProvider {
 
-    private OperationPriorityFifoBlockingQueue queue = new OperationPriorityFifoBlockingQueue();
+    private final OperationPriorityFifoQueue queue = new OperationPriorityFifoQueue();
 
-    public RxBleRadioImpl() {
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                //noinspection InfiniteLoopStatement
-                while (true) {
-                    try {
-                        final RxBleRadioOperation rxBleRadioOperation = queue.take();
-                        RxBleRadioImpl.this.log("STARTED", rxBleRadioOperation);
-
-                        /**
-                         * Calling bluetooth calls before the previous one returns in a callback usually finishes with a failure
-                         * status. Below Semaphore is passed to the RxBleRadioOperation and is meant to be released at appropriate time
-                         * when the next operation should be able to start successfully.
-                         */
-                        final Semaphore semaphore = new Semaphore(0);
-
-                        rxBleRadioOperation.setRadioBlockingSemaphore(semaphore);
-
-                        /**
-                         * In some implementations (i.e. Samsung Android 4.3) calling BluetoothDevice.connectGatt()
-                         * from thread other than main thread ends in connecting with status 133. It's safer to make bluetooth calls
-                         * on the main thread.
-                         */
-                        Observable.just(rxBleRadioOperation)
-                                .observeOn(AndroidSchedulers.mainThread())
-                                .subscribe(new Action1<RxBleRadioOperation>() {
-                                    @Override
-                                    public void call(RxBleRadioOperation rxBleRadioOperation1) {
-                                        rxBleRadioOperation1.run();
-                                    }
-                                });
-
-                        semaphore.acquire();
-                        log("FINISHED", rxBleRadioOperation);
-                    } catch (InterruptedException e) {
-                        RxBleLog.e(e, "Error while processing RxBleRadioOperation queue");
-                    }
-                }
-            }
-        }).start();
+    private final Scheduler.Worker mainThreadWorker;
+
+    /**
+     * The operation that is currently running or null. Guarded by this.
+     */
+    private RxBleRadioOperation runningOperation;
+
+    /**
+     * @param mainThreadScheduler the scheduler on which the operations will be run. In some implementations (i.e. Samsung Android 4.3)
+     *                            calling BluetoothDevice.connectGatt() from thread other than main thread ends in connecting with status
+     *                            133. It's safer to make bluetooth calls on the main thread.
+     */
+    public RxBleRadioImpl(Scheduler mainThreadScheduler) {
+        this.mainThreadWorker = mainThreadScheduler.createWorker();
     }
 
     @Override
@@ -66,19 +39,84 @@ public class RxBleRadioImpl implements RxBleRadio {
                     @Override
                     public void call() {
                         RxBleRadioImpl.this.log("QUEUED", rxBleRadioOperation);
-                        queue.add(rxBleRadioOperation);
+                        synchronized (RxBleRadioImpl.this) {
+                            queue.add(rxBleRadioOperation);
+                        }
+                        dispatchNextOperation();
                     }
                 })
                 .doOnUnsubscribe(new Action0() {
                     @Override
                     public void call() {
-                        if (queue.remove(rxBleRadioOperation)) {
+                        final boolean removed;
+                        synchronized (RxBleRadioImpl.this) {
+                            removed = queue.remove(rxBleRadioOperation);
+                        }
+                        if (removed) {
                             RxBleRadioImpl.this.log("REMOVED", rxBleRadioOperation);
                         }
                     }
                 });
     }
 
+    @Override
+    public RxBleRadio provideConnectionRadio() {
+        return this;
+    }
+
+    /**
+     * Starts the next queued operation if no operation is running. Called whenever an operation is queued or releases the radio so
+     * no thread has to wait for the radio to become available.
+     */
+    private void dispatchNextOperation() {
+        final RxBleRadioOperation rxBleRadioOperation;
+        synchronized (this) {
+            if (runningOperation != null) {
+                return;
+            }
+            runningOperation = queue.poll();
+            rxBleRadioOperation = runningOperation;
+        }
+
+        if (rxBleRadioOperation != null) {
+            startOperation(rxBleRadioOperation);
+        }
+    }
+
+    private void startOperation(final RxBleRadioOperation rxBleRadioOperation) {
+        log("STARTED", rxBleRadioOperation);
+
+        /**
+         * Calling bluetooth calls before the previous one returns in a callback usually finishes with a failure
+         * status. Below RadioReleaseInterface is passed to the RxBleRadioOperation and is meant to be released at appropriate time
+         * when the next operation should be able to start successfully.
+         */
+        rxBleRadioOperation.setRadioReleaseInterface(new RadioReleaseInterface() {
+
+            private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+            @Override
+            public void release() {
+                // an operation may release the radio more than once (i.e. on error) but the next one must be started only once
+                if (!isReleased.compareAndSet(false, true)) {
+                    return;
+                }
+
+                log("FINISHED", rxBleRadioOperation);
+                synchronized (RxBleRadioImpl.this) {
+                    runningOperation = null;
+                }
+                dispatchNextOperation();
+            }
+        });
+        mainThreadWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                rxBleRadioOperation.run();
+            }
+        });
+    }
+
     void log(String prefix, RxBleRadioOperation rxBleRadioOperation) {
 
         if (RxBleLog.isAtLeast(RxBleLog.DEBUG)) {
@@ -0,0 +1,168 @@
+package com.polidea.rxandroidble.internal.radio;
+
+import com.polidea.rxandroidble.internal.RadioReleaseInterface;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.RxBleRadioOperation;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Action0;
+
+/**
+ * {@link RxBleRadio} that keeps a separate serial lane of operations for every connection. The Android stack allows a single
+ * outstanding request per {@link android.bluetooth.BluetoothGatt} so operations of different connections may be in flight at the same
+ * time. Operations that are global to the adapter (connecting and scanning) are queued directly on this radio and are serialized
+ * on a shared adapter lane.
+ */
+public class RxBleRadioMultiLaneImpl implements RxBleRadio, RxBleRadio.ConnectionRadioProvider {
+
+    private final Lane adapterLane = new Lane();
+
+    /**
+     * Lanes that have queued operations. Guarded by this.
+     */
+    private final Set<Lane> pendingLanes = new LinkedHashSet<>();
+
+    private final Scheduler.Worker mainThreadWorker;
+
+    /**
+     * @param mainThreadScheduler the scheduler on which the operations will be run. In some implementations (i.e. Samsung Android 4.3)
+     *                            calling BluetoothDevice.connectGatt() from thread other than main thread ends in connecting with status
+     *                            133. It's safer to make bluetooth calls on the main thread.
+     */
+    public RxBleRadioMultiLaneImpl(Scheduler mainThreadScheduler) {
+        this.mainThreadWorker = mainThreadScheduler.createWorker();
+    }
+
+    @Override
+    public <T> Observable<T> queue(RxBleRadioOperation<T> rxBleRadioOperation) {
+        return queueOnLane(adapterLane, rxBleRadioOperation);
+    }
+
+    @Override
+    public RxBleRadio provideConnectionRadio() {
+        return new Lane();
+    }
+
+    private <T> Observable<T> queueOnLane(final Lane lane, final RxBleRadioOperation<T> rxBleRadioOperation) {
+        return rxBleRadioOperation
+                .asObservable()
+                .doOnSubscribe(new Action0() {
+                    @Override
+                    public void call() {
+                        log("QUEUED", rxBleRadioOperation);
+                        synchronized (RxBleRadioMultiLaneImpl.this) {
+                            lane.queue.add(rxBleRadioOperation);
+                            pendingLanes.add(lane);
+                        }
+                        dispatchPendingOperations();
+                    }
+                })
+                .doOnUnsubscribe(new Action0() {
+                    @Override
+                    public void call() {
+                        final boolean removed;
+                        synchronized (RxBleRadioMultiLaneImpl.this) {
+                            removed = lane.queue.remove(rxBleRadioOperation);
+                        }
+                        if (removed) {
+                            log("REMOVED", rxBleRadioOperation);
+                        }
+                    }
+                });
+    }
+
+    private void dispatchPendingOperations() {
+        Lane lane;
+        while ((lane = takeStartableLane()) != null) {
+            startOperation(lane, lane.runningOperation);
+        }
+    }
+
+    /**
+     * Finds a lane that is not running any operation and has a queued one, and marks the head of its queue as running.
+     *
+     * @return the lane or null if no operation can be started at the moment
+     */
+    private synchronized Lane takeStartableLane() {
+        final Iterator<Lane> iterator = pendingLanes.iterator();
+        while (iterator.hasNext()) {
+            final Lane lane = iterator.next();
+
+            if (lane.runningOperation != null) {
+                continue;
+            }
+
+            lane.runningOperation = lane.queue.poll();
+
+            if (lane.queue.isEmpty()) {
+                iterator.remove();
+            }
+
+            if (lane.runningOperation != null) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private void startOperation(final Lane lane, final RxBleRadioOperation rxBleRadioOperation) {
+        log("STARTED", rxBleRadioOperation);
+        rxBleRadioOperation.setRadioReleaseInterface(new RadioReleaseInterface() {
+
+            private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+            @Override
+            public void release() {
+                // an operation may release the radio more than once (i.e. on error) but the lane must be freed only once
+                if (!isReleased.compareAndSet(false, true)) {
+                    return;
+                }
+
+                log("FINISHED", rxBleRadioOperation);
+                synchronized (RxBleRadioMultiLaneImpl.this) {
+                    lane.runningOperation = null;
+
+                    if (!lane.queue.isEmpty()) {
+                        pendingLanes.add(lane);
+                    }
+                }
+                dispatchPendingOperations();
+            }
+        });
+        mainThreadWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                rxBleRadioOperation.run();
+            }
+        });
+    }
+
+    private void log(String prefix, RxBleRadioOperation rxBleRadioOperation) {
+
+        if (RxBleLog.isAtLeast(RxBleLog.DEBUG)) {
+            RxBleLog.d("%8s %s(%d)", prefix, rxBleRadioOperation.getClass().getSimpleName(), System.identityHashCode(rxBleRadioOperation));
+        }
+    }
+
+    private class Lane implements RxBleRadio {
+
+        private final OperationPriorityFifoQueue queue = new OperationPriorityFifoQueue();
+
+        /**
+         * The operation of this lane that is currently running or null. Guarded by the enclosing {@link RxBleRadioMultiLaneImpl}.
+         */
+        private RxBleRadioOperation runningOperation;
+
+        @Override
+        public <T> Observable<T> queue(RxBleRadioOperation<T> rxBleRadioOperation) {
+            return queueOnLane(this, rxBleRadioOperation);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleScanFilter;
+import com.polidea.rxandroidble.internal.util.LongHashSet;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
+
+import java.util.List;
+
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.NO_AD_STRUCTURE;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataLength;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataStart;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adType;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.firstAdStructure;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.nextAdStructure;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readLittleEndian;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidLsb;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidMsb;
+
+/**
+ * {@link RxBleScanFilter} compiled into primitive structures that are evaluated on the raw advertisement on the binder thread:
+ * the MAC allowlist into a {@link LongHashSet} of 48 bit addresses, the name prefixes into a {@link NamePrefixTrie} and the data
+ * filters into prefix and mask arrays compared in place. All criteria apart from the MAC address are checked in a single pass over
+ * the advertisement data. Matching does not allocate.
+ * <p>
+ * The service UUIDs of the filter are not checked here - they are matched together with the filters of all other scan subscribers by
+ * the {@link ScanFilterIndex}.
+ */
+public class CompiledScanFilter {
+
+    private static final int AD_TYPE_LOCAL_NAME_SHORT = 0x08;
+    private static final int AD_TYPE_LOCAL_NAME_COMPLETE = 0x09;
+    private static final int AD_TYPE_SERVICE_DATA_16_BIT = 0x16;
+    private static final int AD_TYPE_SERVICE_DATA_32_BIT = 0x20;
+    private static final int AD_TYPE_SERVICE_DATA_128_BIT = 0x21;
+    private static final int AD_TYPE_MANUFACTURER_SPECIFIC_DATA = 0xFF;
+
+    @Nullable
+    private final LongHashSet macAddresses;
+    @Nullable
+    private final NamePrefixTrie namePrefixes;
+
+    private final int[] manufacturerIds;
+    private final byte[][] manufacturerPrefixes;
+    private final byte[][] manufacturerMasks;
+
+    private final long[] serviceDataMsbs;
+    private final long[] serviceDataLsbs;
+    private final byte[][] serviceDataPrefixes;
+    private final byte[][] serviceDataMasks;
+
+    public CompiledScanFilter(@NonNull RxBleScanFilter scanFilter) {
+        if (scanFilter.getMacAddresses().isEmpty()) {
+            macAddresses = null;
+        } else {
+            macAddresses = new LongHashSet(scanFilter.getMacAddresses().size());
+            for (String macAddress : scanFilter.getMacAddresses()) {
+                macAddresses.add(MacAddressUtil.toLong(macAddress));
+            }
+        }
+
+        namePrefixes = scanFilter.getNamePrefixes().isEmpty() ? null : new NamePrefixTrie(scanFilter.getNamePrefixes());
+
+        final List<RxBleScanFilter.DataFilter> manufacturerDataFilters = scanFilter.getManufacturerDataFilters();
+        manufacturerIds = new int[manufacturerDataFilters.size()];
+        manufacturerPrefixes = new byte[manufacturerDataFilters.size()][];
+        manufacturerMasks = new byte[manufacturerDataFilters.size()][];
+        for (int i = 0; i < manufacturerDataFilters.size(); i++) {
+            final RxBleScanFilter.DataFilter dataFilter = manufacturerDataFilters.get(i);
+            manufacturerIds[i] = dataFilter.getCompanyId();
+            manufacturerPrefixes[i] = dataFilter.getPrefix();
+            manufacturerMasks[i] = dataFilter.getMask();
+        }
+
+        final List<RxBleScanFilter.DataFilter> serviceDataFilters = scanFilter.getServiceDataFilters();
+        serviceDataMsbs = new long[serviceDataFilters.size()];
+        serviceDataLsbs = new long[serviceDataFilters.size()];
+        serviceDataPrefixes = new byte[serviceDataFilters.size()][];
+        serviceDataMasks = new byte[serviceDataFilters.size()][];
+        for (int i = 0; i < serviceDataFilters.size(); i++) {
+            final RxBleScanFilter.DataFilter dataFilter = serviceDataFilters.get(i);
+            serviceDataMsbs[i] = dataFilter.getServiceUuid().getMostSignificantBits();
+            serviceDataLsbs[i] = dataFilter.getServiceUuid().getLeastSignificantBits();
+            serviceDataPrefixes[i] = dataFilter.getPrefix();
+            serviceDataMasks[i] = dataFilter.getMask();
+        }
+    }
+
+    /**
+     * @return true if {@link #matches(long, byte[])} needs the MAC address of the device
+     */
+    public boolean needsMacAddress() {
+        return macAddresses != null;
+    }
+
+    /**
+     * @param macAddress the address as returned by {@link MacAddressUtil#toLong(String)}, ignored if {@link #needsMacAddress()} is false
+     * @param scanRecord the raw advertisement data
+     * @return true if the advertisement matches all criteria of the filter apart from the service UUIDs
+     */
+    public boolean matches(long macAddress, byte[] scanRecord) {
+        if (macAddresses != null && !macAddresses.contains(macAddress)) {
+            return false;
+        }
+        boolean nameMatched = namePrefixes == null;
+        boolean manufacturerDataMatched = manufacturerIds.length == 0;
+        boolean serviceDataMatched = serviceDataMsbs.length == 0;
+        if (nameMatched && manufacturerDataMatched && serviceDataMatched) {
+            return true;
+        }
+        for (int offset = firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanRecord, offset)) {
+            final int dataStart = adDataStart(offset);
+            final int dataLength = adDataLength(scanRecord, offset);
+            final int adType = adType(scanRecord, offset);
+            switch (adType) {
+                case AD_TYPE_LOCAL_NAME_SHORT:
+                case AD_TYPE_LOCAL_NAME_COMPLETE:
+                    nameMatched = nameMatched || namePrefixes.matches(scanRecord, dataStart, dataLength);
+                    break;
+
+                case AD_TYPE_MANUFACTURER_SPECIFIC_DATA:
+                    manufacturerDataMatched = manufacturerDataMatched || matchesManufacturerData(scanRecord, dataStart, dataLength);
+                    break;
+
+                case AD_TYPE_SERVICE_DATA_16_BIT:
+                case AD_TYPE_SERVICE_DATA_32_BIT:
+                case AD_TYPE_SERVICE_DATA_128_BIT:
+                    serviceDataMatched = serviceDataMatched || matchesServiceData(scanRecord, dataStart, dataLength, adType);
+                    break;
+
+                default:
+                    break;
+            }
+            if (nameMatched && manufacturerDataMatched && serviceDataMatched) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesManufacturerData(byte[] scanRecord, int dataStart, int dataLength) {
+        if (dataLength < 2) {
+            return false;
+        }
+        final int companyId = (int) readLittleEndian(scanRecord, dataStart, 2);
+        for (int i = 0; i < manufacturerIds.length; i++) {
+            if (manufacturerIds[i] == companyId
+                    && matchesPrefix(scanRecord, dataStart + 2, dataStart + dataLength, manufacturerPrefixes[i], manufacturerMasks[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesServiceData(byte[] scanRecord, int dataStart, int dataLength, int adType) {
+        final int uuidLength = serviceDataUuidLength(adType);
+        if (dataLength < uuidLength) {
+            return false;
+        }
+        final int dataEnd = dataStart + dataLength;
+        final long msb = readUuidMsb(scanRecord, dataStart, uuidLength);
+        final long lsb = readUuidLsb(scanRecord, dataStart, uuidLength);
+        for (int i = 0; i < serviceDataMsbs.length; i++) {
+            if (serviceDataMsbs[i] == msb && serviceDataLsbs[i] == lsb
+                    && matchesPrefix(scanRecord, dataStart + uuidLength, dataEnd, serviceDataPrefixes[i], serviceDataMasks[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int serviceDataUuidLength(int adType) {
+        switch (adType) {
+            case AD_TYPE_SERVICE_DATA_16_BIT:
+                return 2;
+            case AD_TYPE_SERVICE_DATA_32_BIT:
+                return 4;
+            default:
+                return 16;
+        }
+    }
+
+    private static boolean matchesPrefix(byte[] bytes, int dataStart, int dataEnd, byte[] prefix, byte[] mask) {
+        if (dataEnd - dataStart < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (((bytes[dataStart + i] ^ prefix[i]) & mask[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
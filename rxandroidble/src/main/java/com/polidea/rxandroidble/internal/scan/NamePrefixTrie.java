@@ -0,0 +1,83 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Trie of UTF-8 encoded name prefixes matched directly against the local name bytes of an advertisement, so no {@link String} is
+ * created for the name. Nodes are kept in parallel arrays - the children of a node form a list linked through {@link #nextSiblings}.
+ * A byte level prefix of an UTF-8 name is a prefix of the decoded name as well.
+ */
+class NamePrefixTrie {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int ROOT = 0;
+    private static final int NO_NODE = -1;
+
+    private byte[] labels = new byte[16];
+    private int[] firstChildren = new int[16];
+    private int[] nextSiblings = new int[16];
+    private boolean[] terminals = new boolean[16];
+    private int nodeCount;
+
+    NamePrefixTrie(Iterable<String> prefixes) {
+        newNode((byte) 0);
+        for (String prefix : prefixes) {
+            add(prefix.getBytes(UTF_8));
+        }
+    }
+
+    /**
+     * @return true if one of the prefixes starts the name
+     */
+    boolean matches(byte[] bytes, int nameOffset, int nameLength) {
+        int node = ROOT;
+        for (int position = nameOffset; position < nameOffset + nameLength; position++) {
+            if (terminals[node]) {
+                return true;
+            }
+            node = findChild(node, bytes[position]);
+            if (node == NO_NODE) {
+                return false;
+            }
+        }
+        return terminals[node];
+    }
+
+    private void add(byte[] prefix) {
+        int node = ROOT;
+        for (byte label : prefix) {
+            int child = findChild(node, label);
+            if (child == NO_NODE) {
+                child = newNode(label);
+                nextSiblings[child] = firstChildren[node];
+                firstChildren[node] = child;
+            }
+            node = child;
+        }
+        terminals[node] = true;
+    }
+
+    private int findChild(int node, byte label) {
+        int child = firstChildren[node];
+        while (child != NO_NODE && labels[child] != label) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    private int newNode(byte label) {
+        if (nodeCount == labels.length) {
+            final int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            terminals = Arrays.copyOf(terminals, capacity);
+        }
+        final int node = nodeCount++;
+        labels[node] = label;
+        firstChildren[node] = NO_NODE;
+        nextSiblings[node] = NO_NODE;
+        return node;
+    }
+}
@@ -0,0 +1,283 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleDevice;
+import com.polidea.rxandroidble.RxBlePresenceTracker;
+import com.polidea.rxandroidble.internal.util.LongIntHashMap;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * {@link RxBlePresenceTracker} keeping the devices in primitive tables. Entries live in parallel arrays indexed through a
+ * {@link LongIntHashMap} keyed by the 48 bit MAC address, so an advertisement of a known device with unchanged data is processed
+ * without allocating.
+ * <p>
+ * Expiry uses a single timer wheel of {@value #WHEEL_SIZE} buckets, each bucket covering 1/{@value #TICKS_PER_TIMEOUT} of the timeout.
+ * An entry is linked into the bucket of its deadline when added and is not moved when the device advertises again - when its bucket
+ * is reached the entry is either lost or linked into the bucket of its new deadline. A device is reported lost at most one tick after
+ * the timeout.
+ */
+public class PresenceIndex implements RxBlePresenceTracker {
+
+    /**
+     * Delivers advertisements to {@link #onAdvertisement(String, int, byte[])} while the returned observable is subscribed.
+     */
+    public interface AdvertisementSource {
+
+        /**
+         * @param presenceIndex the index to deliver the advertisements to
+         * @return observable that only emits scan errors
+         */
+        Observable<PresenceChange> observeAdvertisements(PresenceIndex presenceIndex);
+    }
+
+    static final int WHEEL_SIZE = 16;
+    static final int TICKS_PER_TIMEOUT = 8;
+    private static final int MIN_CAPACITY = 16;
+    private static final int NO_ENTRY = -1;
+
+    private final long lostTimeoutMillis;
+    private final long tickMillis;
+    private final Scheduler timerScheduler;
+    private final Func1<String, RxBleDevice> deviceProvider;
+    private final Observable<PresenceChange> changes;
+
+    private LongIntHashMap entriesByMacAddress;
+
+    private long[] entryMacAddresses;
+    private RxBleDevice[] entryDevices;
+    private long[] entryLastSeenMillis;
+    private int[] entryRssis;
+    private int[] entryAdvertisementHashes;
+    /**
+     * The next entry in the same wheel bucket or in the free list.
+     */
+    private int[] entryNext;
+    private int freeEntry;
+    private int size;
+
+    private final int[] wheelBuckets = new int[WHEEL_SIZE];
+    private long processedTick;
+
+    @Nullable
+    private Subscriber<? super PresenceChange> changeSubscriber;
+
+    public PresenceIndex(long lostTimeoutMillis, Scheduler timerScheduler, Func1<String, RxBleDevice> deviceProvider,
+                         final AdvertisementSource advertisementSource) {
+        this.lostTimeoutMillis = lostTimeoutMillis;
+        this.tickMillis = Math.max(1, lostTimeoutMillis / TICKS_PER_TIMEOUT);
+        this.timerScheduler = timerScheduler;
+        this.deviceProvider = deviceProvider;
+        this.changes = Observable.create(new Observable.OnSubscribe<PresenceChange>() {
+            @Override
+            public void call(Subscriber<? super PresenceChange> subscriber) {
+                startTracking(subscriber);
+            }
+        })
+                .mergeWith(Observable.defer(new Func0<Observable<PresenceChange>>() {
+                    @Override
+                    public Observable<PresenceChange> call() {
+                        return advertisementSource.observeAdvertisements(PresenceIndex.this);
+                    }
+                }))
+                .share();
+        clear();
+    }
+
+    @Override
+    public Observable<PresenceChange> observeChanges() {
+        return changes;
+    }
+
+    @NonNull
+    @Override
+    public synchronized List<DevicePresence> getPresentDevices() {
+        final List<DevicePresence> presentDevices = new ArrayList<>(size);
+        for (int entry = 0; entry < entryDevices.length; entry++) {
+            // free entries do not hold a device
+            if (entryDevices[entry] != null) {
+                presentDevices.add(createDevicePresence(entry));
+            }
+        }
+        return presentDevices;
+    }
+
+    @Nullable
+    @Override
+    public synchronized DevicePresence getDevicePresence(@NonNull String macAddress) {
+        final int entry = entriesByMacAddress.get(MacAddressUtil.toLong(macAddress));
+        return entry == LongIntHashMap.NO_VALUE ? null : createDevicePresence(entry);
+    }
+
+    @Override
+    public synchronized int getPresentDeviceCount() {
+        return size;
+    }
+
+    /**
+     * Records an advertisement. Allocates only if the device is new or its advertisement data changed.
+     *
+     * @param macAddress the MAC address of the advertising device
+     * @param rssi       the RSSI of the advertisement
+     * @param scanRecord the advertisement data
+     */
+    public synchronized void onAdvertisement(String macAddress, int rssi, byte[] scanRecord) {
+        if (changeSubscriber == null) {
+            return;
+        }
+        final long now = timerScheduler.now();
+        final int advertisementHash = Arrays.hashCode(scanRecord);
+        final long macAddressKey = MacAddressUtil.toLong(macAddress);
+        final int knownEntry = entriesByMacAddress.get(macAddressKey);
+
+        if (knownEntry != LongIntHashMap.NO_VALUE) {
+            entryLastSeenMillis[knownEntry] = now;
+            entryRssis[knownEntry] = rssi;
+            if (entryAdvertisementHashes[knownEntry] != advertisementHash) {
+                entryAdvertisementHashes[knownEntry] = advertisementHash;
+                emitChange(PresenceChange.Type.UPDATED, knownEntry);
+            }
+            return;
+        }
+
+        if (freeEntry == NO_ENTRY) {
+            grow();
+            onAdvertisement(macAddress, rssi, scanRecord);
+            return;
+        }
+        final int entry = freeEntry;
+        freeEntry = entryNext[entry];
+        entryMacAddresses[entry] = macAddressKey;
+        entryDevices[entry] = deviceProvider.call(macAddress);
+        entryLastSeenMillis[entry] = now;
+        entryRssis[entry] = rssi;
+        entryAdvertisementHashes[entry] = advertisementHash;
+        linkToWheel(entry, deadlineTick(now));
+        entriesByMacAddress.put(macAddressKey, entry);
+        size++;
+        emitChange(PresenceChange.Type.ADDED, entry);
+    }
+
+    private void startTracking(Subscriber<? super PresenceChange> subscriber) {
+        final Scheduler.Worker timerWorker = timerScheduler.createWorker();
+        synchronized (this) {
+            changeSubscriber = subscriber;
+            processedTick = timerWorker.now() / tickMillis;
+        }
+        subscriber.add(timerWorker);
+        subscriber.add(Subscriptions.create(new Action0() {
+            @Override
+            public void call() {
+                stopTracking();
+            }
+        }));
+        timerWorker.schedulePeriodically(new Action0() {
+            @Override
+            public void call() {
+                expire(timerWorker.now());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopTracking() {
+        changeSubscriber = null;
+        clear();
+    }
+
+    synchronized void expire(long now) {
+        final long currentTick = now / tickMillis;
+        final long firstTick = Math.max(processedTick + 1, currentTick - WHEEL_SIZE + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            final int bucket = (int) (tick % WHEEL_SIZE);
+            int entry = wheelBuckets[bucket];
+            wheelBuckets[bucket] = NO_ENTRY;
+            while (entry != NO_ENTRY) {
+                final int nextEntry = entryNext[entry];
+                if (now - entryLastSeenMillis[entry] >= lostTimeoutMillis) {
+                    remove(entry);
+                } else {
+                    linkToWheel(entry, Math.max(deadlineTick(entryLastSeenMillis[entry]), currentTick + 1));
+                }
+                entry = nextEntry;
+            }
+        }
+        processedTick = currentTick;
+    }
+
+    private long deadlineTick(long lastSeenMillis) {
+        final long deadline = lastSeenMillis + lostTimeoutMillis;
+        return (deadline + tickMillis - 1) / tickMillis;
+    }
+
+    private void linkToWheel(int entry, long tick) {
+        final int bucket = (int) (tick % WHEEL_SIZE);
+        entryNext[entry] = wheelBuckets[bucket];
+        wheelBuckets[bucket] = entry;
+    }
+
+    private void remove(int entry) {
+        emitChange(PresenceChange.Type.LOST, entry);
+        entriesByMacAddress.remove(entryMacAddresses[entry]);
+        entryDevices[entry] = null;
+        entryNext[entry] = freeEntry;
+        freeEntry = entry;
+        size--;
+    }
+
+    private void emitChange(PresenceChange.Type type, int entry) {
+        if (changeSubscriber != null && !changeSubscriber.isUnsubscribed()) {
+            changeSubscriber.onNext(new PresenceChange(type, createDevicePresence(entry)));
+        }
+    }
+
+    private DevicePresence createDevicePresence(int entry) {
+        return new DevicePresence(entryDevices[entry], entryLastSeenMillis[entry], entryRssis[entry], entryAdvertisementHashes[entry]);
+    }
+
+    private void grow() {
+        final int oldCapacity = entryMacAddresses.length;
+        final int capacity = oldCapacity * 2;
+        entryMacAddresses = Arrays.copyOf(entryMacAddresses, capacity);
+        entryDevices = Arrays.copyOf(entryDevices, capacity);
+        entryLastSeenMillis = Arrays.copyOf(entryLastSeenMillis, capacity);
+        entryRssis = Arrays.copyOf(entryRssis, capacity);
+        entryAdvertisementHashes = Arrays.copyOf(entryAdvertisementHashes, capacity);
+        entryNext = Arrays.copyOf(entryNext, capacity);
+        linkFreeEntries(oldCapacity, capacity);
+    }
+
+    private void clear() {
+        entriesByMacAddress = new LongIntHashMap(MIN_CAPACITY);
+        entryMacAddresses = new long[MIN_CAPACITY];
+        entryDevices = new RxBleDevice[MIN_CAPACITY];
+        entryLastSeenMillis = new long[MIN_CAPACITY];
+        entryRssis = new int[MIN_CAPACITY];
+        entryAdvertisementHashes = new int[MIN_CAPACITY];
+        entryNext = new int[MIN_CAPACITY];
+        freeEntry = NO_ENTRY;
+        linkFreeEntries(0, MIN_CAPACITY);
+        Arrays.fill(wheelBuckets, NO_ENTRY);
+        size = 0;
+    }
+
+    private void linkFreeEntries(int fromEntry, int toEntry) {
+        for (int entry = toEntry - 1; entry >= fromEntry; entry--) {
+            entryNext[entry] = freeEntry;
+            freeEntry = entry;
+        }
+    }
+}
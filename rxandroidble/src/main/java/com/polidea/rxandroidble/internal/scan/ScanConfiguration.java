@@ -0,0 +1,169 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import android.support.annotation.NonNull;
+
+import com.polidea.rxandroidble.RxBleScanSettings;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Configuration of the single hardware scan shared by all scan subscribers. It is the least restrictive combination of what
+ * the subscribers requested so every subscriber receives at least the advertisements it asked for.
+ */
+public class ScanConfiguration {
+
+    private final Set<UUID> anyOfServiceUuids;
+    private final RxBleScanSettings scanSettings;
+
+    public ScanConfiguration(@NonNull Set<UUID> anyOfServiceUuids, @NonNull RxBleScanSettings scanSettings) {
+        this.anyOfServiceUuids = anyOfServiceUuids;
+        this.scanSettings = scanSettings;
+    }
+
+    /**
+     * @return service UUIDs of which at least one has to be advertised or an empty set if all advertisements are needed
+     */
+    @NonNull
+    public Set<UUID> getAnyOfServiceUuids() {
+        return anyOfServiceUuids;
+    }
+
+    @NonNull
+    public RxBleScanSettings getScanSettings() {
+        return scanSettings;
+    }
+
+    static ScanConfiguration merge(Iterable<ScanMultiplexer.Registration> registrations) {
+        final Set<UUID> anyOfServiceUuids = new LinkedHashSet<>();
+        boolean isUnfiltered = false;
+        RxBleScanSettings.ScanMode scanMode = null;
+        RxBleScanSettings.CallbackType callbackType = null;
+        RxBleScanSettings.MatchMode matchMode = null;
+        long reportDelayMillis = Long.MAX_VALUE;
+        boolean isDutyCycled = true;
+        long scanWindowMillis = 0;
+        long scanIntervalMillis = Long.MAX_VALUE;
+
+        for (ScanMultiplexer.Registration registration : registrations) {
+            final Set<UUID> filter = registration.filterServiceUuids;
+            if (filter.isEmpty()) {
+                isUnfiltered = true;
+            } else {
+                // any advertisement that matches the filter lists the first UUID too
+                anyOfServiceUuids.add(filter.iterator().next());
+            }
+
+            final RxBleScanSettings settings = registration.scanSettings;
+            if (scanMode == null || dutyCycleRank(settings.getScanMode()) > dutyCycleRank(scanMode)) {
+                scanMode = settings.getScanMode();
+            }
+            if (callbackType == null) {
+                callbackType = settings.getCallbackType();
+            } else if (callbackType != settings.getCallbackType()) {
+                callbackType = RxBleScanSettings.CallbackType.ALL_MATCHES;
+            }
+            if (matchMode == null || settings.getMatchMode() == RxBleScanSettings.MatchMode.AGGRESSIVE) {
+                matchMode = settings.getMatchMode();
+            }
+            reportDelayMillis = Math.min(reportDelayMillis, settings.getReportDelayMillis());
+            // the scan is paused only if no subscriber needs a continuous scan
+            isDutyCycled &= settings.isDutyCycled();
+            scanWindowMillis = Math.max(scanWindowMillis, settings.getScanWindowMillis());
+            scanIntervalMillis = Math.min(scanIntervalMillis, settings.getScanIntervalMillis());
+        }
+
+        final RxBleScanSettings.Builder mergedSettingsBuilder = new RxBleScanSettings.Builder()
+                .setScanMode(scanMode)
+                .setCallbackType(callbackType)
+                .setMatchMode(matchMode)
+                .setReportDelayMillis(reportDelayMillis);
+        if (isDutyCycled && scanWindowMillis < scanIntervalMillis) {
+            mergedSettingsBuilder.setDutyCycle(scanWindowMillis, scanIntervalMillis);
+        }
+        final RxBleScanSettings mergedSettings = mergedSettingsBuilder.build();
+        return new ScanConfiguration(isUnfiltered ? Collections.<UUID>emptySet() : anyOfServiceUuids, mergedSettings);
+    }
+
+    /**
+     * @return true if a scan with this configuration reports at least the advertisements a scan with the other configuration would
+     */
+    boolean covers(ScanConfiguration other) {
+        final RxBleScanSettings otherSettings = other.scanSettings;
+        final boolean coversFilter = anyOfServiceUuids.isEmpty()
+                || !other.anyOfServiceUuids.isEmpty() && anyOfServiceUuids.containsAll(other.anyOfServiceUuids);
+        return coversFilter
+                && dutyCycleRank(scanSettings.getScanMode()) >= dutyCycleRank(otherSettings.getScanMode())
+                && scanSettings.getReportDelayMillis() <= otherSettings.getReportDelayMillis()
+                && (scanSettings.getCallbackType() == otherSettings.getCallbackType()
+                || scanSettings.getCallbackType() == RxBleScanSettings.CallbackType.ALL_MATCHES)
+                && (scanSettings.getMatchMode() == otherSettings.getMatchMode()
+                || scanSettings.getMatchMode() == RxBleScanSettings.MatchMode.AGGRESSIVE)
+                && coversDutyCycle(otherSettings);
+    }
+
+    private boolean coversDutyCycle(RxBleScanSettings otherSettings) {
+        return !scanSettings.isDutyCycled()
+                || otherSettings.isDutyCycled()
+                && scanSettings.getScanWindowMillis() >= otherSettings.getScanWindowMillis()
+                && scanSettings.getScanIntervalMillis() <= otherSettings.getScanIntervalMillis();
+    }
+
+    /**
+     * @return the configuration without the service UUID filter
+     */
+    ScanConfiguration withoutFilter() {
+        return new ScanConfiguration(Collections.<UUID>emptySet(), scanSettings);
+    }
+
+    /**
+     * @return the configuration with only the duty cycle of the scan - for scans that cannot be configured otherwise
+     */
+    ScanConfiguration withDutyCycleOnly() {
+        final RxBleScanSettings.Builder settingsBuilder = new RxBleScanSettings.Builder();
+        if (scanSettings.isDutyCycled()) {
+            settingsBuilder.setDutyCycle(scanSettings.getScanWindowMillis(), scanSettings.getScanIntervalMillis());
+        }
+        return new ScanConfiguration(Collections.<UUID>emptySet(), settingsBuilder.build());
+    }
+
+    private static int dutyCycleRank(RxBleScanSettings.ScanMode scanMode) {
+        switch (scanMode) {
+            case OPPORTUNISTIC:
+                return 0;
+            case LOW_POWER:
+                return 1;
+            case BALANCED:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScanConfiguration)) {
+            return false;
+        }
+        final ScanConfiguration that = (ScanConfiguration) o;
+        return anyOfServiceUuids.equals(that.anyOfServiceUuids) && scanSettings.equals(that.scanSettings);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * anyOfServiceUuids.hashCode() + scanSettings.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ScanConfiguration{"
+                + "anyOfServiceUuids=" + anyOfServiceUuids
+                + ", scanSettings=" + scanSettings
+                + '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import com.polidea.rxandroidble.internal.util.ServiceUuidMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service UUID filters of all scan subscribers compiled together. The union of the filtered UUIDs is looked up in the advertisement
+ * only once - every filter is then a mask of the UUIDs it requires so checking it does not touch the advertisement again.
+ * <p>
+ * Not thread safe - the mask of advertised UUIDs is reused for every advertisement, which are delivered one at a time.
+ */
+class ScanFilterIndex {
+
+    private final ServiceUuidMatcher unionMatcher;
+    private final int maskLength;
+    private final long[][] requiredMasks;
+    private final long[] advertisedMask;
+
+    ScanFilterIndex(List<Set<UUID>> filters) {
+        final LinkedHashSet<UUID> union = new LinkedHashSet<>();
+        for (Set<UUID> filter : filters) {
+            union.addAll(filter);
+        }
+        final List<UUID> unionList = new ArrayList<>(union);
+        unionMatcher = new ServiceUuidMatcher(unionList.toArray(new UUID[unionList.size()]));
+        maskLength = unionMatcher.getMaskLength();
+        requiredMasks = new long[filters.size()][];
+        for (int i = 0; i < filters.size(); i++) {
+            final long[] requiredMask = new long[maskLength];
+            for (UUID uuid : filters.get(i)) {
+                final int position = unionList.indexOf(uuid);
+                requiredMask[position / Long.SIZE] |= 1L << (position % Long.SIZE);
+            }
+            requiredMasks[i] = requiredMask;
+        }
+        advertisedMask = new long[maskLength];
+    }
+
+    int size() {
+        return requiredMasks.length;
+    }
+
+    /**
+     * @param scanRecord the raw advertisement data
+     * @return the mask of advertised UUIDs to be passed to {@link #matches(int, long[])} - valid only until the next call
+     */
+    long[] findAdvertised(byte[] scanRecord) {
+        if (maskLength == 0) {
+            return advertisedMask;
+        }
+        Arrays.fill(advertisedMask, 0);
+        unionMatcher.findAdvertised(scanRecord, advertisedMask);
+        return advertisedMask;
+    }
+
+    /**
+     * @param filterIndex    the position of the filter in the list passed to the constructor
+     * @param advertisedMask the result of {@link #findAdvertised(byte[])}
+     * @return true if all of the UUIDs of the filter are advertised
+     */
+    boolean matches(int filterIndex, long[] advertisedMask) {
+        final long[] requiredMask = requiredMasks[filterIndex];
+        for (int i = 0; i < requiredMask.length; i++) {
+            if ((advertisedMask[i] & requiredMask[i]) != requiredMask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,665 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.polidea.rxandroidble.RxBleScanResult;
+import com.polidea.rxandroidble.RxBleScanSettings;
+import com.polidea.rxandroidble.internal.RxBleInternalScanResult;
+import com.polidea.rxandroidble.internal.RxBleLog;
+import com.polidea.rxandroidble.internal.RxBleRadio;
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScanBase;
+import com.polidea.rxandroidble.internal.util.MacAddressUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.observers.SerializedSubscriber;
+import rx.subjects.PublishSubject;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Runs a single hardware scan for all scan subscribers. The scan is configured with the union of the subscriber filters and is
+ * restarted only when the union changes - subscribers joining with an already covered filter do not touch the radio. Every
+ * advertisement is matched against all subscriber filters at once with a {@link ScanFilterIndex} and converted to
+ * a {@link RxBleScanResult} only if at least one subscriber is interested in it.
+ * <p>
+ * Android 7.0 and newer silently stops delivering results to applications that start more than {@value #MAX_SCAN_STARTS} scans
+ * within {@value #SCAN_STARTS_WINDOW_MILLIS} ms. When starts are limited the multiplexer keeps the history of starts and:
+ * <ul>
+ * <li>holds the scan open for {@value #SCAN_LINGER_MILLIS} ms after the last subscriber left if scans were started recently,</li>
+ * <li>keeps a running scan that already reports everything the subscribers need instead of restarting it with a narrower
+ * configuration if scans were started recently,</li>
+ * <li>starts the last scan allowed within the window without the service UUID filter so no further restart is needed,</li>
+ * <li>defers the start until the oldest start leaves the window if no start is allowed - deferrals are emitted by
+ * {@link #observeDeferredScanStarts()}.</li>
+ * </ul>
+ * If all subscribers requested a duty cycle the scan operation is stopped after every scan window and started again at the next
+ * interval. Each start counts towards the limit above so intervals are never shorter than {@value #MIN_LIMITED_SCAN_INTERVAL_MILLIS}
+ * ms when starts are limited.
+ * <p>
+ * Subscribers may pass a {@link CompiledScanFilter} with criteria other than service UUIDs - it is evaluated before the conversion too.
+ * Subscribers with deduplicated settings have their own {@link ScanResultDeduplicator}. Advertisements suppressed for every
+ * interested subscriber are never converted so no {@link com.polidea.rxandroidble.RxBleDevice} is looked up for them.
+ */
+public class ScanMultiplexer {
+
+    public interface ScanOperationFactory {
+
+        RxBleRadioOperationScanBase createScanOperation(@NonNull ScanConfiguration scanConfiguration);
+
+        /**
+         * @return false if the created operations ignore the configuration apart from the duty cycle - the running scan is then not
+         * restarted when the rest of the configuration changes
+         */
+        boolean isConfigurable();
+    }
+
+    public interface AdvertisementListener {
+
+        /**
+         * Called on the binder thread for every advertisement that matches the filter of the listener.
+         */
+        void onAdvertisement(RxBleInternalScanResult internalScanResult);
+    }
+
+    abstract static class Registration {
+
+        final Set<UUID> filterServiceUuids;
+        final RxBleScanSettings scanSettings;
+        @Nullable
+        final CompiledScanFilter scanFilter;
+        @Nullable
+        final ScanResultDeduplicator deduplicator;
+
+        Registration(Set<UUID> filterServiceUuids, @Nullable CompiledScanFilter scanFilter, RxBleScanSettings scanSettings) {
+            this.filterServiceUuids = filterServiceUuids;
+            this.scanFilter = scanFilter;
+            this.scanSettings = scanSettings;
+            this.deduplicator = scanSettings.isDeduplicated() ? new ScanResultDeduplicator(scanSettings) : null;
+        }
+
+        abstract boolean isUnsubscribed();
+
+        abstract void onScanResult(RxBleScanResult scanResult);
+
+        abstract void onScanError(Throwable throwable);
+
+        /**
+         * @return true if the registration consumed the advertisement without the converted result
+         */
+        boolean onInternalScanResult(RxBleInternalScanResult internalScanResult) {
+            return false;
+        }
+    }
+
+    private static class SingleResultRegistration extends Registration {
+
+        private final Subscriber<? super RxBleScanResult> subscriber;
+
+        SingleResultRegistration(Subscriber<? super RxBleScanResult> subscriber, Set<UUID> filterServiceUuids,
+                                 @Nullable CompiledScanFilter scanFilter, RxBleScanSettings scanSettings) {
+            super(filterServiceUuids, scanFilter, scanSettings);
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        boolean isUnsubscribed() {
+            return subscriber.isUnsubscribed();
+        }
+
+        @Override
+        void onScanResult(RxBleScanResult scanResult) {
+            subscriber.onNext(scanResult);
+        }
+
+        @Override
+        void onScanError(Throwable throwable) {
+            subscriber.onError(throwable);
+        }
+    }
+
+    /**
+     * Collects results on the binder thread without touching the subscriber. The batch is handed over to the subscriber by
+     * the timer.
+     */
+    private static class BatchRegistration extends Registration {
+
+        private final Subscriber<? super List<RxBleScanResult>> subscriber;
+        private List<RxBleScanResult> batch = new ArrayList<>();
+
+        BatchRegistration(Subscriber<? super List<RxBleScanResult>> subscriber, Set<UUID> filterServiceUuids,
+                          RxBleScanSettings scanSettings) {
+            super(filterServiceUuids, null, scanSettings);
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        boolean isUnsubscribed() {
+            return subscriber.isUnsubscribed();
+        }
+
+        @Override
+        synchronized void onScanResult(RxBleScanResult scanResult) {
+            batch.add(scanResult);
+        }
+
+        @Override
+        void onScanError(Throwable throwable) {
+            emitBatch();
+            subscriber.onError(throwable);
+        }
+
+        void emitBatch() {
+            final List<RxBleScanResult> completeBatch;
+            synchronized (this) {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                completeBatch = batch;
+                batch = new ArrayList<>();
+            }
+            subscriber.onNext(completeBatch);
+        }
+    }
+
+    /**
+     * Passes advertisements to the listener as they are received by the scan operation so that no result is allocated for them.
+     */
+    private static class ListenerRegistration extends Registration {
+
+        private final Subscriber<?> subscriber;
+        private final AdvertisementListener listener;
+
+        ListenerRegistration(Subscriber<?> subscriber, AdvertisementListener listener, Set<UUID> filterServiceUuids,
+                             RxBleScanSettings scanSettings) {
+            super(filterServiceUuids, null, scanSettings);
+            this.subscriber = subscriber;
+            this.listener = listener;
+        }
+
+        @Override
+        boolean isUnsubscribed() {
+            return subscriber.isUnsubscribed();
+        }
+
+        @Override
+        boolean onInternalScanResult(RxBleInternalScanResult internalScanResult) {
+            listener.onAdvertisement(internalScanResult);
+            return true;
+        }
+
+        @Override
+        void onScanResult(RxBleScanResult scanResult) {
+            // advertisements are consumed by onInternalScanResult()
+        }
+
+        @Override
+        void onScanError(Throwable throwable) {
+            subscriber.onError(throwable);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the registrations read on the binder thread without locking. Registrations with equal filters share
+     * a single filter in the index.
+     */
+    private static class Dispatch {
+
+        final ScanFilterIndex filterIndex;
+        final Registration[][] registrationsPerFilter;
+
+        Dispatch(List<Registration> registrations) {
+            final Map<Set<UUID>, List<Registration>> registrationsByFilter = new LinkedHashMap<>();
+            for (Registration registration : registrations) {
+                List<Registration> filterRegistrations = registrationsByFilter.get(registration.filterServiceUuids);
+                if (filterRegistrations == null) {
+                    filterRegistrations = new ArrayList<>();
+                    registrationsByFilter.put(registration.filterServiceUuids, filterRegistrations);
+                }
+                filterRegistrations.add(registration);
+            }
+            filterIndex = new ScanFilterIndex(new ArrayList<>(registrationsByFilter.keySet()));
+            registrationsPerFilter = new Registration[registrationsByFilter.size()][];
+            int index = 0;
+            for (List<Registration> filterRegistrations : registrationsByFilter.values()) {
+                registrationsPerFilter[index++] = filterRegistrations.toArray(new Registration[filterRegistrations.size()]);
+            }
+        }
+    }
+
+    static final int MAX_SCAN_STARTS = 5;
+    static final long SCAN_STARTS_WINDOW_MILLIS = 30000;
+    static final long SCAN_LINGER_MILLIS = 3000;
+    static final long MIN_LIMITED_SCAN_INTERVAL_MILLIS = SCAN_STARTS_WINDOW_MILLIS / MAX_SCAN_STARTS;
+    /**
+     * Number of starts within the window from which the subscriptions are considered churning.
+     */
+    private static final int CHURNING_SCAN_STARTS = 2;
+
+    private final RxBleRadio rxBleRadio;
+    private final ScanOperationFactory scanOperationFactory;
+    private final Func1<RxBleInternalScanResult, RxBleScanResult> scanResultConverter;
+    private final Scheduler.Worker timerWorker;
+    private final boolean limitScanStarts;
+    private final List<Registration> registrations = new ArrayList<>();
+    private final long[] scanStartTimestamps = new long[MAX_SCAN_STARTS];
+    private final PublishSubject<Long> deferredScanStartsSubject = PublishSubject.create();
+    private volatile Dispatch dispatch = new Dispatch(registrations);
+    private ScanConfiguration runningConfiguration;
+    private RxBleRadioOperationScanBase runningOperation;
+    private Subscription runningSubscription;
+    private boolean isPaused;
+    private int scanStartCount;
+    private long lingerDeadline;
+    private long deferredScanStartTimestamp;
+    private Subscription scheduledReconfiguration;
+    private Subscription scheduledDutyCycleStep;
+
+    /**
+     * @param rxBleRadio           the radio on which the scan operations are queued
+     * @param scanOperationFactory the factory of scan operations for the merged configuration
+     * @param scanResultConverter  the function converting advertisements to results emitted to subscribers
+     * @param timerScheduler       the scheduler of held open scans, deferred starts, duty cycles and batches
+     * @param limitScanStarts      true if the system throttles applications starting scans too often
+     */
+    public ScanMultiplexer(RxBleRadio rxBleRadio, ScanOperationFactory scanOperationFactory,
+                           Func1<RxBleInternalScanResult, RxBleScanResult> scanResultConverter, Scheduler timerScheduler,
+                           boolean limitScanStarts) {
+        this.rxBleRadio = rxBleRadio;
+        this.scanOperationFactory = scanOperationFactory;
+        this.scanResultConverter = scanResultConverter;
+        this.timerWorker = timerScheduler.createWorker();
+        this.limitScanStarts = limitScanStarts;
+    }
+
+    /**
+     * @return observable emitting the delay in milliseconds every time a scan start is deferred to avoid the system throttling
+     */
+    public Observable<Long> observeDeferredScanStarts() {
+        return deferredScanStartsSubject.asObservable();
+    }
+
+    /**
+     * Starts delivering advertisements that list all of the filtered service UUIDs to the subscriber until it is unsubscribed.
+     * Scan errors are delivered to all subscribers.
+     *
+     * @param subscriber         the subscriber of the scan
+     * @param filterServiceUuids service UUIDs that have to be advertised or an empty set if all advertisements are needed
+     * @param scanSettings       settings requested by the subscriber
+     */
+    public void addSubscriber(Subscriber<? super RxBleScanResult> subscriber, Set<UUID> filterServiceUuids,
+                              RxBleScanSettings scanSettings) {
+        addSubscriber(subscriber, filterServiceUuids, null, scanSettings);
+    }
+
+    /**
+     * Like {@link #addSubscriber(Subscriber, Set, RxBleScanSettings)} but delivers only advertisements that also match the compiled
+     * filter. The filter is evaluated before the advertisement is converted.
+     *
+     * @param subscriber         the subscriber of the scan
+     * @param filterServiceUuids service UUIDs that have to be advertised or an empty set if all advertisements are needed
+     * @param scanFilter         the filter of the other criteria or null if the service UUIDs are the only criterion
+     * @param scanSettings       settings requested by the subscriber
+     */
+    public void addSubscriber(Subscriber<? super RxBleScanResult> subscriber, Set<UUID> filterServiceUuids,
+                              @Nullable CompiledScanFilter scanFilter, RxBleScanSettings scanSettings) {
+        final SingleResultRegistration registration = new SingleResultRegistration(
+                new SerializedSubscriber<>(subscriber), // results of a stopping and a starting scan may overlap
+                filterServiceUuids,
+                scanFilter,
+                scanSettings
+        );
+        addRegistration(subscriber, registration);
+    }
+
+    /**
+     * Like {@link #addSubscriber(Subscriber, Set, RxBleScanSettings)} but collects the results and emits them as a list every
+     * {@link RxBleScanSettings#getReportDelayMillis()}. Empty batches are not emitted.
+     *
+     * @param subscriber         the subscriber of the scan
+     * @param filterServiceUuids service UUIDs that have to be advertised or an empty set if all advertisements are needed
+     * @param scanSettings       settings requested by the subscriber with a positive report delay
+     */
+    public void addBatchSubscriber(Subscriber<? super List<RxBleScanResult>> subscriber, Set<UUID> filterServiceUuids,
+                                   RxBleScanSettings scanSettings) {
+        final BatchRegistration registration = new BatchRegistration(
+                new SerializedSubscriber<>(subscriber), // batches are emitted on the timer thread and errors on the binder thread
+                filterServiceUuids,
+                scanSettings
+        );
+        final long reportDelayMillis = scanSettings.getReportDelayMillis();
+        subscriber.add(timerWorker.schedulePeriodically(new Action0() {
+            @Override
+            public void call() {
+                registration.emitBatch();
+            }
+        }, reportDelayMillis, reportDelayMillis, TimeUnit.MILLISECONDS));
+        addRegistration(subscriber, registration);
+    }
+
+    /**
+     * Like {@link #addSubscriber(Subscriber, Set, RxBleScanSettings)} but passes the advertisements to the listener without converting
+     * them. Only scan errors are delivered to the subscriber.
+     *
+     * @param subscriber         the subscriber whose lifecycle bounds the scan and that receives the scan errors
+     * @param listener           the listener of the advertisements
+     * @param filterServiceUuids service UUIDs that have to be advertised or an empty set if all advertisements are needed
+     * @param scanSettings       settings requested by the subscriber
+     */
+    public void addListener(Subscriber<?> subscriber, AdvertisementListener listener, Set<UUID> filterServiceUuids,
+                            RxBleScanSettings scanSettings) {
+        addRegistration(subscriber, new ListenerRegistration(subscriber, listener, filterServiceUuids, scanSettings));
+    }
+
+    private void addRegistration(Subscriber<?> subscriber, final Registration registration) {
+        synchronized (this) {
+            registrations.add(registration);
+            dispatch = new Dispatch(registrations);
+        }
+        subscriber.add(Subscriptions.create(new Action0() {
+            @Override
+            public void call() {
+                removeRegistration(registration);
+            }
+        }));
+        synchronized (this) {
+            if (registrations.contains(registration)) {
+                reconfigureIfNeeded();
+            }
+        }
+    }
+
+    private synchronized void removeRegistration(Registration registration) {
+        if (registrations.remove(registration)) {
+            dispatch = new Dispatch(registrations);
+            reconfigureIfNeeded();
+        }
+    }
+
+    private void reconfigureIfNeeded() {
+        cancelScheduledReconfiguration();
+        if (registrations.isEmpty()) {
+            deferredScanStartTimestamp = 0;
+            stopRunningScanAfterLinger();
+            return;
+        }
+
+        lingerDeadline = 0;
+        final ScanConfiguration mergedConfiguration = ScanConfiguration.merge(registrations);
+        final ScanConfiguration requiredConfiguration = scanOperationFactory.isConfigurable()
+                ? mergedConfiguration
+                : mergedConfiguration.withDutyCycleOnly();
+        if (requiredConfiguration.equals(runningConfiguration)) {
+            return;
+        }
+
+        final long now = timerWorker.now();
+        final int recentScanStarts = limitScanStarts ? countScanStartsSince(now - SCAN_STARTS_WINDOW_MILLIS) : 0;
+        if (recentScanStarts >= CHURNING_SCAN_STARTS && runningConfiguration != null
+                && runningConfiguration.covers(requiredConfiguration)) {
+            return;
+        }
+        if (recentScanStarts >= MAX_SCAN_STARTS) {
+            scheduleReconfiguration(deferScanStart(now));
+            return;
+        }
+
+        stopRunningScan();
+        final ScanConfiguration startedConfiguration = recentScanStarts == MAX_SCAN_STARTS - 1
+                ? requiredConfiguration.withoutFilter()
+                : requiredConfiguration;
+        RxBleLog.d("Starting the shared scan with %s", startedConfiguration);
+        runningConfiguration = startedConfiguration;
+        startRunningConfiguration(now);
+    }
+
+    private void stopRunningScanAfterLinger() {
+        if (runningConfiguration == null) {
+            return;
+        }
+        if (isPaused) {
+            stopRunningScan();
+            return;
+        }
+
+        final long now = timerWorker.now();
+        if (lingerDeadline == 0 && limitScanStarts && countScanStartsSince(now - SCAN_STARTS_WINDOW_MILLIS) >= CHURNING_SCAN_STARTS) {
+            lingerDeadline = now + SCAN_LINGER_MILLIS;
+        }
+        if (now < lingerDeadline) {
+            scheduleReconfiguration(lingerDeadline - now);
+        } else {
+            lingerDeadline = 0;
+            stopRunningScan();
+        }
+    }
+
+    /**
+     * @return the delay after which the scan may be started
+     */
+    private long deferScanStart(long now) {
+        final long allowedScanStartTimestamp = oldestScanStartTimestamp() + SCAN_STARTS_WINDOW_MILLIS;
+        final long delay = allowedScanStartTimestamp - now;
+        if (deferredScanStartTimestamp != allowedScanStartTimestamp) {
+            deferredScanStartTimestamp = allowedScanStartTimestamp;
+            RxBleLog.w("Deferring the scan start by %d ms to avoid the scan throttling", delay);
+            deferredScanStartsSubject.onNext(delay);
+        }
+        return delay;
+    }
+
+    private void scheduleReconfiguration(long delayMillis) {
+        scheduledReconfiguration = timerWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                synchronized (ScanMultiplexer.this) {
+                    scheduledReconfiguration = null;
+                    reconfigureIfNeeded();
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelScheduledReconfiguration() {
+        if (scheduledReconfiguration != null) {
+            scheduledReconfiguration.unsubscribe();
+            scheduledReconfiguration = null;
+        }
+    }
+
+    private void scheduleDutyCycleStep(long delayMillis) {
+        scheduledDutyCycleStep = timerWorker.schedule(new Action0() {
+            @Override
+            public void call() {
+                synchronized (ScanMultiplexer.this) {
+                    scheduledDutyCycleStep = null;
+                    if (isPaused) {
+                        resumeDutyCycledScan();
+                    } else {
+                        pauseDutyCycledScan();
+                    }
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelScheduledDutyCycleStep() {
+        if (scheduledDutyCycleStep != null) {
+            scheduledDutyCycleStep.unsubscribe();
+            scheduledDutyCycleStep = null;
+        }
+    }
+
+    private void pauseDutyCycledScan() {
+        if (runningOperation == null) {
+            return;
+        }
+        final RxBleScanSettings scanSettings = runningConfiguration.getScanSettings();
+        final long scanIntervalMillis = limitScanStarts
+                ? Math.max(scanSettings.getScanIntervalMillis(), MIN_LIMITED_SCAN_INTERVAL_MILLIS)
+                : scanSettings.getScanIntervalMillis();
+        stopRunningOperation();
+        isPaused = true;
+        scheduleDutyCycleStep(scanIntervalMillis - scanSettings.getScanWindowMillis());
+    }
+
+    private void resumeDutyCycledScan() {
+        if (runningConfiguration == null) {
+            return;
+        }
+        final long now = timerWorker.now();
+        if (limitScanStarts && countScanStartsSince(now - SCAN_STARTS_WINDOW_MILLIS) >= MAX_SCAN_STARTS) {
+            scheduleDutyCycleStep(deferScanStart(now));
+            return;
+        }
+        startRunningConfiguration(now);
+    }
+
+    private void recordScanStart(long timestamp) {
+        scanStartTimestamps[scanStartCount % MAX_SCAN_STARTS] = timestamp;
+        scanStartCount++;
+    }
+
+    private int countScanStartsSince(long timestamp) {
+        int count = 0;
+        for (int i = 0; i < Math.min(scanStartCount, MAX_SCAN_STARTS); i++) {
+            if (scanStartTimestamps[i] > timestamp) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long oldestScanStartTimestamp() {
+        // the ring buffer is full whenever the oldest start is needed
+        return scanStartTimestamps[scanStartCount % MAX_SCAN_STARTS];
+    }
+
+    private void startRunningConfiguration(long now) {
+        final ScanConfiguration scanConfiguration = runningConfiguration;
+        final RxBleRadioOperationScanBase scanOperation = scanOperationFactory.createScanOperation(scanConfiguration);
+        recordScanStart(now);
+        deferredScanStartTimestamp = 0;
+        isPaused = false;
+        runningOperation = scanOperation;
+        final Subscription subscription = rxBleRadio.queue(scanOperation).subscribe(new Subscriber<RxBleInternalScanResult>() {
+            @Override
+            public void onCompleted() {
+                // the scan is running until stopped
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                onScanError(scanOperation, throwable);
+            }
+
+            @Override
+            public void onNext(RxBleInternalScanResult internalScanResult) {
+                dispatchScanResult(internalScanResult);
+            }
+        });
+
+        if (runningOperation != scanOperation) {
+            // the scan has failed synchronously
+            subscription.unsubscribe();
+            return;
+        }
+        runningSubscription = subscription;
+        if (scanConfiguration.getScanSettings().isDutyCycled()) {
+            scheduleDutyCycleStep(scanConfiguration.getScanSettings().getScanWindowMillis());
+        }
+    }
+
+    private void stopRunningScan() {
+        cancelScheduledDutyCycleStep();
+        stopRunningOperation();
+        runningConfiguration = null;
+        isPaused = false;
+    }
+
+    private void stopRunningOperation() {
+        if (runningOperation != null) {
+            runningOperation.stop();
+        }
+        if (runningSubscription != null) {
+            runningSubscription.unsubscribe();
+        }
+        runningOperation = null;
+        runningSubscription = null;
+    }
+
+    private void onScanError(RxBleRadioOperationScanBase scanOperation, Throwable throwable) {
+        final List<Registration> failedRegistrations;
+        synchronized (this) {
+            if (runningOperation != scanOperation) {
+                return;
+            }
+            cancelScheduledReconfiguration();
+            lingerDeadline = 0;
+            deferredScanStartTimestamp = 0;
+            stopRunningScan();
+            failedRegistrations = new ArrayList<>(registrations);
+            registrations.clear();
+            dispatch = new Dispatch(registrations);
+        }
+
+        for (Registration registration : failedRegistrations) {
+            registration.onScanError(throwable);
+        }
+    }
+
+    private void dispatchScanResult(RxBleInternalScanResult internalScanResult) {
+        final Dispatch currentDispatch = dispatch;
+        final ScanFilterIndex filterIndex = currentDispatch.filterIndex;
+        final long[] advertisedMask = filterIndex.findAdvertised(internalScanResult.getScanRecord());
+        RxBleScanResult scanResult = null;
+        boolean isDeviceKeyed = false;
+        long macAddress = 0;
+        long now = 0;
+
+        for (int filter = 0; filter < filterIndex.size(); filter++) {
+            if (!filterIndex.matches(filter, advertisedMask)) {
+                continue;
+            }
+            for (Registration registration : currentDispatch.registrationsPerFilter[filter]) {
+                if (registration.isUnsubscribed() || registration.onInternalScanResult(internalScanResult)) {
+                    continue;
+                }
+                final CompiledScanFilter scanFilter = registration.scanFilter;
+                if (!isDeviceKeyed && (registration.deduplicator != null || scanFilter != null && scanFilter.needsMacAddress())) {
+                    isDeviceKeyed = true;
+                    macAddress = MacAddressUtil.toLong(internalScanResult.getBluetoothDevice().getAddress());
+                    now = timerWorker.now();
+                }
+                if (scanFilter != null && !scanFilter.matches(macAddress, internalScanResult.getScanRecord())) {
+                    continue;
+                }
+                int rssi = internalScanResult.getRssi();
+                if (registration.deduplicator != null) {
+                    rssi = registration.deduplicator.process(macAddress, rssi, internalScanResult.getScanRecord(), now);
+                    if (rssi == ScanResultDeduplicator.SUPPRESSED) {
+                        continue;
+                    }
+                }
+                if (scanResult == null) {
+                    scanResult = scanResultConverter.call(internalScanResult);
+                }
+                registration.onScanResult(rssi == scanResult.getRssi()
+                        ? scanResult
+                        : new RxBleScanResult(scanResult.getBleDevice(), rssi, scanResult.getScanRecord()));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.polidea.rxandroidble.internal.scan;
+
+import com.polidea.rxandroidble.RxBleScanSettings;
+import com.polidea.rxandroidble.internal.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Per device state of a deduplicated scan subscription. The state lives in parallel primitive arrays indexed through a
+ * {@link LongIntHashMap} keyed by the 48 bit MAC address, so processing an advertisement does not allocate. An advertisement passes
+ * if the device is new, the payload changed, the smoothed RSSI moved by at least the threshold since the last emission or the
+ * heartbeat elapsed. Devices not seen for {@value #STALE_DEVICE_MILLIS} ms are dropped when the arrays are full and are reported as
+ * new when they appear again.
+ */
+class ScanResultDeduplicator {
+
+    /**
+     * Returned by {@link #process(long, int, byte[], long)} for a suppressed advertisement.
+     */
+    static final int SUPPRESSED = Integer.MIN_VALUE;
+    static final long STALE_DEVICE_MILLIS = 5 * 60 * 1000;
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final long heartbeatMillis;
+    private final int rssiChangeThreshold;
+    private final float rssiSmoothingFactor;
+
+    private final LongIntHashMap entriesByMacAddress = new LongIntHashMap(MIN_CAPACITY);
+
+    private long[] macAddresses;
+    private int[] payloadHashes;
+    private float[] smoothedRssis;
+    private int[] emittedRssis;
+    private long[] emissionTimestamps;
+    private long[] seenTimestamps;
+    private int size;
+
+    ScanResultDeduplicator(RxBleScanSettings scanSettings) {
+        this.heartbeatMillis = scanSettings.getDeduplicationHeartbeatMillis();
+        this.rssiChangeThreshold = scanSettings.getRssiChangeThreshold();
+        this.rssiSmoothingFactor = scanSettings.getRssiSmoothingFactor();
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @param macAddress the device address as returned by {@link com.polidea.rxandroidble.internal.util.MacAddressUtil#toLong(String)}
+     * @param rssi       the RSSI of the advertisement
+     * @param scanRecord the raw advertisement data
+     * @param now        the current time in milliseconds
+     * @return the smoothed RSSI to emit or {@link #SUPPRESSED}
+     */
+    synchronized int process(long macAddress, int rssi, byte[] scanRecord, long now) {
+        final int payloadHash = Arrays.hashCode(scanRecord);
+        final int knownEntry = entriesByMacAddress.get(macAddress);
+
+        if (knownEntry == LongIntHashMap.NO_VALUE) {
+            if (size == macAddresses.length) {
+                removeStaleDevices(now);
+            }
+            final int entry = size++;
+            macAddresses[entry] = macAddress;
+            entriesByMacAddress.put(macAddress, entry);
+            smoothedRssis[entry] = rssi;
+            seenTimestamps[entry] = now;
+            return emit(entry, rssi, payloadHash, now);
+        }
+
+        seenTimestamps[knownEntry] = now;
+        final float smoothedRssi = smoothedRssis[knownEntry] + rssiSmoothingFactor * (rssi - smoothedRssis[knownEntry]);
+        smoothedRssis[knownEntry] = smoothedRssi;
+        final int roundedRssi = Math.round(smoothedRssi);
+        if (payloadHash != payloadHashes[knownEntry]
+                || rssiChangeThreshold > 0 && Math.abs(roundedRssi - emittedRssis[knownEntry]) >= rssiChangeThreshold
+                || heartbeatMillis > 0 && now - emissionTimestamps[knownEntry] >= heartbeatMillis) {
+            return emit(knownEntry, roundedRssi, payloadHash, now);
+        }
+        return SUPPRESSED;
+    }
+
+    private int emit(int entry, int rssi, int payloadHash, long now) {
+        payloadHashes[entry] = payloadHash;
+        emittedRssis[entry] = rssi;
+        emissionTimestamps[entry] = now;
+        return rssi;
+    }
+
+    /**
+     * Moves the entries of live devices to the front of the arrays, growing them only if dropping the stale devices does not free
+     * enough space.
+     */
+    private void removeStaleDevices(long now) {
+        final long[] oldMacAddresses = macAddresses;
+        final int[] oldPayloadHashes = payloadHashes;
+        final float[] oldSmoothedRssis = smoothedRssis;
+        final int[] oldEmittedRssis = emittedRssis;
+        final long[] oldEmissionTimestamps = emissionTimestamps;
+        final long[] oldSeenTimestamps = seenTimestamps;
+        final int oldSize = size;
+
+        int liveDevices = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (now - oldSeenTimestamps[i] < STALE_DEVICE_MILLIS) {
+                liveDevices++;
+            }
+        }
+        allocate(liveDevices + 1 > oldMacAddresses.length / 2 ? oldMacAddresses.length * 2 : oldMacAddresses.length);
+        entriesByMacAddress.clear();
+        for (int i = 0; i < oldSize; i++) {
+            if (now - oldSeenTimestamps[i] >= STALE_DEVICE_MILLIS) {
+                continue;
+            }
+            final int entry = size++;
+            macAddresses[entry] = oldMacAddresses[i];
+            payloadHashes[entry] = oldPayloadHashes[i];
+            smoothedRssis[entry] = oldSmoothedRssis[i];
+            emittedRssis[entry] = oldEmittedRssis[i];
+            emissionTimestamps[entry] = oldEmissionTimestamps[i];
+            seenTimestamps[entry] = oldSeenTimestamps[i];
+            entriesByMacAddress.put(oldMacAddresses[i], entry);
+        }
+    }
+
+    private void allocate(int capacity) {
+        macAddresses = new long[capacity];
+        payloadHashes = new int[capacity];
+        smoothedRssis = new float[capacity];
+        emittedRssis = new int[capacity];
+        emissionTimestamps = new long[capacity];
+        seenTimestamps = new long[capacity];
+        size = 0;
+    }
+}
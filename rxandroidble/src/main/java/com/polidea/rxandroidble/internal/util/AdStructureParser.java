@@ -0,0 +1,76 @@
+package com.polidea.rxandroidble.internal.util;
+
+/**
+ * Walks the AD structures of a raw advertisement without allocating. Every structure is addressed by the offset of its length byte:
+ * <pre>
+ * for (int offset = firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanRecord, offset)) {
+ *     switch (adType(scanRecord, offset)) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * The walk stops at the first zero length structure (the padding of the advertisement) or at a structure exceeding the record.
+ */
+public final class AdStructureParser {
+
+    /**
+     * Returned by {@link #firstAdStructure(byte[])} and {@link #nextAdStructure(byte[], int)} if there are no more structures.
+     */
+    public static final int NO_AD_STRUCTURE = -1;
+
+    private AdStructureParser() {
+    }
+
+    /**
+     * @return the offset of the first structure or {@link #NO_AD_STRUCTURE}
+     */
+    public static int firstAdStructure(byte[] scanRecord) {
+        return validAdStructureAt(scanRecord, 0);
+    }
+
+    /**
+     * @return the offset of the structure following the one at the offset or {@link #NO_AD_STRUCTURE}
+     */
+    public static int nextAdStructure(byte[] scanRecord, int offset) {
+        return validAdStructureAt(scanRecord, adStructureEnd(scanRecord, offset));
+    }
+
+    /**
+     * @return the unsigned AD type of the structure
+     */
+    public static int adType(byte[] scanRecord, int offset) {
+        return scanRecord[offset + 1] & 0xFF;
+    }
+
+    /**
+     * @return the offset of the first data byte of the structure, following its length and AD type
+     */
+    public static int adDataStart(int offset) {
+        return offset + 2;
+    }
+
+    /**
+     * @return the number of data bytes of the structure, excluding its AD type
+     */
+    public static int adDataLength(byte[] scanRecord, int offset) {
+        return (scanRecord[offset] & 0xFF) - 1;
+    }
+
+    /**
+     * @return the offset following the last data byte of the structure
+     */
+    public static int adStructureEnd(byte[] scanRecord, int offset) {
+        return offset + 1 + (scanRecord[offset] & 0xFF);
+    }
+
+    private static int validAdStructureAt(byte[] scanRecord, int offset) {
+        if (offset >= scanRecord.length - 1) {
+            return NO_AD_STRUCTURE;
+        }
+        final int length = scanRecord[offset] & 0xFF;
+        if (length == 0 || offset + 1 + length > scanRecord.length) {
+            return NO_AD_STRUCTURE;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,55 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+
+import rx.Observable;
+
+/**
+ * A {@link LongWriteSource} reading from a {@link ByteBuffer}. Works with a heap buffer, a direct buffer or a memory-mapped file without
+ * copying the whole payload. The position of the passed buffer is not modified. The bytes are copied on the subscribing thread.
+ */
+public class ByteBufferLongWriteSource implements LongWriteSource {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final ByteBuffer byteBuffer;
+
+    private final byte[] writtenBytes;
+
+    public ByteBufferLongWriteSource(@NonNull byte[] bytes) {
+        this.byteBuffer = ByteBuffer.wrap(bytes);
+        this.writtenBytes = bytes;
+    }
+
+    public ByteBufferLongWriteSource(@NonNull ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer.duplicate();
+        this.writtenBytes = EMPTY_ARRAY;
+    }
+
+    @NonNull
+    @Override
+    public Observable<Integer> read(@NonNull final byte[] batch) {
+        return Observable.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                final int length = Math.min(batch.length, byteBuffer.remaining());
+                byteBuffer.get(batch, 0, length);
+                return length;
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public byte[] getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    @Override
+    public void release() {
+        // nothing to release
+    }
+}
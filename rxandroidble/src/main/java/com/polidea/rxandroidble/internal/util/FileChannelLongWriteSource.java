@@ -0,0 +1,57 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import rx.Observable;
+import rx.Scheduler;
+
+/**
+ * A {@link LongWriteSource} reading lazily from a {@link FileChannel}. The channel is read from its current position which is advanced
+ * as the batches are written. The channel is not closed. Reading is disk I/O so it is done on the passed scheduler.
+ */
+public class FileChannelLongWriteSource implements LongWriteSource {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final FileChannel fileChannel;
+
+    private final Scheduler ioScheduler;
+
+    public FileChannelLongWriteSource(@NonNull FileChannel fileChannel, @NonNull Scheduler ioScheduler) {
+        this.fileChannel = fileChannel;
+        this.ioScheduler = ioScheduler;
+    }
+
+    @NonNull
+    @Override
+    public Observable<Integer> read(@NonNull final byte[] batch) {
+        return Observable.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                final ByteBuffer batchBuffer = ByteBuffer.wrap(batch);
+                while (batchBuffer.hasRemaining()) {
+                    if (fileChannel.read(batchBuffer) == -1) {
+                        break;
+                    }
+                }
+                return batchBuffer.position();
+            }
+        }).subscribeOn(ioScheduler);
+    }
+
+    @NonNull
+    @Override
+    public byte[] getWrittenBytes() {
+        return EMPTY_ARRAY;
+    }
+
+    @Override
+    public void release() {
+        // the channel is owned by the caller
+    }
+}
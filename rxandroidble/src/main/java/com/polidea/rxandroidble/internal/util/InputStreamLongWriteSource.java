@@ -0,0 +1,58 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+import rx.Observable;
+import rx.Scheduler;
+
+/**
+ * A {@link LongWriteSource} reading lazily from an {@link InputStream}. The stream is read from its current position and is not closed.
+ * Reading may block so it is done on the passed scheduler.
+ */
+public class InputStreamLongWriteSource implements LongWriteSource {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final InputStream inputStream;
+
+    private final Scheduler ioScheduler;
+
+    public InputStreamLongWriteSource(@NonNull InputStream inputStream, @NonNull Scheduler ioScheduler) {
+        this.inputStream = inputStream;
+        this.ioScheduler = ioScheduler;
+    }
+
+    @NonNull
+    @Override
+    public Observable<Integer> read(@NonNull final byte[] batch) {
+        return Observable.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                int readBytes = 0;
+                while (readBytes < batch.length) {
+                    final int count = inputStream.read(batch, readBytes, batch.length - readBytes);
+                    if (count == -1) {
+                        break;
+                    }
+                    readBytes += count;
+                }
+                return readBytes;
+            }
+        }).subscribeOn(ioScheduler);
+    }
+
+    @NonNull
+    @Override
+    public byte[] getWrittenBytes() {
+        return EMPTY_ARRAY;
+    }
+
+    @Override
+    public void release() {
+        // the stream is owned by the caller
+    }
+}
@@ -0,0 +1,43 @@
+package com.polidea.rxandroidble.internal.util;
+
+/**
+ * Set of 48 bit values, such as the MAC addresses returned by {@link MacAddressUtil#toLong(String)}, backed by a
+ * {@link LongIntHashMap}. Unlike a {@link java.util.HashSet} of {@link Long} it does not box the values, so lookups do not allocate.
+ * Not thread safe - meant to be filled once and then only read.
+ */
+public class LongHashSet {
+
+    private static final int PRESENT = 0;
+
+    private final LongIntHashMap map;
+
+    public LongHashSet() {
+        map = new LongIntHashMap();
+    }
+
+    /**
+     * @param expectedSize the number of values that can be added without growing the table
+     */
+    public LongHashSet(int expectedSize) {
+        map = new LongIntHashMap(expectedSize);
+    }
+
+    /**
+     * @return true if the value was not in the set
+     */
+    public boolean add(long value) {
+        return map.put(value, PRESENT) == LongIntHashMap.NO_VALUE;
+    }
+
+    public boolean contains(long value) {
+        return map.containsKey(value);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+}
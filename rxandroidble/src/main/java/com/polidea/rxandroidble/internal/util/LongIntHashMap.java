@@ -0,0 +1,148 @@
+package com.polidea.rxandroidble.internal.util;
+
+import java.util.Arrays;
+
+/**
+ * Map of 48 bit keys, such as the MAC addresses returned by {@link MacAddressUtil#toLong(String)}, to int values backed by an open
+ * addressing table with linear probing. Unlike a {@link java.util.HashMap} of {@link Long} it does not box the keys, so lookups do not
+ * allocate. Values are usually indexes of entries kept by the caller in parallel primitive arrays. Not thread safe.
+ */
+public class LongIntHashMap {
+
+    /**
+     * Returned by {@link #get(long)}, {@link #put(long, int)} and {@link #remove(long)} if there is no value for the key.
+     */
+    public static final int NO_VALUE = -1;
+    /**
+     * Marks the used slots so that the key 0 is distinguishable from an empty slot.
+     */
+    public static final long USED_SLOT = 1L << 48;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize the number of keys that can be put without growing the table
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * @return the value of the key or {@link #NO_VALUE}
+     */
+    public int get(long key) {
+        final int slot = findSlot(key | USED_SLOT);
+        return keys[slot] != 0 ? values[slot] : NO_VALUE;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[findSlot(key | USED_SLOT)] != 0;
+    }
+
+    /**
+     * @return the previous value of the key or {@link #NO_VALUE}
+     */
+    public int put(long key, int value) {
+        final long slotKey = key | USED_SLOT;
+        final int slot = findSlot(slotKey);
+        if (keys[slot] != 0) {
+            final int previousValue = values[slot];
+            values[slot] = value;
+            return previousValue;
+        }
+        keys[slot] = slotKey;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+            grow();
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * @return the removed value of the key or {@link #NO_VALUE}
+     */
+    public int remove(long key) {
+        final int slot = findSlot(key | USED_SLOT);
+        if (keys[slot] == 0) {
+            return NO_VALUE;
+        }
+        final int removedValue = values[slot];
+        removeSlot(slot);
+        size--;
+        return removedValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    /**
+     * Spreads the bits of a key marked with {@link #USED_SLOT}, so that consecutive addresses do not cluster in the table.
+     */
+    public static int hash(long slotKey) {
+        final long mixed = slotKey * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private int findSlot(long slotKey) {
+        final int mask = keys.length - 1;
+        int slot = hash(slotKey) & mask;
+        while (keys[slot] != 0 && keys[slot] != slotKey) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        // backward shift deletion keeps the probe sequences of the following keys intact
+        final int mask = keys.length - 1;
+        int emptySlot = slot;
+        int nextSlot = (slot + 1) & mask;
+        while (keys[nextSlot] != 0) {
+            final int homeSlot = hash(keys[nextSlot]) & mask;
+            if (((nextSlot - homeSlot) & mask) >= ((nextSlot - emptySlot) & mask)) {
+                keys[emptySlot] = keys[nextSlot];
+                values[emptySlot] = values[nextSlot];
+                emptySlot = nextSlot;
+            }
+            nextSlot = (nextSlot + 1) & mask;
+        }
+        keys[emptySlot] = 0;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                final int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.NonNull;
+
+import rx.Observable;
+
+/**
+ * A source of bytes for {@link com.polidea.rxandroidble.internal.operations.RxBleRadioOperationCharacteristicLongWrite}.
+ * The bytes are pulled batch by batch as the write advances so the whole payload does not need to be kept in a single array.
+ * Reads are subscribed sequentially but not necessarily on the same thread.
+ */
+public interface LongWriteSource {
+
+    /**
+     * Copies the next bytes to the passed array filling it from the beginning. The reading starts on subscription and must not block
+     * the subscribing thread - it is either the main thread or the thread delivering the GATT callbacks. Sources waiting for
+     * a stream, a file or a producer emit the result on the thread that provided the bytes.
+     *
+     * @param batch the array to fill
+     * @return Observable emitting the number of bytes copied and completing. The number is less than the length of the array only
+     * if there are no more bytes to write. Errors of the underlying source of bytes are propagated.
+     */
+    @NonNull
+    Observable<Integer> read(@NonNull byte[] batch);
+
+    /**
+     * Returns the bytes that will be emitted by the long write after it has finished.
+     *
+     * @return the whole written payload if it was passed as a byte array or an empty array otherwise
+     */
+    @NonNull
+    byte[] getWrittenBytes();
+
+    /**
+     * Releases resources held by the source. Called once the write has finished, failed or was cancelled - possibly from a different
+     * thread than the one reading. Streams and channels passed by the user are not closed.
+     */
+    void release();
+}
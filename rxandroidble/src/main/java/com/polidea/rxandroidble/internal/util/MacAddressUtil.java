@@ -0,0 +1,58 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Conversions of MAC addresses in the "AA:BB:CC:DD:EE:FF" format used by {@link android.bluetooth.BluetoothDevice#getAddress()} to
+ * 48 bit keys, so per device state can be kept in primitive tables without allocating on every advertisement.
+ */
+public class MacAddressUtil {
+
+    private static final int MAC_ADDRESS_LENGTH = 17;
+
+    private MacAddressUtil() {
+    }
+
+    /**
+     * @param macAddress the MAC address in the "AA:BB:CC:DD:EE:FF" format, upper or lower case
+     * @return the address as the 48 least significant bits of a long or -1 if the address is null or malformed
+     */
+    public static long toLong(@Nullable String macAddress) {
+        if (macAddress == null || macAddress.length() != MAC_ADDRESS_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < MAC_ADDRESS_LENGTH; i++) {
+            final char character = macAddress.charAt(i);
+            if (i % 3 == 2) {
+                if (character != ':') {
+                    return -1;
+                }
+                continue;
+            }
+            final int digit = Character.digit(character, 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @param macAddress the address returned by {@link #toLong(String)}
+     * @return the address in the "AA:BB:CC:DD:EE:FF" format
+     */
+    public static String toString(long macAddress) {
+        final char[] characters = new char[MAC_ADDRESS_LENGTH];
+        for (int octet = 0; octet < 6; octet++) {
+            final int value = (int) (macAddress >>> (40 - octet * 8)) & 0xFF;
+            characters[octet * 3] = Character.toUpperCase(Character.forDigit(value >>> 4, 16));
+            characters[octet * 3 + 1] = Character.toUpperCase(Character.forDigit(value & 0xF, 16));
+            if (octet < 5) {
+                characters[octet * 3 + 2] = ':';
+            }
+        }
+        return new String(characters);
+    }
+}
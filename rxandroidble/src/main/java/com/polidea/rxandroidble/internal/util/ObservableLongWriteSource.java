@@ -0,0 +1,183 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * A {@link LongWriteSource} pulling {@link ByteBuffer} chunks from an {@link Observable}. The Observable is subscribed on the first read
+ * and only a single chunk is requested at a time so the producer is backpressured by the pace of the write. A read that needs more
+ * bytes than were already emitted requests the next chunk and completes on the thread that emits it - no thread waits for the producer.
+ */
+public class ObservableLongWriteSource implements LongWriteSource {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final Observable<ByteBuffer> chunkObservable;
+
+    private final ChunkSubscriber chunkSubscriber = new ChunkSubscriber();
+
+    private boolean subscribed;
+
+    private boolean chunkRequested;
+
+    private ByteBuffer currentChunk;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private PendingRead pendingRead;
+
+    public ObservableLongWriteSource(@NonNull Observable<ByteBuffer> chunkObservable) {
+        this.chunkObservable = chunkObservable;
+    }
+
+    @NonNull
+    @Override
+    public Observable<Integer> read(@NonNull final byte[] batch) {
+        return Observable.create(new Observable.OnSubscribe<Integer>() {
+            @Override
+            public void call(Subscriber<? super Integer> subscriber) {
+                final boolean subscribeToChunks;
+                synchronized (ObservableLongWriteSource.this) {
+                    pendingRead = new PendingRead(batch, subscriber);
+                    subscribeToChunks = !subscribed;
+                    if (subscribeToChunks) {
+                        subscribed = true;
+                        // the first chunk is requested by the subscriber when it starts
+                        chunkRequested = true;
+                    }
+                }
+                if (subscribeToChunks) {
+                    chunkObservable.subscribe(chunkSubscriber);
+                }
+                drain();
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public byte[] getWrittenBytes() {
+        return EMPTY_ARRAY;
+    }
+
+    @Override
+    public void release() {
+        chunkSubscriber.unsubscribe();
+        synchronized (this) {
+            pendingRead = null;
+        }
+    }
+
+    /**
+     * Copies the available bytes to the pending read. The read is finished when its batch is full or no more chunks will come,
+     * otherwise the next chunk is requested and the read is continued when it is emitted.
+     */
+    private void drain() {
+        final PendingRead finishedRead;
+        final Throwable finishedError;
+        final boolean requestNextChunk;
+        synchronized (this) {
+            final PendingRead read = pendingRead;
+            if (read == null) {
+                return;
+            }
+            while (read.readBytes < read.batch.length && currentChunk != null) {
+                final int length = Math.min(read.batch.length - read.readBytes, currentChunk.remaining());
+                currentChunk.get(read.batch, read.readBytes, length);
+                read.readBytes += length;
+                if (!currentChunk.hasRemaining()) {
+                    currentChunk = null;
+                }
+            }
+            if (read.readBytes == read.batch.length || completed) {
+                pendingRead = null;
+                finishedRead = read;
+                finishedError = error;
+                requestNextChunk = false;
+            } else {
+                finishedRead = null;
+                finishedError = null;
+                requestNextChunk = !chunkRequested;
+                chunkRequested = true;
+            }
+        }
+        if (finishedRead != null) {
+            finishedRead.finish(finishedError);
+        } else if (requestNextChunk) {
+            chunkSubscriber.requestNext();
+        }
+    }
+
+    private void onChunk(ByteBuffer chunk) {
+        synchronized (this) {
+            chunkRequested = false;
+            currentChunk = chunk.hasRemaining() ? chunk : null;
+        }
+        drain();
+    }
+
+    private void onTerminated(Throwable throwable) {
+        synchronized (this) {
+            completed = true;
+            error = throwable;
+        }
+        drain();
+    }
+
+    private class ChunkSubscriber extends Subscriber<ByteBuffer> {
+
+        @Override
+        public void onStart() {
+            request(1);
+        }
+
+        void requestNext() {
+            request(1);
+        }
+
+        @Override
+        public void onCompleted() {
+            onTerminated(null);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            onTerminated(e);
+        }
+
+        @Override
+        public void onNext(ByteBuffer byteBuffer) {
+            onChunk(byteBuffer);
+        }
+    }
+
+    private static class PendingRead {
+
+        final byte[] batch;
+        final Subscriber<? super Integer> subscriber;
+        int readBytes;
+
+        PendingRead(byte[] batch, Subscriber<? super Integer> subscriber) {
+            this.batch = batch;
+            this.subscriber = subscriber;
+        }
+
+        void finish(Throwable error) {
+            if (subscriber.isUnsubscribed()) {
+                return;
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onNext(readBytes);
+                subscriber.onCompleted();
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.polidea.rxandroidble.internal.util;
 
+import android.annotation.TargetApi;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanSettings;
+import android.os.Build;
 import android.support.annotation.Nullable;
 
+import java.util.List;
 import java.util.Set;
 
 public class RxBleAdapterWrapper {
@@ -34,6 +41,35 @@ public class RxBleAdapterWrapper {
         bluetoothAdapter.stopLeScan(leScanCallback);
     }
 
+    /**
+     * @return false if the scan could not be started because the {@link BluetoothLeScanner} is not available (i.e. Bluetooth is off)
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public boolean startLeScan(List<ScanFilter> scanFilters, ScanSettings scanSettings, ScanCallback scanCallback) {
+        final BluetoothLeScanner bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
+        if (bluetoothLeScanner == null) {
+            return false;
+        }
+        bluetoothLeScanner.startScan(scanFilters, scanSettings, scanCallback);
+        return true;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public void stopLeScan(ScanCallback scanCallback) {
+        final BluetoothLeScanner bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
+        if (bluetoothLeScanner != null) {
+            bluetoothLeScanner.stopScan(scanCallback);
+        }
+    }
+
+    /**
+     * @return true if the Bluetooth controller can collect scan results and deliver them after the report delay
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public boolean isOffloadedScanBatchingSupported() {
+        return bluetoothAdapter.isOffloadedScanBatchingSupported();
+    }
+
     public Set<BluetoothDevice> getBondedDevices() {
         return bluetoothAdapter.getBondedDevices();
     }
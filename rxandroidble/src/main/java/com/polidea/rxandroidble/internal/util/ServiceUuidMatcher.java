@@ -0,0 +1,139 @@
+package com.polidea.rxandroidble.internal.util;
+
+import android.support.annotation.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.UUID;
+
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.NO_AD_STRUCTURE;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataStart;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adStructureEnd;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adType;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.firstAdStructure;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.nextAdStructure;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidLsb;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.readUuidMsb;
+import static com.polidea.rxandroidble.internal.util.UUIDUtil.serviceUuidLength;
+
+/**
+ * Checks whether an advertisement contains all of the service UUIDs of a filter. The filter is compiled once into primitive arrays and
+ * the raw scan record is walked in a single pass comparing 16, 32 and 128 bit UUIDs as longs, so matching does not allocate.
+ * It is called on the binder thread for every received advertisement.
+ */
+public class ServiceUuidMatcher {
+
+    private static final int MAX_UUIDS_PER_PASS = 64;
+
+    private final long[] msbs;
+
+    private final long[] lsbs;
+
+    public ServiceUuidMatcher(@Nullable UUID[] filterServiceUuids) {
+        final LinkedHashSet<UUID> distinctUuids = new LinkedHashSet<>();
+        if (filterServiceUuids != null) {
+            for (UUID uuid : filterServiceUuids) {
+                distinctUuids.add(uuid);
+            }
+        }
+        msbs = new long[distinctUuids.size()];
+        lsbs = new long[distinctUuids.size()];
+        int index = 0;
+        for (UUID uuid : distinctUuids) {
+            msbs[index] = uuid.getMostSignificantBits();
+            lsbs[index] = uuid.getLeastSignificantBits();
+            index++;
+        }
+    }
+
+    /**
+     * @return true if the filter has no UUIDs - every advertisement matches then
+     */
+    public boolean isEmpty() {
+        return msbs.length == 0;
+    }
+
+    /**
+     * @param scanRecord the raw advertisement data
+     * @return true if the advertisement lists all of the filtered service UUIDs
+     */
+    public boolean matches(byte[] scanRecord) {
+        // matched UUIDs are tracked in a bit mask - filters with more than 64 UUIDs need more than a single pass
+        for (int from = 0; from < msbs.length; from += MAX_UUIDS_PER_PASS) {
+            final int to = Math.min(msbs.length, from + MAX_UUIDS_PER_PASS);
+            if (!matchesAll(scanRecord, from, to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of longs needed by {@link #findAdvertised(byte[], long[])} to mark all of the filtered UUIDs
+     */
+    public int getMaskLength() {
+        return (msbs.length + MAX_UUIDS_PER_PASS - 1) / MAX_UUIDS_PER_PASS;
+    }
+
+    /**
+     * Marks which of the filtered UUIDs are listed in the advertisement. The bit {@code i % 64} of {@code advertisedMask[i / 64]} is
+     * set if the i-th distinct UUID passed to the constructor is advertised. Bits of UUIDs that are not advertised are left untouched.
+     *
+     * @param scanRecord     the raw advertisement data
+     * @param advertisedMask the mask of at least {@link #getMaskLength()} longs
+     */
+    public void findAdvertised(byte[] scanRecord, long[] advertisedMask) {
+        for (int offset = firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanRecord, offset)) {
+            final int uuidLength = serviceUuidLength(adType(scanRecord, offset));
+            if (uuidLength == 0) {
+                continue;
+            }
+            final int end = adStructureEnd(scanRecord, offset);
+            for (int position = adDataStart(offset); position + uuidLength <= end; position += uuidLength) {
+                final long msb = readUuidMsb(scanRecord, position, uuidLength);
+                final long lsb = readUuidLsb(scanRecord, position, uuidLength);
+                markAdvertised(msb, lsb, advertisedMask);
+            }
+        }
+    }
+
+    private void markAdvertised(long msb, long lsb, long[] advertisedMask) {
+        for (int i = 0; i < msbs.length; i++) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                advertisedMask[i / MAX_UUIDS_PER_PASS] |= 1L << (i % MAX_UUIDS_PER_PASS);
+                return;
+            }
+        }
+    }
+
+    private boolean matchesAll(byte[] scanRecord, int from, int to) {
+        final int count = to - from;
+        final long allMatched = count == MAX_UUIDS_PER_PASS ? -1L : (1L << count) - 1;
+        long matched = 0;
+
+        for (int offset = firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanRecord, offset)) {
+            final int uuidLength = serviceUuidLength(adType(scanRecord, offset));
+            if (uuidLength == 0) {
+                continue;
+            }
+            final int end = adStructureEnd(scanRecord, offset);
+            for (int position = adDataStart(offset); position + uuidLength <= end; position += uuidLength) {
+                final long msb = readUuidMsb(scanRecord, position, uuidLength);
+                final long lsb = readUuidLsb(scanRecord, position, uuidLength);
+                matched |= matchedBits(msb, lsb, from, to);
+            }
+            if (matched == allMatched) {
+                return true;
+            }
+        }
+        return matched == allMatched;
+    }
+
+    private long matchedBits(long msb, long lsb, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return 1L << (i - from);
+            }
+        }
+        return 0;
+    }
+}
@@ -3,8 +3,6 @@ package com.polidea.rxandroidble.internal.util;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -12,46 +10,49 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.NO_AD_STRUCTURE;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adDataStart;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adStructureEnd;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.adType;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.firstAdStructure;
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.nextAdStructure;
+
 /**
  * @link http://stackoverflow.com/questions/31668791/how-can-i-read-uuids-from-advertisement-data-ios-overflow-area-in-android
  */
 public class UUIDUtil {
 
+    public static final int AD_TYPE_16_BIT_UUIDS_PARTIAL = 0x02;
+    public static final int AD_TYPE_16_BIT_UUIDS_COMPLETE = 0x03;
+    public static final int AD_TYPE_32_BIT_UUIDS_PARTIAL = 0x04;
+    public static final int AD_TYPE_32_BIT_UUIDS_COMPLETE = 0x05;
+    public static final int AD_TYPE_128_BIT_UUIDS_PARTIAL = 0x06;
+    public static final int AD_TYPE_128_BIT_UUIDS_COMPLETE = 0x07;
+
+    /**
+     * Least significant bits of the Bluetooth Base UUID 00000000-0000-1000-8000-00805F9B34FB.
+     */
+    public static final long BASE_UUID_LSB = 0x800000805F9B34FBL;
+
+    /**
+     * Most significant bits of the Bluetooth Base UUID without the 16 / 32 bit UUID value.
+     */
+    public static final long BASE_UUID_MSB = 0x0000000000001000L;
+
     public UUIDUtil() {
     }
 
     public List<UUID> extractUUIDs(byte[] scanResult) {
-        List<UUID> uuids = new ArrayList<>();
-        ByteBuffer buffer = ByteBuffer.wrap(scanResult).order(ByteOrder.LITTLE_ENDIAN);
-
-        while (buffer.remaining() > 2) {
-            byte length = buffer.get();
-            if (length == 0) break;
-
-            byte type = buffer.get();
-            switch (type) {
-                case 0x02: // Partial list of 16-bit UUIDs
-                case 0x03: // Complete list of 16-bit UUIDs
-                    while (length >= 2) {
-                        uuids.add(UUID.fromString(String.format(
-                                "%08x-0000-1000-8000-00805f9b34fb", buffer.getShort())));
-                        length -= 2;
-                    }
-                    break;
-
-                case 0x06: // Partial list of 128-bit UUIDs
-                case 0x07: // Complete list of 128-bit UUIDs
-                    while (length >= 16) {
-                        long lsb = buffer.getLong();
-                        long msb = buffer.getLong();
-                        uuids.add(new UUID(msb, lsb));
-                        length -= 16;
-                    }
-                    break;
-
-                default:
-                    buffer.position(buffer.position() + length - 1);
-                    break;
+        final List<UUID> uuids = new ArrayList<>();
+
+        for (int offset = firstAdStructure(scanResult); offset != NO_AD_STRUCTURE; offset = nextAdStructure(scanResult, offset)) {
+            final int uuidLength = serviceUuidLength(adType(scanResult, offset));
+            if (uuidLength == 0) {
+                continue;
+            }
+            final int end = adStructureEnd(scanResult, offset);
+            for (int position = adDataStart(offset); position + uuidLength <= end; position += uuidLength) {
+                uuids.add(new UUID(readUuidMsb(scanResult, position, uuidLength), readUuidLsb(scanResult, position, uuidLength)));
             }
         }
 
@@ -63,4 +64,53 @@ public class UUIDUtil {
         if (uuids == null) uuids = new UUID[0];
         return new HashSet<>(Arrays.asList(uuids));
     }
+
+    /**
+     * Returns the most significant bits of a 128 bit UUID for a 16 or 32 bit UUID. The least significant bits are always
+     * {@link #BASE_UUID_LSB}.
+     */
+    public static long shortUuidToMsb(long shortUuid) {
+        return (shortUuid << 32) | BASE_UUID_MSB;
+    }
+
+    /**
+     * @return the length in bytes of the service UUIDs listed in an AD structure of the type or 0 if it does not list service UUIDs
+     */
+    public static int serviceUuidLength(int adType) {
+        switch (adType) {
+            case AD_TYPE_16_BIT_UUIDS_PARTIAL:
+            case AD_TYPE_16_BIT_UUIDS_COMPLETE:
+                return 2;
+            case AD_TYPE_32_BIT_UUIDS_PARTIAL:
+            case AD_TYPE_32_BIT_UUIDS_COMPLETE:
+                return 4;
+            case AD_TYPE_128_BIT_UUIDS_PARTIAL:
+            case AD_TYPE_128_BIT_UUIDS_COMPLETE:
+                return 16;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Returns the most significant bits of a little endian 16, 32 or 128 bit UUID. Shorter UUIDs are expanded with the Base UUID.
+     */
+    public static long readUuidMsb(byte[] bytes, int offset, int uuidLength) {
+        return uuidLength == 16 ? readLittleEndian(bytes, offset + 8, 8) : shortUuidToMsb(readLittleEndian(bytes, offset, uuidLength));
+    }
+
+    /**
+     * Returns the least significant bits of a little endian 16, 32 or 128 bit UUID. Shorter UUIDs are expanded with the Base UUID.
+     */
+    public static long readUuidLsb(byte[] bytes, int offset, int uuidLength) {
+        return uuidLength == 16 ? readLittleEndian(bytes, offset, 8) : BASE_UUID_LSB;
+    }
+
+    public static long readLittleEndian(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
 }
@@ -5,15 +5,15 @@ import com.polidea.rxandroidble.internal.RxBleRadioOperation
 import rx.Observable
 
 class FlatRxBleRadio implements RxBleRadio {
-    public final MockSemaphore semaphore = new MockSemaphore()
+    public final MockRadioReleaseInterface radioReleaseInterface = new MockRadioReleaseInterface()
 
     @Override
     def <T> Observable<T> queue(RxBleRadioOperation<T> rxBleRadioOperation) {
         return rxBleRadioOperation
                 .asObservable()
                 .doOnSubscribe({
-            rxBleRadioOperation.setRadioBlockingSemaphore(semaphore)
-            semaphore.acquire()
+            rxBleRadioOperation.setRadioReleaseInterface(radioReleaseInterface)
+            radioReleaseInterface.acquire()
             rxBleRadioOperation.run()
         })
     }
@@ -1,16 +1,11 @@
 package com.polidea.rxandroidble
 
-import java.util.concurrent.Semaphore
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 
-class MockSemaphore extends Semaphore {
+class MockRadioReleaseInterface implements RadioReleaseInterface {
     int permits = 0;
 
-    MockSemaphore() {
-        super(0)
-    }
-
-    @Override
-    void acquire() throws InterruptedException {
+    void acquire() {
         permits++
     }
 
@@ -8,12 +8,16 @@ import static com.polidea.rxandroidble.exceptions.BleScanException.LOCATION_SERV
 
 import android.bluetooth.BluetoothDevice
 import android.content.Context
+import android.os.Build
 import com.polidea.rxandroidble.exceptions.BleScanException
 import com.polidea.rxandroidble.internal.RxBleDeviceProvider
 import com.polidea.rxandroidble.internal.RxBleRadio
 import com.polidea.rxandroidble.internal.RxBleRadioOperation
 import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScan
+import com.polidea.rxandroidble.internal.util.ProviderDeviceSdk
 import com.polidea.rxandroidble.internal.util.UUIDUtil
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
 import rx.Observable
 import rx.observers.TestSubscriber
 import spock.lang.Specification
@@ -29,23 +33,31 @@ class RxBleClientTest extends Specification {
     MockRxBleAdapterStateObservable adapterStateObservable = Spy MockRxBleAdapterStateObservable
     MockLocationServicesStatus locationServicesStatusMock = new MockLocationServicesStatus()
     RxBleDeviceProvider mockDeviceProvider = Mock RxBleDeviceProvider
+    ProviderDeviceSdk mockProviderDeviceSdk = Mock ProviderDeviceSdk
     private static someUUID = UUID.randomUUID()
     private static otherUUID = UUID.randomUUID()
 
     def setup() {
         contextMock.getApplicationContext() >> contextMock
+        mockProviderDeviceSdk.provide() >> Build.VERSION_CODES.JELLY_BEAN_MR2
         mockDeviceProvider.getBleDevice(_ as String) >> { String macAddress ->
             def device = Mock(RxBleDevice)
             device.macAddress >> macAddress
             device
         }
+        mockDeviceProvider.getBleDevice(_ as BluetoothDevice) >> { BluetoothDevice bluetoothDevice ->
+            def device = Mock(RxBleDevice)
+            device.macAddress >> bluetoothDevice.address
+            device
+        }
         objectUnderTest = new RxBleClientImpl(
                 bleAdapterWrapperSpy,
                 rxBleRadio,
                 adapterStateObservable.asObservable(),
                 uuidParserSpy,
                 locationServicesStatusMock,
-                mockDeviceProvider
+                mockDeviceProvider,
+                mockProviderDeviceSdk
         )
     }
 
@@ -264,8 +276,10 @@ class RxBleClientTest extends Specification {
     def "should emit devices only if matching filter (#description)"() {
         given:
         TestSubscriber testSubscriber = new TestSubscriber<>()
-        addressList.each { bluetoothDeviceDiscovered deviceMac: it, rssi: 0, scanRecord: [] as byte[] }
-        uuidParserSpy.extractUUIDs(_) >>> publicServices
+        addressList.eachWithIndex { address, index ->
+            def services = publicServices[Math.min(index, publicServices.size() - 1)]
+            bluetoothDeviceDiscovered deviceMac: address, rssi: 0, scanRecord: scanRecordWithServices(services)
+        }
 
         when:
         objectUnderTest.scanBleDevices(filter as UUID[]).subscribe(testSubscriber)
@@ -299,8 +313,7 @@ class RxBleClientTest extends Specification {
         def secondUUID = UUID.randomUUID();
         def thirdUUID = UUID.randomUUID();
         TestSubscriber firstSubscriber = new TestSubscriber<>()
-        bluetoothDeviceDiscovered deviceMac: "AA:AA:AA:AA:AA:AA", rssi: 0, scanRecord: [] as byte[]
-        uuidParserSpy.extractUUIDs(_) >> [filter, secondUUID, thirdUUID]
+        bluetoothDeviceDiscovered deviceMac: "AA:AA:AA:AA:AA:AA", rssi: 0, scanRecord: scanRecordWithServices([filter, secondUUID, thirdUUID])
 
         when:
         objectUnderTest.scanBleDevices([filter] as UUID[]).subscribe(firstSubscriber)
@@ -317,7 +330,7 @@ class RxBleClientTest extends Specification {
         objectUnderTest.scanBleDevices(null).subscribe(firstSubscriber)
 
         then:
-        rxBleRadio.semaphore.isReleased()
+        rxBleRadio.radioReleaseInterface.isReleased()
 
     }
 
@@ -339,6 +352,17 @@ class RxBleClientTest extends Specification {
         bleAdapterWrapperSpy.addScanResult(mock, scanData['rssi'], scanData['scanRecord'])
     }
 
+    static byte[] scanRecordWithServices(List<UUID> services) {
+        def buffer = ByteBuffer.allocate(2 + services.size() * 16).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.put((byte) (1 + services.size() * 16))
+        buffer.put((byte) 0x07)
+        services.each {
+            buffer.putLong(it.leastSignificantBits)
+            buffer.putLong(it.mostSignificantBits)
+        }
+        return buffer.array()
+    }
+
     def bluetoothDeviceBonded(String address) {
         def mock = Mock(BluetoothDevice)
         mock.getAddress() >> address
@@ -355,7 +379,7 @@ class RxBleClientTest extends Specification {
         given:
         TestSubscriber testSubscriber = new TestSubscriber<>()
         bleAdapterWrapperSpy.startLeScan(_) >> true
-        RxBleRadioOperationScan scanOperation = new RxBleRadioOperationScan(null, bleAdapterWrapperSpy, null) {
+        RxBleRadioOperationScan scanOperation = new RxBleRadioOperationScan(bleAdapterWrapperSpy) {
 
             @Override
             synchronized void protectedRun() {
@@ -385,9 +409,9 @@ class RxBleClientTest extends Specification {
 
                         @Override
                         void run() {
-                            def semaphore = new MockSemaphore()
-                            rxBleRadioOperation.setRadioBlockingSemaphore(semaphore)
-                            semaphore.acquire()
+                            def radioReleaseInterface = new MockRadioReleaseInterface()
+                            rxBleRadioOperation.setRadioReleaseInterface(radioReleaseInterface)
+                            radioReleaseInterface.acquire()
                             rxBleRadioOperation.run()
                         }
                     }
@@ -0,0 +1,126 @@
+package com.polidea.rxandroidble
+
+import android.bluetooth.BluetoothGattCharacteristic
+import android.bluetooth.BluetoothGattDescriptor
+import android.bluetooth.BluetoothGattService
+import com.polidea.rxandroidble.exceptions.BleCharacteristicNotFoundException
+import com.polidea.rxandroidble.exceptions.BleServiceNotFoundException
+import rx.observers.TestSubscriber
+import spock.lang.Specification
+
+class RxBleDeviceServicesTest extends Specification {
+
+    public static final SERVICE_UUID = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    public static final OTHER_SERVICE_UUID = UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb")
+    public static final CHARACTERISTIC_UUID = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+    public static final OTHER_CHARACTERISTIC_UUID = UUID.fromString("ab906173-5daa-4d6b-8604-c2be69122d57")
+    public static final DESCRIPTOR_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb")
+    def otherService = Mock BluetoothGattService
+    def service = Mock BluetoothGattService
+    def otherCharacteristic = Mock BluetoothGattCharacteristic
+    def characteristic = Mock BluetoothGattCharacteristic
+    def descriptor = Mock BluetoothGattDescriptor
+    RxBleDeviceServices objectUnderTest
+    def testSubscriber = new TestSubscriber()
+
+    def setup() {
+        otherService.getUuid() >> OTHER_SERVICE_UUID
+        otherService.getCharacteristics() >> [otherCharacteristic]
+        service.getUuid() >> SERVICE_UUID
+        service.getCharacteristics() >> [characteristic]
+        otherCharacteristic.getUuid() >> OTHER_CHARACTERISTIC_UUID
+        characteristic.getUuid() >> CHARACTERISTIC_UUID
+        objectUnderTest = new RxBleDeviceServices([otherService, service])
+    }
+
+    def "should not look up the characteristics in the services after creation"() {
+
+        when:
+        def firstCharacteristic = objectUnderTest.findCharacteristic(CHARACTERISTIC_UUID)
+        def secondCharacteristic = objectUnderTest.findCharacteristic(SERVICE_UUID, CHARACTERISTIC_UUID)
+
+        then:
+        0 * otherService.getCharacteristic(_)
+        0 * service.getCharacteristic(_)
+        0 * _.getCharacteristics()
+        firstCharacteristic.is characteristic
+        secondCharacteristic.is characteristic
+    }
+
+    def "should find the characteristic only in the service with matching UUID"() {
+
+        expect:
+        objectUnderTest.findCharacteristic(OTHER_SERVICE_UUID, OTHER_CHARACTERISTIC_UUID).is otherCharacteristic
+        objectUnderTest.findCharacteristic(SERVICE_UUID, OTHER_CHARACTERISTIC_UUID) == null
+        objectUnderTest.findCharacteristic(UUID.randomUUID(), CHARACTERISTIC_UUID) == null
+    }
+
+    def "should find the first service and characteristic with a duplicated UUID"() {
+
+        given:
+        def duplicatedService = Mock BluetoothGattService
+        def duplicatedCharacteristic = Mock BluetoothGattCharacteristic
+        duplicatedService.getUuid() >> SERVICE_UUID
+        duplicatedService.getCharacteristics() >> [duplicatedCharacteristic]
+        duplicatedCharacteristic.getUuid() >> CHARACTERISTIC_UUID
+
+        when:
+        def servicesWithDuplicates = new RxBleDeviceServices([otherService, service, duplicatedService])
+
+        then:
+        servicesWithDuplicates.findService(SERVICE_UUID).is service
+        servicesWithDuplicates.findCharacteristic(CHARACTERISTIC_UUID).is characteristic
+        servicesWithDuplicates.findCharacteristic(SERVICE_UUID, CHARACTERISTIC_UUID).is characteristic
+    }
+
+    def "should look up the descriptor in the characteristic"() {
+
+        when:
+        def firstDescriptor = objectUnderTest.findDescriptor(SERVICE_UUID, CHARACTERISTIC_UUID, DESCRIPTOR_UUID)
+        def secondDescriptor = objectUnderTest.findDescriptor(OTHER_CHARACTERISTIC_UUID, DESCRIPTOR_UUID)
+
+        then:
+        1 * characteristic.getDescriptor(DESCRIPTOR_UUID) >> descriptor
+        1 * otherCharacteristic.getDescriptor(DESCRIPTOR_UUID) >> null
+        firstDescriptor.is descriptor
+        secondDescriptor == null
+    }
+
+    def "should emit the found characteristic"() {
+
+        when:
+        objectUnderTest.getCharacteristic(CHARACTERISTIC_UUID).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertValue characteristic
+        testSubscriber.assertCompleted()
+    }
+
+    def "should emit BleCharacteristicNotFoundException if the characteristic was not found"() {
+
+        when:
+        objectUnderTest.getCharacteristic(SERVICE_UUID, OTHER_CHARACTERISTIC_UUID).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertError BleCharacteristicNotFoundException
+    }
+
+    def "should emit BleServiceNotFoundException if the service was not found"() {
+
+        when:
+        objectUnderTest.getDescriptor(UUID.randomUUID(), CHARACTERISTIC_UUID, DESCRIPTOR_UUID).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertError BleServiceNotFoundException
+    }
+
+    def "should complete without emission if the descriptor was not found"() {
+
+        when:
+        objectUnderTest.getDescriptor(SERVICE_UUID, CHARACTERISTIC_UUID, DESCRIPTOR_UUID).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertNoValues()
+        testSubscriber.assertCompleted()
+    }
+}
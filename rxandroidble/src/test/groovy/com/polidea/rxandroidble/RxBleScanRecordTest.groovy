@@ -0,0 +1,91 @@
+package com.polidea.rxandroidble
+
+import spock.lang.Specification
+
+class RxBleScanRecordTest extends Specification {
+
+    private static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID CUSTOM_SERVICE = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+
+    // flags, TX power, 16-bit UUIDs, 128-bit UUIDs, 16-bit service data, manufacturer data, complete local name "ab"
+    private static final byte[] SCAN_RECORD = [
+            0x02, 0x01, 0x06,
+            0x02, 0x0a, 0xf4,
+            0x03, 0x03, 0x0d, 0x18,
+            0x11, 0x07, 0x3d, 0x37, 0xb7, 0xd1, 0xf6, 0x2e, 0x7b, 0x8a, 0x1c, 0x47, 0x14, 0x54, 0x18, 0xf5, 0x01, 0xf3,
+            0x05, 0x16, 0x0d, 0x18, 0x11, 0x22,
+            0x06, 0xff, 0x4c, 0x00, 0x02, 0x15, 0x33,
+            0x03, 0x09, 0x61, 0x62
+    ] as byte[]
+
+    def objectUnderTest = RxBleScanRecord.parse(SCAN_RECORD)
+
+    def "should parse flags, TX power level, device name and service UUIDs"() {
+
+        expect:
+        objectUnderTest.advertiseFlags == 0x06
+        objectUnderTest.txPowerLevel == -12
+        objectUnderTest.deviceName == "ab"
+        objectUnderTest.serviceUuids == [HEART_RATE_SERVICE, CUSTOM_SERVICE]
+    }
+
+    def "should expose manufacturer specific data as a view of the original array"() {
+
+        when:
+        def data = objectUnderTest.getManufacturerSpecificData(0x004c)
+
+        then:
+        objectUnderTest.manufacturerIds == [0x004c] as int[]
+        data.bytes.is(SCAN_RECORD)
+        data.offset == 38
+        data.length == 3
+        data.toByteArray() == [0x02, 0x15, 0x33] as byte[]
+        data.get(2) == (byte) 0x33
+        objectUnderTest.getManufacturerSpecificData(0x0059) == null
+    }
+
+    def "should expose service data as a view of the original array"() {
+
+        when:
+        def data = objectUnderTest.getServiceData(HEART_RATE_SERVICE)
+
+        then:
+        objectUnderTest.serviceDataUuids == [HEART_RATE_SERVICE]
+        data.bytes.is(SCAN_RECORD)
+        data.toByteArray() == [0x11, 0x22] as byte[]
+        data.asByteBuffer().remaining() == 2
+        objectUnderTest.getServiceData(CUSTOM_SERVICE) == null
+    }
+
+    def "should return defaults if the advertisement is empty"() {
+
+        when:
+        def emptyRecord = RxBleScanRecord.parse(new byte[0])
+
+        then:
+        emptyRecord.advertiseFlags == RxBleScanRecord.NO_ADVERTISE_FLAGS
+        emptyRecord.txPowerLevel == RxBleScanRecord.NO_TX_POWER_LEVEL
+        emptyRecord.deviceName == null
+        emptyRecord.serviceUuids.isEmpty()
+        emptyRecord.manufacturerIds.length == 0
+    }
+
+    def "should ignore a truncated AD structure"() {
+
+        when:
+        def truncatedRecord = RxBleScanRecord.parse([0x02, 0x01, 0x06, 0x06, 0xff, 0x4c, 0x00] as byte[])
+
+        then:
+        truncatedRecord.advertiseFlags == 0x06
+        truncatedRecord.manufacturerIds.length == 0
+    }
+
+    def "RxBleScanResult should parse the scan record only once"() {
+
+        given:
+        def scanResult = new RxBleScanResult(Mock(RxBleDevice), -50, SCAN_RECORD)
+
+        expect:
+        scanResult.parsedScanRecord.is(scanResult.parsedScanRecord)
+    }
+}
@@ -15,6 +15,7 @@ class RxBleDeviceProviderTest extends Specification {
     def objectUnderTest = new RxBleDeviceProvider(
             mockAdapterWrapper,
             mockRadio,
+            { mockRadio } as RxBleRadio.ConnectionRadioProvider,
             Mock(BleConnectionCompat),
             adapterStateObservable,
             Mock(Scheduler)
@@ -82,4 +83,38 @@ class RxBleDeviceProviderTest extends Specification {
         and:
         secondDevice.macAddress == differentAddress
     }
+
+    def "should wrap the scanned BluetoothDevice without retrieving it from the adapter"() {
+        given:
+        def bluetoothDevice = Mock(BluetoothDevice)
+        bluetoothDevice.getAddress() >> 'AA:AA:AA:AA:AA:AA'
+
+        when:
+        def device = objectUnderTest.getBleDevice(bluetoothDevice)
+
+        then:
+        device.bluetoothDevice.is bluetoothDevice
+        0 * mockAdapterWrapper.getRemoteDevice(_)
+    }
+
+    def "should return the same BleDevice for the address and for the scanned BluetoothDevice"() {
+        given:
+        def bluetoothDevice = Mock(BluetoothDevice)
+        bluetoothDevice.getAddress() >> 'AA:AA:AA:AA:AA:AA'
+
+        when:
+        def device = objectUnderTest.getBleDevice('AA:AA:AA:AA:AA:AA')
+        def secondDevice = objectUnderTest.getBleDevice(bluetoothDevice)
+
+        then:
+        device.is secondDevice
+    }
+
+    def "should throw for a malformed mac address"() {
+        when:
+        objectUnderTest.getBleDevice('not a mac address')
+
+        then:
+        thrown IllegalArgumentException
+    }
 }
@@ -0,0 +1,275 @@
+package com.polidea.rxandroidble.internal.cache
+
+import com.polidea.rxandroidble.RxBleDevice
+import com.polidea.rxandroidble.internal.util.LongIntHashMap
+import spock.lang.Specification
+
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.atomic.AtomicReference
+
+class DeviceRegistryTest extends Specification {
+
+    def deviceReferenceProvider = new MockDeviceReferenceProvider()
+    def objectUnderTest = new DeviceRegistry(deviceReferenceProvider)
+
+    def "should return null for an unknown address"() {
+
+        expect:
+        objectUnderTest.get(0xAABBCCDDEEFFL) == null
+    }
+
+    def "should create the device once and then return it"() {
+
+        given:
+        def device = Mock RxBleDevice
+        def factoryCalls = 0
+
+        when:
+        def createdDevice = objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { factoryCalls++; device })
+        def secondDevice = objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { factoryCalls++; Mock(RxBleDevice) })
+
+        then:
+        createdDevice.is device
+        secondDevice.is device
+        objectUnderTest.get(0xAABBCCDDEEFFL).is device
+        factoryCalls == 1
+    }
+
+    def "should distinguish the zero address from an empty slot"() {
+
+        given:
+        def device = Mock RxBleDevice
+
+        when:
+        objectUnderTest.getOrCreate(0L, { device })
+
+        then:
+        objectUnderTest.get(0L).is device
+        objectUnderTest.get(1L) == null
+    }
+
+    def "should create a new device if the previous one was garbage collected"() {
+
+        given:
+        def device = Mock RxBleDevice
+        def newDevice = Mock RxBleDevice
+        objectUnderTest.getOrCreate(0x112233445566L, { device })
+
+        when:
+        deviceReferenceProvider.releaseReferenceFor(device)
+
+        then:
+        objectUnderTest.get(0x112233445566L) == null
+        objectUnderTest.getOrCreate(0x112233445566L, { newDevice }).is newDevice
+        objectUnderTest.get(0x112233445566L).is newDevice
+    }
+
+    def "should keep all devices when the tables grow"() {
+
+        given:
+        def devices = (0..<1000).collect { Mock(RxBleDevice) }
+
+        when:
+        devices.eachWithIndex { device, index -> objectUnderTest.getOrCreate(index * 0x010101L, { device }) }
+
+        then:
+        (0..<1000).every { objectUnderTest.get(it * 0x010101L).is(devices[it]) }
+    }
+
+    def "should drop garbage collected devices when the tables grow"() {
+
+        given:
+        def releasedDevices = (0..<500).collect { Mock(RxBleDevice) }
+        releasedDevices.eachWithIndex { device, index -> objectUnderTest.getOrCreate(index, { device }) }
+        releasedDevices.each { deviceReferenceProvider.releaseReferenceFor(it) }
+        def devices = (500..<1000).collect { Mock(RxBleDevice) }
+
+        when:
+        devices.eachWithIndex { device, index -> objectUnderTest.getOrCreate(500 + index, { device }) }
+
+        then:
+        (0..<500).every { objectUnderTest.get(it) == null }
+        (0..<500).every { objectUnderTest.get(500 + it).is(devices[it]) }
+    }
+
+    def "should count hits and misses"() {
+
+        given:
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { Mock(RxBleDevice) })
+
+        when:
+        objectUnderTest.get(0xAABBCCDDEEFFL)
+        objectUnderTest.get(0xAABBCCDDEEFFL)
+        objectUnderTest.get(0x112233445566L)
+
+        then:
+        objectUnderTest.hitCount == 2
+        objectUnderTest.missCount == 1
+    }
+
+    def "should remove garbage collected devices taken from the reference queue"() {
+
+        given:
+        def device = Mock RxBleDevice
+        def secondDevice = Mock RxBleDevice
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { device })
+        objectUnderTest.getOrCreate(0x112233445566L, { secondDevice })
+        deviceReferenceProvider.releaseReferenceFor(device)
+
+        when:
+        objectUnderTest.getOrCreate(0x665544332211L, { Mock(RxBleDevice) })
+
+        then:
+        objectUnderTest.evictionCount == 1
+        objectUnderTest.get(0xAABBCCDDEEFFL) == null
+        objectUnderTest.get(0x112233445566L).is secondDevice
+    }
+
+    def "should keep finding live devices after garbage collected devices were removed"() {
+
+        given:
+        def devices = (0..<200).collect { Mock(RxBleDevice) }
+        devices.eachWithIndex { device, index -> objectUnderTest.getOrCreate(index * 0x010101L, { device }) }
+        devices.findAll { devices.indexOf(it) % 2 == 0 }.each { deviceReferenceProvider.releaseReferenceFor(it) }
+
+        when:
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { Mock(RxBleDevice) })
+
+        then:
+        objectUnderTest.evictionCount == 100
+        (0..<200).every { objectUnderTest.get(it * 0x010101L) == (it % 2 == 0 ? null : devices[it]) }
+    }
+
+    def "should not return a device of another address created while the lookup probes the same slots"() {
+
+        given:
+        def missingAddress = 0xAABBCCDDEEFFL
+        def collidingAddresses = addressesInStripeOf(missingAddress, 4, true)
+        def devices = collidingAddresses.collect { Mock(RxBleDevice) }
+        def wrongDevice = new AtomicReference<RxBleDevice>()
+
+        when:
+        2000.times {
+            def registry = new DeviceRegistry(deviceReferenceProvider)
+            def barrier = new CyclicBarrier(2)
+            def writer = Thread.start {
+                barrier.await()
+                collidingAddresses.eachWithIndex { address, index -> registry.getOrCreate(address, { devices[index] }) }
+            }
+            barrier.await()
+            while (writer.isAlive()) {
+                def device = registry.get(missingAddress)
+                if (device != null) {
+                    wrongDevice.set(device)
+                }
+            }
+            writer.join()
+        }
+
+        then:
+        wrongDevice.get() == null
+    }
+
+    def "should not count a device replacing a collected device that was not enqueued yet as evicted twice"() {
+
+        given:
+        def device = Mock RxBleDevice
+        def newDevice = Mock RxBleDevice
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { device })
+        deviceReferenceProvider.clearReferenceFor(device)
+
+        when:
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { newDevice })
+        deviceReferenceProvider.enqueueReferenceFor(device)
+        objectUnderTest.getOrCreate(0x112233445566L, { Mock(RxBleDevice) })
+
+        then:
+        objectUnderTest.evictionCount == 1
+        objectUnderTest.get(0xAABBCCDDEEFFL).is newDevice
+    }
+
+    def "should return snapshots of the devices that were not garbage collected"() {
+
+        given:
+        def device = Mock RxBleDevice
+        def releasedDevice = Mock RxBleDevice
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { device })
+        objectUnderTest.getOrCreate(0x112233445566L, { releasedDevice })
+        deviceReferenceProvider.releaseReferenceFor(releasedDevice)
+
+        when:
+        def snapshot = objectUnderTest.snapshot()
+        objectUnderTest.getOrCreate(0x665544332211L, { Mock(RxBleDevice) })
+
+        then:
+        snapshot == [device]
+        objectUnderTest.snapshot().size() == 2
+    }
+
+    def "should keep probing past the slot of a removed device"() {
+
+        given:
+        def addresses = addressesInStripeOf(0xAABBCCDDEEFFL, 3, true)
+        def devices = addresses.collect { Mock(RxBleDevice) }
+        def newDevice = Mock RxBleDevice
+        addresses.eachWithIndex { address, index -> objectUnderTest.getOrCreate(address, { devices[index] }) }
+        deviceReferenceProvider.releaseReferenceFor(devices[0])
+
+        when:
+        objectUnderTest.getOrCreate(0xAABBCCDDEEFFL, { Mock(RxBleDevice) })
+
+        then:
+        (0..<stripeTable(addresses[0]).keys.length()).any { stripeTable(addresses[0]).keys.get(it) == DeviceRegistry.REMOVED_SLOT }
+        objectUnderTest.get(addresses[0]) == null
+        objectUnderTest.get(addresses[1]).is devices[1]
+        objectUnderTest.get(addresses[2]).is devices[2]
+
+        and:
+        objectUnderTest.getOrCreate(addresses[0], { newDevice }).is newDevice
+        objectUnderTest.get(addresses[0]).is newDevice
+    }
+
+    def "should reclaim the slots of removed devices when the table is rebuilt"() {
+
+        given:
+        def addresses = addressesInStripeOf(0xAABBCCDDEEFFL, 9, false)
+        def releasedDevices = (0..<7).collect { Mock(RxBleDevice) }
+        def devices = (0..<2).collect { Mock(RxBleDevice) }
+        (0..<7).each { index -> objectUnderTest.getOrCreate(addresses[index], { releasedDevices[index] }) }
+        releasedDevices.each { deviceReferenceProvider.releaseReferenceFor(it) }
+
+        when:
+        // the first call removes the collected devices and the second one rebuilds the table
+        objectUnderTest.getOrCreate(addresses[7], { devices[0] })
+        objectUnderTest.getOrCreate(addresses[8], { devices[1] })
+
+        then:
+        def table = stripeTable(addresses[0])
+        table.keys.length() == 16
+        table.size == 2
+        (0..<table.keys.length()).every { table.keys.get(it) != DeviceRegistry.REMOVED_SLOT }
+        objectUnderTest.evictionCount == 7
+        objectUnderTest.get(addresses[7]).is devices[0]
+        objectUnderTest.get(addresses[8]).is devices[1]
+    }
+
+    private stripeTable(long address) {
+        objectUnderTest.stripes[LongIntHashMap.hash(address | LongIntHashMap.USED_SLOT) >>> 28].table
+    }
+
+    /**
+     * @return other addresses in the same stripe as the given address and, if requested, with the same home slot of the initial table
+     */
+    private static List<Long> addressesInStripeOf(long address, int count, boolean sameHomeSlot) {
+        def hash = LongIntHashMap.hash(address | LongIntHashMap.USED_SLOT)
+        def addresses = []
+        for (long candidate = 1; addresses.size() < count; candidate++) {
+            def candidateHash = LongIntHashMap.hash(candidate | LongIntHashMap.USED_SLOT)
+            if (candidate != address && (candidateHash >>> 28) == (hash >>> 28)
+                    && (!sameHomeSlot || (candidateHash & 15) == (hash & 15))) {
+                addresses.add(candidate)
+            }
+        }
+        addresses
+    }
+}
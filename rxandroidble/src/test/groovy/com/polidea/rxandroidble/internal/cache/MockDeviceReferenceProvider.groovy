@@ -2,6 +2,8 @@ package com.polidea.rxandroidble.internal.cache
 
 import com.polidea.rxandroidble.RxBleDevice
 
+import java.lang.ref.ReferenceQueue
+
 class MockDeviceReferenceProvider implements DeviceWeakReference.Provider {
 
 
@@ -9,12 +11,13 @@ class MockDeviceReferenceProvider implements DeviceWeakReference.Provider {
 
     class MockDeviceWeakReference extends DeviceWeakReference {
 
-        MockDeviceWeakReference(RxBleDevice device) {
-            super(device)
+        MockDeviceWeakReference(long key, RxBleDevice device, ReferenceQueue<? super RxBleDevice> referenceQueue) {
+            super(key, device, referenceQueue)
         }
 
         public release() {
             clear()
+            enqueue()
         }
 
         @Override
@@ -24,8 +27,8 @@ class MockDeviceReferenceProvider implements DeviceWeakReference.Provider {
     }
 
     @Override
-    DeviceWeakReference provide(RxBleDevice rxBleDevice) {
-        def reference = new MockDeviceWeakReference(rxBleDevice)
+    DeviceWeakReference provide(long key, RxBleDevice rxBleDevice, ReferenceQueue<? super RxBleDevice> referenceQueue) {
+        def reference = new MockDeviceWeakReference(key, rxBleDevice, referenceQueue)
         storeReference(rxBleDevice, reference)
         return reference
     }
@@ -34,6 +37,17 @@ class MockDeviceReferenceProvider implements DeviceWeakReference.Provider {
         devices.get(rxBleDevice)?.each { it.release() }
     }
 
+    /**
+     * Clears the references like the garbage collector does before they are enqueued.
+     */
+    public clearReferenceFor(RxBleDevice rxBleDevice) {
+        devices.get(rxBleDevice)?.each { it.clear() }
+    }
+
+    public enqueueReferenceFor(RxBleDevice rxBleDevice) {
+        devices.get(rxBleDevice)?.each { it.enqueue() }
+    }
+
     private storeReference(RxBleDevice rxBleDevice, MockDeviceWeakReference reference) {
 
         if (devices.containsKey(rxBleDevice)) {
@@ -0,0 +1,105 @@
+package com.polidea.rxandroidble.internal.cache
+
+import android.bluetooth.BluetoothGattCharacteristic
+import android.bluetooth.BluetoothGattDescriptor
+import android.bluetooth.BluetoothGattService
+import android.os.Build
+import com.polidea.rxandroidble.BuildConfig
+import com.polidea.rxandroidble.RxBleDeviceServices
+import org.robolectric.annotation.Config
+import org.robospock.GradleRoboSpecification
+
+@Config(manifest = Config.NONE, constants = BuildConfig, sdk = Build.VERSION_CODES.LOLLIPOP)
+class ServiceDiscoveryCacheTest extends GradleRoboSpecification {
+
+    public static final MAC_ADDRESS = "AA:BB:CC:DD:EE:FF"
+    public static final SERVICE_UUID = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    public static final CHARACTERISTIC_UUID = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+    public static final DESCRIPTOR_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb")
+    File directory = File.createTempDir()
+    ServiceDiscoveryCache objectUnderTest = new ServiceDiscoveryCache(directory, "1.0", false)
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "should return null if nothing was cached"() {
+
+        expect:
+        objectUnderTest.get(MAC_ADDRESS) == null
+    }
+
+    def "should read the stored services from the disk"() {
+
+        given:
+        objectUnderTest.put(MAC_ADDRESS, createServices())
+
+        when:
+        def services = new ServiceDiscoveryCache(directory, "1.0", false).get(MAC_ADDRESS).bluetoothGattServices
+
+        then:
+        services.size() == 1
+        services[0].uuid == SERVICE_UUID
+        services[0].type == BluetoothGattService.SERVICE_TYPE_PRIMARY
+        services[0].characteristics.size() == 1
+        services[0].characteristics[0].uuid == CHARACTERISTIC_UUID
+        services[0].characteristics[0].properties == BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_READ
+        services[0].characteristics[0].permissions == BluetoothGattCharacteristic.PERMISSION_READ
+        services[0].characteristics[0].descriptors.size() == 1
+        services[0].characteristics[0].descriptors[0].uuid == DESCRIPTOR_UUID
+        services[0].characteristics[0].descriptors[0].permissions == BluetoothGattDescriptor.PERMISSION_WRITE
+    }
+
+    def "should serve repeated lookups from memory"() {
+
+        given:
+        objectUnderTest.put(MAC_ADDRESS, createServices())
+        def reopenedCache = new ServiceDiscoveryCache(directory, "1.0", false)
+
+        expect:
+        reopenedCache.get(MAC_ADDRESS).is reopenedCache.get(MAC_ADDRESS)
+    }
+
+    def "should discard entries stored with a different version key"() {
+
+        given:
+        objectUnderTest.put(MAC_ADDRESS, createServices())
+
+        expect:
+        new ServiceDiscoveryCache(directory, "2.0", false).get(MAC_ADDRESS) == null
+    }
+
+    def "should return null after the entry was invalidated"() {
+
+        given:
+        objectUnderTest.put(MAC_ADDRESS, createServices())
+
+        when:
+        objectUnderTest.invalidate(MAC_ADDRESS)
+
+        then:
+        objectUnderTest.get(MAC_ADDRESS) == null
+        new ServiceDiscoveryCache(directory, "1.0", false).get(MAC_ADDRESS) == null
+    }
+
+    def "should discard a corrupted entry"() {
+
+        given:
+        objectUnderTest.put(MAC_ADDRESS, createServices())
+        directory.listFiles().each { it.bytes = [1, 2, 3] as byte[] }
+
+        expect:
+        new ServiceDiscoveryCache(directory, "1.0", false).get(MAC_ADDRESS) == null
+        directory.listFiles().length == 0
+    }
+
+    private static RxBleDeviceServices createServices() {
+        def service = new BluetoothGattService(SERVICE_UUID, BluetoothGattService.SERVICE_TYPE_PRIMARY)
+        def characteristic = new BluetoothGattCharacteristic(CHARACTERISTIC_UUID,
+                BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_READ,
+                BluetoothGattCharacteristic.PERMISSION_READ)
+        characteristic.addDescriptor(new BluetoothGattDescriptor(DESCRIPTOR_UUID, BluetoothGattDescriptor.PERMISSION_WRITE))
+        service.addCharacteristic(characteristic)
+        new RxBleDeviceServices([service])
+    }
+}
@@ -0,0 +1,98 @@
+package com.polidea.rxandroidble.internal.connection
+
+import spock.lang.Specification
+
+class CharacteristicChangedDispatchTableTest extends Specification {
+
+    def objectUnderTest = new CharacteristicChangedDispatchTable()
+
+    def "should dispatch the value only to listeners of the matching characteristic"() {
+
+        given:
+        def uuid = UUID.randomUUID()
+        def matchingListener = Mock CharacteristicChangedDispatchTable.Listener
+        def otherInstanceListener = Mock CharacteristicChangedDispatchTable.Listener
+        def otherUuidListener = Mock CharacteristicChangedDispatchTable.Listener
+        objectUnderTest.register(uuid, 1, matchingListener)
+        objectUnderTest.register(uuid, 2, otherInstanceListener)
+        objectUnderTest.register(UUID.randomUUID(), 1, otherUuidListener)
+        def value = [1, 2, 3] as byte[]
+
+        when:
+        def dispatched = objectUnderTest.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1, value)
+
+        then:
+        dispatched
+        1 * matchingListener.onCharacteristicChanged(value)
+        0 * otherInstanceListener.onCharacteristicChanged(_)
+        0 * otherUuidListener.onCharacteristicChanged(_)
+    }
+
+    def "should dispatch the value to all listeners of the characteristic"() {
+
+        given:
+        def uuid = UUID.randomUUID()
+        def firstListener = Mock CharacteristicChangedDispatchTable.Listener
+        def secondListener = Mock CharacteristicChangedDispatchTable.Listener
+        objectUnderTest.register(uuid, 1, firstListener)
+        objectUnderTest.register(uuid, 1, secondListener)
+
+        when:
+        objectUnderTest.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1, [1] as byte[])
+
+        then:
+        1 * firstListener.onCharacteristicChanged(_)
+        1 * secondListener.onCharacteristicChanged(_)
+    }
+
+    def "should not dispatch the value to unregistered listeners"() {
+
+        given:
+        def uuid = UUID.randomUUID()
+        def removedListener = Mock CharacteristicChangedDispatchTable.Listener
+        def remainingListener = Mock CharacteristicChangedDispatchTable.Listener
+        objectUnderTest.register(uuid, 1, removedListener)
+        objectUnderTest.register(uuid, 1, remainingListener)
+
+        when:
+        objectUnderTest.unregister(uuid, 1, removedListener)
+        objectUnderTest.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1, [1] as byte[])
+
+        then:
+        0 * removedListener.onCharacteristicChanged(_)
+        1 * remainingListener.onCharacteristicChanged(_)
+    }
+
+    def "should return false if there is no listener for the characteristic"() {
+
+        given:
+        def uuid = UUID.randomUUID()
+        def listener = Mock CharacteristicChangedDispatchTable.Listener
+        objectUnderTest.register(uuid, 1, listener)
+        objectUnderTest.unregister(uuid, 1, listener)
+
+        expect:
+        !objectUnderTest.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1, [1] as byte[])
+        objectUnderTest.isEmpty()
+    }
+
+    def "should keep routing all characteristics when the table grows and shrinks"() {
+
+        given:
+        def uuids = (0..<100).collect { UUID.randomUUID() }
+        def dispatchedIndexes = []
+        def listeners = (0..<100).collect { index ->
+            { value -> dispatchedIndexes.add(index) } as CharacteristicChangedDispatchTable.Listener
+        }
+        uuids.eachWithIndex { uuid, index -> objectUnderTest.register(uuid, index, listeners[index]) }
+        (0..<50).each { objectUnderTest.unregister(uuids[it], it, listeners[it]) }
+
+        when:
+        uuids.eachWithIndex { uuid, index ->
+            objectUnderTest.dispatch(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), index, [index] as byte[])
+        }
+
+        then:
+        dispatchedIndexes == (50..<100).toList()
+    }
+}
@@ -0,0 +1,285 @@
+package com.polidea.rxandroidble.internal.connection
+
+import android.content.Context
+import com.polidea.rxandroidble.RxBleConnection
+import com.polidea.rxandroidble.RxBleDevice
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ConnectionPoolTest extends Specification {
+
+    private static final long IDLE_TIMEOUT_MILLIS = 1000
+    private static final int LOW_PRIORITY = 0
+    private static final int HIGH_PRIORITY = 10
+
+    TestScheduler testScheduler = new TestScheduler()
+    def context = Mock Context
+    Map<String, PublishSubject<RxBleConnection>> links = [:]
+    Map<String, Integer> linkSubscriptionCounts = [:]
+    ConnectionPool objectUnderTest = new ConnectionPool(2, IDLE_TIMEOUT_MILLIS, testScheduler)
+
+    def "should connect the device when a slot is free"() {
+
+        given:
+        def device = mockDevice("AA:AA:AA:AA:AA:01")
+        def testSubscriber = new TestSubscriber<RxBleConnection>()
+
+        when:
+        objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe(testSubscriber)
+        def connection = emitConnection(device)
+
+        then:
+        testSubscriber.assertValue connection
+        objectUnderTest.activeConnectionCount == 1
+        objectUnderTest.pendingRequestCount == 0
+    }
+
+    def "should share the connection of a device between requests"() {
+
+        given:
+        def device = mockDevice("AA:AA:AA:AA:AA:01")
+        def firstSubscriber = new TestSubscriber<RxBleConnection>()
+        def secondSubscriber = new TestSubscriber<RxBleConnection>()
+        objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe(firstSubscriber)
+        def connection = emitConnection(device)
+
+        when:
+        objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe(secondSubscriber)
+
+        then:
+        secondSubscriber.assertValue connection
+        linkSubscriptionCounts[device.macAddress] == 1
+        objectUnderTest.activeConnectionCount == 1
+    }
+
+    def "should queue a request when all slots are in use"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        def waitingSubscriber = new TestSubscriber<RxBleConnection>()
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[1], context, false, LOW_PRIORITY).subscribe()
+
+        when:
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe(waitingSubscriber)
+
+        then:
+        !links.containsKey(devices[2].macAddress)
+        objectUnderTest.pendingRequestCount == 1
+        waitingSubscriber.assertNoValues()
+    }
+
+    def "should keep a released connection idle and close it after the idle timeout"() {
+
+        given:
+        def device = mockDevice("AA:AA:AA:AA:AA:01")
+        def subscription = objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe()
+
+        when:
+        subscription.unsubscribe()
+
+        then:
+        links[device.macAddress].hasObservers()
+        objectUnderTest.idleConnectionCount == 1
+
+        when:
+        testScheduler.advanceTimeBy(IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+
+        then:
+        !links[device.macAddress].hasObservers()
+        objectUnderTest.activeConnectionCount == 0
+    }
+
+    def "should reuse an idle connection without reconnecting"() {
+
+        given:
+        def device = mockDevice("AA:AA:AA:AA:AA:01")
+        objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe().unsubscribe()
+
+        when:
+        objectUnderTest.establishConnection(device, context, false, LOW_PRIORITY).subscribe()
+        testScheduler.advanceTimeBy(IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+
+        then:
+        linkSubscriptionCounts[device.macAddress] == 1
+        links[device.macAddress].hasObservers()
+        objectUnderTest.idleConnectionCount == 0
+    }
+
+    def "should serve waiting requests in priority order when a slot is freed"() {
+
+        given:
+        def devices = (1..4).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        objectUnderTest.establishConnection(devices[0], context, false, HIGH_PRIORITY).subscribe()
+        def subscription = objectUnderTest.establishConnection(devices[1], context, false, HIGH_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[3], context, false, HIGH_PRIORITY).subscribe()
+
+        when:
+        subscription.unsubscribe()
+
+        then:
+        links.containsKey(devices[3].macAddress)
+        !links.containsKey(devices[2].macAddress)
+        !links[devices[1].macAddress].hasObservers()
+        objectUnderTest.evictionCount == 1
+        objectUnderTest.pendingRequestCount == 1
+    }
+
+    def "should evict the least recently used idle connection for a request"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        def firstSubscription = objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe()
+        def secondSubscription = objectUnderTest.establishConnection(devices[1], context, false, LOW_PRIORITY).subscribe()
+        testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+        secondSubscription.unsubscribe()
+        testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+        firstSubscription.unsubscribe()
+
+        when:
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        then:
+        !links[devices[1].macAddress].hasObservers()
+        links[devices[0].macAddress].hasObservers()
+        links[devices[2].macAddress].hasObservers()
+        objectUnderTest.evictionCount == 1
+    }
+
+    def "should not evict an idle connection for a request of lower priority"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        objectUnderTest.establishConnection(devices[0], context, false, HIGH_PRIORITY).subscribe().unsubscribe()
+        objectUnderTest.establishConnection(devices[1], context, false, HIGH_PRIORITY).subscribe()
+
+        when:
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        then:
+        links[devices[0].macAddress].hasObservers()
+        !links.containsKey(devices[2].macAddress)
+        objectUnderTest.pendingRequestCount == 1
+
+        when:
+        testScheduler.advanceTimeBy(IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+
+        then:
+        links.containsKey(devices[2].macAddress)
+        objectUnderTest.evictionCount == 0
+        objectUnderTest.pendingRequestCount == 0
+    }
+
+    def "should evict an idle connection whose last user had a lower priority than an earlier one"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        objectUnderTest.establishConnection(devices[0], context, false, HIGH_PRIORITY).subscribe().unsubscribe()
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe().unsubscribe()
+        objectUnderTest.establishConnection(devices[1], context, false, HIGH_PRIORITY).subscribe()
+
+        when:
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        then:
+        !links[devices[0].macAddress].hasObservers()
+        links[devices[2].macAddress].hasObservers()
+        objectUnderTest.evictionCount == 1
+    }
+
+    def "should keep the priority of the remaining users when a user of higher priority releases the connection"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        def highPrioritySubscription = objectUnderTest.establishConnection(devices[0], context, false, HIGH_PRIORITY).subscribe()
+        def lowPrioritySubscription = objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[1], context, false, HIGH_PRIORITY).subscribe()
+        highPrioritySubscription.unsubscribe()
+        lowPrioritySubscription.unsubscribe()
+
+        when:
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        then:
+        !links[devices[0].macAddress].hasObservers()
+        links[devices[2].macAddress].hasObservers()
+    }
+
+    def "should remove a cancelled request from the queue"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[1], context, false, LOW_PRIORITY).subscribe()
+        def subscription = objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        when:
+        subscription.unsubscribe()
+
+        then:
+        objectUnderTest.pendingRequestCount == 0
+    }
+
+    def "should propagate the error of a link to all requests sharing it and free its slot"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        def firstSubscriber = new TestSubscriber<RxBleConnection>()
+        def secondSubscriber = new TestSubscriber<RxBleConnection>()
+        def error = new RuntimeException()
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe(firstSubscriber)
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe(secondSubscriber)
+        objectUnderTest.establishConnection(devices[1], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        when:
+        links[devices[0].macAddress].onError(error)
+
+        then:
+        firstSubscriber.assertError error
+        secondSubscriber.assertError error
+        links.containsKey(devices[2].macAddress)
+        objectUnderTest.activeConnectionCount == 2
+        objectUnderTest.evictionCount == 0
+    }
+
+    def "should measure the wait time of requests"() {
+
+        given:
+        def devices = (1..3).collect { mockDevice("AA:AA:AA:AA:AA:0$it") }
+        objectUnderTest.establishConnection(devices[0], context, false, LOW_PRIORITY).subscribe()
+        def subscription = objectUnderTest.establishConnection(devices[1], context, false, LOW_PRIORITY).subscribe()
+        objectUnderTest.establishConnection(devices[2], context, false, LOW_PRIORITY).subscribe()
+
+        when:
+        testScheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS)
+        subscription.unsubscribe()
+
+        then:
+        objectUnderTest.maxWaitTimeMillis == 300
+        objectUnderTest.averageWaitTimeMillis == 100
+    }
+
+    private RxBleDevice mockDevice(String macAddress) {
+        def device = Mock RxBleDevice
+        device.getMacAddress() >> macAddress
+        device.establishConnection(context, false) >> {
+            def link = PublishSubject.create()
+            links[macAddress] = link
+            linkSubscriptionCounts[macAddress] = linkSubscriptionCounts.get(macAddress, 0) + 1
+            link
+        }
+        device
+    }
+
+    private RxBleConnection emitConnection(RxBleDevice device) {
+        def connection = Mock RxBleConnection
+        links[device.macAddress].onNext(connection)
+        connection
+    }
+}
@@ -0,0 +1,228 @@
+package com.polidea.rxandroidble.internal.connection
+
+import android.bluetooth.BluetoothGattCharacteristic
+import android.bluetooth.BluetoothGattDescriptor
+import android.bluetooth.BluetoothGattService
+import com.polidea.rxandroidble.NotificationSetupMode
+import com.polidea.rxandroidble.RxBleConnection
+import com.polidea.rxandroidble.RxBleDeviceServices
+import com.polidea.rxandroidble.RxBleReconnectionPolicy
+import com.polidea.rxandroidble.exceptions.BleDescriptorNotFoundException
+import com.polidea.rxandroidble.exceptions.BleDisconnectedException
+import rx.Observable
+import rx.functions.Func0
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.TimeUnit
+
+class ReconnectingConnectionTest extends Specification {
+
+    private static final String MAC_ADDRESS = "AA:BB:CC:DD:EE:FF"
+    private static final UUID SERVICE_UUID = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID CHARACTERISTIC_UUID = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+    private static final UUID DESCRIPTOR_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb")
+
+    TestScheduler testScheduler = new TestScheduler()
+    def random = Stub(Random) {
+        nextDouble() >> 1.0d
+    }
+    def firstLink = Mock RxBleConnection
+    def secondLink = Mock RxBleConnection
+    List<PublishSubject<RxBleConnection>> links = []
+    Observable<RxBleConnection> linkObservable = Observable.defer({
+        PublishSubject<RxBleConnection> link = PublishSubject.create()
+        links << link
+        link
+    } as Func0<Observable<RxBleConnection>>)
+    TestSubscriber<RxBleConnection> testSubscriber = new TestSubscriber<>()
+
+    def "should emit the connection once and reconnect after the backoff when the link is lost"() {
+
+        given:
+        establish(policyBuilder().build())
+        links[0].onNext(firstLink)
+
+        when:
+        links[0].onError(new BleDisconnectedException(MAC_ADDRESS))
+        testScheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS)
+
+        then:
+        links.size() == 1
+
+        when:
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+        links[1].onNext(secondLink)
+
+        then:
+        links.size() == 2
+        testSubscriber.assertValueCount(1)
+        testSubscriber.assertNoErrors()
+    }
+
+    def "should execute operations requested while reconnecting on the next link"() {
+
+        given:
+        establish(policyBuilder().build())
+        links[0].onNext(firstLink)
+        def connection = testSubscriber.onNextEvents[0]
+        def rssiSubscriber = new TestSubscriber<Integer>()
+        links[0].onError(new BleDisconnectedException(MAC_ADDRESS))
+
+        when:
+        connection.readRssi().subscribe(rssiSubscriber)
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        links[1].onNext(secondLink)
+
+        then:
+        0 * firstLink.readRssi()
+        1 * secondLink.readRssi() >> Observable.just(-50)
+        rssiSubscriber.assertValue(-50)
+    }
+
+    def "should set up the notification again on the next link and continue emitting the notifications"() {
+
+        given:
+        def firstNotifications = PublishSubject.create()
+        def secondNotifications = PublishSubject.create()
+        firstLink.setupNotification(CHARACTERISTIC_UUID, NotificationSetupMode.DEFAULT) >> Observable.just(firstNotifications)
+        secondLink.setupNotification(CHARACTERISTIC_UUID, NotificationSetupMode.DEFAULT) >> Observable.just(secondNotifications)
+        establish(policyBuilder().build())
+        links[0].onNext(firstLink)
+        def setupSubscriber = new TestSubscriber<Observable<byte[]>>()
+        def notificationSubscriber = new TestSubscriber<byte[]>()
+        testSubscriber.onNextEvents[0].setupNotification(CHARACTERISTIC_UUID).subscribe(setupSubscriber)
+        setupSubscriber.onNextEvents[0].subscribe(notificationSubscriber)
+        firstNotifications.onNext([1] as byte[])
+
+        when:
+        firstNotifications.onError(new BleDisconnectedException(MAC_ADDRESS))
+        links[0].onError(new BleDisconnectedException(MAC_ADDRESS))
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        links[1].onNext(secondLink)
+        secondNotifications.onNext([2] as byte[])
+
+        then:
+        setupSubscriber.assertValueCount(1)
+        setupSubscriber.assertNoErrors()
+        notificationSubscriber.assertNoErrors()
+        notificationSubscriber.onNextEvents*.toList() == [[1], [2]]
+    }
+
+    def "should emit BleDescriptorNotFoundException if the characteristic of the link has no descriptor with matching UUID"() {
+
+        given:
+        def previousService = Mock BluetoothGattService
+        def previousCharacteristic = Mock BluetoothGattCharacteristic
+        def previousDescriptor = Mock BluetoothGattDescriptor
+        previousService.getUuid() >> SERVICE_UUID
+        previousCharacteristic.getService() >> previousService
+        previousCharacteristic.getUuid() >> CHARACTERISTIC_UUID
+        previousDescriptor.getCharacteristic() >> previousCharacteristic
+        previousDescriptor.getUuid() >> DESCRIPTOR_UUID
+        def service = Mock BluetoothGattService
+        def characteristic = Mock BluetoothGattCharacteristic
+        service.getUuid() >> SERVICE_UUID
+        service.getCharacteristics() >> [characteristic]
+        characteristic.getUuid() >> CHARACTERISTIC_UUID
+        firstLink.discoverServices() >> Observable.just(new RxBleDeviceServices([service]))
+        establish(policyBuilder().build())
+        links[0].onNext(firstLink)
+        def descriptorSubscriber = new TestSubscriber<byte[]>()
+
+        when:
+        testSubscriber.onNextEvents[0].readDescriptor(previousDescriptor).subscribe(descriptorSubscriber)
+
+        then:
+        1 * characteristic.getDescriptor(DESCRIPTOR_UUID) >> null
+        0 * firstLink.readDescriptor(_ as BluetoothGattDescriptor)
+        descriptorSubscriber.assertError(BleDescriptorNotFoundException)
+        descriptorSubscriber.assertError { it.descriptorUUID == DESCRIPTOR_UUID }
+    }
+
+    def "should propagate an error that is not caused by a loss of the link"() {
+
+        given:
+        def error = new RuntimeException()
+        establish(policyBuilder().build())
+
+        when:
+        links[0].onError(error)
+        testScheduler.advanceTimeBy(1, TimeUnit.MINUTES)
+
+        then:
+        testSubscriber.assertError(error)
+        links.size() == 1
+    }
+
+    def "should propagate the error of the link after the reconnection attempts were exhausted"() {
+
+        given:
+        def error = new BleDisconnectedException(MAC_ADDRESS)
+        establish(policyBuilder().setMaxAttempts(2).build())
+
+        when:
+        links[0].onError(error)
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        links[1].onError(error)
+        testScheduler.advanceTimeBy(2000, TimeUnit.MILLISECONDS)
+        links[2].onError(error)
+
+        then:
+        testSubscriber.assertError(error)
+        links.size() == 3
+    }
+
+    @Unroll
+    def "should delay the attempt #attempt by #expectedDelayMillis ms"() {
+
+        given:
+        def policy = policyBuilder().build()
+
+        expect:
+        ReconnectingConnection.computeDelayMillis(policy, attempt, random) == expectedDelayMillis
+
+        where:
+        attempt | expectedDelayMillis
+        1       | 1000
+        2       | 2000
+        3       | 4000
+        4       | 8000
+        5       | 8000
+        100     | 8000
+    }
+
+    @Unroll
+    def "should delay the attempt #attempt by the maximum delay if the shifted initial delay would overflow"() {
+
+        given:
+        def policy = new RxBleReconnectionPolicy.Builder().setBackoff((1L << 34) + 1, 1L << 40).build()
+
+        expect:
+        ReconnectingConnection.computeDelayMillis(policy, attempt, random) == 1L << 40
+
+        where:
+        attempt << [30, 31, 100]
+    }
+
+    def "should randomize the delay between the half and the whole of the backoff"() {
+
+        given:
+        def policy = policyBuilder().build()
+        def randomizedDelays = (1..100).collect { ReconnectingConnection.computeDelayMillis(policy, 3, new Random()) }
+
+        expect:
+        randomizedDelays.every { it >= 2000 && it <= 4000 }
+    }
+
+    private void establish(RxBleReconnectionPolicy policy) {
+        ReconnectingConnection.establish(MAC_ADDRESS, linkObservable, policy, testScheduler, random).subscribe(testSubscriber)
+    }
+
+    private static RxBleReconnectionPolicy.Builder policyBuilder() {
+        new RxBleReconnectionPolicy.Builder().setBackoff(1000, 8000)
+    }
+}
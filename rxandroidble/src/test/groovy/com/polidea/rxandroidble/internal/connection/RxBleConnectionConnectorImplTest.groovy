@@ -22,6 +22,7 @@ import spock.lang.Unroll
 public class RxBleConnectionConnectorImplTest extends Specification {
 
     RxBleRadio mockRadio = Mock RxBleRadio
+    RxBleRadio.ConnectionRadioProvider mockConnectionRadioProvider = Mock RxBleRadio.ConnectionRadioProvider
     BluetoothDevice mockDevice = Mock BluetoothDevice
     RxBleGattCallback mockCallback = Mock RxBleGattCallback
     RxBleGattCallback.Provider mockCallbackProvider = Mock RxBleGattCallback.Provider
@@ -37,6 +38,7 @@ public class RxBleConnectionConnectorImplTest extends Specification {
 
     def setup() {
         mockCallbackProvider.provide() >> mockCallback
+        mockConnectionRadioProvider.provideConnectionRadio() >> mockRadio
         mockOperationsProvider.provide(*_) >> new RxBleOperations(mockConnect, mockDisconnect)
 
         objectUnderTest = new RxBleConnectionConnectorImpl(
@@ -44,6 +46,7 @@ public class RxBleConnectionConnectorImplTest extends Specification {
                 mockCallbackProvider,
                 mockOperationsProvider,
                 mockRadio,
+                mockConnectionRadioProvider,
                 mockConnectionCompat,
                 mockAdapterWrapper,
                 adapterStatePublishSubject
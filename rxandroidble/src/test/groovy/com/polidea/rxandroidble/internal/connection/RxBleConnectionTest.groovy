@@ -1,5 +1,6 @@
 package com.polidea.rxandroidble.internal.connection
 
+import android.bluetooth.BluetoothDevice
 import android.bluetooth.BluetoothGatt
 import android.bluetooth.BluetoothGattCharacteristic
 import android.bluetooth.BluetoothGattDescriptor
@@ -7,11 +8,13 @@ import android.bluetooth.BluetoothGattService
 import android.os.Build
 import com.polidea.rxandroidble.*
 import com.polidea.rxandroidble.exceptions.*
+import com.polidea.rxandroidble.internal.cache.ServiceDiscoveryCache
 import com.polidea.rxandroidble.internal.util.ByteAssociation
-import com.polidea.rxandroidble.internal.util.CharacteristicChangedEvent
 import org.robolectric.annotation.Config
 import org.robospock.GradleRoboSpecification
 import rx.observers.TestSubscriber
+import rx.schedulers.Schedulers
+import rx.schedulers.TestScheduler
 import rx.subjects.BehaviorSubject
 import rx.subjects.PublishSubject
 import spock.lang.Unroll
@@ -118,7 +121,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
 
     def "should return cached services during service discovery"() {
         given:
-        def expectedServices = [Mock(BluetoothGattService), Mock(BluetoothGattService)]
+        def expectedServices = [mockServiceWithCharacteristics(), mockServiceWithCharacteristics()]
         shouldSuccessfullyStartDiscovery()
 
         when:
@@ -134,7 +137,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
 
     def "should return services instantly if they were already discovered and are in BluetoothGatt cache"() {
         given:
-        def services = [Mock(BluetoothGattService), Mock(BluetoothGattService)]
+        def services = [mockServiceWithCharacteristics(), mockServiceWithCharacteristics()]
         bluetoothGattMock.getServices() >> services
 
         when:
@@ -148,7 +151,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
 
     def "should try to discover services if there are no services cached within BluetoothGatt"() {
         given:
-        def services = [Mock(BluetoothGattService), Mock(BluetoothGattService)]
+        def services = [mockServiceWithCharacteristics(), mockServiceWithCharacteristics()]
         shouldSuccessfullyStartDiscovery()
         shouldGattContainNoServices()
         gattCallback.getOnServicesDiscovered() >> just(new RxBleDeviceServices(services))
@@ -162,6 +165,82 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         1 * bluetoothGattMock.discoverServices() >> true
     }
 
+    def "should store the discovered services in the service discovery cache on the I/O scheduler"() {
+        given:
+        def serviceDiscoveryCache = Mock ServiceDiscoveryCache
+        def ioScheduler = new TestScheduler()
+        def connection = new RxBleConnectionImpl(flatRadio, gattCallback, bluetoothGattMock, serviceDiscoveryCache, ioScheduler)
+        def services = [mockServiceWithCharacteristics(), mockServiceWithCharacteristics()]
+        shouldGattReturnDevice("AA:BB:CC:DD:EE:FF")
+        shouldGattContainServices(services)
+
+        when:
+        connection.discoverServices().subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertServices services
+        0 * serviceDiscoveryCache.put(_, _)
+
+        when:
+        ioScheduler.triggerActions()
+
+        then:
+        1 * serviceDiscoveryCache.put("AA:BB:CC:DD:EE:FF", { it.bluetoothGattServices == services })
+    }
+
+    def "should enable the indication of the Service Changed characteristic once the services are discovered"() {
+        given:
+        def serviceDiscoveryCache = Mock ServiceDiscoveryCache
+        def connection = new RxBleConnectionImpl(flatRadio, gattCallback, bluetoothGattMock, serviceDiscoveryCache, Schedulers.immediate())
+        def characteristic = mockCharacteristicWithValue(uuid: RxBleConnectionImpl.SERVICE_CHANGED_UUID, instanceId: 1, value: EMPTY_DATA)
+        def descriptor = mockDescriptorAndAttachToCharacteristic(characteristic)
+        shouldGattReturnDevice("AA:BB:CC:DD:EE:FF")
+        shouldGattContainServiceWithCharacteristic(characteristic, RxBleConnectionImpl.SERVICE_CHANGED_UUID)
+        shouldReturnStartingStatusAndEmitDescriptorWriteCallback(descriptor, { true })
+        gattCallback.getOnCharacteristicChanged(RxBleConnectionImpl.SERVICE_CHANGED_UUID, 1) >> PublishSubject.create()
+        serviceDiscoveryCache.isRevalidatedOnConnection() >> false
+        connection.maintainServiceDiscoveryCache().subscribe()
+
+        when:
+        connection.discoverServices().subscribe()
+
+        then:
+        1 * bluetoothGattMock.setCharacteristicNotification(characteristic, true) >> true
+        1 * bluetoothGattMock.writeDescriptor({ it.value == BluetoothGattDescriptor.ENABLE_INDICATION_VALUE }) >> true
+    }
+
+    def "should invalidate the cached services and discover them again after the device indicated a change of its services"() {
+        given:
+        def serviceDiscoveryCache = Mock ServiceDiscoveryCache
+        def connection = new RxBleConnectionImpl(flatRadio, gattCallback, bluetoothGattMock, serviceDiscoveryCache, Schedulers.immediate())
+        def characteristic = mockCharacteristicWithValue(uuid: RxBleConnectionImpl.SERVICE_CHANGED_UUID, instanceId: 1, value: EMPTY_DATA)
+        def descriptor = mockDescriptorAndAttachToCharacteristic(characteristic)
+        def services = [mockServiceWithCharacteristics(characteristic)]
+        def serviceChanges = PublishSubject.create()
+        shouldGattReturnDevice("AA:BB:CC:DD:EE:FF")
+        shouldGattContainServices(services)
+        gattCallback.getOnServicesDiscovered() >> just(new RxBleDeviceServices(services))
+        shouldReturnStartingStatusAndEmitDescriptorWriteCallback(descriptor, {
+            it.onNext(ByteAssociation.create(descriptor, EMPTY_DATA))
+            it.onCompleted()
+            true
+        })
+        bluetoothGattMock.setCharacteristicNotification(characteristic, _) >> true
+        gattCallback.getOnCharacteristicChanged(RxBleConnectionImpl.SERVICE_CHANGED_UUID, 1) >> serviceChanges
+        serviceDiscoveryCache.isRevalidatedOnConnection() >> false
+        connection.maintainServiceDiscoveryCache().subscribe()
+        connection.discoverServices().subscribe()
+
+        when:
+        serviceChanges.onNext([0x01, 0x00, 0xFF, 0xFF] as byte[])
+        connection.discoverServices().subscribe(testSubscriber)
+
+        then:
+        1 * serviceDiscoveryCache.invalidate("AA:BB:CC:DD:EE:FF")
+        1 * bluetoothGattMock.discoverServices() >> true
+        testSubscriber.assertServices services
+    }
+
     def "should emit BleCharacteristicNotFoundException during read operation if no services were found"() {
         given:
         shouldGattCallbackReturnServicesOnDiscovery([])
@@ -176,10 +255,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
 
     def "should emit BleCharacteristicNotFoundException during read operation if characteristic was not found"() {
         given:
-        def service = Mock BluetoothGattService
-        shouldGattCallbackReturnServicesOnDiscovery([service])
-        shouldGattContainServices([service])
-        service.getCharacteristic(_) >> null
+        shouldContainOneServiceWithoutCharacteristics()
 
         when:
         objectUnderTest.readCharacteristic(CHARACTERISTIC_UUID).subscribe(testSubscriber)
@@ -191,9 +267,9 @@ class RxBleConnectionTest extends GradleRoboSpecification {
 
     def "should read first found characteristic with matching UUID"() {
         given:
-        def service = Mock BluetoothGattService
-        shouldServiceContainCharacteristic(service, CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID, NOT_EMPTY_DATA)
-        shouldServiceContainCharacteristic(service, OTHER_UUID, OTHER_INSTANCE_ID, OTHER_DATA)
+        def service = mockServiceWithCharacteristics(
+                mockCharacteristicWithValue(uuid: CHARACTERISTIC_UUID, instanceId: CHARACTERISTIC_INSTANCE_ID, value: NOT_EMPTY_DATA),
+                mockCharacteristicWithValue(uuid: OTHER_UUID, instanceId: OTHER_INSTANCE_ID, value: OTHER_DATA))
         shouldGattCallbackReturnServicesOnDiscovery([service])
         shouldGattContainNoServices()
         shouldGattCallbackReturnDataOnRead(
@@ -415,7 +491,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     @Unroll
     def "should register notifications according in compatibility where client descriptor is not present"() {
         given:
-        gattCallback.getOnCharacteristicChanged() >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(_, _) >> PublishSubject.create()
         def characteristic = mockCharacteristicWithValue(uuid: CHARACTERISTIC_UUID, instanceId: CHARACTERISTIC_INSTANCE_ID, value: EMPTY_DATA)
         shouldGattContainServiceWithCharacteristic(characteristic, CHARACTERISTIC_UUID)
 
@@ -439,9 +515,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     def "should notify about value change and stay subscribed"() {
         given:
         def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
-        gattCallback.getOnCharacteristicChanged() >> from(changeNotifications.collect {
-            new CharacteristicChangedEvent(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID, it)
-        })
+        gattCallback.getOnCharacteristicChanged(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID) >> from(changeNotifications)
 
         when:
         setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(testSubscriber)
@@ -467,7 +541,8 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     def "should not notify about value change if UUID and / or instanceId is not matching"() {
         given:
         def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
-        gattCallback.getOnCharacteristicChanged() >> just(otherCharacteristicNotificationId)
+        gattCallback.getOnCharacteristicChanged(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID) >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(otherCharacteristicId[0], otherCharacteristicId[1]) >> just(NOT_EMPTY_DATA)
 
         when:
         setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(testSubscriber)
@@ -477,16 +552,16 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         testSubscriber.assertNotCompleted()
 
         where:
-        [setupTriggerNotificationClosure, otherCharacteristicNotificationId] << [
+        [setupTriggerNotificationClosure, otherCharacteristicId] << [
                 [
                         setupNotificationUuidClosure,
                         setupIndicationUuidClosure,
                         setupNotificationCharacteristicClosure,
                         setupIndicationCharacteristicClosure
                 ], [
-                        new CharacteristicChangedEvent(CHARACTERISTIC_UUID, OTHER_INSTANCE_ID, NOT_EMPTY_DATA),
-                        new CharacteristicChangedEvent(OTHER_UUID, CHARACTERISTIC_INSTANCE_ID, NOT_EMPTY_DATA),
-                        new CharacteristicChangedEvent(OTHER_UUID, OTHER_INSTANCE_ID, NOT_EMPTY_DATA)
+                        [CHARACTERISTIC_UUID, OTHER_INSTANCE_ID],
+                        [OTHER_UUID, CHARACTERISTIC_INSTANCE_ID],
+                        [OTHER_UUID, OTHER_INSTANCE_ID]
                 ]
         ].combinations()
     }
@@ -498,7 +573,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         def characteristic = mockCharacteristicWithValue(uuid: CHARACTERISTIC_UUID, instanceId: CHARACTERISTIC_INSTANCE_ID, value: EMPTY_DATA)
         def descriptor = mockDescriptorAndAttachToCharacteristic(characteristic)
         shouldGattContainServiceWithCharacteristic(characteristic, CHARACTERISTIC_UUID)
-        gattCallback.getOnCharacteristicChanged() >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(_, _) >> PublishSubject.create()
 
         def descriptorWriteSubject = shouldReturnStartingStatusAndEmitDescriptorWriteCallback(descriptor)
         bluetoothGattMock.setCharacteristicNotification(characteristic, _) >> false
@@ -533,7 +608,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         def characteristic = mockCharacteristicWithValue(uuid: CHARACTERISTIC_UUID, instanceId: CHARACTERISTIC_INSTANCE_ID, value: EMPTY_DATA)
         def descriptor = mockDescriptorAndAttachToCharacteristic(characteristic)
         shouldGattContainServiceWithCharacteristic(characteristic, CHARACTERISTIC_UUID)
-        gattCallback.getOnCharacteristicChanged() >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(_, _) >> PublishSubject.create()
 
         def descriptorWriteSubject = shouldReturnStartingStatusAndEmitDescriptorWriteCallback(descriptor)
         bluetoothGattMock.setCharacteristicNotification(characteristic, _) >> true
@@ -571,17 +646,49 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         given:
         def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
         def characteristicChangeSubject = PublishSubject.create()
-        gattCallback.getOnCharacteristicChanged() >> characteristicChangeSubject
+        gattCallback.getOnCharacteristicChanged(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID) >> characteristicChangeSubject
+        def secondSubscriber = new TestSubscriber()
+        setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(testSubscriber)
+        setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(secondSubscriber)
+
+        when:
+        characteristicChangeSubject.onNext(NOT_EMPTY_DATA)
+
+        then:
+        testSubscriber.assertValue(NOT_EMPTY_DATA)
+        secondSubscriber.assertValue(NOT_EMPTY_DATA)
+
+        where:
+        setupTriggerNotificationClosure << [
+                setupNotificationUuidClosure,
+                setupIndicationUuidClosure,
+                setupNotificationCharacteristicClosure,
+                setupIndicationCharacteristicClosure
+        ]
+    }
+
+    @Unroll
+    def "should subscribe to characteristic changes only once for all subscribers"() {
+        given:
+        def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
+        def characteristicChangeSubject = PublishSubject.create()
+        def upstreamSubscriptionsCount = 0
+        gattCallback.getOnCharacteristicChanged(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID) >> characteristicChangeSubject
+                .doOnSubscribe({ upstreamSubscriptionsCount++ })
         def secondSubscriber = new TestSubscriber()
+        def thirdSubscriber = new TestSubscriber()
         setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(testSubscriber)
         setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(secondSubscriber)
+        setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({ it }).subscribe(thirdSubscriber)
 
         when:
-        characteristicChangeSubject.onNext(new CharacteristicChangedEvent(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID, NOT_EMPTY_DATA))
+        characteristicChangeSubject.onNext(NOT_EMPTY_DATA)
 
         then:
+        upstreamSubscriptionsCount == 1
         testSubscriber.assertValue(NOT_EMPTY_DATA)
         secondSubscriber.assertValue(NOT_EMPTY_DATA)
+        thirdSubscriber.assertValue(NOT_EMPTY_DATA)
 
         where:
         setupTriggerNotificationClosure << [
@@ -596,7 +703,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     def "should unregister notifications after all observers are unsubscribed"() {
         given:
         def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
-        gattCallback.getOnCharacteristicChanged() >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(_, _) >> PublishSubject.create()
         def secondSubscriber = new TestSubscriber()
         def firstSubscription = setupTriggerNotificationClosure.call(objectUnderTest, characteristic).flatMap({
             it
@@ -632,7 +739,7 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     def "should emit BleCharacteristicNotificationOfOtherTypeAlreadySetException if notification is set up after indication on the same characteristic"() {
         given:
         def characteristic = shouldSetupCharacteristicNotificationCorrectly(CHARACTERISTIC_UUID, CHARACTERISTIC_INSTANCE_ID)
-        gattCallback.getOnCharacteristicChanged() >> PublishSubject.create()
+        gattCallback.getOnCharacteristicChanged(_, _) >> PublishSubject.create()
         def secondSubscriber = new TestSubscriber()
 
         when:
@@ -676,11 +783,18 @@ class RxBleConnectionTest extends GradleRoboSpecification {
     }
 
     public shouldGattContainServiceWithCharacteristic(BluetoothGattCharacteristic characteristic, UUID characteristicUUID = CHARACTERISTIC_UUID) {
-        shouldContainOneServiceWithoutCharacteristics().getCharacteristic(characteristicUUID) >> characteristic
+        if (characteristic == null) {
+            return shouldContainOneServiceWithoutCharacteristics()
+        }
+        characteristic.getUuid() >> characteristicUUID
+        shouldContainOneService(mockServiceWithCharacteristics(characteristic))
     }
 
     public shouldContainOneServiceWithoutCharacteristics() {
-        def service = Mock BluetoothGattService
+        shouldContainOneService(mockServiceWithCharacteristics())
+    }
+
+    public shouldContainOneService(BluetoothGattService service) {
         shouldGattCallbackReturnServicesOnDiscovery([service])
         shouldGattContainServices([service])
         service
@@ -699,8 +813,10 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         descriptorSubject
     }
 
-    public shouldServiceContainCharacteristic(BluetoothGattService service, UUID uuid, int instanceId, byte[] characteristicValue) {
-        service.getCharacteristic(uuid) >> mockCharacteristicWithValue(uuid: uuid, instanceId: instanceId, value: characteristicValue)
+    public mockServiceWithCharacteristics(BluetoothGattCharacteristic... characteristics) {
+        def service = Mock BluetoothGattService
+        service.getCharacteristics() >> (characteristics as List)
+        service
     }
 
     public shouldGattCallbackReturnDataOnRead(Map... parameters) {
@@ -719,6 +835,12 @@ class RxBleConnectionTest extends GradleRoboSpecification {
         bluetoothGattMock.getServices() >> list
     }
 
+    public shouldGattReturnDevice(String macAddress) {
+        def device = Mock BluetoothDevice
+        device.getAddress() >> macAddress
+        bluetoothGattMock.getDevice() >> device
+    }
+
     public shouldGattContainNoServices() {
         shouldGattContainServices(emptyList())
     }
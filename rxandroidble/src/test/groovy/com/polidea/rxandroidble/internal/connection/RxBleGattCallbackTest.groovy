@@ -31,12 +31,15 @@ class RxBleGattCallbackTest extends RoboSpecification {
     @Shared def mockBluetoothGattDescriptor = Mock BluetoothGattDescriptor
     @Shared def mockBluetoothDevice = Mock BluetoothDevice
     @Shared def mockBluetoothDeviceMacAddress = "MacAddress"
+    @Shared def mockCharacteristicUuid = UUID.fromString("f301f518-5414-471c-8a7b-1ef6d1702cb0")
 
     def setupSpec() {
         RxJavaHooks.reset()
         RxJavaHooks.setOnComputationScheduler({ ImmediateScheduler.INSTANCE })
         mockBluetoothGatt.getDevice() >> mockBluetoothDevice
+        mockBluetoothGatt.getServices() >> []
         mockBluetoothDevice.getAddress() >> mockBluetoothDeviceMacAddress
+        mockBluetoothGattCharacteristic.getUuid() >> mockCharacteristicUuid
     }
 
     def teardownSpec() {
@@ -67,6 +70,7 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { return (it as RxBleGattCallback).getOnServicesDiscovered() },
                 { return (it as RxBleGattCallback).getOnCharacteristicRead() },
                 { return (it as RxBleGattCallback).getOnCharacteristicWrite() },
+                { return (it as RxBleGattCallback).getOnCharacteristicWriteUuid() },
                 { return (it as RxBleGattCallback).getOnCharacteristicChanged() },
                 { return (it as RxBleGattCallback).getOnDescriptorRead() },
                 { return (it as RxBleGattCallback).getOnDescriptorWrite() },
@@ -77,6 +81,7 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { (it as BluetoothGattCallback).onServicesDiscovered(mockBluetoothGatt, GATT_SUCCESS) },
                 { (it as BluetoothGattCallback).onCharacteristicRead(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_SUCCESS) },
                 { (it as BluetoothGattCallback).onCharacteristicWrite(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_SUCCESS) },
+                { (it as BluetoothGattCallback).onCharacteristicWrite(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_SUCCESS) },
                 { (it as BluetoothGattCallback).onCharacteristicChanged(mockBluetoothGatt, mockBluetoothGattCharacteristic) },
                 { (it as BluetoothGattCallback).onDescriptorRead(mockBluetoothGatt, mockBluetoothGattDescriptor, GATT_SUCCESS) },
                 { (it as BluetoothGattCallback).onDescriptorWrite(mockBluetoothGatt, mockBluetoothGattDescriptor, GATT_SUCCESS) },
@@ -213,6 +218,7 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { return (it as RxBleGattCallback).getOnServicesDiscovered() },
                 { return (it as RxBleGattCallback).getOnCharacteristicRead() },
                 { return (it as RxBleGattCallback).getOnCharacteristicWrite() },
+                { return (it as RxBleGattCallback).getOnCharacteristicWriteUuid() },
                 { return (it as RxBleGattCallback).getOnCharacteristicChanged() },
                 { return (it as RxBleGattCallback).getOnDescriptorRead() },
                 { return (it as RxBleGattCallback).getOnDescriptorWrite() },
@@ -237,6 +243,7 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { (it as RxBleGattCallback).getOnServicesDiscovered() },
                 { (it as RxBleGattCallback).getOnCharacteristicRead() },
                 { (it as RxBleGattCallback).getOnCharacteristicWrite() },
+                { (it as RxBleGattCallback).getOnCharacteristicWriteUuid() },
                 { (it as RxBleGattCallback).getOnDescriptorRead() },
                 { (it as RxBleGattCallback).getOnDescriptorWrite() },
                 { (it as RxBleGattCallback).getOnRssiRead() }
@@ -245,6 +252,7 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { (it as BluetoothGattCallback).onServicesDiscovered(mockBluetoothGatt, GATT_FAILURE) },
                 { (it as BluetoothGattCallback).onCharacteristicRead(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_FAILURE) },
                 { (it as BluetoothGattCallback).onCharacteristicWrite(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_FAILURE) },
+                { (it as BluetoothGattCallback).onCharacteristicWrite(mockBluetoothGatt, mockBluetoothGattCharacteristic, GATT_FAILURE) },
                 { (it as BluetoothGattCallback).onDescriptorRead(mockBluetoothGatt, mockBluetoothGattDescriptor, GATT_FAILURE) },
                 { (it as BluetoothGattCallback).onDescriptorWrite(mockBluetoothGatt, mockBluetoothGattDescriptor, GATT_FAILURE) },
                 { (it as BluetoothGattCallback).onReadRemoteRssi(mockBluetoothGatt, 1, GATT_FAILURE) }
@@ -253,10 +261,59 @@ class RxBleGattCallbackTest extends RoboSpecification {
                 { (it as TestSubscriber).assertError { it instanceof BleGattException && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
                 { (it as TestSubscriber).assertError { it instanceof BleGattCharacteristicException && it.characteristic == mockBluetoothGattCharacteristic && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
                 { (it as TestSubscriber).assertError { it instanceof BleGattCharacteristicException && it.characteristic == mockBluetoothGattCharacteristic && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
+                { (it as TestSubscriber).assertError { it instanceof BleGattCharacteristicException && it.characteristic == mockBluetoothGattCharacteristic && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
                 { (it as TestSubscriber).assertError { it instanceof BleGattDescriptorException && it.descriptor == mockBluetoothGattDescriptor && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
                 { (it as TestSubscriber).assertError { it instanceof BleGattDescriptorException && it.descriptor == mockBluetoothGattDescriptor && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } },
                 { (it as TestSubscriber).assertError { it instanceof BleGattException && it.getMacAddress().equals(mockBluetoothDeviceMacAddress) } }
         ]
     }
 
+    def "getOnCharacteristicChanged(UUID, int) should emit values only of the matching characteristic"() {
+
+        given:
+        def otherUuid = UUID.fromString("a8f2a1a4-6d1a-4b57-8d24-7a8a3f0c1d55")
+        objectUnderTest.getOnCharacteristicChanged(mockCharacteristicUuid, 1).subscribe(testSubscriber)
+
+        when:
+        objectUnderTest.getBluetoothGattCallback().onCharacteristicChanged(mockBluetoothGatt, mockCharacteristic(mockCharacteristicUuid, 1, [1] as byte[]))
+        objectUnderTest.getBluetoothGattCallback().onCharacteristicChanged(mockBluetoothGatt, mockCharacteristic(mockCharacteristicUuid, 2, [2] as byte[]))
+        objectUnderTest.getBluetoothGattCallback().onCharacteristicChanged(mockBluetoothGatt, mockCharacteristic(otherUuid, 1, [3] as byte[]))
+
+        then:
+        testSubscriber.assertValueCount(1)
+        testSubscriber.getOnNextEvents()[0] == [1] as byte[]
+    }
+
+    def "getOnCharacteristicChanged(UUID, int) should not emit values after unsubscribe"() {
+
+        given:
+        def subscription = objectUnderTest.getOnCharacteristicChanged(mockCharacteristicUuid, 1).subscribe(testSubscriber)
+
+        when:
+        subscription.unsubscribe()
+        objectUnderTest.getBluetoothGattCallback().onCharacteristicChanged(mockBluetoothGatt, mockCharacteristic(mockCharacteristicUuid, 1, [1] as byte[]))
+
+        then:
+        testSubscriber.assertNoValues()
+    }
+
+    def "getOnCharacteristicChanged(UUID, int) should emit error on disconnection"() {
+
+        given:
+        objectUnderTest.getOnCharacteristicChanged(mockCharacteristicUuid, 1).subscribe(testSubscriber)
+
+        when:
+        objectUnderTest.getBluetoothGattCallback().onConnectionStateChange(mockBluetoothGatt, GATT_SUCCESS, STATE_DISCONNECTED)
+
+        then:
+        testSubscriber.assertError(BleDisconnectedException)
+    }
+
+    private BluetoothGattCharacteristic mockCharacteristic(UUID uuid, int instanceId, byte[] value) {
+        def characteristic = Mock BluetoothGattCharacteristic
+        characteristic.getUuid() >> uuid
+        characteristic.getInstanceId() >> instanceId
+        characteristic.getValue() >> value
+        return characteristic
+    }
 }
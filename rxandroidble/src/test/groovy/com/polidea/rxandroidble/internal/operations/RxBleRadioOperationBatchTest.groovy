@@ -0,0 +1,155 @@
+package com.polidea.rxandroidble.internal.operations
+
+import android.bluetooth.BluetoothGatt
+import android.bluetooth.BluetoothGattCharacteristic
+import android.bluetooth.BluetoothGattDescriptor
+import com.polidea.rxandroidble.RxBleBatchResult
+import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
+import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
+import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
+import com.polidea.rxandroidble.internal.util.ByteAssociation
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+
+public class RxBleRadioOperationBatchTest extends Specification {
+
+    UUID firstCharacteristicUUID = UUID.randomUUID()
+    UUID secondCharacteristicUUID = UUID.randomUUID()
+    BluetoothGatt mockGatt = Mock BluetoothGatt
+    RxBleGattCallback mockCallback = Mock RxBleGattCallback
+    BluetoothGattCharacteristic firstCharacteristic = Mock BluetoothGattCharacteristic
+    BluetoothGattCharacteristic secondCharacteristic = Mock BluetoothGattCharacteristic
+    BluetoothGattDescriptor mockDescriptor = Mock BluetoothGattDescriptor
+    TestSubscriber<RxBleBatchResult> testSubscriber = new TestSubscriber()
+    PublishSubject<ByteAssociation<UUID>> onCharacteristicReadSubject = PublishSubject.create()
+    PublishSubject<ByteAssociation<UUID>> onCharacteristicWriteSubject = PublishSubject.create()
+    PublishSubject<ByteAssociation<BluetoothGattDescriptor>> onDescriptorReadSubject = PublishSubject.create()
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
+    TestScheduler testScheduler = new TestScheduler()
+    RxBleRadioOperationBatch objectUnderTest
+
+    def setup() {
+        firstCharacteristic.getUuid() >> firstCharacteristicUUID
+        secondCharacteristic.getUuid() >> secondCharacteristicUUID
+        mockCallback.getOnCharacteristicRead() >> onCharacteristicReadSubject
+        mockCallback.getOnCharacteristicWrite() >> onCharacteristicWriteSubject
+        mockCallback.getOnDescriptorRead() >> onDescriptorReadSubject
+    }
+
+    def "should run all operations one after another and emit their values in order"() {
+        given:
+        givenBatchOf(characteristicRead(firstCharacteristic), characteristicWrite(secondCharacteristic, [2] as byte[]),
+                descriptorRead(mockDescriptor))
+        mockGatt.readCharacteristic(firstCharacteristic) >> {
+            onCharacteristicReadSubject.onNext(new ByteAssociation(firstCharacteristicUUID, [1] as byte[]))
+            true
+        }
+        mockGatt.writeCharacteristic(secondCharacteristic) >> {
+            onCharacteristicWriteSubject.onNext(new ByteAssociation(secondCharacteristicUUID, [2] as byte[]))
+            true
+        }
+        mockGatt.readDescriptor(mockDescriptor) >> {
+            onDescriptorReadSubject.onNext(new ByteAssociation(mockDescriptor, [3] as byte[]))
+            true
+        }
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertValueCount(1)
+
+        and:
+        testSubscriber.assertCompleted()
+
+        and:
+        testSubscriber.onNextEvents[0].getValues() == [[1] as byte[], [2] as byte[], [3] as byte[]]
+    }
+
+    def "should not start next operation until previous one receives its callback"() {
+        given:
+        givenBatchOf(characteristicRead(firstCharacteristic), characteristicRead(secondCharacteristic))
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        1 * mockGatt.readCharacteristic(firstCharacteristic) >> true
+
+        and:
+        0 * mockGatt.readCharacteristic(secondCharacteristic)
+
+        when:
+        onCharacteristicReadSubject.onNext(new ByteAssociation(firstCharacteristicUUID, [1] as byte[]))
+
+        then:
+        1 * mockGatt.readCharacteristic(secondCharacteristic) >> true
+    }
+
+    def "should release radio only once after all operations are finished"() {
+        given:
+        givenBatchOf(characteristicRead(firstCharacteristic), characteristicRead(secondCharacteristic))
+        mockGatt.readCharacteristic(firstCharacteristic) >> true
+        mockGatt.readCharacteristic(secondCharacteristic) >> true
+
+        when:
+        objectUnderTest.run()
+        onCharacteristicReadSubject.onNext(new ByteAssociation(firstCharacteristicUUID, [1] as byte[]))
+
+        then:
+        0 * mockRadioReleaseInterface.release()
+
+        when:
+        onCharacteristicReadSubject.onNext(new ByteAssociation(secondCharacteristicUUID, [2] as byte[]))
+
+        then:
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should emit error and release radio when an operation failed to start and not run following operations"() {
+        given:
+        givenBatchOf(characteristicRead(firstCharacteristic), characteristicRead(secondCharacteristic))
+        mockGatt.readCharacteristic(firstCharacteristic) >> false
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError BleGattCannotStartException
+
+        and:
+        testSubscriber.assertError {
+            it.getBleGattOperationType() == BleGattOperationType.CHARACTERISTIC_READ
+        }
+
+        and:
+        (1.._) * mockRadioReleaseInterface.release()
+
+        and:
+        0 * mockGatt.readCharacteristic(secondCharacteristic)
+    }
+
+    private givenBatchOf(RxBleRadioOperationBatch.Item... items) {
+        objectUnderTest = new RxBleRadioOperationBatch(mockGatt, items.toList())
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
+        objectUnderTest.asObservable().subscribe(testSubscriber)
+    }
+
+    private characteristicRead(BluetoothGattCharacteristic characteristic) {
+        def operation = new RxBleRadioOperationCharacteristicRead(mockCallback, mockGatt, characteristic, testScheduler)
+        new RxBleRadioOperationBatch.Item(operation, operation.asObservable())
+    }
+
+    private characteristicWrite(BluetoothGattCharacteristic characteristic, byte[] data) {
+        def operation = new RxBleRadioOperationCharacteristicWrite(mockCallback, mockGatt, characteristic, data, testScheduler)
+        new RxBleRadioOperationBatch.Item(operation, operation.asObservable())
+    }
+
+    private descriptorRead(BluetoothGattDescriptor descriptor) {
+        def operation = new RxBleRadioOperationDescriptorRead(mockCallback, mockGatt, descriptor, testScheduler)
+        new RxBleRadioOperationBatch.Item(operation, operation.asObservable().map({ it.second }))
+    }
+}
@@ -6,9 +6,13 @@ import com.polidea.rxandroidble.RxBleConnection
 import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
 import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
 import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 import com.polidea.rxandroidble.internal.connection.ImmediateSerializedBatchAckStrategy
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
-import com.polidea.rxandroidble.internal.util.ByteAssociation
+import com.polidea.rxandroidble.internal.util.ByteBufferLongWriteSource
+import com.polidea.rxandroidble.internal.util.InputStreamLongWriteSource
+import com.polidea.rxandroidble.internal.util.LongWriteSource
+import com.polidea.rxandroidble.internal.util.ObservableLongWriteSource
 import rx.Observable
 import rx.functions.Func1
 import rx.internal.schedulers.ImmediateScheduler
@@ -20,7 +24,6 @@ import spock.lang.Unroll
 
 import java.nio.ByteBuffer
 import java.util.concurrent.Callable
-import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
 
@@ -48,9 +51,9 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
     ImmediateScheduler immediateScheduler = ImmediateScheduler.INSTANCE
 
-    PublishSubject<ByteAssociation<UUID>> onCharacteristicWriteSubject = PublishSubject.create()
+    PublishSubject<UUID> onCharacteristicWriteSubject = PublishSubject.create()
 
-    Semaphore mockSemaphore = Mock Semaphore
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
 
     RxBleRadioOperationCharacteristicLongWrite objectUnderTest
 
@@ -58,7 +61,7 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
     def setup() {
         mockCharacteristic.getUuid() >> mockCharacteristicUUID
-        mockCallback.getOnCharacteristicWrite() >> onCharacteristicWriteSubject
+        mockCallback.getOnCharacteristicWriteUuid() >> onCharacteristicWriteSubject
     }
 
     def "should call BluetoothGattCharacteristic.setValue() before calling BluetoothGatt.writeCharacteristic()"() {
@@ -109,6 +112,262 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         1000         | 46532              | 47
     }
 
+    def "should write bytes between position and limit of the ByteBuffer without modifying it and emit an empty array"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        ByteBuffer byteBuffer = ByteBuffer.wrap(byteArray(10))
+        byteBuffer.position(2)
+        byteBuffer.limit(9)
+        List<byte[]> writtenBatches = []
+        mockCharacteristic.setValue(_ as byte[]) >> { byte[] bytes ->
+            writtenBatches.add(bytes.clone())
+            true
+        }
+        prepareObjectUnderTest(4, new ByteBufferLongWriteSource(byteBuffer))
+
+        when:
+        objectUnderTest.run()
+        advanceTimeForWritesToComplete(2)
+
+        then:
+        writtenBatches == [[2, 3, 4, 5] as byte[], [6, 7, 8] as byte[]]
+        byteBuffer.position() == 2
+        byteBuffer.limit() == 9
+
+        and:
+        testSubscriber.assertValueCount(1)
+        (testSubscriber.onNextEvents[0] as byte[]).length == 0
+        testSubscriber.assertCompleted()
+    }
+
+    def "should emit the written byte array after successful write"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        byte[] writtenBytes = byteArray(60)
+        prepareObjectUnderTest(20, writtenBytes)
+
+        when:
+        objectUnderTest.run()
+        advanceTimeForWritesToComplete(3)
+
+        then:
+        testSubscriber.assertValue(writtenBytes)
+        testSubscriber.assertCompleted()
+    }
+
+    def "should not modify the array passed to BluetoothGattCharacteristic.setValue() until the next batch was written"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        byte[] previousArray = null
+        byte[] previousBatch = null
+        List<Boolean> previousBatchesIntact = []
+        mockCharacteristic.setValue(_ as byte[]) >> { byte[] bytes ->
+            if (previousArray != null) {
+                previousBatchesIntact.add(Arrays.equals(previousArray, previousBatch))
+            }
+            previousArray = bytes
+            previousBatch = bytes.clone()
+            true
+        }
+        prepareObjectUnderTest(20, new ByteBufferLongWriteSource(byteArray(70)))
+
+        when:
+        objectUnderTest.run()
+        advanceTimeForWritesToComplete(4)
+
+        then:
+        previousBatchesIntact == [true, true, true]
+    }
+
+    def "should read the full batches alternately into two arrays"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        List<byte[]> passedArrays = []
+        mockCharacteristic.setValue(_ as byte[]) >> { byte[] bytes ->
+            passedArrays.add(bytes)
+            true
+        }
+        prepareObjectUnderTest(20, new ByteBufferLongWriteSource(byteArray(80)))
+
+        when:
+        objectUnderTest.run()
+        advanceTimeForWritesToComplete(4)
+
+        then:
+        passedArrays.size() == 4
+        !passedArrays[0].is(passedArrays[1])
+        passedArrays[0].is(passedArrays[2])
+        passedArrays[1].is(passedArrays[3])
+    }
+
+    def "should write bytes pulled lazily from an InputStream"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        List<byte[]> writtenBatches = []
+        mockCharacteristic.setValue(_ as byte[]) >> { byte[] bytes ->
+            writtenBatches.add(bytes.clone())
+            true
+        }
+        prepareObjectUnderTest(4, new InputStreamLongWriteSource(new ByteArrayInputStream(byteArray(10)), immediateScheduler))
+
+        when:
+        objectUnderTest.run()
+        advanceTimeForWritesToComplete(3)
+
+        then:
+        writtenBatches == [[0, 1, 2, 3] as byte[], [4, 5, 6, 7] as byte[], [8, 9] as byte[]]
+        testSubscriber.assertCompleted()
+    }
+
+    def "should write the next batch when the chunk observable emits it"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        PublishSubject<ByteBuffer> chunkSubject = PublishSubject.create()
+        List<byte[]> writtenBatches = []
+        mockCharacteristic.setValue(_ as byte[]) >> { byte[] bytes ->
+            writtenBatches.add(bytes.clone())
+            true
+        }
+        prepareObjectUnderTest(4, new ObservableLongWriteSource(chunkSubject))
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        writtenBatches.isEmpty()
+
+        when:
+        chunkSubject.onNext(ByteBuffer.wrap(byteArray(6)))
+        advanceTimeForWrites(1)
+
+        then:
+        writtenBatches == [[0, 1, 2, 3] as byte[]]
+
+        when:
+        chunkSubject.onCompleted()
+        advanceTimeForWritesToComplete(1)
+
+        then:
+        writtenBatches == [[0, 1, 2, 3] as byte[], [4, 5] as byte[]]
+        testSubscriber.assertCompleted()
+    }
+
+    def "should emit error when the source of bytes fails"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        RuntimeException sourceException = new RuntimeException("source failed")
+        prepareObjectUnderTest(20, new ObservableLongWriteSource(Observable.<ByteBuffer> error(sourceException)))
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError(sourceException)
+        0 * mockGatt.writeCharacteristic(_)
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should stop writing and release radio when unsubscribed during the write"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        prepareObjectUnderTest(20, byteArray(60))
+        objectUnderTest.run()
+
+        when:
+        testSubscriber.unsubscribe()
+        advanceTimeForWritesToComplete(3)
+
+        then:
+        0 * mockGatt.writeCharacteristic(_)
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should release radio only after the write callback of the batch in flight when unsubscribed"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenEachCharacteristicWriteOkAfterDefaultDelay()
+        prepareObjectUnderTest(20, byteArray(60))
+        objectUnderTest.run()
+
+        when:
+        testSubscriber.unsubscribe()
+
+        then:
+        0 * mockRadioReleaseInterface.release()
+
+        when:
+        advanceTimeForWrites(1)
+
+        then:
+        1 * mockRadioReleaseInterface.release()
+        0 * mockGatt.writeCharacteristic(_)
+    }
+
+    def "should release radio when the write callback of the batch in flight times out after being unsubscribed"() {
+
+        given:
+        givenWillWriteNextBatchImmediatelyAfterPrevious()
+        givenCharacteristicWriteOkButEventuallyStalls(0)
+        prepareObjectUnderTest(20, byteArray(60))
+        objectUnderTest.run()
+
+        when:
+        testSubscriber.unsubscribe()
+        advanceTimeForWrites(1)
+
+        then:
+        0 * mockRadioReleaseInterface.release()
+
+        when:
+        timeoutScheduler.advanceTimeBy(30, TimeUnit.SECONDS)
+
+        then:
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should not release radio when unsubscribed before run()"() {
+
+        given:
+        prepareObjectUnderTest(20, byteArray(60))
+
+        when:
+        testSubscriber.unsubscribe()
+
+        then:
+        0 * mockRadioReleaseInterface.release()
+    }
+
+    def "should release radio without writing when run() after being unsubscribed"() {
+
+        given:
+        prepareObjectUnderTest(20, byteArray(60))
+        testSubscriber.unsubscribe()
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        0 * mockGatt.writeCharacteristic(_)
+        1 * mockRadioReleaseInterface.release()
+    }
+
     def "asObservable() should not emit error when BluetoothGatt.writeCharacteristic() returns true every time"() {
 
         given:
@@ -177,13 +436,13 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         prepareObjectUnderTest(20, byteArray(60))
 
         then:
-        0 * mockCallback.getOnCharacteristicWrite() >> Observable.empty()
+        0 * mockCallback.getOnCharacteristicWriteUuid() >> Observable.empty()
 
         when:
         objectUnderTest.run()
 
         then:
-        (1.._) * mockCallback.getOnCharacteristicWrite() >> Observable.empty()
+        (1.._) * mockCallback.getOnCharacteristicWriteUuid() >> Observable.empty()
     }
 
     def "should complete part of the write if RxBleGattCallback.onCharacteristicWrite() will be called with proper characteristic"() {
@@ -233,7 +492,7 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         1 * mockCharacteristic.setValue(_) >> true
     }
 
-    def "should release Semaphore after successful write"() {
+    def "should release radio after successful write"() {
 
         given:
         givenWillWriteNextBatchImmediatelyAfterPrevious()
@@ -245,11 +504,11 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         advanceTimeForWritesToComplete(3)
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     @Unroll
-    def "should release Semaphore when write failed to start"() {
+    def "should release radio when write failed to start"() {
 
         given:
         givenWillWriteNextBatchImmediatelyAfterPrevious()
@@ -261,14 +520,14 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         advanceTimeForWrites(failingWriteIndex)
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
 
         where:
         failingWriteIndex << [0, 1, 2]
     }
 
     @Unroll
-    def "should release Semaphore when write failed"() {
+    def "should release radio when write failed"() {
 
         given:
         givenWillWriteNextBatchImmediatelyAfterPrevious()
@@ -280,7 +539,7 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
         advanceTimeForWritesToComplete(failingWriteIndex)
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
 
         where:
         failingWriteIndex << [0, 1, 2]
@@ -406,9 +665,8 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
     private givenEachCharacteristicWriteOkAfterDefaultDelay() {
         mockGatt.writeCharacteristic(mockCharacteristic) >> { BluetoothGattCharacteristic characteristic ->
             UUID uuid = characteristic.getUuid()
-            byte[] returnBytes = new byte[0]
             testScheduler.createWorker().schedule({
-                onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(uuid, returnBytes))
+                onCharacteristicWriteSubject.onNext(uuid)
             }, DEFAULT_WRITE_DELAY, TimeUnit.SECONDS)
 
             true
@@ -417,13 +675,12 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
     private givenCharacteristicWriteStartsOkButDifferentCharacteristicOnCallbackFirst() {
         mockGatt.writeCharacteristic(mockCharacteristic) >> { BluetoothGattCharacteristic characteristic ->
-            byte[] returnBytes = new byte[0]
             def worker = testScheduler.createWorker()
             worker.schedule({
-                onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(differentCharacteristicUUID, returnBytes))
+                onCharacteristicWriteSubject.onNext(differentCharacteristicUUID)
             }, DEFAULT_WRITE_DELAY, TimeUnit.SECONDS)
             worker.schedule({
-                onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(characteristic.getUuid(), returnBytes))
+                onCharacteristicWriteSubject.onNext(characteristic.getUuid())
             }, DEFAULT_WRITE_DELAY * 2, TimeUnit.SECONDS)
 
             true
@@ -435,14 +692,13 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
         mockGatt.writeCharacteristic(mockCharacteristic) >> { BluetoothGattCharacteristic characteristic ->
             UUID uuid = characteristic.getUuid()
-            byte[] returnBytes = new byte[0]
             int currentIndex = writeIndex.getAndIncrement()
             if (currentIndex == failingWriteIndex) {
                 return false
             }
 
             testScheduler.createWorker().schedule({
-                onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(uuid, returnBytes))
+                onCharacteristicWriteSubject.onNext(uuid)
             }, DEFAULT_WRITE_DELAY, TimeUnit.SECONDS)
 
             true
@@ -454,14 +710,13 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
         mockGatt.writeCharacteristic(mockCharacteristic) >> { BluetoothGattCharacteristic characteristic ->
             UUID uuid = characteristic.getUuid()
-            byte[] returnBytes = new byte[0]
 
             testScheduler.createWorker().schedule({
                 int currentIndex = writeIndex.getAndIncrement()
                 if (currentIndex == failingWriteIndex) {
                     onCharacteristicWriteSubject.onError(testException)
                 } else {
-                    onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(uuid, returnBytes))
+                    onCharacteristicWriteSubject.onNext(uuid)
                 }
             }, DEFAULT_WRITE_DELAY, TimeUnit.SECONDS)
 
@@ -474,12 +729,11 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
 
         mockGatt.writeCharacteristic(mockCharacteristic) >> { BluetoothGattCharacteristic characteristic ->
             UUID uuid = characteristic.getUuid()
-            byte[] returnBytes = new byte[0]
 
             testScheduler.createWorker().schedule({
                 int currentIndex = writeIndex.getAndIncrement()
                 if (currentIndex != failingWriteIndex) {
-                    onCharacteristicWriteSubject.onNext(new ByteAssociation<UUID>(uuid, returnBytes))
+                    onCharacteristicWriteSubject.onNext(uuid)
                 }
             }, DEFAULT_WRITE_DELAY, TimeUnit.SECONDS)
 
@@ -488,6 +742,10 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
     }
 
     private prepareObjectUnderTest(int maxBatchSize, byte[] testData) {
+        prepareObjectUnderTest(maxBatchSize, new ByteBufferLongWriteSource(testData))
+    }
+
+    private prepareObjectUnderTest(int maxBatchSize, LongWriteSource longWriteSource) {
         objectUnderTest = new RxBleRadioOperationCharacteristicLongWrite(
                 mockGatt,
                 mockCallback,
@@ -500,11 +758,11 @@ public class RxBleRadioOperationCharacteristicLongWriteTest extends Specificatio
                     }
                 },
                 writeOperationAckStrategy,
-                testData,
+                longWriteSource,
                 immediateScheduler,
                 timeoutScheduler
         )
-        objectUnderTest.setRadioBlockingSemaphore(mockSemaphore)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
         objectUnderTest.asObservable().subscribe(testSubscriber)
     }
 }
\ No newline at end of file
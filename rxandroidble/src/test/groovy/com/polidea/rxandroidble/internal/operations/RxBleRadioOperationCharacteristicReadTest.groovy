@@ -5,9 +5,9 @@ import android.bluetooth.BluetoothGattCharacteristic
 import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
 import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
 import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
 import com.polidea.rxandroidble.internal.util.ByteAssociation
-import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
 import rx.observers.TestSubscriber
 import rx.schedulers.TestScheduler
@@ -23,14 +23,14 @@ public class RxBleRadioOperationCharacteristicReadTest extends Specification {
     BluetoothGattCharacteristic mockCharacteristic = Mock BluetoothGattCharacteristic
     TestSubscriber<byte[]> testSubscriber = new TestSubscriber()
     PublishSubject<ByteAssociation<UUID>> onCharacteristicReadSubject = PublishSubject.create()
-    Semaphore mockSemaphore = Mock Semaphore
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
     TestScheduler testScheduler = new TestScheduler()
     RxBleRadioOperationCharacteristicRead objectUnderTest = new RxBleRadioOperationCharacteristicRead(mockCallback, mockGatt, mockCharacteristic, testScheduler)
 
     def setup() {
         mockCharacteristic.getUuid() >> mockCharacteristicUUID
         mockCallback.getOnCharacteristicRead() >> onCharacteristicReadSubject
-        objectUnderTest.setRadioBlockingSemaphore(mockSemaphore)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
         objectUnderTest.asObservable().subscribe(testSubscriber)
     }
 
@@ -164,7 +164,7 @@ public class RxBleRadioOperationCharacteristicReadTest extends Specification {
         testSubscriber.assertValue secondValueFromCharacteristic
     }
 
-    def "should release Semaphore after successful read"() {
+    def "should release radio after successful read"() {
 
         given:
         givenCharacteristicWithUUIDContainData([uuid: mockCharacteristicUUID, value: []])
@@ -173,10 +173,10 @@ public class RxBleRadioOperationCharacteristicReadTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
-    def "should release Semaphore when read failed to start"() {
+    def "should release radio when read failed to start"() {
 
         given:
         givenCharacteristicReadFailToStart()
@@ -185,10 +185,10 @@ public class RxBleRadioOperationCharacteristicReadTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
-    def "should release Semaphore when read failed"() {
+    def "should release radio when read failed"() {
         given:
         shouldEmitErrorOnCharacteristicRead(new Throwable("test"))
 
@@ -196,7 +196,7 @@ public class RxBleRadioOperationCharacteristicReadTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     def "should timeout if RxBleGattCallback.onCharacteristicRead() won't trigger in 30 seconds"() {
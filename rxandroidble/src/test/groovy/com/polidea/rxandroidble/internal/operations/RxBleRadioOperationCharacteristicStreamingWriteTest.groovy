@@ -0,0 +1,222 @@
+package com.polidea.rxandroidble.internal.operations
+
+import android.bluetooth.BluetoothGatt
+import android.bluetooth.BluetoothGattCharacteristic
+import com.polidea.rxandroidble.RxBleWriteProgress
+import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
+import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
+import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
+import com.polidea.rxandroidble.internal.util.ByteAssociation
+import java.util.concurrent.Callable
+import java.util.concurrent.TimeUnit
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+
+public class RxBleRadioOperationCharacteristicStreamingWriteTest extends Specification {
+
+    UUID mockCharacteristicUUID = UUID.randomUUID()
+    BluetoothGatt mockGatt = Mock BluetoothGatt
+    RxBleGattCallback mockCallback = Mock RxBleGattCallback
+    BluetoothGattCharacteristic mockCharacteristic = Mock BluetoothGattCharacteristic
+    TestSubscriber<RxBleWriteProgress> testSubscriber = new TestSubscriber()
+    PublishSubject<ByteAssociation<UUID>> onCharacteristicWriteSubject = PublishSubject.create()
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
+    TestScheduler testScheduler = new TestScheduler()
+    List<byte[]> writtenBatches = []
+    RxBleRadioOperationCharacteristicStreamingWrite objectUnderTest
+
+    def setup() {
+        mockCharacteristic.getUuid() >> mockCharacteristicUUID
+        mockCharacteristic.getWriteType() >> BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT
+        mockCharacteristic.setValue(_) >> { byte[] value ->
+            writtenBatches.add(value.clone())
+            true
+        }
+        mockCallback.getOnCharacteristicWrite() >> onCharacteristicWriteSubject
+    }
+
+    def "should write up to maxPendingWrites batches without waiting for callbacks"() {
+        given:
+        prepareObjectUnderTest(2, 3, [1, 2, 3, 4, 5, 6, 7, 8, 9, 10] as byte[])
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        3 * mockGatt.writeCharacteristic(mockCharacteristic) >> true
+
+        and:
+        writtenBatches == [[1, 2] as byte[], [3, 4] as byte[], [5, 6] as byte[]]
+    }
+
+    def "should write next batch after a callback is received"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2, 3, 4] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> true
+
+        when:
+        objectUnderTest.run()
+        acknowledgeWrite()
+
+        then:
+        writtenBatches == [[1, 2] as byte[], [3, 4] as byte[]]
+
+        and:
+        testSubscriber.assertValueCount(1)
+
+        and:
+        testSubscriber.onNextEvents[0].getBytesWritten() == 2
+    }
+
+    def "should emit progress for every acknowledged batch, complete and release radio after all bytes were written"() {
+        given:
+        prepareObjectUnderTest(2, 2, [1, 2, 3, 4, 5] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> true
+
+        when:
+        objectUnderTest.run()
+        3.times { acknowledgeWrite() }
+
+        then:
+        testSubscriber.onNextEvents*.getBytesWritten() == [2L, 4L, 5L]
+
+        and:
+        testSubscriber.onNextEvents.last().isCompleted()
+
+        and:
+        testSubscriber.assertCompleted()
+
+        and:
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should not emit error when write is refused but write the batch again after the next callback"() {
+        given:
+        prepareObjectUnderTest(2, 2, [1, 2, 3, 4] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >>> [true, false, true]
+
+        when:
+        objectUnderTest.run()
+        acknowledgeWrite()
+
+        then:
+        testSubscriber.assertNoErrors()
+
+        and:
+        writtenBatches == [[1, 2] as byte[], [3, 4] as byte[], [3, 4] as byte[]]
+    }
+
+    def "should write the refused batch again after a delay when no write is pending"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >>> [false, true]
+
+        when:
+        objectUnderTest.run()
+        testScheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS)
+        acknowledgeWrite()
+
+        then:
+        writtenBatches.size() == 2
+
+        and:
+        testSubscriber.assertCompleted()
+    }
+
+    def "should double the delay between consecutive retries of a refused write"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> false
+
+        when:
+        objectUnderTest.run()
+        testScheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS)
+        testScheduler.advanceTimeBy(9, TimeUnit.MILLISECONDS)
+
+        then:
+        writtenBatches.size() == 2
+
+        when:
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+
+        then:
+        writtenBatches.size() == 3
+        testSubscriber.assertNoErrors()
+    }
+
+    def "should emit BleGattCannotStartException if the write keeps being refused"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> false
+
+        when:
+        objectUnderTest.run()
+        testScheduler.advanceTimeBy(1, TimeUnit.MINUTES)
+
+        then:
+        testSubscriber.assertError(BleGattCannotStartException)
+        writtenBatches.size() == 9
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should emit BleGattCallbackTimeoutException if no write was acknowledged for 30 seconds"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2, 3, 4] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> true
+
+        when:
+        objectUnderTest.run()
+        acknowledgeWrite()
+        testScheduler.advanceTimeBy(30, TimeUnit.SECONDS)
+
+        then:
+        testSubscriber.assertError(BleGattCallbackTimeoutException)
+
+        and:
+        (1.._) * mockRadioReleaseInterface.release()
+    }
+
+    def "should write without response and restore the original write type when finished"() {
+        given:
+        prepareObjectUnderTest(2, 1, [1, 2] as byte[])
+        mockGatt.writeCharacteristic(mockCharacteristic) >> true
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        1 * mockCharacteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE)
+
+        when:
+        acknowledgeWrite()
+
+        then:
+        1 * mockCharacteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT)
+    }
+
+    private acknowledgeWrite() {
+        onCharacteristicWriteSubject.onNext(new ByteAssociation(mockCharacteristicUUID, new byte[0]))
+    }
+
+    private prepareObjectUnderTest(int batchSize, int maxPendingWrites, byte[] bytesToWrite) {
+        objectUnderTest = new RxBleRadioOperationCharacteristicStreamingWrite(
+                mockGatt,
+                mockCallback,
+                mockCharacteristic,
+                new Callable<Integer>() {
+                    @Override
+                    Integer call() throws Exception {
+                        return batchSize
+                    }
+                },
+                maxPendingWrites,
+                bytesToWrite,
+                testScheduler
+        )
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
+        objectUnderTest.asObservable().subscribe(testSubscriber)
+    }
+}
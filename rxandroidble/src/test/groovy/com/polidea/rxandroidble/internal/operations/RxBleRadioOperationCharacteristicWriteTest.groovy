@@ -5,9 +5,9 @@ import android.bluetooth.BluetoothGattCharacteristic
 import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
 import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
 import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
 import com.polidea.rxandroidble.internal.util.ByteAssociation
-import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
 import rx.observers.TestSubscriber
 import rx.schedulers.TestScheduler
@@ -24,7 +24,7 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
     def testSubscriber = new TestSubscriber()
     TestScheduler testScheduler = new TestScheduler()
     PublishSubject<ByteAssociation<UUID>> onCharacteristicWriteSubject = PublishSubject.create()
-    Semaphore mockSemaphore = Mock Semaphore
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
     RxBleRadioOperationCharacteristicWrite objectUnderTest
     byte[] testData = ['t', 'e', 's', 't']
 
@@ -170,7 +170,7 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
         testSubscriber.assertValue secondValueFromCharacteristic
     }
 
-    def "should release Semaphore after successful write"() {
+    def "should release radio after successful write"() {
 
         given:
         givenCharacteristicWithUUIDWritesData([uuid: mockCharacteristicUUID, value: []])
@@ -179,10 +179,10 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
-    def "should release Semaphore when write failed to start"() {
+    def "should release radio when write failed to start"() {
 
         given:
         givenCharacteristicWriteFailToStart()
@@ -191,10 +191,10 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
-    def "should release Semaphore when write failed"() {
+    def "should release radio when write failed"() {
         given:
         shouldEmitErrorOnCharacteristicWrite(new Throwable("test"))
 
@@ -202,7 +202,7 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
         objectUnderTest.run()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     def "should timeout if RxBleGattCallback.onCharacteristicWrite() won't trigger in 30 seconds"() {
@@ -250,7 +250,7 @@ public class RxBleRadioOperationCharacteristicWriteTest extends Specification {
 
     private prepareObjectUnderTest() {
         objectUnderTest = new RxBleRadioOperationCharacteristicWrite(mockCallback, mockGatt, mockCharacteristic, testData, testScheduler)
-        objectUnderTest.setRadioBlockingSemaphore(mockSemaphore)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
         objectUnderTest.asObservable().subscribe(testSubscriber)
     }
 }
\ No newline at end of file
@@ -7,8 +7,8 @@ import android.bluetooth.BluetoothDevice
 import android.bluetooth.BluetoothGatt
 import android.bluetooth.BluetoothManager
 import com.polidea.rxandroidble.RxBleConnection
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
-import java.util.concurrent.Semaphore
 import java.util.concurrent.atomic.AtomicReference
 import rx.Scheduler
 import rx.android.plugins.RxAndroidPlugins
@@ -27,7 +27,7 @@ public class RxBleRadioOperationDisconnectTest extends Specification {
 
     String mockMacAddress = "mockMackAddress"
 
-    Semaphore mockSemaphore = Mock Semaphore
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
 
     BluetoothManager mockBluetoothManager = Mock BluetoothManager
 
@@ -80,7 +80,7 @@ public class RxBleRadioOperationDisconnectTest extends Specification {
         testSubscriber.assertCompleted()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     def "should call BluetoothGatt.close() if BluetoothGatt is disconnected at the time of running and then release the radio"() {
@@ -95,7 +95,7 @@ public class RxBleRadioOperationDisconnectTest extends Specification {
         1 * mockBluetoothGatt.close()
 
         then:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     @Unroll
@@ -117,7 +117,7 @@ public class RxBleRadioOperationDisconnectTest extends Specification {
         closeCalled * mockBluetoothGatt.close()
 
         then:
-        closeCalled * mockSemaphore.release()
+        closeCalled * mockRadioReleaseInterface.release()
 
         where:
         initialState        | nextState     | closeCalled
@@ -137,7 +137,7 @@ public class RxBleRadioOperationDisconnectTest extends Specification {
 
     private prepareObjectUnderTest() {
         objectUnderTest = new RxBleRadioOperationDisconnect(mockGattCallback, mockMacAddress, gattAtomicReference, mockBluetoothManager, ImmediateScheduler.INSTANCE)
-        objectUnderTest.setRadioBlockingSemaphore(mockSemaphore)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
         objectUnderTest.asObservable().subscribe(testSubscriber)
     }
 }
\ No newline at end of file
@@ -4,8 +4,8 @@ import android.bluetooth.BluetoothGatt
 import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
 import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
 import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
 import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
-import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
 import rx.observers.TestSubscriber
 import rx.schedulers.TestScheduler
@@ -14,7 +14,7 @@ import spock.lang.Specification
 
 public class RxBleRadioOperationReadRssiTest extends Specification {
 
-    Semaphore mockSemaphore = Mock Semaphore
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
 
     BluetoothGatt mockBluetoothGatt = Mock BluetoothGatt
 
@@ -59,7 +59,7 @@ public class RxBleRadioOperationReadRssiTest extends Specification {
         }
 
         and:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     def "should emit and error if RxBleGattCallback will emit error on getOnRssiRead() and release radio"() {
@@ -76,7 +76,7 @@ public class RxBleRadioOperationReadRssiTest extends Specification {
         testSubscriber.assertError(testException)
 
         and:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
     }
 
     def "should emit exactly one value when RxBleGattCallback.getOnRssiRead() emits value"() {
@@ -106,7 +106,7 @@ public class RxBleRadioOperationReadRssiTest extends Specification {
         testSubscriber.assertValue(rssi2)
 
         and:
-        1 * mockSemaphore.release()
+        1 * mockRadioReleaseInterface.release()
 
         when:
         onReadRemoteRssiPublishSubject.onNext(rssi3)
@@ -135,7 +135,7 @@ public class RxBleRadioOperationReadRssiTest extends Specification {
 
     private prepareObjectUnderTest() {
         objectUnderTest = new RxBleRadioOperationReadRssi(mockGattCallback, mockBluetoothGatt, testScheduler)
-        objectUnderTest.setRadioBlockingSemaphore(mockSemaphore)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
         objectUnderTest.asObservable().subscribe(testSubscriber)
     }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.polidea.rxandroidble.internal.operations
+
+import android.bluetooth.BluetoothDevice
+import android.bluetooth.BluetoothGatt
+import android.bluetooth.BluetoothGattCharacteristic
+import com.polidea.rxandroidble.RxBleBatchResult
+import com.polidea.rxandroidble.exceptions.BleGattCallbackTimeoutException
+import com.polidea.rxandroidble.exceptions.BleGattCannotStartException
+import com.polidea.rxandroidble.exceptions.BleGattCharacteristicException
+import com.polidea.rxandroidble.exceptions.BleGattOperationType
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
+import com.polidea.rxandroidble.internal.connection.RxBleGattCallback
+import com.polidea.rxandroidble.internal.util.ByteAssociation
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+public class RxBleRadioOperationReliableWriteTest extends Specification {
+
+    UUID firstCharacteristicUUID = UUID.randomUUID()
+    UUID secondCharacteristicUUID = UUID.randomUUID()
+    BluetoothGatt mockGatt = Mock BluetoothGatt
+    BluetoothDevice mockDevice = Mock BluetoothDevice
+    RxBleGattCallback mockCallback = Mock RxBleGattCallback
+    BluetoothGattCharacteristic firstCharacteristic = Mock BluetoothGattCharacteristic
+    BluetoothGattCharacteristic secondCharacteristic = Mock BluetoothGattCharacteristic
+    TestSubscriber<RxBleBatchResult> testSubscriber = new TestSubscriber()
+    PublishSubject<ByteAssociation<UUID>> onCharacteristicWriteSubject = PublishSubject.create()
+    PublishSubject<Integer> onReliableWriteCompletedSubject = PublishSubject.create()
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
+    TestScheduler testScheduler = new TestScheduler()
+    RxBleRadioOperationReliableWrite objectUnderTest
+
+    def setup() {
+        firstCharacteristic.getUuid() >> firstCharacteristicUUID
+        secondCharacteristic.getUuid() >> secondCharacteristicUUID
+        mockGatt.getDevice() >> mockDevice
+        mockCallback.getOnCharacteristicWrite() >> onCharacteristicWriteSubject
+        mockCallback.getOnReliableWriteCompleted() >> onReliableWriteCompletedSubject
+        objectUnderTest = new RxBleRadioOperationReliableWrite(mockCallback, mockGatt, [
+                new RxBleRadioOperationReliableWrite.Item(firstCharacteristic, [1] as byte[]),
+                new RxBleRadioOperationReliableWrite.Item(secondCharacteristic, [2] as byte[])
+        ], testScheduler)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
+        objectUnderTest.asObservable().subscribe(testSubscriber)
+    }
+
+    def "should begin the transaction, write all characteristics one after another and execute the transaction"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        givenWritesAreEchoed()
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        1 * mockGatt.writeCharacteristic(firstCharacteristic) >> { echoWrite(firstCharacteristicUUID, [1] as byte[]) }
+
+        then:
+        1 * mockGatt.writeCharacteristic(secondCharacteristic) >> { echoWrite(secondCharacteristicUUID, [2] as byte[]) }
+
+        then:
+        1 * mockGatt.executeReliableWrite() >> true
+    }
+
+    def "should emit a single result with the written values after the transaction has been executed"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        givenWritesAreEchoed()
+        mockGatt.executeReliableWrite() >> true
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertNoValues()
+
+        when:
+        onReliableWriteCompletedSubject.onNext(BluetoothGatt.GATT_SUCCESS)
+
+        then:
+        testSubscriber.assertValueCount(1)
+        testSubscriber.onNextEvents[0].getValues() == [[1] as byte[], [2] as byte[]]
+        testSubscriber.assertCompleted()
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should set the default write type for the prepared writes and restore the original one"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        firstCharacteristic.getWriteType() >> BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        1 * firstCharacteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT)
+
+        then:
+        1 * mockGatt.writeCharacteristic(firstCharacteristic) >> true
+
+        then:
+        1 * firstCharacteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE)
+    }
+
+    def "should emit BleGattCannotStartException if the transaction could not begin"() {
+        given:
+        mockGatt.beginReliableWrite() >> false
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError(BleGattCannotStartException)
+        0 * mockGatt.writeCharacteristic(_)
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should abort the transaction and emit BleGattCannotStartException if a write could not start"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        mockGatt.writeCharacteristic(firstCharacteristic) >> { echoWrite(firstCharacteristicUUID, [1] as byte[]) }
+        mockGatt.writeCharacteristic(secondCharacteristic) >> false
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError(BleGattCannotStartException)
+        testSubscriber.onErrorEvents[0].bleGattOperationType == BleGattOperationType.CHARACTERISTIC_WRITE
+        1 * mockGatt.abortReliableWrite(mockDevice)
+        0 * mockGatt.executeReliableWrite()
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should abort the transaction if a write fails"() {
+        given:
+        def writeException = new BleGattCharacteristicException(mockGatt, firstCharacteristic, BluetoothGatt.GATT_FAILURE,
+                BleGattOperationType.CHARACTERISTIC_WRITE)
+        givenBeginReliableWriteSucceeds()
+        mockGatt.writeCharacteristic(firstCharacteristic) >> {
+            onCharacteristicWriteSubject.onError(writeException)
+            true
+        }
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError(writeException)
+        1 * mockGatt.abortReliableWrite(mockDevice)
+        0 * mockGatt.writeCharacteristic(secondCharacteristic)
+    }
+
+    def "should abort the transaction if a write is not acknowledged in 30 seconds"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        mockGatt.writeCharacteristic(firstCharacteristic) >> true
+        objectUnderTest.run()
+
+        when:
+        testScheduler.advanceTimeBy(30, TimeUnit.SECONDS)
+
+        then:
+        testSubscriber.assertError(BleGattCallbackTimeoutException)
+        1 * mockGatt.abortReliableWrite(mockDevice)
+    }
+
+    def "should emit BleGattCannotStartException if the transaction could not be executed"() {
+        given:
+        givenBeginReliableWriteSucceeds()
+        givenWritesAreEchoed()
+        mockGatt.executeReliableWrite() >> false
+
+        when:
+        objectUnderTest.run()
+
+        then:
+        testSubscriber.assertError(BleGattCannotStartException)
+        testSubscriber.onErrorEvents[0].bleGattOperationType == BleGattOperationType.RELIABLE_WRITE_COMPLETED
+    }
+
+    private givenBeginReliableWriteSucceeds() {
+        mockGatt.beginReliableWrite() >> true
+    }
+
+    private givenWritesAreEchoed() {
+        mockGatt.writeCharacteristic(firstCharacteristic) >> { echoWrite(firstCharacteristicUUID, [1] as byte[]) }
+        mockGatt.writeCharacteristic(secondCharacteristic) >> { echoWrite(secondCharacteristicUUID, [2] as byte[]) }
+    }
+
+    private boolean echoWrite(UUID uuid, byte[] value) {
+        onCharacteristicWriteSubject.onNext(new ByteAssociation(uuid, value))
+        true
+    }
+}
@@ -0,0 +1,153 @@
+package com.polidea.rxandroidble.internal.operations
+
+import android.bluetooth.BluetoothDevice
+import android.bluetooth.le.ScanCallback
+import android.bluetooth.le.ScanFilter
+import android.bluetooth.le.ScanRecord
+import android.bluetooth.le.ScanResult
+import android.bluetooth.le.ScanSettings
+import android.os.Build
+import android.os.ParcelUuid
+import com.polidea.rxandroidble.BuildConfig
+import com.polidea.rxandroidble.RxBleScanSettings
+import com.polidea.rxandroidble.exceptions.BleScanException
+import com.polidea.rxandroidble.internal.RadioReleaseInterface
+import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper
+import org.robolectric.annotation.Config
+import org.robospock.GradleRoboSpecification
+import rx.observers.TestSubscriber
+
+@Config(manifest = Config.NONE, constants = BuildConfig, sdk = Build.VERSION_CODES.LOLLIPOP)
+class RxBleRadioOperationScanApi21Test extends GradleRoboSpecification {
+
+    private static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID BATTERY_SERVICE = UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb")
+    // flags and 16-bit UUIDs of heart rate and battery services
+    private static final byte[] BOTH_SERVICES_SCAN_RECORD = [0x02, 0x01, 0x06, 0x05, 0x03, 0x0d, 0x18, 0x0f, 0x18] as byte[]
+    private static final byte[] HEART_RATE_SCAN_RECORD = [0x02, 0x01, 0x06, 0x03, 0x03, 0x0d, 0x18] as byte[]
+
+    RxBleAdapterWrapper mockAdapterWrapper = Mock RxBleAdapterWrapper
+    RadioReleaseInterface mockRadioReleaseInterface = Mock RadioReleaseInterface
+    BluetoothDevice mockBluetoothDevice = Mock BluetoothDevice
+    TestSubscriber testSubscriber = new TestSubscriber()
+    List<ScanFilter> startedScanFilters
+    ScanSettings startedScanSettings
+    ScanCallback startedScanCallback
+
+    def setup() {
+        mockAdapterWrapper.startLeScan(_, _, _) >> { List<ScanFilter> filters, ScanSettings settings, ScanCallback callback ->
+            startedScanFilters = filters
+            startedScanSettings = settings
+            startedScanCallback = callback
+            true
+        }
+    }
+
+    def "should pass every UUID to the controller as a separate filter and the scan settings to the scanner"() {
+
+        given:
+        mockAdapterWrapper.isOffloadedScanBatchingSupported() >> true
+        def settings = new RxBleScanSettings.Builder()
+                .setScanMode(RxBleScanSettings.ScanMode.BALANCED)
+                .setReportDelayMillis(1000)
+                .build()
+
+        when:
+        runOperation([HEART_RATE_SERVICE, BATTERY_SERVICE] as UUID[], settings)
+
+        then:
+        startedScanFilters.size() == 2
+        startedScanFilters[0].serviceUuid == new ParcelUuid(HEART_RATE_SERVICE)
+        startedScanFilters[1].serviceUuid == new ParcelUuid(BATTERY_SERVICE)
+        startedScanSettings.scanMode == ScanSettings.SCAN_MODE_BALANCED
+        startedScanSettings.reportDelayMillis == 1000
+        testSubscriber.assertNoErrors()
+        1 * mockRadioReleaseInterface.release()
+    }
+
+    def "should not pass the report delay to a controller without offloaded batching"() {
+
+        given:
+        mockAdapterWrapper.isOffloadedScanBatchingSupported() >> false
+
+        when:
+        runOperation(null, new RxBleScanSettings.Builder().setReportDelayMillis(1000).build())
+
+        then:
+        startedScanSettings.reportDelayMillis == 0
+    }
+
+    def "should not pass any filter to the controller if no UUIDs are filtered"() {
+
+        when:
+        runOperation(null, new RxBleScanSettings.Builder().build())
+
+        then:
+        startedScanFilters == null
+        startedScanSettings.scanMode == ScanSettings.SCAN_MODE_LOW_LATENCY
+    }
+
+    def "should emit every result reported by the controller"() {
+
+        given:
+        runOperation([HEART_RATE_SERVICE, BATTERY_SERVICE] as UUID[], new RxBleScanSettings.Builder().build())
+
+        when:
+        startedScanCallback.onScanResult(ScanSettings.CALLBACK_TYPE_ALL_MATCHES, scanResult(HEART_RATE_SCAN_RECORD, -70))
+        startedScanCallback.onScanResult(ScanSettings.CALLBACK_TYPE_ALL_MATCHES, scanResult(BOTH_SERVICES_SCAN_RECORD, -60))
+
+        then:
+        testSubscriber.assertValueCount(2)
+        testSubscriber.onNextEvents[1].rssi == -60
+        testSubscriber.onNextEvents[1].scanRecord == BOTH_SERVICES_SCAN_RECORD
+        testSubscriber.onNextEvents[1].bluetoothDevice == mockBluetoothDevice
+    }
+
+    def "should emit every result of a batch"() {
+
+        given:
+        runOperation(null, new RxBleScanSettings.Builder().setReportDelayMillis(500).build())
+
+        when:
+        startedScanCallback.onBatchScanResults([scanResult(HEART_RATE_SCAN_RECORD, -70), scanResult(BOTH_SERVICES_SCAN_RECORD, -60)])
+
+        then:
+        testSubscriber.assertValueCount(2)
+    }
+
+    def "should emit BleScanException if the scan failed"() {
+
+        given:
+        runOperation(null, new RxBleScanSettings.Builder().build())
+
+        when:
+        startedScanCallback.onScanFailed(ScanCallback.SCAN_FAILED_INTERNAL_ERROR)
+
+        then:
+        testSubscriber.assertError(BleScanException)
+    }
+
+    def "should stop the scan with the same callback"() {
+
+        given:
+        def objectUnderTest = runOperation(null, new RxBleScanSettings.Builder().build())
+
+        when:
+        objectUnderTest.stop()
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(startedScanCallback)
+    }
+
+    private RxBleRadioOperationScanApi21 runOperation(UUID[] filter, RxBleScanSettings settings) {
+        def objectUnderTest = new RxBleRadioOperationScanApi21(filter, settings, mockAdapterWrapper, Build.VERSION_CODES.LOLLIPOP)
+        objectUnderTest.setRadioReleaseInterface(mockRadioReleaseInterface)
+        objectUnderTest.asObservable().subscribe(testSubscriber)
+        objectUnderTest.run()
+        return objectUnderTest
+    }
+
+    private ScanResult scanResult(byte[] scanRecord, int rssi) {
+        return new ScanResult(mockBluetoothDevice, ScanRecord.parseFromBytes(scanRecord), rssi, 0L)
+    }
+}
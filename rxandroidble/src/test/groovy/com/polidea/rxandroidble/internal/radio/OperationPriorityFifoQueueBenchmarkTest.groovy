@@ -0,0 +1,64 @@
+package com.polidea.rxandroidble.internal.radio
+
+import com.polidea.rxandroidble.MockOperation
+import com.polidea.rxandroidble.internal.RxBleRadioOperation
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Microbenchmark comparing {@link OperationPriorityFifoQueue} with {@link OperationPriorityFifoBlockingQueue}. Queues the given number
+ * of operations of mixed priorities and then removes all of them in the order of adding, as it happens when a screen with queued
+ * operations is torn down. Run with RXANDROIDBLE_BENCHMARK=true environment variable set.
+ */
+@Requires({ env.RXANDROIDBLE_BENCHMARK })
+class OperationPriorityFifoQueueBenchmarkTest extends Specification {
+
+    private static final int WARM_UP_ROUNDS = 50
+    private static final int MEASURED_ROUNDS = 200
+    private static final def PRIORITIES = [RxBleRadioOperation.Priority.HIGH, RxBleRadioOperation.Priority.NORMAL,
+                                           RxBleRadioOperation.Priority.LOW]
+
+    @Unroll
+    def "should add and remove #operationsCount operations faster than OperationPriorityFifoBlockingQueue"() {
+        given:
+        List<RxBleRadioOperation> operations = (0..<operationsCount).collect {
+            MockOperation.mockOperation(PRIORITIES[it % PRIORITIES.size()])
+        }
+
+        when:
+        long blockingQueueNanos = measure {
+            def queue = new OperationPriorityFifoBlockingQueue()
+            for (RxBleRadioOperation operation : operations) {
+                queue.add(operation)
+            }
+            for (RxBleRadioOperation operation : operations) {
+                queue.remove(operation)
+            }
+        }
+        long fifoQueueNanos = measure {
+            def queue = new OperationPriorityFifoQueue()
+            for (RxBleRadioOperation operation : operations) {
+                queue.add(operation)
+            }
+            for (RxBleRadioOperation operation : operations) {
+                queue.remove(operation)
+            }
+        }
+        println String.format("%4d operations: OperationPriorityFifoBlockingQueue %8d ns, OperationPriorityFifoQueue %8d ns",
+                operationsCount, blockingQueueNanos, fifoQueueNanos)
+
+        then:
+        fifoQueueNanos < blockingQueueNanos
+
+        where:
+        operationsCount << [50, 200, 1000]
+    }
+
+    private static long measure(Closure round) {
+        WARM_UP_ROUNDS.times { round() }
+        long start = System.nanoTime()
+        MEASURED_ROUNDS.times { round() }
+        return (System.nanoTime() - start).intdiv(MEASURED_ROUNDS)
+    }
+}
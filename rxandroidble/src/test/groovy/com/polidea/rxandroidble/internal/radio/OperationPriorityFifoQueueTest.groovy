@@ -0,0 +1,178 @@
+package com.polidea.rxandroidble.internal.radio
+
+import com.polidea.rxandroidble.MockOperation
+import com.polidea.rxandroidble.internal.RxBleRadioOperation
+import spock.lang.Specification
+import spock.lang.Unroll
+
+public class OperationPriorityFifoQueueTest extends Specification {
+
+    def static LOW = RxBleRadioOperation.Priority.LOW
+    def static NORMAL = RxBleRadioOperation.Priority.NORMAL
+    def static HIGH = RxBleRadioOperation.Priority.HIGH
+    def static lowPriority0 = MockOperation.mockOperation(LOW)
+    def static lowPriority1 = MockOperation.mockOperation(LOW)
+    def static lowPriority2 = MockOperation.mockOperation(LOW)
+    def static normalPriority0 = MockOperation.mockOperation(NORMAL)
+    def static normalPriority1 = MockOperation.mockOperation(NORMAL)
+    def static normalPriority2 = MockOperation.mockOperation(NORMAL)
+    def static highPriority0 = MockOperation.mockOperation(HIGH)
+    def static highPriority1 = MockOperation.mockOperation(HIGH)
+    def static highPriority2 = MockOperation.mockOperation(HIGH)
+    OperationPriorityFifoQueue objectUnderTest
+
+    def setup() {
+        objectUnderTest = new OperationPriorityFifoQueue()
+    }
+
+    @Unroll
+    def "should return operations in proper order #id"() {
+
+        given:
+        for (RxBleRadioOperation operation : entryOrder) {
+            objectUnderTest.add(operation)
+        }
+
+        expect:
+        dumpQueue() == properOrder
+
+        where:
+        id | entryOrder                                                                                  | properOrder
+        0  | [highPriority2, highPriority0, highPriority1]                                               | [highPriority2, highPriority0, highPriority1]
+        1  | [lowPriority2, lowPriority0, lowPriority1]                                                  | [lowPriority2, lowPriority0, lowPriority1]
+        2  | [normalPriority2, normalPriority0, normalPriority1]                                         | [normalPriority2, normalPriority0, normalPriority1]
+        3  | [highPriority0, normalPriority0, lowPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        4  | [highPriority0, lowPriority0, normalPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        5  | [normalPriority0, highPriority0, lowPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        6  | [normalPriority0, lowPriority0, highPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        7  | [lowPriority0, highPriority0, normalPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        8  | [lowPriority0, normalPriority0, highPriority0]                                              | [highPriority0, normalPriority0, lowPriority0]
+        9  | [lowPriority0, lowPriority1, lowPriority2, highPriority0, normalPriority0, normalPriority1] | [highPriority0, normalPriority0, normalPriority1, lowPriority0, lowPriority1, lowPriority2]
+        10 | [lowPriority0, highPriority0, normalPriority0, lowPriority1, lowPriority2, normalPriority1] | [highPriority0, normalPriority0, normalPriority1, lowPriority0, lowPriority1, lowPriority2]
+        11 | [highPriority0, lowPriority0, lowPriority1, lowPriority2, normalPriority0, normalPriority1] | [highPriority0, normalPriority0, normalPriority1, lowPriority0, lowPriority1, lowPriority2]
+        12 | [lowPriority0, normalPriority0, lowPriority1, lowPriority2, highPriority0, normalPriority1] | [highPriority0, normalPriority0, normalPriority1, lowPriority0, lowPriority1, lowPriority2]
+        13 | [lowPriority0, normalPriority0, lowPriority1, lowPriority2, highPriority0, normalPriority1] | [highPriority0, normalPriority0, normalPriority1, lowPriority0, lowPriority1, lowPriority2]
+    }
+
+    @Unroll
+    def "should not return item if it was removed"() {
+        given:
+        addedItems.each {
+            objectUnderTest.add(it)
+        }
+
+        when:
+        removedItems.each {
+            objectUnderTest.remove(it)
+        }
+
+        then:
+        dumpQueue() == expectedItems
+
+        where:
+        addedItems                         | removedItems                       | expectedItems
+        [normalPriority0]                  | [normalPriority0]                  | []
+        [normalPriority0]                  | []                                 | [normalPriority0]
+        [normalPriority0, normalPriority1] | [normalPriority0]                  | [normalPriority1]
+        [normalPriority0, normalPriority1] | [normalPriority1, normalPriority0] | []
+    }
+
+    def "should not remove operation that is not queued"() {
+        given:
+        def otherQueue = new OperationPriorityFifoQueue()
+        def operation = MockOperation.mockOperation(NORMAL)
+        otherQueue.add(operation)
+
+        expect:
+        !objectUnderTest.remove(operation)
+
+        and:
+        otherQueue.size() == 1
+    }
+
+    def "should not remove operation that was already polled"() {
+        given:
+        def operation = MockOperation.mockOperation(NORMAL)
+        objectUnderTest.add(operation)
+        objectUnderTest.poll()
+
+        expect:
+        !objectUnderTest.remove(operation)
+
+        and:
+        objectUnderTest.isEmpty()
+    }
+
+    def "should keep order of remaining operations after removing from the middle"() {
+        given:
+        def operations = (0..4).collect { MockOperation.mockOperation(LOW) }
+        operations.each { objectUnderTest.add(it) }
+
+        when:
+        objectUnderTest.remove(operations[2])
+
+        then:
+        objectUnderTest.size() == 4
+
+        and:
+        dumpQueue() == [operations[0], operations[1], operations[3], operations[4]]
+    }
+
+    def "should throw when the same operation is added twice"() {
+        given:
+        def operation = MockOperation.mockOperation(NORMAL)
+        def otherOperation = MockOperation.mockOperation(NORMAL)
+        objectUnderTest.add(operation)
+        objectUnderTest.add(otherOperation)
+
+        when:
+        objectUnderTest.add(operation)
+
+        then:
+        thrown IllegalStateException
+
+        and:
+        objectUnderTest.remove(operation)
+        dumpQueue() == [otherOperation]
+    }
+
+    def "should throw when an operation queued in another queue is added"() {
+        given:
+        def otherQueue = new OperationPriorityFifoQueue()
+        def operation = MockOperation.mockOperation(NORMAL)
+        otherQueue.add(operation)
+
+        when:
+        objectUnderTest.add(operation)
+
+        then:
+        thrown IllegalStateException
+
+        and:
+        objectUnderTest.isEmpty()
+        otherQueue.remove(operation)
+    }
+
+    def "should add an operation again after it was polled"() {
+        given:
+        def operation = MockOperation.mockOperation(NORMAL)
+        objectUnderTest.add(operation)
+        objectUnderTest.poll()
+
+        when:
+        objectUnderTest.add(operation)
+
+        then:
+        dumpQueue() == [operation]
+    }
+
+    private List<RxBleRadioOperation> dumpQueue() {
+        def operationsQueueList = new ArrayList<RxBleRadioOperation>()
+
+        while (!objectUnderTest.isEmpty()) {
+            operationsQueueList.add(objectUnderTest.poll())
+        }
+
+        return operationsQueueList
+    }
+}
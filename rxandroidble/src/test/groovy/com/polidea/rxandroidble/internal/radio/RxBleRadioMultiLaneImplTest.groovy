@@ -0,0 +1,139 @@
+package com.polidea.rxandroidble.internal.radio
+
+import com.polidea.rxandroidble.MockOperation
+import com.polidea.rxandroidble.internal.RxBleRadio
+import rx.observers.TestSubscriber
+import rx.schedulers.Schedulers
+import spock.lang.Specification
+
+import static com.polidea.rxandroidble.internal.RxBleRadioOperation.Priority.NORMAL
+
+class RxBleRadioMultiLaneImplTest extends Specification {
+
+    RxBleRadioMultiLaneImpl objectUnderTest = new RxBleRadioMultiLaneImpl(Schedulers.immediate())
+
+    def "should run operations of different connections at the same time"() {
+        given:
+        RxBleRadio firstConnectionRadio = objectUnderTest.provideConnectionRadio()
+        RxBleRadio secondConnectionRadio = objectUnderTest.provideConnectionRadio()
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        firstConnectionRadio.queue(firstOperation).subscribe()
+        secondConnectionRadio.queue(secondOperation).subscribe()
+
+        then:
+        firstOperation.wasRan()
+
+        and:
+        secondOperation.wasRan()
+    }
+
+    def "should not run second operation of a connection until first release radio"() {
+        given:
+        RxBleRadio connectionRadio = objectUnderTest.provideConnectionRadio()
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        connectionRadio.queue(firstOperation).subscribe()
+        connectionRadio.queue(secondOperation).subscribe()
+
+        then:
+        firstOperation.wasRan()
+
+        and:
+        !secondOperation.wasRan()
+
+        when:
+        firstOperation.releaseRadio()
+
+        then:
+        secondOperation.executionCount == 1
+    }
+
+    def "should serialize operations queued directly on the radio independently of connections"() {
+        given:
+        RxBleRadio connectionRadio = objectUnderTest.provideConnectionRadio()
+        MockOperation firstAdapterOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation secondAdapterOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation connectionOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        objectUnderTest.queue(firstAdapterOperation).subscribe()
+        objectUnderTest.queue(secondAdapterOperation).subscribe()
+        connectionRadio.queue(connectionOperation).subscribe()
+
+        then:
+        firstAdapterOperation.wasRan()
+
+        and:
+        !secondAdapterOperation.wasRan()
+
+        and:
+        connectionOperation.wasRan()
+
+        when:
+        firstAdapterOperation.releaseRadio()
+
+        then:
+        secondAdapterOperation.wasRan()
+    }
+
+    def "should not run operation if it was unsubscribed before was taken from the queue"() {
+        given:
+        RxBleRadio connectionRadio = objectUnderTest.provideConnectionRadio()
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        connectionRadio.queue(firstOperation).subscribe()
+        connectionRadio.queue(secondOperation).subscribe().unsubscribe()
+        firstOperation.releaseRadio()
+
+        then:
+        !secondOperation.wasRan()
+    }
+
+    def "should start only one following operation if radio was released more than once"() {
+        given:
+        RxBleRadio connectionRadio = objectUnderTest.provideConnectionRadio()
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation thirdOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        connectionRadio.queue(firstOperation).subscribe()
+        connectionRadio.queue(secondOperation).subscribe()
+        connectionRadio.queue(thirdOperation).subscribe()
+        firstOperation.releaseRadio()
+        firstOperation.releaseRadio()
+
+        then:
+        secondOperation.wasRan()
+
+        and:
+        !thirdOperation.wasRan()
+    }
+
+    def "should emit error of the operation and continue with the next one"() {
+        given:
+        RxBleRadio connectionRadio = objectUnderTest.provideConnectionRadio()
+        def testSubscriber = new TestSubscriber()
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL, {
+            it.onError(new Throwable("First throwable"))
+        })
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        connectionRadio.queue(firstOperation).subscribe(testSubscriber)
+        connectionRadio.queue(secondOperation).subscribe()
+
+        then:
+        testSubscriber.assertError(Throwable)
+
+        and:
+        secondOperation.wasRan()
+    }
+}
@@ -32,7 +32,7 @@ class RxBleRadioTest extends Specification {
     }
 
     void setup() {
-        objectUnderTest = new RxBleRadioImpl()
+        objectUnderTest = new RxBleRadioImpl(AndroidSchedulers.mainThread())
     }
 
     def "should run operation instantly if queue is empty and no operation is in progress"() {
@@ -96,6 +96,28 @@ class RxBleRadioTest extends Specification {
         !secondOperation.wasRan()
     }
 
+    def "should start only one following operation if radio was released more than once"() {
+        given:
+        MockOperation firstOperation = MockOperation.mockOperation(NORMAL, {
+            it.releaseRadio()
+            it.releaseRadio()
+        })
+        MockOperation secondOperation = MockOperation.mockOperation(NORMAL)
+        MockOperation thirdOperation = MockOperation.mockOperation(NORMAL)
+
+        when:
+        objectUnderTest.queue(firstOperation).subscribe()
+        objectUnderTest.queue(secondOperation).subscribe()
+        objectUnderTest.queue(thirdOperation).subscribe()
+        waitForThreadsToCompleteWork()
+
+        then:
+        secondOperation.wasRan()
+
+        and:
+        !thirdOperation.wasRan()
+    }
+
     def "should emit onNext from operation"() {
         given:
         def expectedData = "some string"
@@ -0,0 +1,132 @@
+package com.polidea.rxandroidble.internal.scan
+
+import com.polidea.rxandroidble.RxBleScanFilter
+import com.polidea.rxandroidble.internal.util.MacAddressUtil
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompiledScanFilterTest extends Specification {
+
+    private static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID CUSTOM_SERVICE = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+    private static final String MAC_ADDRESS = "AA:BB:CC:DD:EE:FF"
+    private static final long MAC_ADDRESS_KEY = MacAddressUtil.toLong(MAC_ADDRESS)
+
+    // flags, 16-bit service data, 128-bit service data, manufacturer data, complete local name "Sensor 1"
+    private static final byte[] SCAN_RECORD = [
+            0x02, 0x01, 0x06,
+            0x05, 0x16, 0x0d, 0x18, 0x11, 0x22,
+            0x13, 0x21, 0x3d, 0x37, 0xb7, 0xd1, 0xf6, 0x2e, 0x7b, 0x8a, 0x1c, 0x47, 0x14, 0x54, 0x18, 0xf5, 0x01, 0xf3, 0x33, 0x44,
+            0x06, 0xff, 0x4c, 0x00, 0x02, 0x15, 0x33,
+            0x09, 0x09, 0x53, 0x65, 0x6e, 0x73, 0x6f, 0x72, 0x20, 0x31
+    ] as byte[]
+
+    def "should match every advertisement if no criteria are set"() {
+
+        expect:
+        compile(new RxBleScanFilter.Builder()).matches(0, SCAN_RECORD)
+        !compile(new RxBleScanFilter.Builder()).needsMacAddress()
+    }
+
+    def "should match only MAC addresses from the allowlist"() {
+
+        given:
+        def allowlist = (0..<5000).collect { MacAddressUtil.toString(it * 7919L) } + MAC_ADDRESS.toLowerCase()
+        def objectUnderTest = compile(new RxBleScanFilter.Builder().addMacAddresses(allowlist))
+
+        expect:
+        objectUnderTest.needsMacAddress()
+        objectUnderTest.matches(MAC_ADDRESS_KEY, SCAN_RECORD)
+        objectUnderTest.matches(7919L * 4999, SCAN_RECORD)
+        !objectUnderTest.matches(1, SCAN_RECORD)
+    }
+
+    @Unroll
+    def "should match name prefixes #namePrefixes: #expectedResult"() {
+
+        given:
+        def builder = new RxBleScanFilter.Builder()
+        namePrefixes.each { builder.addNamePrefix(it) }
+
+        expect:
+        compile(builder).matches(MAC_ADDRESS_KEY, SCAN_RECORD) == expectedResult
+
+        where:
+        namePrefixes                 | expectedResult
+        ["Sensor"]                   | true
+        ["Sensor 1"]                 | true
+        ["Sensor 12"]                | false
+        ["sensor"]                   | false
+        ["Tag", "Sen"]               | true
+        ["Tag", "Sensor 2", "Sensa"] | false
+        [""]                         | true
+    }
+
+    @Unroll
+    def "should match manufacturer data of company #companyId with prefix #prefix and mask #mask: #expectedResult"() {
+
+        given:
+        def objectUnderTest = compile(new RxBleScanFilter.Builder().addManufacturerData(companyId, prefix as byte[], mask as byte[]))
+
+        expect:
+        objectUnderTest.matches(MAC_ADDRESS_KEY, SCAN_RECORD) == expectedResult
+
+        where:
+        companyId | prefix                   | mask               | expectedResult
+        0x004c    | [0x02, 0x15]             | null               | true
+        0x004c    | []                       | null               | true
+        0x004c    | [0x02, 0x16]             | null               | false
+        0x004c    | [0x02, 0x14]             | [0xff, 0xf0]       | true
+        0x004c    | [0x02, 0x15, 0x33, 0x00] | null               | false
+        0x0059    | [0x02, 0x15]             | null               | false
+    }
+
+    @Unroll
+    def "should match service data of #serviceUuid with prefix #prefix: #expectedResult"() {
+
+        given:
+        def objectUnderTest = compile(new RxBleScanFilter.Builder().addServiceData(serviceUuid, prefix as byte[], null))
+
+        expect:
+        objectUnderTest.matches(MAC_ADDRESS_KEY, SCAN_RECORD) == expectedResult
+
+        where:
+        serviceUuid        | prefix       | expectedResult
+        HEART_RATE_SERVICE | [0x11, 0x22] | true
+        HEART_RATE_SERVICE | [0x11, 0x23] | false
+        CUSTOM_SERVICE     | [0x33]       | true
+        CUSTOM_SERVICE     | [0x11]       | false
+    }
+
+    def "should require all criteria to match"() {
+
+        given:
+        def builder = new RxBleScanFilter.Builder()
+                .addNamePrefix("Sensor")
+                .addManufacturerData(0x004c, [0x02] as byte[], null)
+
+        expect:
+        compile(builder).matches(MAC_ADDRESS_KEY, SCAN_RECORD)
+        !compile(builder.addServiceData(HEART_RATE_SERVICE, [0x00] as byte[], null)).matches(MAC_ADDRESS_KEY, SCAN_RECORD)
+    }
+
+    def "should reject malformed filters"() {
+
+        when:
+        builderAction(new RxBleScanFilter.Builder())
+
+        then:
+        thrown IllegalArgumentException
+
+        where:
+        builderAction << [
+                { it.addMacAddresses(["AA:BB:CC"]) },
+                { it.addManufacturerData(0x10000, [] as byte[], null) },
+                { it.addServiceData(HEART_RATE_SERVICE, [0x01, 0x02] as byte[], [0xff] as byte[]) }
+        ]
+    }
+
+    private static CompiledScanFilter compile(RxBleScanFilter.Builder builder) {
+        return new CompiledScanFilter(builder.build())
+    }
+}
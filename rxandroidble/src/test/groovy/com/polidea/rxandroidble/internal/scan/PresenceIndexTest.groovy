@@ -0,0 +1,156 @@
+package com.polidea.rxandroidble.internal.scan
+
+import com.polidea.rxandroidble.RxBleDevice
+import com.polidea.rxandroidble.RxBlePresenceTracker
+import com.polidea.rxandroidble.internal.util.MacAddressUtil
+import rx.Observable
+import rx.functions.Func1
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+import static com.polidea.rxandroidble.RxBlePresenceTracker.PresenceChange.Type.ADDED
+import static com.polidea.rxandroidble.RxBlePresenceTracker.PresenceChange.Type.LOST
+import static com.polidea.rxandroidble.RxBlePresenceTracker.PresenceChange.Type.UPDATED
+
+class PresenceIndexTest extends Specification {
+
+    private static final long LOST_TIMEOUT_MILLIS = 1000
+    private static final String MAC_ADDRESS = "AA:BB:CC:DD:EE:FF"
+    private static final byte[] SCAN_RECORD = [0x02, 0x01, 0x06] as byte[]
+    private static final byte[] OTHER_SCAN_RECORD = [0x02, 0x01, 0x04] as byte[]
+
+    TestScheduler testScheduler = new TestScheduler()
+    Map<String, RxBleDevice> devices = [:]
+    def advertisementSource = Mock PresenceIndex.AdvertisementSource
+    PresenceIndex objectUnderTest
+    TestSubscriber<RxBlePresenceTracker.PresenceChange> testSubscriber = new TestSubscriber<>()
+
+    def setup() {
+        advertisementSource.observeAdvertisements(_) >> Observable.never()
+        def deviceProvider = { String macAddress ->
+            devices.get(macAddress, Mock(RxBleDevice))
+        } as Func1<String, RxBleDevice>
+        objectUnderTest = new PresenceIndex(LOST_TIMEOUT_MILLIS, testScheduler, deviceProvider, advertisementSource)
+        objectUnderTest.observeChanges().subscribe(testSubscriber)
+    }
+
+    def "should emit an added change for the first advertisement of a device"() {
+
+        when:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+
+        then:
+        testSubscriber.assertValueCount(1)
+        def change = testSubscriber.onNextEvents[0]
+        change.type == ADDED
+        change.devicePresence.bleDevice == devices[MAC_ADDRESS]
+        change.devicePresence.rssi == -50
+    }
+
+    def "should update the presence without emitting a change if the advertisement data did not change"() {
+
+        given:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+        testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+
+        when:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -60, SCAN_RECORD.clone())
+
+        then:
+        testSubscriber.assertValueCount(1)
+        def presence = objectUnderTest.getDevicePresence(MAC_ADDRESS)
+        presence.rssi == -60
+        presence.lastSeenMillis == 100
+    }
+
+    def "should emit an updated change if the advertisement data changed"() {
+
+        given:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+
+        when:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, OTHER_SCAN_RECORD)
+
+        then:
+        testSubscriber.assertValueCount(2)
+        testSubscriber.onNextEvents[1].type == UPDATED
+    }
+
+    def "should emit a lost change if the device did not advertise within the timeout"() {
+
+        given:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+
+        when:
+        testScheduler.advanceTimeBy(LOST_TIMEOUT_MILLIS - 1, TimeUnit.MILLISECONDS)
+
+        then:
+        testSubscriber.assertValueCount(1)
+
+        when:
+        testScheduler.advanceTimeBy(LOST_TIMEOUT_MILLIS.intdiv(PresenceIndex.TICKS_PER_TIMEOUT), TimeUnit.MILLISECONDS)
+
+        then:
+        testSubscriber.assertValueCount(2)
+        testSubscriber.onNextEvents[1].type == LOST
+        objectUnderTest.getDevicePresence(MAC_ADDRESS) == null
+        objectUnderTest.presentDeviceCount == 0
+    }
+
+    def "should keep a device that keeps advertising"() {
+
+        given:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+
+        when:
+        10.times {
+            testScheduler.advanceTimeBy(LOST_TIMEOUT_MILLIS.intdiv(2), TimeUnit.MILLISECONDS)
+            objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+        }
+
+        then:
+        testSubscriber.assertValueCount(1)
+        objectUnderTest.presentDeviceCount == 1
+    }
+
+    def "should track thousands of devices and expire only the silent ones"() {
+
+        given:
+        def macAddresses = (0..<5000).collect { MacAddressUtil.toString(it * 7919L) }
+        macAddresses.each { objectUnderTest.onAdvertisement(it, -50, SCAN_RECORD) }
+
+        when:
+        4.times {
+            testScheduler.advanceTimeBy(LOST_TIMEOUT_MILLIS.intdiv(2), TimeUnit.MILLISECONDS)
+            macAddresses.eachWithIndex { String macAddress, int index ->
+                if (index % 2 == 0) {
+                    objectUnderTest.onAdvertisement(macAddress, -50, SCAN_RECORD)
+                }
+            }
+        }
+
+        then:
+        objectUnderTest.presentDeviceCount == 2500
+        objectUnderTest.presentDevices.size() == 2500
+        testSubscriber.onNextEvents.count { it.type == LOST } == 2500
+        macAddresses.indices.every { int index ->
+            (objectUnderTest.getDevicePresence(macAddresses[index]) != null) == (index % 2 == 0)
+        }
+    }
+
+    def "should clear the index without emitting lost changes when the last subscriber unsubscribes"() {
+
+        given:
+        objectUnderTest.onAdvertisement(MAC_ADDRESS, -50, SCAN_RECORD)
+
+        when:
+        testSubscriber.unsubscribe()
+
+        then:
+        objectUnderTest.presentDeviceCount == 0
+        testSubscriber.assertValueCount(1)
+    }
+}
@@ -0,0 +1,49 @@
+package com.polidea.rxandroidble.internal.scan
+
+import spock.lang.Specification
+
+class ScanFilterIndexTest extends Specification {
+
+    static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    static final UUID BATTERY_SERVICE = UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb")
+    static final byte[] HEART_RATE_ADVERTISEMENT = [3, 0x03, 0x0D, 0x18] as byte[]
+    static final byte[] BATTERY_ADVERTISEMENT = [3, 0x03, 0x0F, 0x18] as byte[]
+
+    ScanFilterIndex objectUnderTest = new ScanFilterIndex([
+            [HEART_RATE_SERVICE] as Set<UUID>,
+            [BATTERY_SERVICE] as Set<UUID>,
+            [HEART_RATE_SERVICE, BATTERY_SERVICE] as Set<UUID>,
+            [] as Set<UUID>
+    ])
+
+    def "should match the filters of which all UUIDs are advertised"() {
+
+        when:
+        def advertisedMask = objectUnderTest.findAdvertised(HEART_RATE_ADVERTISEMENT)
+
+        then:
+        (0..<objectUnderTest.size()).collect { objectUnderTest.matches(it, advertisedMask) } == [true, false, false, true]
+    }
+
+    def "should reuse the mask without keeping the UUIDs of the previous advertisement"() {
+
+        given:
+        def firstMask = objectUnderTest.findAdvertised(HEART_RATE_ADVERTISEMENT)
+
+        when:
+        def secondMask = objectUnderTest.findAdvertised(BATTERY_ADVERTISEMENT)
+
+        then:
+        secondMask.is(firstMask)
+        (0..<objectUnderTest.size()).collect { objectUnderTest.matches(it, secondMask) } == [false, true, false, true]
+    }
+
+    def "should match every advertisement if no filter has UUIDs"() {
+
+        given:
+        def index = new ScanFilterIndex([[] as Set<UUID>])
+
+        expect:
+        index.matches(0, index.findAdvertised(HEART_RATE_ADVERTISEMENT))
+    }
+}
@@ -0,0 +1,470 @@
+package com.polidea.rxandroidble.internal.scan
+
+import android.bluetooth.BluetoothAdapter
+import android.bluetooth.BluetoothDevice
+import com.polidea.rxandroidble.FlatRxBleRadio
+import com.polidea.rxandroidble.RxBleScanFilter
+import com.polidea.rxandroidble.RxBleScanResult
+import com.polidea.rxandroidble.RxBleScanSettings
+import com.polidea.rxandroidble.exceptions.BleScanException
+import com.polidea.rxandroidble.internal.RxBleInternalScanResult
+import com.polidea.rxandroidble.internal.operations.RxBleRadioOperationScan
+import com.polidea.rxandroidble.internal.util.RxBleAdapterWrapper
+import rx.functions.Func1
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ScanMultiplexerTest extends Specification {
+
+    private static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID BATTERY_SERVICE = UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb")
+    // flags and 16-bit UUID of the heart rate service
+    private static final byte[] HEART_RATE_SCAN_RECORD = [0x02, 0x01, 0x06, 0x03, 0x03, 0x0d, 0x18] as byte[]
+    private static final RxBleScanSettings DEFAULT_SETTINGS = new RxBleScanSettings.Builder().build()
+
+    RxBleAdapterWrapper mockAdapterWrapper = Mock RxBleAdapterWrapper
+    BluetoothDevice mockBluetoothDevice = Mock BluetoothDevice
+    List<BluetoothAdapter.LeScanCallback> startedCallbacks = []
+    List<ScanConfiguration> startedConfigurations = []
+    int convertedResults = 0
+    boolean isConfigurable = true
+    TestScheduler testScheduler = new TestScheduler()
+    ScanMultiplexer objectUnderTest
+
+    def setup() {
+        mockAdapterWrapper.startLeScan(_) >> { BluetoothAdapter.LeScanCallback callback ->
+            startedCallbacks.add(callback)
+            true
+        }
+        createObjectUnderTest(false)
+    }
+
+    private void createObjectUnderTest(boolean limitScanStarts) {
+        def scanOperationFactory = [
+                createScanOperation: { ScanConfiguration configuration ->
+                    startedConfigurations.add(configuration)
+                    new RxBleRadioOperationScan(mockAdapterWrapper)
+                },
+                isConfigurable     : { isConfigurable }
+        ] as ScanMultiplexer.ScanOperationFactory
+        def converter = { RxBleInternalScanResult result ->
+            convertedResults++
+            new RxBleScanResult(null, result.rssi, result.scanRecord)
+        } as Func1<RxBleInternalScanResult, RxBleScanResult>
+        objectUnderTest = new ScanMultiplexer(new FlatRxBleRadio(), scanOperationFactory, converter, testScheduler, limitScanStarts)
+    }
+
+    def "should start a single scan for subscribers with the same filter"() {
+
+        when:
+        subscribe([HEART_RATE_SERVICE])
+        subscribe([HEART_RATE_SERVICE])
+
+        then:
+        startedConfigurations.size() == 1
+        startedConfigurations[0].anyOfServiceUuids == [HEART_RATE_SERVICE] as Set
+    }
+
+    def "should restart the scan only when the union of the filters changes"() {
+
+        given:
+        def unfilteredSubscriber = subscribe([])
+
+        when:
+        subscribe([HEART_RATE_SERVICE])
+
+        then:
+        startedConfigurations.size() == 1
+        0 * mockAdapterWrapper.stopLeScan(_)
+
+        when:
+        unfilteredSubscriber.unsubscribe()
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(startedCallbacks[0])
+        startedConfigurations.size() == 2
+        startedConfigurations[1].anyOfServiceUuids == [HEART_RATE_SERVICE] as Set
+    }
+
+    def "should not restart the scan if the operations are not configurable"() {
+
+        given:
+        isConfigurable = false
+        subscribe([BATTERY_SERVICE])
+
+        when:
+        subscribe([HEART_RATE_SERVICE], new RxBleScanSettings.Builder().setScanMode(RxBleScanSettings.ScanMode.LOW_POWER).build())
+
+        then:
+        startedConfigurations.size() == 1
+        0 * mockAdapterWrapper.stopLeScan(_)
+    }
+
+    def "should merge the scan settings of all subscribers"() {
+
+        given:
+        subscribe([], new RxBleScanSettings.Builder()
+                .setScanMode(RxBleScanSettings.ScanMode.LOW_POWER)
+                .setCallbackType(RxBleScanSettings.CallbackType.FIRST_MATCH)
+                .setMatchMode(RxBleScanSettings.MatchMode.STICKY)
+                .setReportDelayMillis(1000)
+                .build())
+
+        when:
+        subscribe([], new RxBleScanSettings.Builder()
+                .setScanMode(RxBleScanSettings.ScanMode.BALANCED)
+                .setCallbackType(RxBleScanSettings.CallbackType.MATCH_LOST)
+                .setMatchMode(RxBleScanSettings.MatchMode.AGGRESSIVE)
+                .setReportDelayMillis(500)
+                .build())
+
+        then:
+        startedConfigurations.size() == 2
+        with(startedConfigurations[1].scanSettings) {
+            scanMode == RxBleScanSettings.ScanMode.BALANCED
+            callbackType == RxBleScanSettings.CallbackType.ALL_MATCHES
+            matchMode == RxBleScanSettings.MatchMode.AGGRESSIVE
+            reportDelayMillis == 500
+        }
+    }
+
+    def "should deliver an advertisement only to subscribers with a matching filter and convert it once"() {
+
+        given:
+        def heartRateSubscriber = subscribe([HEART_RATE_SERVICE])
+        def otherHeartRateSubscriber = subscribe([HEART_RATE_SERVICE])
+        def batterySubscriber = subscribe([BATTERY_SERVICE])
+        def bothServicesSubscriber = subscribe([HEART_RATE_SERVICE, BATTERY_SERVICE])
+        def unfilteredSubscriber = subscribe([])
+
+        when:
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        heartRateSubscriber.assertValueCount(1)
+        otherHeartRateSubscriber.assertValueCount(1)
+        batterySubscriber.assertNoValues()
+        bothServicesSubscriber.assertNoValues()
+        unfilteredSubscriber.assertValueCount(1)
+        convertedResults == 1
+    }
+
+    def "should stop the scan when the last subscriber unsubscribes"() {
+
+        given:
+        def firstSubscriber = subscribe([HEART_RATE_SERVICE])
+        def secondSubscriber = subscribe([HEART_RATE_SERVICE])
+
+        when:
+        firstSubscriber.unsubscribe()
+
+        then:
+        0 * mockAdapterWrapper.stopLeScan(_)
+
+        when:
+        secondSubscriber.unsubscribe()
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(startedCallbacks[0])
+    }
+
+    def "should deliver a scan error to all subscribers and start a new scan for the next subscriber"() {
+
+        given:
+        def firstSubscriber = subscribe([HEART_RATE_SERVICE])
+        def secondSubscriber = subscribe([])
+        def failingScanOperation = startedCallbacks.size()
+
+        when:
+        objectUnderTest.runningOperation.onError(new BleScanException(BleScanException.BLUETOOTH_CANNOT_START))
+
+        then:
+        firstSubscriber.assertError(BleScanException)
+        secondSubscriber.assertError(BleScanException)
+
+        when:
+        subscribe([])
+
+        then:
+        startedCallbacks.size() == failingScanOperation + 1
+    }
+
+    def "should stop the scan immediately if it was not started recently"() {
+
+        given:
+        createObjectUnderTest(true)
+        def subscriber = subscribe([])
+
+        when:
+        subscriber.unsubscribe()
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(_)
+    }
+
+    def "should hold the scan open after the last subscriber left if scans were started recently"() {
+
+        given:
+        createObjectUnderTest(true)
+        subscribe([]).unsubscribe()
+        def secondSubscriber = subscribe([])
+
+        when:
+        secondSubscriber.unsubscribe()
+        testScheduler.advanceTimeBy(ScanMultiplexer.SCAN_LINGER_MILLIS - 1, TimeUnit.MILLISECONDS)
+        def thirdSubscriber = subscribe([])
+
+        then:
+        0 * mockAdapterWrapper.stopLeScan(_)
+        startedConfigurations.size() == 2
+
+        when:
+        thirdSubscriber.unsubscribe()
+        testScheduler.advanceTimeBy(ScanMultiplexer.SCAN_LINGER_MILLIS, TimeUnit.MILLISECONDS)
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(startedCallbacks[1])
+    }
+
+    def "should defer a scan start exceeding the limit and report the deferral"() {
+
+        given:
+        createObjectUnderTest(true)
+        def deferrals = new TestSubscriber<Long>()
+        objectUnderTest.observeDeferredScanStarts().subscribe(deferrals)
+        startAndStopScans(ScanMultiplexer.MAX_SCAN_STARTS)
+
+        when:
+        def subscriber = subscribe([])
+        subscribe([HEART_RATE_SERVICE])
+
+        then:
+        startedConfigurations.size() == ScanMultiplexer.MAX_SCAN_STARTS
+        deferrals.assertValue(ScanMultiplexer.SCAN_STARTS_WINDOW_MILLIS - ScanMultiplexer.MAX_SCAN_STARTS * ScanMultiplexer.SCAN_LINGER_MILLIS)
+
+        when:
+        testScheduler.advanceTimeBy(deferrals.onNextEvents[0], TimeUnit.MILLISECONDS)
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        startedConfigurations.size() == ScanMultiplexer.MAX_SCAN_STARTS + 1
+        subscriber.assertValueCount(1)
+    }
+
+    def "should start the last scan allowed within the window without the filter and keep it for the following subscribers"() {
+
+        given:
+        createObjectUnderTest(true)
+        startAndStopScans(ScanMultiplexer.MAX_SCAN_STARTS - 1)
+
+        when:
+        subscribe([HEART_RATE_SERVICE])
+        subscribe([BATTERY_SERVICE])
+
+        then:
+        startedConfigurations.size() == ScanMultiplexer.MAX_SCAN_STARTS
+        startedConfigurations.last().anyOfServiceUuids.isEmpty()
+        0 * mockAdapterWrapper.stopLeScan(_)
+    }
+
+    def "should pause the scan after the window and resume it at the next interval"() {
+
+        given:
+        subscribe([], new RxBleScanSettings.Builder().setDutyCycle(1000, 5000).build())
+
+        when:
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        then:
+        1 * mockAdapterWrapper.stopLeScan(startedCallbacks[0])
+
+        when:
+        testScheduler.advanceTimeBy(3999, TimeUnit.MILLISECONDS)
+
+        then:
+        startedCallbacks.size() == 1
+
+        when:
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+
+        then:
+        startedCallbacks.size() == 2
+        startedConfigurations.size() == 2
+        startedConfigurations[1] == startedConfigurations[0]
+    }
+
+    def "should extend the duty cycle interval if scan starts are limited"() {
+
+        given:
+        createObjectUnderTest(true)
+        subscribe([], new RxBleScanSettings.Builder().setDutyCycle(1000, 2000).build())
+
+        when:
+        testScheduler.advanceTimeBy(ScanMultiplexer.MIN_LIMITED_SCAN_INTERVAL_MILLIS - 1, TimeUnit.MILLISECONDS)
+
+        then:
+        startedCallbacks.size() == 1
+
+        when:
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+
+        then:
+        startedCallbacks.size() == 2
+    }
+
+    def "should scan continuously if any subscriber needs a continuous scan"() {
+
+        given:
+        subscribe([], new RxBleScanSettings.Builder().setDutyCycle(1000, 5000).build())
+
+        when:
+        subscribe([HEART_RATE_SERVICE])
+        testScheduler.advanceTimeBy(10000, TimeUnit.MILLISECONDS)
+
+        then:
+        !startedConfigurations.last().scanSettings.dutyCycled
+        1 * mockAdapterWrapper.stopLeScan(_)
+        startedCallbacks.size() == 2
+    }
+
+    def "should stop a paused scan without resuming it when the last subscriber unsubscribes"() {
+
+        given:
+        def subscriber = subscribe([], new RxBleScanSettings.Builder().setDutyCycle(1000, 5000).build())
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        when:
+        subscriber.unsubscribe()
+        testScheduler.advanceTimeBy(10000, TimeUnit.MILLISECONDS)
+
+        then:
+        startedCallbacks.size() == 1
+    }
+
+    def "should emit collected results as a batch after the report delay"() {
+
+        given:
+        def batchSubscriber = new TestSubscriber<List<RxBleScanResult>>()
+        objectUnderTest.addBatchSubscriber(batchSubscriber, [HEART_RATE_SERVICE] as Set,
+                new RxBleScanSettings.Builder().setReportDelayMillis(1000).build())
+
+        when:
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -60, HEART_RATE_SCAN_RECORD)
+
+        then:
+        batchSubscriber.assertNoValues()
+
+        when:
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        then:
+        batchSubscriber.assertValueCount(1)
+        batchSubscriber.onNextEvents[0]*.rssi == [-50, -60]
+
+        when:
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        then:
+        batchSubscriber.assertValueCount(1)
+    }
+
+    def "should emit the collected batch before a scan error"() {
+
+        given:
+        def batchSubscriber = new TestSubscriber<List<RxBleScanResult>>()
+        objectUnderTest.addBatchSubscriber(batchSubscriber, [] as Set, new RxBleScanSettings.Builder().setReportDelayMillis(1000).build())
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        when:
+        objectUnderTest.runningOperation.onError(new BleScanException(BleScanException.BLUETOOTH_CANNOT_START))
+
+        then:
+        batchSubscriber.assertValueCount(1)
+        batchSubscriber.assertError(BleScanException)
+    }
+
+    def "should not convert advertisements suppressed for every deduplicating subscriber"() {
+
+        given:
+        mockBluetoothDevice.getAddress() >> "AA:BB:CC:DD:EE:FF"
+        def deduplicatingSubscriber = subscribe([], new RxBleScanSettings.Builder().setDeduplication(1000, 0, 1f).build())
+        def otherDeduplicatingSubscriber = subscribe([HEART_RATE_SERVICE],
+                new RxBleScanSettings.Builder().setDeduplication(0, 0, 1f).build())
+
+        when:
+        3.times { startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD) }
+
+        then:
+        deduplicatingSubscriber.assertValueCount(1)
+        otherDeduplicatingSubscriber.assertValueCount(1)
+        convertedResults == 1
+
+        when:
+        testScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        deduplicatingSubscriber.assertValueCount(2)
+        otherDeduplicatingSubscriber.assertValueCount(1)
+    }
+
+    def "should pass advertisements to a listener without converting them"() {
+
+        given:
+        def listener = Mock ScanMultiplexer.AdvertisementListener
+        objectUnderTest.addListener(new TestSubscriber(), listener, [HEART_RATE_SERVICE] as Set, DEFAULT_SETTINGS)
+
+        when:
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        1 * listener.onAdvertisement({ it.bluetoothDevice == mockBluetoothDevice && it.rssi == -50 })
+        convertedResults == 0
+    }
+
+    def "should not convert advertisements rejected by the compiled filter"() {
+
+        given:
+        mockBluetoothDevice.getAddress() >> "AA:BB:CC:DD:EE:FF"
+        def allowedSubscriber = new TestSubscriber<RxBleScanResult>()
+        def rejectingSubscriber = new TestSubscriber<RxBleScanResult>()
+        objectUnderTest.addSubscriber(allowedSubscriber, [] as Set, compiledFilterOf("AA:BB:CC:DD:EE:FF"), DEFAULT_SETTINGS)
+        objectUnderTest.addSubscriber(rejectingSubscriber, [] as Set, compiledFilterOf("11:22:33:44:55:66"), DEFAULT_SETTINGS)
+
+        when:
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        allowedSubscriber.assertValueCount(1)
+        rejectingSubscriber.assertNoValues()
+        convertedResults == 1
+
+        when:
+        allowedSubscriber.unsubscribe()
+        startedCallbacks.last().onLeScan(mockBluetoothDevice, -50, HEART_RATE_SCAN_RECORD)
+
+        then:
+        convertedResults == 1
+    }
+
+    private void startAndStopScans(int count) {
+        count.times {
+            subscribe([]).unsubscribe()
+            testScheduler.advanceTimeBy(ScanMultiplexer.SCAN_LINGER_MILLIS, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    private static CompiledScanFilter compiledFilterOf(String macAddress) {
+        new CompiledScanFilter(new RxBleScanFilter.Builder().addMacAddresses([macAddress]).build())
+    }
+
+    private TestSubscriber<RxBleScanResult> subscribe(List<UUID> filter, RxBleScanSettings settings = DEFAULT_SETTINGS) {
+        def testSubscriber = new TestSubscriber<RxBleScanResult>()
+        objectUnderTest.addSubscriber(testSubscriber, filter as Set, settings)
+        return testSubscriber
+    }
+}
@@ -0,0 +1,93 @@
+package com.polidea.rxandroidble.internal.scan
+
+import com.polidea.rxandroidble.RxBleScanSettings
+import spock.lang.Specification
+
+import static com.polidea.rxandroidble.internal.scan.ScanResultDeduplicator.SUPPRESSED
+
+class ScanResultDeduplicatorTest extends Specification {
+
+    private static final long DEVICE = 0xAABBCCDDEEFFL
+    private static final long OTHER_DEVICE = 0x112233445566L
+    private static final byte[] SCAN_RECORD = [0x02, 0x01, 0x06] as byte[]
+    private static final byte[] OTHER_SCAN_RECORD = [0x02, 0x01, 0x04] as byte[]
+
+    ScanResultDeduplicator objectUnderTest
+
+    def "should emit the first advertisement of every device and suppress unchanged repetitions"() {
+
+        given:
+        createObjectUnderTest(0, 0, 1f)
+
+        expect:
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 0) == -50
+        objectUnderTest.process(OTHER_DEVICE, -60, SCAN_RECORD, 0) == -60
+        objectUnderTest.process(DEVICE, -55, SCAN_RECORD, 100) == SUPPRESSED
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD.clone(), 1000000) == SUPPRESSED
+    }
+
+    def "should emit an advertisement with a changed payload"() {
+
+        given:
+        createObjectUnderTest(0, 0, 1f)
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 0)
+
+        expect:
+        objectUnderTest.process(DEVICE, -50, OTHER_SCAN_RECORD, 100) == -50
+        objectUnderTest.process(DEVICE, -50, OTHER_SCAN_RECORD, 200) == SUPPRESSED
+    }
+
+    def "should emit an unchanged advertisement again after the heartbeat"() {
+
+        given:
+        createObjectUnderTest(1000, 0, 1f)
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 0)
+
+        expect:
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 999) == SUPPRESSED
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 1000) == -50
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 1500) == SUPPRESSED
+    }
+
+    def "should emit the smoothed RSSI when it changes by at least the threshold"() {
+
+        given:
+        createObjectUnderTest(0, 5, 0.5f)
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 0)
+
+        expect:
+        objectUnderTest.process(DEVICE, -58, SCAN_RECORD, 100) == SUPPRESSED // smoothed -54
+        objectUnderTest.process(DEVICE, -58, SCAN_RECORD, 200) == -56
+        objectUnderTest.process(DEVICE, -80, SCAN_RECORD, 300) == -68
+    }
+
+    def "should keep the state of thousands of devices"() {
+
+        given:
+        createObjectUnderTest(0, 0, 1f)
+        5000.times { objectUnderTest.process(it, -50, SCAN_RECORD, 0) }
+
+        expect:
+        (0..<5000).every { objectUnderTest.process(it, -50, SCAN_RECORD, 1000) == SUPPRESSED }
+    }
+
+    def "should forget devices that were not seen for a long time"() {
+
+        given:
+        createObjectUnderTest(0, 0, 1f)
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, 0)
+
+        when:
+        // growing the table drops the stale device
+        100.times { objectUnderTest.process(it, -50, SCAN_RECORD, ScanResultDeduplicator.STALE_DEVICE_MILLIS) }
+
+        then:
+        objectUnderTest.process(DEVICE, -50, SCAN_RECORD, ScanResultDeduplicator.STALE_DEVICE_MILLIS) == -50
+    }
+
+    private void createObjectUnderTest(long heartbeatMillis, int rssiChangeThreshold, float rssiSmoothingFactor) {
+        objectUnderTest = new ScanResultDeduplicator(new RxBleScanSettings.Builder()
+                .setDeduplication(heartbeatMillis, rssiChangeThreshold, rssiSmoothingFactor)
+                .build())
+    }
+}
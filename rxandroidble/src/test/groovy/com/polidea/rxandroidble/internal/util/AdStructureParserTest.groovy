@@ -0,0 +1,60 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static com.polidea.rxandroidble.internal.util.AdStructureParser.NO_AD_STRUCTURE
+
+class AdStructureParserTest extends Specification {
+
+    def "should walk all structures of the advertisement"() {
+
+        given:
+        byte[] scanRecord = [2, 0x01, 0x06, 3, 0x03, 0x0D, 0x18, 1, 0x09] as byte[]
+
+        expect:
+        walk(scanRecord) == [
+                [offset: 0, type: 0x01, dataStart: 2, dataLength: 1, end: 3],
+                [offset: 3, type: 0x03, dataStart: 5, dataLength: 2, end: 7],
+                [offset: 7, type: 0x09, dataStart: 9, dataLength: 0, end: 9]
+        ]
+    }
+
+    def "should return an unsigned AD type"() {
+
+        given:
+        byte[] scanRecord = [3, (byte) 0xFF, 0x4C, 0x00] as byte[]
+
+        expect:
+        AdStructureParser.adType(scanRecord, AdStructureParser.firstAdStructure(scanRecord)) == 0xFF
+    }
+
+    @Unroll
+    def "should stop at #description"() {
+
+        expect:
+        walk(scanRecord as byte[])*.offset == expectedOffsets
+
+        where:
+        description                        | scanRecord                           | expectedOffsets
+        "an empty record"                  | []                                   | []
+        "a lone length byte"               | [2]                                  | []
+        "the zero length padding"          | [2, 0x01, 0x06, 0, 0, 3, 0x03, 0x0D] | [0]
+        "a structure exceeding the record" | [2, 0x01, 0x06, 4, 0x03, 0x0D, 0x18] | [0]
+    }
+
+    private static List<Map<String, Integer>> walk(byte[] scanRecord) {
+        def structures = []
+        for (int offset = AdStructureParser.firstAdStructure(scanRecord); offset != NO_AD_STRUCTURE;
+             offset = AdStructureParser.nextAdStructure(scanRecord, offset)) {
+            structures.add([
+                    offset    : offset,
+                    type      : AdStructureParser.adType(scanRecord, offset),
+                    dataStart : AdStructureParser.adDataStart(offset),
+                    dataLength: AdStructureParser.adDataLength(scanRecord, offset),
+                    end       : AdStructureParser.adStructureEnd(scanRecord, offset)
+            ])
+        }
+        return structures
+    }
+}
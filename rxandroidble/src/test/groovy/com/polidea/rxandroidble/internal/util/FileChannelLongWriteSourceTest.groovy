@@ -0,0 +1,61 @@
+package com.polidea.rxandroidble.internal.util
+
+import rx.schedulers.Schedulers
+import rx.schedulers.TestScheduler
+import spock.lang.Specification
+
+import java.nio.channels.FileChannel
+
+class FileChannelLongWriteSourceTest extends Specification {
+
+    File file = File.createTempFile("long-write", ".bin")
+
+    FileChannel fileChannel
+
+    def setup() {
+        file.bytes = [0, 1, 2, 3, 4, 5, 6] as byte[]
+        fileChannel = new FileInputStream(file).channel
+    }
+
+    def cleanup() {
+        fileChannel.close()
+        file.delete()
+    }
+
+    def "should read batches from the current position of the channel"() {
+
+        given:
+        fileChannel.position(2)
+        def objectUnderTest = new FileChannelLongWriteSource(fileChannel, Schedulers.immediate())
+        byte[] batch = new byte[3]
+
+        expect:
+        objectUnderTest.read(batch).toBlocking().single() == 3
+        batch == [2, 3, 4] as byte[]
+
+        and:
+        objectUnderTest.read(batch).toBlocking().single() == 2
+        batch[0..1] == [5, 6]
+    }
+
+    def "should read on the passed scheduler"() {
+
+        given:
+        def ioScheduler = new TestScheduler()
+        def objectUnderTest = new FileChannelLongWriteSource(fileChannel, ioScheduler)
+        def readBytes = []
+
+        when:
+        objectUnderTest.read(new byte[3]).subscribe({ readBytes << it })
+
+        then:
+        readBytes.isEmpty()
+        fileChannel.position() == 0
+
+        when:
+        ioScheduler.triggerActions()
+
+        then:
+        readBytes == [3]
+    }
+}
@@ -0,0 +1,55 @@
+package com.polidea.rxandroidble.internal.util
+
+import rx.schedulers.Schedulers
+import spock.lang.Specification
+
+class InputStreamLongWriteSourceTest extends Specification {
+
+    def "should fill batches until the stream ends"() {
+
+        given:
+        def objectUnderTest = new InputStreamLongWriteSource(new ByteArrayInputStream([1, 2, 3, 4, 5] as byte[]), Schedulers.immediate())
+        byte[] batch = new byte[3]
+
+        expect:
+        objectUnderTest.read(batch).toBlocking().single() == 3
+        batch == [1, 2, 3] as byte[]
+
+        and:
+        objectUnderTest.read(batch).toBlocking().single() == 2
+        batch[0..1] == [4, 5]
+
+        and:
+        objectUnderTest.read(batch).toBlocking().single() == 0
+    }
+
+    def "should fill the whole batch even if the stream returns less bytes at once"() {
+
+        given:
+        def inputStream = new FilterInputStream(new ByteArrayInputStream([1, 2, 3, 4] as byte[])) {
+            @Override
+            int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1))
+            }
+        }
+        def objectUnderTest = new InputStreamLongWriteSource(inputStream, Schedulers.immediate())
+        byte[] batch = new byte[4]
+
+        expect:
+        objectUnderTest.read(batch).toBlocking().single() == 4
+        batch == [1, 2, 3, 4] as byte[]
+    }
+
+    def "should not close the stream on release"() {
+
+        given:
+        InputStream inputStream = Mock InputStream
+        def objectUnderTest = new InputStreamLongWriteSource(inputStream, Schedulers.immediate())
+
+        when:
+        objectUnderTest.release()
+
+        then:
+        0 * inputStream.close()
+    }
+}
@@ -0,0 +1,41 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Specification
+
+class LongHashSetTest extends Specification {
+
+    LongHashSet objectUnderTest = new LongHashSet()
+
+    def "should contain only the added values"() {
+
+        when:
+        def added = objectUnderTest.add(0)
+
+        then:
+        added
+        objectUnderTest.contains(0)
+        !objectUnderTest.contains(1)
+        objectUnderTest.size() == 1
+    }
+
+    def "should not add a value twice"() {
+
+        given:
+        objectUnderTest.add(42)
+
+        expect:
+        !objectUnderTest.add(42)
+        objectUnderTest.size() == 1
+    }
+
+    def "should grow to hold thousands of values"() {
+
+        when:
+        (0..<5000).each { objectUnderTest.add(it * 0x10000000L) }
+
+        then:
+        objectUnderTest.size() == 5000
+        (0..<5000).every { objectUnderTest.contains(it * 0x10000000L) }
+        !objectUnderTest.contains(5000 * 0x10000000L)
+    }
+}
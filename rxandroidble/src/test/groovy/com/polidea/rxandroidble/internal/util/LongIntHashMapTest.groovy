@@ -0,0 +1,72 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Specification
+
+class LongIntHashMapTest extends Specification {
+
+    LongIntHashMap objectUnderTest = new LongIntHashMap()
+
+    def "should contain only the put keys"() {
+
+        when:
+        def previousValue = objectUnderTest.put(0, 7)
+
+        then:
+        previousValue == LongIntHashMap.NO_VALUE
+        objectUnderTest.get(0) == 7
+        objectUnderTest.containsKey(0)
+        !objectUnderTest.containsKey(1)
+        objectUnderTest.get(1) == LongIntHashMap.NO_VALUE
+        objectUnderTest.size() == 1
+    }
+
+    def "should replace the value of a key put twice"() {
+
+        given:
+        objectUnderTest.put(0xAABBCCDDEEFFL, 1)
+
+        expect:
+        objectUnderTest.put(0xAABBCCDDEEFFL, 2) == 1
+        objectUnderTest.get(0xAABBCCDDEEFFL) == 2
+        objectUnderTest.size() == 1
+    }
+
+    def "should grow to hold thousands of keys"() {
+
+        when:
+        (0..<5000).each { objectUnderTest.put(it * 0x10000000L, it) }
+
+        then:
+        objectUnderTest.size() == 5000
+        (0..<5000).every { objectUnderTest.get(it * 0x10000000L) == it }
+        !objectUnderTest.containsKey(5000 * 0x10000000L)
+    }
+
+    def "should keep finding the other keys after keys were removed"() {
+
+        given:
+        (0..<1000).each { objectUnderTest.put(it, it) }
+
+        when:
+        def removedValues = (0..<1000).findAll { it % 3 == 0 }.collect { objectUnderTest.remove(it) }
+
+        then:
+        removedValues == (0..<1000).findAll { it % 3 == 0 }
+        objectUnderTest.size() == 666
+        (0..<1000).every { objectUnderTest.get(it) == (it % 3 == 0 ? LongIntHashMap.NO_VALUE : it) }
+        objectUnderTest.remove(0) == LongIntHashMap.NO_VALUE
+    }
+
+    def "should be empty after it was cleared"() {
+
+        given:
+        (0..<100).each { objectUnderTest.put(it, it) }
+
+        when:
+        objectUnderTest.clear()
+
+        then:
+        objectUnderTest.isEmpty()
+        (0..<100).every { !objectUnderTest.containsKey(it) }
+    }
+}
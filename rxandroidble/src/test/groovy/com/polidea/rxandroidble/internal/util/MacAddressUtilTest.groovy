@@ -0,0 +1,30 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MacAddressUtilTest extends Specification {
+
+    @Unroll
+    def "should convert #macAddress to #expectedValue"() {
+
+        expect:
+        MacAddressUtil.toLong(macAddress) == expectedValue
+
+        where:
+        macAddress          | expectedValue
+        "AA:BB:CC:DD:EE:FF" | 0xAABBCCDDEEFFL
+        "aa:bb:cc:dd:ee:ff" | 0xAABBCCDDEEFFL
+        "00:00:00:00:00:01" | 1L
+        null                | -1L
+        "AA:BB:CC:DD:EE"    | -1L
+        "AA-BB-CC-DD-EE-FF" | -1L
+        "AA:BB:CC:DD:EE:FG" | -1L
+    }
+
+    def "should convert the value back to the MAC address"() {
+
+        expect:
+        MacAddressUtil.toString(MacAddressUtil.toLong("0A:1B:2C:3D:4E:5F")) == "0A:1B:2C:3D:4E:5F"
+    }
+}
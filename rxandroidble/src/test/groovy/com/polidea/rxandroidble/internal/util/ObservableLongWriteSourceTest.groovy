@@ -0,0 +1,128 @@
+package com.polidea.rxandroidble.internal.util
+
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.subjects.PublishSubject
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicInteger
+
+class ObservableLongWriteSourceTest extends Specification {
+
+    def "should join and split chunks into batches"() {
+
+        given:
+        def objectUnderTest = new ObservableLongWriteSource(Observable.just(
+                ByteBuffer.wrap([0, 1] as byte[]),
+                ByteBuffer.wrap([] as byte[]),
+                ByteBuffer.wrap([2, 3, 4, 5, 6] as byte[])
+        ))
+        byte[] batch = new byte[3]
+
+        expect:
+        read(objectUnderTest, batch) == 3
+        batch == [0, 1, 2] as byte[]
+
+        and:
+        read(objectUnderTest, batch) == 3
+        batch == [3, 4, 5] as byte[]
+
+        and:
+        read(objectUnderTest, batch) == 1
+        batch[0] == 6 as byte
+
+        and:
+        read(objectUnderTest, batch) == 0
+    }
+
+    def "should request chunks one by one"() {
+
+        given:
+        AtomicInteger requested = new AtomicInteger()
+        def chunkObservable = Observable.range(0, 10)
+                .doOnRequest({ Long n -> requested.addAndGet(n as int) })
+                .map({ Integer i -> ByteBuffer.wrap([i] as byte[]) })
+        def objectUnderTest = new ObservableLongWriteSource(chunkObservable)
+
+        when:
+        read(objectUnderTest, new byte[2])
+
+        then:
+        requested.get() == 2
+    }
+
+    def "should finish the read when the requested chunk is emitted without blocking the reading thread"() {
+
+        given:
+        PublishSubject<ByteBuffer> chunkSubject = PublishSubject.create()
+        def objectUnderTest = new ObservableLongWriteSource(chunkSubject)
+        def testSubscriber = new TestSubscriber<Integer>()
+        byte[] batch = new byte[2]
+
+        when:
+        objectUnderTest.read(batch).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertNoValues()
+
+        when:
+        chunkSubject.onNext(ByteBuffer.wrap([1] as byte[]))
+
+        then:
+        testSubscriber.assertNoValues()
+
+        when:
+        chunkSubject.onNext(ByteBuffer.wrap([2, 3] as byte[]))
+
+        then:
+        testSubscriber.assertValue(2)
+        testSubscriber.assertCompleted()
+        batch == [1, 2] as byte[]
+    }
+
+    def "should not subscribe before the first read"() {
+
+        given:
+        AtomicInteger subscriptions = new AtomicInteger()
+        new ObservableLongWriteSource(Observable.<ByteBuffer> empty().doOnSubscribe({ subscriptions.incrementAndGet() }))
+
+        expect:
+        subscriptions.get() == 0
+    }
+
+    def "should propagate the error emitted by the Observable"() {
+
+        given:
+        def exception = new IllegalStateException("test")
+        def objectUnderTest = new ObservableLongWriteSource(Observable.<ByteBuffer> error(exception))
+        def testSubscriber = new TestSubscriber<Integer>()
+
+        when:
+        objectUnderTest.read(new byte[1]).subscribe(testSubscriber)
+
+        then:
+        testSubscriber.assertError(exception)
+    }
+
+    def "should unsubscribe from the Observable on release"() {
+
+        given:
+        AtomicInteger unsubscriptions = new AtomicInteger()
+        def chunkObservable = Observable.<ByteBuffer> never()
+                .startWith(ByteBuffer.wrap([1] as byte[]))
+                .doOnUnsubscribe({ unsubscriptions.incrementAndGet() })
+        def objectUnderTest = new ObservableLongWriteSource(chunkObservable)
+        read(objectUnderTest, new byte[1])
+
+        when:
+        objectUnderTest.release()
+
+        then:
+        unsubscriptions.get() == 1
+    }
+
+    private static int read(LongWriteSource longWriteSource, byte[] batch) {
+        longWriteSource.read(batch).toBlocking().single()
+    }
+}
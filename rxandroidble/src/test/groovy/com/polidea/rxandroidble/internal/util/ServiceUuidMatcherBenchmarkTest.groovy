@@ -0,0 +1,92 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/**
+ * Microbenchmark comparing {@link ServiceUuidMatcher} with filtering through the previous implementation of
+ * {@link UUIDUtil#extractUUIDs(byte[])} (kept below as {@link #legacyExtractUUIDs(byte[])}) as it was done for every advertisement
+ * before. Run with RXANDROIDBLE_BENCHMARK=true environment variable set.
+ */
+@Requires({ env.RXANDROIDBLE_BENCHMARK })
+class ServiceUuidMatcherBenchmarkTest extends Specification {
+
+    private static final int WARM_UP_ROUNDS = 20000
+    private static final int MEASURED_ROUNDS = 200000
+
+    // flags, two 16-bit UUIDs, one 128-bit UUID, manufacturer data
+    private static final byte[] SCAN_RECORD = [
+            0x02, 0x01, 0x06,
+            0x05, 0x03, 0x0d, 0x18, 0x0f, 0x18,
+            0x11, 0x07, 0x3d, 0x37, 0xb7, 0xd1, 0xf6, 0x2e, 0x7b, 0x8a, 0x1c, 0x47, 0x14, 0x54, 0x18, 0xf5, 0x01, 0xf3,
+            0x05, 0xff, 0x4c, 0x00, 0x02, 0x15
+    ] as byte[]
+
+    def "should match a single advertisement faster than the previous UUIDUtil.extractUUIDs()"() {
+        given:
+        def filter = [UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb"),
+                      UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")] as UUID[]
+        def uuidUtil = new UUIDUtil()
+        def filterSet = uuidUtil.toDistinctSet(filter)
+        def matcher = new ServiceUuidMatcher(filter)
+
+        when:
+        long extractNanos = measure { legacyExtractUUIDs(SCAN_RECORD).containsAll(filterSet) }
+        long matcherNanos = measure { matcher.matches(SCAN_RECORD) }
+        println String.format("per advertisement: previous extractUUIDs() %5d ns, ServiceUuidMatcher %5d ns", extractNanos, matcherNanos)
+
+        then:
+        matcherNanos < extractNanos
+    }
+
+    private static long measure(Closure<Boolean> round) {
+        WARM_UP_ROUNDS.times { assert round() }
+        long start = System.nanoTime()
+        MEASURED_ROUNDS.times { round() }
+        return (System.nanoTime() - start).intdiv(MEASURED_ROUNDS)
+    }
+
+    /**
+     * {@link UUIDUtil#extractUUIDs(byte[])} before it was rewritten - formatting and parsing a String for every 16-bit UUID.
+     */
+    private static List<UUID> legacyExtractUUIDs(byte[] scanResult) {
+        List<UUID> uuids = new ArrayList<>()
+        ByteBuffer buffer = ByteBuffer.wrap(scanResult).order(ByteOrder.LITTLE_ENDIAN)
+
+        while (buffer.remaining() > 2) {
+            int length = buffer.get()
+            if (length == 0) break
+
+            int type = buffer.get()
+            switch (type) {
+                case 0x02: // Partial list of 16-bit UUIDs
+                case 0x03: // Complete list of 16-bit UUIDs
+                    while (length >= 2) {
+                        uuids.add(UUID.fromString(String.format(
+                                "%08x-0000-1000-8000-00805f9b34fb", buffer.getShort())))
+                        length -= 2
+                    }
+                    break
+
+                case 0x06: // Partial list of 128-bit UUIDs
+                case 0x07: // Complete list of 128-bit UUIDs
+                    while (length >= 16) {
+                        long lsb = buffer.getLong()
+                        long msb = buffer.getLong()
+                        uuids.add(new UUID(msb, lsb))
+                        length -= 16
+                    }
+                    break
+
+                default:
+                    buffer.position(buffer.position() + length - 1)
+                    break
+            }
+        }
+
+        return uuids
+    }
+}
@@ -0,0 +1,74 @@
+package com.polidea.rxandroidble.internal.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ServiceUuidMatcherTest extends Specification {
+
+    private static final UUID HEART_RATE_SERVICE = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb")
+    private static final UUID BATTERY_SERVICE = UUID.fromString("0000180f-0000-1000-8000-00805f9b34fb")
+    private static final UUID SHORT_32_BIT_SERVICE = UUID.fromString("1234abcd-0000-1000-8000-00805f9b34fb")
+    private static final UUID CUSTOM_SERVICE = UUID.fromString("f301f518-5414-471c-8a7b-2ef6d1b7373d")
+    private static final UUID OTHER_CUSTOM_SERVICE = UUID.fromString("ab906173-5daa-4d6b-8604-c2be69122d57")
+
+    // flags, 16-bit UUIDs (heart rate, battery), 32-bit UUIDs (0x1234abcd), 128-bit UUIDs (custom), local name "ab"
+    private static final byte[] SCAN_RECORD = [
+            0x02, 0x01, 0x06,
+            0x05, 0x03, 0x0d, 0x18, 0x0f, 0x18,
+            0x05, 0x05, 0xcd, 0xab, 0x34, 0x12,
+            0x11, 0x07, 0x3d, 0x37, 0xb7, 0xd1, 0xf6, 0x2e, 0x7b, 0x8a, 0x1c, 0x47, 0x14, 0x54, 0x18, 0xf5, 0x01, 0xf3,
+            0x03, 0x09, 0x61, 0x62,
+            0x00, 0x00, 0x00
+    ] as byte[]
+
+    @Unroll
+    def "should match #description"() {
+
+        expect:
+        new ServiceUuidMatcher(filter as UUID[]).matches(SCAN_RECORD) == expectedResult
+
+        where:
+        filter                                                           | expectedResult | description
+        []                                                               | true           | 'an empty filter'
+        [HEART_RATE_SERVICE]                                             | true           | 'a 16-bit UUID'
+        [BATTERY_SERVICE, HEART_RATE_SERVICE]                            | true           | 'two 16-bit UUIDs in any order'
+        [SHORT_32_BIT_SERVICE]                                           | true           | 'a 32-bit UUID'
+        [CUSTOM_SERVICE]                                                 | true           | 'a 128-bit UUID'
+        [HEART_RATE_SERVICE, SHORT_32_BIT_SERVICE, CUSTOM_SERVICE]       | true           | 'UUIDs of all lengths'
+        [HEART_RATE_SERVICE, HEART_RATE_SERVICE]                         | true           | 'a duplicated UUID'
+        [OTHER_CUSTOM_SERVICE]                                           | false          | 'a not advertised UUID'
+        [HEART_RATE_SERVICE, OTHER_CUSTOM_SERVICE]                       | false          | 'only a part of the UUIDs'
+    }
+
+    def "should not match UUIDs from a truncated AD structure"() {
+
+        given:
+        byte[] truncatedScanRecord = [0x05, 0x03, 0x0d, 0x18, 0x0f] as byte[]
+
+        expect:
+        !new ServiceUuidMatcher([HEART_RATE_SERVICE] as UUID[]).matches(truncatedScanRecord)
+    }
+
+    def "should match a filter with more than 64 UUIDs"() {
+
+        given:
+        List<UUID> uuids = (0..<100).collect { new UUID(UUIDUtil.shortUuidToMsb(0x2000 + it), UUIDUtil.BASE_UUID_LSB) }
+        def buffer = new ByteArrayOutputStream()
+        buffer.write(1 + uuids.size() * 2)
+        buffer.write(0x03)
+        uuids.eachWithIndex { uuid, index ->
+            buffer.write((0x2000 + index) & 0xFF)
+            buffer.write((0x2000 + index) >> 8)
+        }
+
+        expect:
+        new ServiceUuidMatcher(uuids as UUID[]).matches(buffer.toByteArray())
+        !new ServiceUuidMatcher((uuids + [CUSTOM_SERVICE]) as UUID[]).matches(buffer.toByteArray())
+    }
+
+    def "UUIDUtil.extractUUIDs() should extract UUIDs of all lengths"() {
+
+        expect:
+        new UUIDUtil().extractUUIDs(SCAN_RECORD) == [HEART_RATE_SERVICE, BATTERY_SERVICE, SHORT_32_BIT_SERVICE, CUSTOM_SERVICE]
+    }
+}